@@ -7,13 +7,20 @@ import org.graalvm.polyglot.Context.Builder;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 
+import som.compiler.SourcecodeCompiler;
 import som.interpreter.SomLanguage;
+import som.interpreter.actors.ActorScheduler;
 import som.interpreter.nodes.TypeCheckNode;
+import som.interpreter.nodes.dispatch.DispatchTable;
+import som.interpreter.nodes.dispatch.LookupCache;
+import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.interpreter.objectstorage.StorageAccessor;
 import som.vm.VmSettings;
+import som.vmobjects.SInvokable;
 import tools.concurrency.TracingActors.ReplayActor;
 import tools.concurrency.TracingBackend;
 import tools.snapshot.SnapshotBackend;
+import tools.snapshot.deserialization.SnapshotRestore;
 
 
 public final class Launcher {
@@ -59,6 +66,13 @@ public final class Launcher {
     }
 
     TypeCheckNode.reportStats();
+    SourcecodeCompiler.reportStats();
+    SInvokable.reportStats();
+    LookupCache.reportStats();
+    DispatchTable.reportStats();
+    ObjectTransitionSafepoint.reportStats();
+    ActorScheduler.reportStats();
+    SnapshotRestore.reportStats();
 
     if (exitCode != 0) {
       ReplayActor.printMissingMessages();
@@ -271,6 +271,10 @@ public final class VM {
     }
 
     shutdownPools();
+
+    if (objectSystem != null) {
+      objectSystem.shutdown();
+    }
   }
 
   public boolean isShutdown() {
@@ -179,7 +179,7 @@ public class AstBuilder {
      */
     public MixinDefinition module(final SSymbol[] locals, final JsonObject[] localTypes,
         final boolean[] localImmutable,
-        final SourceSection[] localSources, final JsonArray body,
+        final SourceSection[] localSources, final Iterable<JsonObject> body,
         final SourceSection sourceSection) {
       SSymbol moduleName = symbolFor(sourceManager.getModuleName());
       MixinBuilder moduleBuilder =
@@ -228,8 +228,8 @@ public class AstBuilder {
       // Translate the body and add each to the initializer (except when this is the main
       // module)
       if (!sourceManager.isMainModule()) {
-        for (JsonElement element : body) {
-          ExpressionNode expr = translator.translate(element.getAsJsonObject());
+        for (JsonObject element : body) {
+          ExpressionNode expr = translator.translate(element);
           if (expr != null) {
             moduleBuilder.addInitializerExpression(expr);
           }
@@ -252,9 +252,8 @@ public class AstBuilder {
       mainMethod.finalizeMethodScope();
       List<ExpressionNode> expressions = new ArrayList<ExpressionNode>();
       if (sourceManager.isMainModule()) {
-        for (JsonElement element : body) {
-          ExpressionNode expression =
-              translator.translate(element.getAsJsonObject());
+        for (JsonObject element : body) {
+          ExpressionNode expression = translator.translate(element);
           if (expression != null) {
             expressions.add(expression);
           }
@@ -664,10 +663,9 @@ public class AstBuilder {
         // Only add the check if it has a type.
         ExpressionNode typeExpr = arg.type == null ? null : arg.type.get();
         if (typeExpr != null) {
-          expressions.add(TypeCheckNode.create(typeExpr,
+          expressions.add(TypeCheckElimination.checkArgument(arg, typeExpr,
               arg.getReadNode(scopeManager.peekMethod().getContextLevel(arg.name),
-                  arg.source),
-              typeExpr.getSourceSection()));
+                  arg.source)));
         }
       }
 
@@ -739,10 +737,9 @@ public class AstBuilder {
         // Only add the check if it has a type.
         ExpressionNode typeExpr = arg.type == null ? null : arg.type.get();
         if (typeExpr != null) {
-          expressions.add(TypeCheckNode.create(typeExpr,
+          expressions.add(TypeCheckElimination.checkArgument(arg, typeExpr,
               arg.getReadNode(scopeManager.peekMethod().getContextLevel(arg.name),
-                  arg.source),
-              typeExpr.getSourceSection()));
+                  arg.source)));
         }
       }
 
@@ -1040,7 +1037,8 @@ public class AstBuilder {
      * Creatse a literal for an interface type.
      */
     public STypeLiteral type(final SSymbol[] signatures, final SourceSection sourceSection) {
-      return new STypeLiteral(new SType.InterfaceType(signatures)).initialize(sourceSection);
+      return new STypeLiteral(SType.InterfaceType.create(signatures))
+                                                                   .initialize(sourceSection);
     }
 
     /**
@@ -32,6 +32,7 @@ import static som.vm.Symbols.symbolFor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -54,13 +55,18 @@ import som.vmobjects.SSymbol;
 
 
 /**
- * The JSON Tree Translator is responsible for creating SOM AST from {@link #jsonAST} (a JSON
+ * The JSON Tree Translator is responsible for creating SOM AST from {@link #parseTree} (a JSON
  * representation of Grace AST) and also for extracting Grace's type information.
  *
  * The translator walks through each node of the JSON AST and uses the {@link AstBuilder} to
  * generate the equivalent AST for each node. The AstBuilder may invoke the parse method on
  * this translator (enabling recursive descent through the JSON AST), but should not interact
  * with this translator otherwise.
+ *
+ * The module itself is streamed from the {@link ParseTree}. First, only the fields needed to
+ * declare the module's slots are read, see {@link #DECLARATION_FIELDS}. Then, the elements of
+ * the module's body are translated one after another, and only the tree of the current
+ * element is built.
  */
 public class JsonTreeTranslator {
 
@@ -70,9 +76,16 @@ public class JsonTreeTranslator {
   private final SourceManager sourceManager;
 
   private final AstBuilder astBuilder;
-  private final JsonObject jsonAST;
+  private final ParseTree  parseTree;
+
+  /**
+   * The fields of a module's body elements, which are needed to declare the module's slots
+   * before its body is translated.
+   */
+  private static final Set<String> DECLARATION_FIELDS =
+      new HashSet<>(Arrays.asList("nodetype", "name", "type", "line", "column"));
 
-  public JsonTreeTranslator(final JsonObject jsonAST, final Source source,
+  public JsonTreeTranslator(final ParseTree parseTree, final Source source,
       final SomLanguage language,
       final StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> probe) {
     this.language = language;
@@ -81,7 +94,7 @@ public class JsonTreeTranslator {
     this.sourceManager = new SourceManager(language, source);
 
     this.astBuilder = new AstBuilder(this, scopeManager, sourceManager, language, probe);
-    this.jsonAST = jsonAST;
+    this.parseTree = parseTree;
   }
 
   /**
@@ -900,10 +913,10 @@ public class JsonTreeTranslator {
    * arguments are available).
    */
   public MixinDefinition translateModule() {
-    JsonObject moduleNode = jsonAST.get("module").getAsJsonObject();
+    JsonObject moduleNode = parseTree.readModule(DECLARATION_FIELDS);
     MixinDefinition result = astBuilder.objectBuilder.module(locals(moduleNode),
         typesForLocals(moduleNode), isDefForLocals(moduleNode), sourcesForLocals(moduleNode),
-        body(moduleNode),
+        parseTree.moduleBody(),
         source(moduleNode));
     return result;
   }
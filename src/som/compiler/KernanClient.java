@@ -28,32 +28,26 @@
  */
 package som.compiler;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ConnectException;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.oracle.truffle.api.source.Source;
-
-import bd.tools.structure.StructuralProbe;
-import som.VM;
-import som.compiler.MixinDefinition.SlotDefinition;
-import som.interpreter.SomLanguage;
-import som.vmobjects.SInvokable;
-import som.vmobjects.SSymbol;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 
 /**
@@ -67,402 +61,477 @@ import som.vmobjects.SSymbol;
  * is sent as a standard HTTP request (@see {@link #upgrade()}. Once processed, both Kernan and
  * this client switch into web-socket mode.
  *
- * Once in web-socket mode, the {@link Sender} and {@link Receiver} classes enable the two-way
- * asynchronous communication. Each implements a stack of {@link Frame} objects: whenever a
- * message is received it is read from the stream, decoded into a frame, and then added to the
- * stack; and whenever this client wants to send a message it is first encoded to a frame and
- * then added to the stack. The {@link Executors} module is used to run the sender and the
- * receiver asynchronously.
+ * A client is a long-lived session, which is shared by all modules parsed by a VM. Parse
+ * requests can be sent concurrently with {@link #requestParse(String, String)}, without
+ * waiting for earlier responses. Each request carries a key, which is used to match the
+ * response to the request, if Kernan includes it in the response. Otherwise, responses are
+ * matched to requests in the order the requests were sent, since Kernan processes them one
+ * after another.
  *
- * The client continues to wait until a response is received from Kernan. In particular, the
- * {@link Receiver} continues to process until it finds a response the compiler responds to
- * (currently just the parse tree and error responses, all others are ignored). Once found, the
- * contents of the message are used to complete the {@link #futureToComplete}. Once this future
- * has been completed, this client will simply returns the message to the compiler.
+ * A receiver thread reads all frames sent by Kernan, and reads the tokens of each message
+ * while its frames arrive, see {@link MessageStream}. No tree of the message is built. The
+ * parse tree is copied token by token into a {@link ParseTree}, which the
+ * {@link JsonTreeTranslator} streams again when it translates the module. Only parse trees
+ * and static errors complete a request, all other messages are ignored.
  *
  * While neither implementation is strictly compliant, the current implementation seems to be
  * sufficient for sending code to Kernan and receiving back errors and a parse tree.
  */
-public class KernanClient {
+public final class KernanClient implements Closeable {
 
-  private static final String address = "127.0.0.1";
-  private static final int    port    = 25447;
+  public static final String DEFAULT_ADDRESS = "127.0.0.1";
 
   // RFC operation codes
-  private static final int OPCODE_RUN   = 1;
-  private static final int OPCODE_CLOSE = 8;
+  private static final int OPCODE_CONTINUATION = 0;
+  private static final int OPCODE_RUN          = 1;
+  private static final int OPCODE_CLOSE        = 8;
+
+  // Frame header layout, as expected by Kernan
+  private static final int MESSAGE_BYTE_INDEX  = 6;
+  private static final int MESSAGE_SHORT_INDEX = 8;
+  private static final int MESSAGE_LONG_INDEX  = 14;
+
+  private final Socket           socket;
+  private final DataInputStream  in;
+  private final DataOutputStream out;
+
+  private final AtomicInteger nextKey;
+
+  /** Requests waiting for a response, in the order in which they were sent. */
+  private final ConcurrentLinkedQueue<Request> pending;
 
-  private final Source   source;
-  private final VM       vm;
-  private final Socket   socket;
-  private final Sender   sender;
-  private final Receiver receiver;
+  private final Thread receiver;
 
-  private CompletableFuture<String> futureToComplete;
+  /** Set once the connection failed or was closed, guarded by {@link #out}. */
+  private IOException failure;
+
+  private static final class Request {
+    private final int                         key;
+    private final CompletableFuture<Response> response;
+
+    Request(final int key) {
+      this.key = key;
+      this.response = new CompletableFuture<>();
+    }
+  }
 
   /**
-   * This frame class partially implements the frame data structure defined by the Web-socket
-   * protocol, @see <a href="https://tools.ietf.org/html/rfc6455">RFC 6455</a>.
-   *
-   * Note: frames can only be created using the {@link KernanClient#buildFrame} method, in
-   * which both the operation code and the message should be provided directly. Instances of
-   * frame objects may only be used to query
-   *
+   * A message sent by Kernan. Only the fields used by the {@link SourcecodeCompiler} are kept.
    */
-  private final class Frame {
-    private static final int OPCODE_INDEX        = 0;
-    private static final int MESSAGE_BYTE_INDEX  = 6;
-    private static final int MESSAGE_SHORT_INDEX = 8;
-    private static final int MESSAGE_LONG_INDEX  = 14;
-
-    private final byte[] data;
-    private final int    message_index;
-
-    private Frame(final int len) {
-      if (len < 126) {
-        message_index = MESSAGE_BYTE_INDEX;
-      } else if (len <= 65536) {
-        message_index = MESSAGE_SHORT_INDEX;
-      } else {
-        message_index = MESSAGE_LONG_INDEX;
+  public static final class Response {
+    private String    event;
+    private String    mode;
+    private String    message;
+    private Integer   key;
+    private Integer   line;
+    private ParseTree data;
+
+    /**
+     * Reads the fields of a message, and copies the parse tree without building its tree.
+     */
+    static Response read(final JsonReader reader) throws IOException {
+      Response response = new Response();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (reader.peek() == JsonToken.NULL) {
+          reader.skipValue();
+          continue;
+        }
+
+        switch (name) {
+          case "event":
+            response.event = reader.nextString();
+            break;
+          case "mode":
+            response.mode = reader.nextString();
+            break;
+          case "message":
+            response.message = reader.nextString();
+            break;
+          case "key":
+            response.key = reader.nextInt();
+            break;
+          case "line":
+            response.line = reader.nextInt();
+            break;
+          case "data":
+            response.data = ParseTree.read(reader);
+            break;
+          default:
+            reader.skipValue();
+            break;
+        }
       }
-      data = new byte[message_index + len];
+      reader.endObject();
+      return response;
+    }
+
+    /**
+     * This method examines the message to decide whether or not it contains a parse tree.
+     */
+    public boolean isParseTree() {
+      return "parse-tree".equals(event);
     }
 
-    private void setOperationCode(final int code) {
-      data[OPCODE_INDEX] = (byte) code;
+    /**
+     * This method examines the message to decide whether or not it contains a static error.
+     */
+    public boolean isStaticError() {
+      return "static-error".equals(mode);
     }
 
-    private void setMessage(final byte[] message) {
-      assert data.length == (message.length
-          + message_index) : "Message was not the correct size?";
-      int length_bytes;
-      if (message_index == MESSAGE_BYTE_INDEX) { // < 126
-        data[1] = (byte) message.length;
-        length_bytes = 0;
-      } else if (message_index == MESSAGE_SHORT_INDEX) { // <= 65536
-        data[1] = (byte) 126;
-        length_bytes = 2;
-      } else {
-        assert message_index == MESSAGE_LONG_INDEX;
-        data[1] = (byte) 127;
-        length_bytes = 8;
-      }
-      for (int i = 1; i <= length_bytes; i++) {
-        data[1 + i] = (byte) (((long) message.length >> 8 * (length_bytes - i)) & 0xFF);
-      }
+    public ParseTree getParseTree() {
+      return data;
+    }
 
-      for (int i = 0; i < message.length; i++) {
-        data[message_index + i] = message[i];
-      }
+    public String getMessage() {
+      return message;
     }
 
-    public byte[] getBytes() {
-      return data;
+    /**
+     * @return the line of a static error, or null if Kernan did not send one
+     */
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String toString() {
+      return "Response(event: " + event + ", mode: " + mode + ", message: " + message + ")";
     }
   }
 
   /**
-   * Builds a web-socket frame, containing the given operation code and message, that can be
-   * sent over the wire to Kernan.
-   *
-   * @param operationCode - the RFC operation code
-   * @param message - the message to send
-   * @return - an instance of {@link Frame}
+   * Opens the connection to Kernan and changes to web-socket mode via {@link #upgrade()}.
+   * Afterwards, the receiver thread waits for responses.
    */
-  public Frame buildFrame(final int operationCode, final String message) {
-    byte[] bytes = null;
+  public KernanClient(final String address, final int port) throws IOException {
+    socket = new Socket(address, port);
+    socket.setTcpNoDelay(true);
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    nextKey = new AtomicInteger();
+    pending = new ConcurrentLinkedQueue<>();
+
     try {
-      bytes = message.getBytes("UTF8");
-    } catch (java.io.UnsupportedEncodingException e) {
-      throw new RuntimeException(e);
+      upgrade();
+    } catch (IOException e) {
+      socket.close();
+      throw e;
     }
-    Frame frame = new Frame(bytes.length);
-    frame.setOperationCode(operationCode);
-    frame.setMessage(bytes);
-    return frame;
+
+    receiver = new Thread(this::receiveResponses, "Kernan Receiver");
+    receiver.setDaemon(true);
+    receiver.start();
   }
 
   /**
-   * Performs initialization of the client, which includes opening an HTTP socket and then
-   * sending a request, via {@link #upgrade()}, to change to web-socket mode.
+   * Sends the given source code to Kernan. Does not wait for the response.
    *
-   * Also creates the sender and receiver objects used to run the two-way communication for
-   * this websocket.
+   * @return a future completed with the parse tree or static error message sent by Kernan,
+   *         or completed exceptionally, if the connection fails
    */
-  public KernanClient(final Source source, final SomLanguage language,
-      final StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> structuralProbe) {
-    this.source = source;
-    this.vm = language.getVM();
+  public CompletableFuture<Response> requestParse(final String moduleName,
+      final String code) {
+    Request request = new Request(nextKey.getAndIncrement());
+
+    JsonObject data = new JsonObject();
+    data.addProperty("mode", "parse");
+    data.addProperty("code", code);
+    data.addProperty("modulename", moduleName);
+    data.addProperty("key", request.key);
+
+    // sending under the lock keeps the pending requests in sending order
+    synchronized (out) {
+      if (failure != null) {
+        request.response.completeExceptionally(failure);
+        return request.response;
+      }
 
-    try {
-      this.socket = new Socket(address, port);
-    } catch (ConnectException e) {
-      vm.errorExit("Nothing is sending data on " + address + ":" + port
-          + ". Did you start Kernan in websocket mode?");
-      throw new RuntimeException();
-    } catch (IOException e) {
-      vm.errorExit("Failed to create a generic socket on " + address + "(" + port + ")");
-      throw new RuntimeException();
+      pending.add(request);
+      try {
+        writeFrame(OPCODE_RUN, data.toString());
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+    return request.response;
+  }
+
+  /**
+   * Asks Kernan to close, and closes the connection.
+   */
+  @Override
+  public void close() {
+    synchronized (out) {
+      if (failure != null) {
+        return;
+      }
+      failure = new IOException("The connection to Kernan was closed");
+      try {
+        writeFrame(OPCODE_CLOSE, "");
+      } catch (IOException e) {
+        // closing anyway
+      }
     }
 
     try {
-      upgrade();
+      socket.close();
     } catch (IOException e) {
-      vm.errorExit("failed to initialize websocket: " + e.getMessage());
-      throw new RuntimeException();
+      // nothing else to do
     }
-
-    this.sender = new Sender();
-    this.receiver = new Receiver();
   }
 
   /**
-   * Asks Kernan to close.
+   * Completes all pending requests exceptionally, and rejects all further requests.
    */
-  private void sendCloseFrame() {
-    Frame frame = buildFrame(OPCODE_CLOSE, "");
-    sendFrame(frame);
-    sender.sendAnyRemainingFrames();
+  private void fail(final IOException e) {
+    synchronized (out) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+
+    Request request;
+    while ((request = pending.poll()) != null) {
+      request.response.completeExceptionally(e);
+    }
   }
 
   /**
-   * A utility used to process frames received from Kernan.
-   *
-   * Data is read directly from the socket via the {@link DataInputStream}; note that the read
-   * requests will block until the corresponding bytes become available. When run, the receiver
-   * collects all frames received over the wire. As soon as a frame containing a parse-tree or
-   * an error is found, the {@link KernanClient#futureToComplete} future is completed, after
-   * which point this client will return the message.
+   * Writes a frame with the given operation code and message. The header follows the layout
+   * Kernan expects, which reserves space for a mask without setting the mask bit.
    */
-  private class Receiver implements Runnable {
+  private void writeFrame(final int operationCode, final String message) throws IOException {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+
+    int messageIndex;
+    int lengthBytes;
+    if (bytes.length < 126) {
+      messageIndex = MESSAGE_BYTE_INDEX;
+      lengthBytes = 0;
+    } else if (bytes.length <= 65536) {
+      messageIndex = MESSAGE_SHORT_INDEX;
+      lengthBytes = 2;
+    } else {
+      messageIndex = MESSAGE_LONG_INDEX;
+      lengthBytes = 8;
+    }
 
-    private final DataInputStream stream;
+    byte[] header = new byte[messageIndex];
+    header[0] = (byte) operationCode;
+    if (lengthBytes == 0) {
+      header[1] = (byte) bytes.length;
+    } else {
+      header[1] = (byte) (lengthBytes == 2 ? 126 : 127);
+      for (int i = 1; i <= lengthBytes; i++) {
+        header[1 + i] = (byte) (((long) bytes.length >> 8 * (lengthBytes - i)) & 0xFF);
+      }
+    }
 
-    private final Stack<Frame> frames;
+    out.write(header);
+    out.write(bytes);
+    out.flush();
+  }
 
-    Receiver() {
-      frames = new Stack<Frame>();
+  /**
+   * Streams the payload of one message directly from the socket. A message may span
+   * multiple frames, which are read on demand. Thus, the message is read while it arrives,
+   * without first copying it into a buffer or string.
+   */
+  private final class MessageStream extends InputStream {
+    private long    remaining;
+    private boolean lastFrame;
 
-      try {
-        stream = new DataInputStream(socket.getInputStream());
-      } catch (IOException e) {
-        vm.errorExit("Receiver failed to get input stream for socket:" + e.getMessage());
-        throw new RuntimeException();
-      }
-    }
+    private final byte[] mask = new byte[4];
+    private boolean      masked;
+    private long         position;
 
     /**
-     * Reads an entry from the stream, casting it to a byte.
+     * Starts reading the next message, and skips control frames before it.
+     *
+     * @return false, if Kernan closed the connection
      */
-    private byte read() {
-      try {
-        return (byte) stream.read();
-      } catch (IOException e) {
-        vm.errorExit("Receiver failed to read from stream: " + e.getMessage());
-        throw new RuntimeException();
+    boolean next() throws IOException {
+      while (true) {
+        int opCode = readHeader();
+        if (opCode == OPCODE_CLOSE) {
+          return false;
+        }
+        if (opCode == OPCODE_RUN) {
+          return true;
+        }
+        skipPayload();
       }
     }
 
     /**
-     * Reads a single byte from the stream.
+     * Reads a frame header.
+     *
+     * @return the operation code of the frame
      */
-    private byte readByte() {
-      try {
-        return stream.readByte();
-      } catch (IOException e) {
-        vm.errorExit("Websocket failed to read short:" + e.getMessage());
-        throw new RuntimeException();
+    private int readHeader() throws IOException {
+      int opByte = in.readUnsignedByte();
+      int lenByte = in.readUnsignedByte();
+
+      lastFrame = (opByte & 0x80) != 0;
+
+      long len = lenByte & 0x7F;
+      if (len == 126) {
+        len = in.readUnsignedShort();
+      } else if (len == 127) {
+        len = in.readLong();
       }
-    }
 
-    /**
-     * Reads enough bytes from the stream to compose an unsigned short.
-     */
-    private int readLengthGreaterThan126() {
-      try {
-        return stream.readUnsignedShort();
-      } catch (IOException e) {
-        vm.errorExit("Websocket failed to read short:" + e.getMessage());
-        throw new RuntimeException();
+      masked = (lenByte & 0x80) != 0;
+      if (masked) {
+        in.readFully(mask);
       }
+
+      remaining = len;
+      position = 0;
+      return opByte & 0x0F;
     }
 
-    /**
-     * Reads enough bytes from the stream to compose an long (who cares if it's signed).
-     */
-    private long readLengthGreaterThan65535() {
-      try {
-        return stream.readLong();
-      } catch (IOException e) {
-        vm.errorExit("Websocket failed to read short:" + e.getMessage());
-        throw new RuntimeException();
+    private void skipPayload() throws IOException {
+      while (remaining > 0) {
+        long skipped = in.skip(remaining);
+        if (skipped <= 0) {
+          in.readUnsignedByte();
+          skipped = 1;
+        }
+        remaining -= skipped;
       }
     }
 
     /**
-     * This method examines the structure of the given message to decide whether or not it
-     * contains a parse tree.
+     * Moves on to the next continuation frame, if the current one is exhausted.
      *
-     * @param message - the given message
-     * @return - true when the given message contains a parse-tree
+     * @return false at the end of the message
      */
-    public boolean messageContainsParseTree(final String message) {
-      JsonObject root = new JsonParser().parse(message).getAsJsonObject();
-      return root.has("event") && root.get("event").getAsString().equals("parse-tree");
-    }
+    private boolean ensureData() throws IOException {
+      while (remaining == 0) {
+        if (lastFrame) {
+          return false;
+        }
 
-    /**
-     * This method examines the structure of the given message to decide whether or not it
-     * contains a static error.
-     *
-     * @param message - the given message
-     * @return - true when the given message contains an error
-     */
-    public boolean messageContainsStaticError(final String message) {
-      JsonObject root = new JsonParser().parse(message).getAsJsonObject();
-      return root.has("mode") && root.get("mode").getAsString().equals("static-error");
+        int opCode = readHeader();
+        if (opCode == OPCODE_CLOSE) {
+          throw new EOFException("Kernan closed the connection within a message");
+        } else if (opCode != OPCODE_CONTINUATION) {
+          // control frames can be interleaved with the frames of a message
+          skipPayload();
+          lastFrame = false;
+        }
+      }
+      return true;
     }
 
-    /**
-     * This method will cause continue to read frames sent from Kernan until it finds a message
-     * containing an error or a parse-tree. Note that this method will add each frame to the
-     * stack and block until the frame is found.
-     */
     @Override
-    public void run() {
-      byte opByte = read();
-      byte lenByte = read();
-
-      // Check that the message is contained within just one frame
-      int fin = ((opByte >> 0) & 1);
-      if (fin != 1) {
-        vm.errorExit("The client cannot yet process messages that span more than one frame");
-        throw new RuntimeException();
+    public int read() throws IOException {
+      if (!ensureData()) {
+        return -1;
       }
+      int b = in.readUnsignedByte();
+      if (masked) {
+        b = (b ^ mask[(int) (position % 4)]) & 0xFF;
+      }
+      position += 1;
+      remaining -= 1;
+      return b;
+    }
 
-      // Get the web-socket operation code
-      int op = (opByte + 128);
-
-      // Get the length of the message
-      long len = lenByte;
-      if (len == 126) {
-        len = readLengthGreaterThan126();
-      } else if (len == 127) {
-        len = readLengthGreaterThan65535();
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureData()) {
+        return -1;
       }
 
-      // And parse the message itself
-      byte[] result = new byte[(int) len];
-      for (int i = 0; i < len; i++) {
-        result[i] = readByte();
+      int n = in.read(b, off, (int) Math.min(len, remaining));
+      if (n < 0) {
+        throw new EOFException("Kernan closed the connection within a message");
       }
-      String message = null;
-      try {
-        message = new String(result, "UTF8");
-      } catch (java.io.UnsupportedEncodingException e) {
-        throw new RuntimeException(e);
+      if (masked) {
+        for (int i = 0; i < n; i++) {
+          b[off + i] ^= mask[(int) ((position + i) % 4)];
+        }
       }
+      position += n;
+      remaining -= n;
+      return n;
+    }
 
-      // Record the message to the stack
-      frames.add(buildFrame(op, message));
-
-      // Either complete the future (when an error or parse tree is found) or simple ignores
-      // the message and continues on to wait for the next frame
-      if (messageContainsParseTree(message)) {
-        futureToComplete.complete(message);
-      } else if (messageContainsStaticError(message)) {
-        futureToComplete.complete(message);
-      } else {
-        run();
+    /** Skips what the parser did not consume, up to the end of the message. */
+    void finish() throws IOException {
+      while (ensureData()) {
+        skipPayload();
       }
     }
   }
 
   /**
-   * A utility used to process send frames to Kernan.
-   *
-   * When run the sender sends all frames in its stack over the wire to Kernan, via a
-   * {@link DataOutputStream} created from the socket.
+   * Run by the receiver thread. Completes requests with parse trees and static errors.
    */
-  private class Sender implements Runnable {
-
-    private final Stack<Frame>     frames;
-    private final DataOutputStream stream;
+  private void receiveResponses() {
+    MessageStream message = new MessageStream();
+    try {
+      while (true) {
+        if (!message.next()) {
+          throw new EOFException("Kernan closed the connection");
+        }
 
-    Sender() {
-      frames = new Stack<Frame>();
+        JsonReader reader =
+            new JsonReader(new InputStreamReader(message, StandardCharsets.UTF_8));
+        Response response = Response.read(reader);
+        message.finish();
 
-      try {
-        stream = new DataOutputStream(socket.getOutputStream());
-      } catch (IOException e) {
-        vm.errorExit("Sender failed to get output stream for socket:" + e.getMessage());
-        throw new RuntimeException();
+        if (response.isParseTree() || response.isStaticError()) {
+          complete(response);
+        }
       }
+    } catch (IOException e) {
+      fail(e);
+    } catch (JsonParseException | IllegalStateException e) {
+      fail(new IOException("Kernan sent an invalid message", e));
     }
+  }
 
-    /**
-     * Used to add a frame object to the queue.
-     */
-    public void addFrame(final Frame frame) {
-      frames.add(frame);
-    }
-
-    /**
-     * When run, the sender pops each frame off the stack and sends it to Kernan.
-     *
-     * NOTE: will it ever matter that message are sent in a first-in-last-out order?
-     */
-    @Override
-    public void run() {
-      while (frames.size() > 0) {
-        Frame frame = frames.pop();
-        byte[] bytes = frame.getBytes();
-        try {
-          stream.write(bytes);
-        } catch (IOException e) {
-          vm.errorExit("Sender failed to write byte to stream: " + e.getMessage());
-          throw new RuntimeException();
+  private void complete(final Response response) {
+    Request request = null;
+    if (response.key != null) {
+      int key = response.key;
+      Iterator<Request> it = pending.iterator();
+      while (it.hasNext()) {
+        Request r = it.next();
+        if (r.key == key) {
+          it.remove();
+          request = r;
+          break;
         }
       }
     }
 
-    /**
-     * Used by {@link KernanClient#sendCloseFrame()} to send any remaining frames to Kernan.
-     */
-    public void sendAnyRemainingFrames() {
-      run();
+    if (request == null) {
+      request = pending.poll();
     }
-  }
 
-  /**
-   * Adds a frame to the send queue and then runs the sender.
-   */
-  public void sendFrame(final Frame frame) {
-    sender.addFrame(frame);
-    Executors.newCachedThreadPool().submit(sender);
-  }
-
-  /**
-   * Blocks until a parse-tree message has been received.
-   */
-  public void waitForParseTreeResponse() {
-    Executors.newCachedThreadPool().submit(receiver);
+    if (request != null) {
+      request.response.complete(response);
+    }
   }
 
   /**
    * Sends a HTTP request to change the protocol used over the socket from HTTP to Web-Socket.
    *
-   * A {@link PrintWriter} is used to write the HTTP request to the stream and a
-   * {@link BufferedReader} is used to read the response from the server.
-   *
    * Upon receiving a response from Kernan the response message is checked and, provided that
    * it was accepted, this client continues under the assumption that communication will now be
-   * performed through frames.
+   * performed through frames. The response is read byte by byte, to not consume any frames.
    */
   private void upgrade() throws IOException {
-    PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-
     // Build and send the Websocket upgrade request
     StringBuilder requestBuilder = new StringBuilder();
     requestBuilder.append("GET /grace HTTP/1.1\r\n");
@@ -470,15 +539,15 @@ public class KernanClient {
     requestBuilder.append("Connection: Upgrade\r\n");
     requestBuilder.append("Upgrade: h2c\r\n");
     requestBuilder.append("Sec-WebSocket-Key: moth\r\n");
-    out.println(requestBuilder.toString());
+    requestBuilder.append(System.lineSeparator());
+    out.write(requestBuilder.toString().getBytes(StandardCharsets.US_ASCII));
+    out.flush();
 
     // Read the response until an empty line is found
-    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
     StringBuilder response = new StringBuilder();
-    String inputLine;
-
     int linesProcessed = 0;
-    while ((inputLine = in.readLine()) != null && linesProcessed < 1000) {
+    String inputLine;
+    while ((inputLine = readLine()) != null && linesProcessed < 1000) {
       linesProcessed += 1;
       response.append(inputLine + "\n");
 
@@ -488,48 +557,28 @@ public class KernanClient {
         if (response.toString().contains("Sec-WebSocket-Accept:")) {
           return;
         } else {
-          vm.errorExit("Kernan refused to upgrade to web-socket communication?");
+          throw new IOException("Kernan refused to upgrade to web-socket communication");
         }
       }
     }
 
-    vm.errorExit(
-        "After processing a thousands lines, no end to the response from Kernan was found. Current response:\n "
-            + in.toString());
-    throw new RuntimeException();
+    throw new IOException("No end to the upgrade response from Kernan was found: "
+        + response);
   }
 
-  /**
-   * Encodes the given source code into a Web-socket frame and sends it to Kernan via the
-   * {@link Sender}. This method then blocks until the parse tree response, from Kernan, has
-   * been processed by the {@link Receiver}. This client then asks Kernan to close and finally
-   * returns the response back to the compiler.
-   *
-   * @return a {@link JsonObject} representing the decoded parse tree.
-   */
-  public JsonObject getKernanResponse() {
-
-    // Build and send the frame.
-    final Map<String, String> data = new HashMap<String, String>();
-    data.put("mode", "parse");
-    data.put("code", source.getCharacters().toString());
-    data.put("modulename", source.getURI().getPath());
-    Frame frame = buildFrame(OPCODE_RUN, new Gson().toJson(data));
-    sendFrame(frame);
-
-    // Wait for the receiver to complete the message
-    futureToComplete = new CompletableFuture<>();
-    waitForParseTreeResponse();
-    String message;
-    try {
-      message = futureToComplete.get();
-    } catch (InterruptedException | ExecutionException e) {
-      vm.errorExit("KernanClient failed to get future: " + e.getMessage());
-      throw new RuntimeException();
+  private String readLine() throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) != -1) {
+      if (c == '\n') {
+        int len = line.length();
+        if (len > 0 && line.charAt(len - 1) == '\r') {
+          line.setLength(len - 1);
+        }
+        return line.toString();
+      }
+      line.append((char) c);
     }
-
-    // Asks Kernan to close and then returns the response
-    sendCloseFrame();
-    return new JsonParser().parse(message).getAsJsonObject();
+    return line.length() == 0 ? null : line.toString();
   }
 }
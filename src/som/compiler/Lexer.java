@@ -112,6 +112,18 @@ public final class Lexer {
     state.lastNonWhiteCharIdx = 0;
   }
 
+  /**
+   * Creates a lexer that starts at the given coordinate, for instance to parse a single
+   * method of a file.
+   */
+  protected Lexer(final String content, final SourceCoordinate start) {
+    this(content);
+    state.ptr = start.charIndex;
+    state.lineNumber = start.startLine;
+    state.lastLineEnd = start.charIndex - start.startColumn;
+    state.lastNonWhiteCharIdx = start.charIndex;
+  }
+
   private static SourceCoordinate createSourceCoordinate(final LexerState state) {
     // We use the coord.length to indicate the lastNonWhiteCharIdx
     // TODO: fix this terrible hack, and make this explicit
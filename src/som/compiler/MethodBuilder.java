@@ -606,9 +606,7 @@ public final class MethodBuilder extends ScopeBuilder<MethodScope>
       final ExpressionNode exp, final SourceSection source) throws MethodDefinitionError {
     // write directly to local variables (excluding arguments)
     String setterSend = setter.getString();
-    String setterName = setterSend.substring(0, setterSend.length() - 1);
-    String varNameStr = setterName.substring(0, setterName.length() - 1);
-    SSymbol varName = Symbols.symbolFor(varNameStr);
+    SSymbol varName = Symbols.symbolFor(setterSend, 0, setterSend.length() - 2);
 
     // TODO: this looks strange. can an inner name shadow any outer name, I would think so
     // so, this seems incorrect to check first the whole chain for the name instead of doing it
@@ -642,7 +640,7 @@ public final class MethodBuilder extends ScopeBuilder<MethodScope>
 
     // otherwise, it is a setter send
     return SNodeFactory.createImplicitReceiverSend(
-        Symbols.symbolFor(setterName),
+        Symbols.symbolFor(setterSend, 0, setterSend.length() - 1),
         new ExpressionNode[] {getSelfRead(source), exp},
         scope, getMixin().getMixinId(),
         source, language.getVM());
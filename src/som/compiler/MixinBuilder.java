@@ -480,6 +480,10 @@ public final class MixinBuilder extends ScopeBuilder<MixinScope> {
     classSide = true;
   }
 
+  public void switchToInstanceSide() {
+    classSide = false;
+  }
+
   public MixinDefinition assemble(final SourceSection source) {
     // to prepare the mixin definition we need to assemble:
     // - the class instantiation method, which resolves super
@@ -44,6 +44,7 @@ import som.interpreter.nodes.dispatch.ClassSlotAccessNode;
 import som.interpreter.nodes.dispatch.DispatchGuard;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
 import som.interpreter.nodes.dispatch.Dispatchable;
+import som.interpreter.nodes.dispatch.LookupCache;
 import som.interpreter.nodes.literals.NilLiteralNode;
 import som.interpreter.objectstorage.ClassFactory;
 import som.interpreter.objectstorage.InitializerFieldWrite;
@@ -58,9 +59,10 @@ import som.vmobjects.SClass;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SInvokable.SInitializer;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass;
 import som.vmobjects.SSymbol;
+import tools.snapshot.SnapshotRecord;
 import tools.snapshot.nodes.AbstractSerializationNode;
 import tools.snapshot.nodes.ObjectSerializationNodesFactory.UninitializedObjectSerializationNodeFactory;
 import tools.snapshot.nodes.PrimitiveSerializationNodesFactory.ClassSerializationNodeFactory;
@@ -598,7 +600,7 @@ public final class MixinDefinition implements SomInteropObject {
               next,
               isSet);
 
-      if (forAtomic && rcvr instanceof SMutableObject &&
+      if (forAtomic && rcvr instanceof SAbstractMutableObject &&
           getAccessType() == SlotAccess.FIELD_READ) {
         return new CachedTxSlotRead(getAccessType(), read,
             DispatchGuard.createSObjectCheck(rcvr),
@@ -685,6 +687,9 @@ public final class MixinDefinition implements SomInteropObject {
           "call without proper call cache. Find better way if this is performance critical.");
       SObject rcvr = (SObject) arguments[0];
       rcvr.writeSlot(this, arguments[1]);
+      if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+        SnapshotRecord.recordWrite(rcvr);
+      }
       return rcvr;
     }
   }
@@ -794,6 +799,7 @@ public final class MixinDefinition implements SomInteropObject {
     SInvokable thingInitNew = builder.assembleInitializer(
         builder.getSelfRead(ss), AccessModifier.PROTECTED, ss);
     instanceDispatchables.put(init, thingInitNew);
+    LookupCache.invalidate();
   }
 
   public Object instantiateObject(final Object... args) {
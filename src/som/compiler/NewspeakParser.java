@@ -295,6 +295,27 @@ public class NewspeakParser {
     }
   }
 
+  /**
+   * Creates a parser for a single method of a mixin that was already assembled,
+   * see {@link LazyMethodBody}.
+   */
+  private NewspeakParser(final String content, final SourceCoordinate start,
+      final Source source, final SomLanguage language) {
+    this.source = source;
+    this.language = language;
+
+    sym = NONE;
+    nextSym = NONE;
+
+    lexer = new Lexer(content, start);
+
+    getSymbolFromLexer();
+
+    this.syntaxAnnotations = new HashSet<>();
+    this.structuralProbe = null;
+    this.inlinableNodes = language.getVM().getInlinableNodes();
+  }
+
   Set<SourceSection> getSyntaxAnnotations() {
     return syntaxAnnotations;
   }
@@ -836,6 +857,29 @@ public class NewspeakParser {
 
     comments();
 
+    SourceCoordinate patternCoord = getCoordinate();
+    methodHeader(builder);
+
+    SInvokable meth;
+    if (parseLazily(mxnBuilder)) {
+      skipMethodBlock();
+      SourceSection sourceSection = getSource(coord);
+      meth = new SInvokable(builder.getSignature(), accessModifier, sourceSection,
+          new LazyMethodBody(lexer.content, patternCoord, source, language, mxnBuilder,
+              accessModifier, sourceSection));
+    } else {
+      ExpressionNode body = methodBlock(builder);
+      builder.finalizeMethodScope();
+      meth = builder.assemble(body, accessModifier, getSource(coord));
+    }
+
+    if (structuralProbe != null) {
+      structuralProbe.recordNewMethod(meth.getIdentifier(), meth);
+    }
+    mxnBuilder.addMethod(meth);
+  }
+
+  private void methodHeader(final MethodBuilder builder) throws ParseError {
     messagePattern(builder);
 
     comments();
@@ -845,15 +889,83 @@ public class NewspeakParser {
         KeywordTag.class);
 
     comments();
+  }
+
+  /**
+   * Only instance-side methods are parsed lazily. Tools that inspect the parsed code need
+   * all methods eagerly.
+   */
+  private boolean parseLazily(final MixinBuilder mxnBuilder) {
+    return VmSettings.LAZY_METHODS && structuralProbe == null && !mxnBuilder.isClassSide();
+  }
 
-    ExpressionNode body = methodBlock(builder);
-    builder.finalizeMethodScope();
-    SInvokable meth = builder.assemble(body, accessModifier, getSource(coord));
+  /**
+   * Skips over the method body by matching its parentheses, which the lexer tells apart from
+   * the ones in strings, characters, and comments.
+   */
+  private void skipMethodBlock() throws ParseError {
+    expect(NewTerm, DelimiterOpeningTag.class);
 
-    if (structuralProbe != null) {
-      structuralProbe.recordNewMethod(meth.getIdentifier(), meth);
+    int depth = 1;
+    while (depth > 0) {
+      if (sym == BeginComment) {
+        comments();
+        continue;
+      }
+
+      if (sym == NONE) {
+        throw new ParseError("Method body seems not to be closed", EndTerm, this);
+      } else if (sym == NewTerm) {
+        depth += 1;
+      } else if (sym == EndTerm) {
+        depth -= 1;
+      }
+      getSymbolFromLexer();
+    }
+  }
+
+  /**
+   * Parses a method on its first use. The method is parsed in the context of its
+   * {@link MixinBuilder}, which is kept alive for this purpose.
+   */
+  private static final class LazyMethodBody implements SInvokable.LazyBody {
+    private final String           content;
+    private final SourceCoordinate start;
+    private final Source           source;
+    private final SomLanguage      language;
+    private final MixinBuilder     mxnBuilder;
+    private final AccessModifier   accessModifier;
+    private final SourceSection    sourceSection;
+
+    LazyMethodBody(final String content, final SourceCoordinate start, final Source source,
+        final SomLanguage language, final MixinBuilder mxnBuilder,
+        final AccessModifier accessModifier, final SourceSection sourceSection) {
+      this.content = content;
+      this.start = start;
+      this.source = source;
+      this.language = language;
+      this.mxnBuilder = mxnBuilder;
+      this.accessModifier = accessModifier;
+      this.sourceSection = sourceSection;
+    }
+
+    @Override
+    public SInvokable parse() {
+      // the mixin was assembled after its class side, and lazy methods are instance-side
+      mxnBuilder.switchToInstanceSide();
+
+      NewspeakParser parser = new NewspeakParser(content, start, source, language);
+      MethodBuilder builder = new MethodBuilder(mxnBuilder, null);
+      try {
+        parser.methodHeader(builder);
+        ExpressionNode body = parser.methodBlock(builder);
+        builder.finalizeMethodScope();
+        return builder.assemble(body, accessModifier, sourceSection);
+      } catch (ProgramDefinitionError e) {
+        language.getVM().errorExit(e.toString());
+        throw new RuntimeException(e);
+      }
     }
-    mxnBuilder.addMethod(meth);
   }
 
   private void messagePattern(final MethodBuilder builder) throws ParseError {
@@ -0,0 +1,232 @@
+package som.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * The parse tree of a Grace module, as sent by Kernan, kept as its compact JSON text instead
+ * of a tree of {@link JsonObject}s.
+ *
+ * <p>
+ * The tree is read with a {@link JsonReader} token stream. The {@link JsonTreeTranslator}
+ * streams the elements of the module's body with {@link #moduleBody()}, and only builds the
+ * {@link JsonObject} of the element it translates. Before that, {@link #readModule(Set)}
+ * reads only the few fields the translator needs to declare the module's slots. Thus, the
+ * complete tree of a module never exists.
+ */
+public final class ParseTree {
+
+  /** UTF-8 encoded JSON of the object with the module node. */
+  private final byte[] json;
+
+  public ParseTree(final byte[] json) {
+    this.json = json;
+  }
+
+  /**
+   * Copies the next value of the reader token by token, without building its tree.
+   */
+  public static ParseTree read(final JsonReader in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonWriter out =
+        new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+      copyValue(in, out);
+    }
+    return new ParseTree(bytes.toByteArray());
+  }
+
+  private static void copyValue(final JsonReader in, final JsonWriter out)
+      throws IOException {
+    int depth = 0;
+    do {
+      switch (in.peek()) {
+        case BEGIN_OBJECT:
+          in.beginObject();
+          out.beginObject();
+          depth += 1;
+          break;
+        case END_OBJECT:
+          in.endObject();
+          out.endObject();
+          depth -= 1;
+          break;
+        case BEGIN_ARRAY:
+          in.beginArray();
+          out.beginArray();
+          depth += 1;
+          break;
+        case END_ARRAY:
+          in.endArray();
+          out.endArray();
+          depth -= 1;
+          break;
+        case NAME:
+          out.name(in.nextName());
+          break;
+        case STRING:
+          out.value(in.nextString());
+          break;
+        case NUMBER:
+          // keeps the digits as they are, e.g., of number literals
+          out.jsonValue(in.nextString());
+          break;
+        case BOOLEAN:
+          out.value(in.nextBoolean());
+          break;
+        case NULL:
+          in.nextNull();
+          out.nullValue();
+          break;
+        default:
+          throw new JsonParseException("Unexpected end of the parse tree");
+      }
+    } while (depth > 0);
+  }
+
+  public byte[] getBytes() {
+    return json;
+  }
+
+  public JsonReader open() {
+    return new JsonReader(
+        new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Reads the complete tree, to check that it is a valid JSON object.
+   */
+  public boolean isValid() {
+    try (JsonReader reader = open()) {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        return false;
+      }
+      reader.skipValue();
+      return reader.peek() == JsonToken.END_DOCUMENT;
+    } catch (IOException | IllegalStateException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads the module node. Its body holds only the given fields of each element, all other
+   * fields of the module are read completely.
+   */
+  public JsonObject readModule(final Set<String> elementFields) {
+    try (JsonReader reader = openModule()) {
+      JsonObject module = new JsonObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (name.equals("body")) {
+          JsonArray body = new JsonArray();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            body.add(readFields(reader, elementFields));
+          }
+          reader.endArray();
+          module.add(name, body);
+        } else {
+          module.add(name, new JsonParser().parse(reader));
+        }
+      }
+      return module;
+    } catch (IOException e) {
+      throw new JsonParseException(e);
+    }
+  }
+
+  private static JsonObject readFields(final JsonReader reader, final Set<String> fields)
+      throws IOException {
+    JsonObject node = new JsonObject();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (fields.contains(name)) {
+        node.add(name, new JsonParser().parse(reader));
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return node;
+  }
+
+  /**
+   * Streams the elements of the module's body. Each iteration reads the tree again, and only
+   * builds the tree of the current element.
+   */
+  public Iterable<JsonObject> moduleBody() {
+    return BodyIterator::new;
+  }
+
+  /**
+   * Opens a reader, positioned at the first field of the module node.
+   */
+  private JsonReader openModule() throws IOException {
+    JsonReader reader = open();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals("module")) {
+        reader.beginObject();
+        return reader;
+      }
+      reader.skipValue();
+    }
+    reader.close();
+    throw new JsonParseException("The parse tree has no module");
+  }
+
+  private final class BodyIterator implements Iterator<JsonObject> {
+    private final JsonReader reader;
+
+    BodyIterator() {
+      try {
+        reader = openModule();
+        while (reader.hasNext()) {
+          if (reader.nextName().equals("body")) {
+            reader.beginArray();
+            return;
+          }
+          reader.skipValue();
+        }
+        throw new JsonParseException("The module has no body");
+      } catch (IOException e) {
+        throw new JsonParseException(e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      try {
+        return reader.hasNext();
+      } catch (IOException e) {
+        throw new JsonParseException(e);
+      }
+    }
+
+    @Override
+    public JsonObject next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      JsonElement element = new JsonParser().parse(reader);
+      return element.getAsJsonObject();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package som.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.oracle.truffle.api.source.Source;
+
+import som.vm.VmSettings;
+
+
+/**
+ * An on-disk cache for the parse trees of Grace modules, which allows the
+ * {@link SourcecodeCompiler} to skip the round-trip to Kernan.
+ *
+ * <p>
+ * Parse trees are stored gzipped, in a file named by the SHA-256 hash of the module's path
+ * and contents, and the {@link #FORMAT_VERSION}. Thus, a changed module is simply parsed
+ * again, and stale entries are never read. The cache is located in
+ * <code>build/grace-parse-trees</code> by default, which can be changed with the
+ * <code>som.graceParseTreeCache</code> setting. An empty setting disables the cache.
+ *
+ * <p>
+ * Entries are written to a temporary file and then moved in place, so that concurrently
+ * running VMs only ever see complete entries.
+ */
+public final class ParseTreeCache {
+
+  /**
+   * Needs to be increased whenever the parse trees produced by Kernan, or the format expected
+   * by the {@link JsonTreeTranslator}, change.
+   */
+  private static final String FORMAT_VERSION = "1";
+
+  private static final String SUFFIX = ".json.gz";
+
+  private final Path directory;
+
+  public ParseTreeCache(final Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the cache configured by the settings, or null if it is disabled
+   */
+  public static ParseTreeCache create() {
+    if (VmSettings.GRACE_PARSE_TREE_CACHE.isEmpty()) {
+      return null;
+    }
+    return new ParseTreeCache(Paths.get(VmSettings.GRACE_PARSE_TREE_CACHE));
+  }
+
+  public boolean contains(final Source source) {
+    return Files.exists(getFile(source));
+  }
+
+  /**
+   * @return the cached parse tree of the source, or null
+   */
+  public ParseTree get(final Source source) {
+    Path file = getFile(source);
+    if (!Files.exists(file)) {
+      return null;
+    }
+
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        json.write(buffer, 0, n);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+
+    // a broken entry is treated like a miss, and overwritten after parsing
+    ParseTree parseTree = new ParseTree(json.toByteArray());
+    return parseTree.isValid() ? parseTree : null;
+  }
+
+  /**
+   * Store the parse tree of the source. Failures are ignored, the cache is only an
+   * optimization.
+   */
+  public void put(final Source source, final ParseTree parseTree) {
+    Path file = getFile(source);
+    Path tmp = null;
+    try {
+      Files.createDirectories(directory);
+      tmp = Files.createTempFile(directory, "tree", ".tmp");
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+        out.write(parseTree.getBytes());
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e1) {
+          // ignore, nothing else we can do
+        }
+      }
+    }
+  }
+
+  private Path getFile(final Source source) {
+    return directory.resolve(hash(source) + SUFFIX);
+  }
+
+  private static String hash(final Source source) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+
+    // the module name is part of the request to Kernan, and thus of the key
+    digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(source.getURI().getPath().getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+      sb.append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+}
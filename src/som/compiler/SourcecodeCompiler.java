@@ -24,18 +24,32 @@
 
 package som.compiler;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.oracle.truffle.api.source.Source;
 
 import bd.basic.ProgramDefinitionError;
 import bd.source.SourceCoordinate;
 import bd.tools.structure.StructuralProbe;
+import som.Output;
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.SomLanguage;
+import som.vm.Symbols;
+import som.vm.VmSettings;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SSymbol;
 
@@ -60,12 +74,16 @@ public class SourcecodeCompiler {
   public MixinDefinition compileSomModule(final Source source,
       final StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> structuralProbe)
       throws ProgramDefinitionError {
+    long start = VmSettings.PARSE_STATS ? System.nanoTime() : 0;
     NewspeakParser parser =
         new NewspeakParser(source.getCharacters().toString(), source.getLength(), source,
             structuralProbe, language);
     SourceCoordinate coord = parser.getCoordinate();
     MixinBuilder mxnBuilder = parser.moduleDeclaration();
     MixinDefinition result = mxnBuilder.assemble(parser.getSource(coord));
+    if (VmSettings.PARSE_STATS) {
+      newspeakParseNanos.addAndGet(System.nanoTime() - start);
+    }
     language.getVM().reportLoadedSource(source);
     return result;
   }
@@ -78,6 +96,50 @@ public class SourcecodeCompiler {
 
   private Map<String, MixinDefinition> alreadyLoaded = new HashMap<String, MixinDefinition>();
 
+  private final ParseTreeCache parseTreeCache = ParseTreeCache.create();
+
+  /** Time spent parsing Newspeak modules, excluding lazily parsed method bodies. */
+  private static final AtomicLong newspeakParseNanos = new AtomicLong();
+
+  /** Time spent waiting for parse trees and translating them, for Grace modules. */
+  private static final AtomicLong parseNanos     = new AtomicLong();
+  private static final AtomicLong translateNanos = new AtomicLong();
+  private static final AtomicLong numModules     = new AtomicLong();
+
+  /**
+   * Reports the time spent parsing Newspeak modules, if <code>som.parseStats</code> is set,
+   * and the time spent compiling Grace modules, if <code>som.graceCompileStats</code> is
+   * set. Peak memory is reported with <code>som.memoryTracing</code>.
+   */
+  public static void reportStats() {
+    if (VmSettings.PARSE_STATS) {
+      Output.println("RESULT-NewspeakParseMillis: " + newspeakParseNanos.get() / 1_000_000);
+    }
+
+    if (!VmSettings.GRACE_COMPILE_STATS) {
+      return;
+    }
+    Output.println("RESULT-GraceModules: " + numModules.get());
+    Output.println("RESULT-GraceParseMillis: " + parseNanos.get() / 1_000_000);
+    Output.println("RESULT-GraceTranslateMillis: " + translateNanos.get() / 1_000_000);
+  }
+
+  /** The session with Kernan, created on first use. */
+  private KernanClient kernan;
+
+  /**
+   * Parse requests for imported modules, sent before the modules are loaded. An entry is
+   * removed when its module is loaded, or on {@link #shutdown()}.
+   */
+  private final Map<String, CompletableFuture<KernanClient.Response>> pendingParses =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Maximum number of prefetched parse trees. Imports that are never loaded keep their
+   * entry, so this bounds the memory held by unused parse trees.
+   */
+  private static final int MAX_PENDING_PARSES = 32;
+
   public MixinDefinition compileGraceModule(final Source source,
       final StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> structuralProbe)
       throws ProgramDefinitionError, IOException {
@@ -86,23 +148,52 @@ public class SourcecodeCompiler {
       return alreadyLoaded.get(filepath);
     }
 
-    KernanClient client = new KernanClient(source, language, structuralProbe);
-    JsonObject response = client.getKernanResponse();
-
-    if (response.has("event") && response.get("event").getAsString().equals("parse-tree")) {
-      JsonObject parseTree = response.get("data").getAsJsonObject();
-      JsonTreeTranslator translator =
-          new JsonTreeTranslator(parseTree, source, language, structuralProbe);
-      MixinDefinition result = translator.translateModule();
-      language.getVM().reportLoadedSource(source);
-      alreadyLoaded.put(filepath, result);
-      return result;
-
-    } else if (response.has("mode")
-        && response.get("mode").getAsString().equals("static-error")) {
-      String errorMessage = "Kernan Error: " + response.get("message").getAsString();
-      if (response.has("line")) {
-        errorMessage += " (@ line " + response.get("line").getAsInt() + ")";
+    long start = System.nanoTime();
+    ParseTree parseTree = parseTreeCache == null ? null : parseTreeCache.get(source);
+    if (parseTree == null) {
+      parseTree = parseWithKernan(source);
+      if (parseTreeCache != null) {
+        parseTreeCache.put(source, parseTree);
+      }
+    }
+
+    // let Kernan parse the imports while this module is translated
+    requestImports(source, parseTree);
+
+    long parsed = System.nanoTime();
+    MixinDefinition result = translateGraceModule(source, parseTree, structuralProbe);
+
+    if (VmSettings.GRACE_COMPILE_STATS) {
+      numModules.incrementAndGet();
+      parseNanos.addAndGet(parsed - start);
+      translateNanos.addAndGet(System.nanoTime() - parsed);
+    }
+    return result;
+  }
+
+  private ParseTree parseWithKernan(final Source source) {
+    CompletableFuture<KernanClient.Response> request =
+        pendingParses.remove(source.getURI().getPath());
+    if (request == null) {
+      request = requestParse(source);
+    }
+
+    KernanClient.Response response;
+    try {
+      response = request.get();
+    } catch (InterruptedException | ExecutionException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      language.getVM().errorExit("Failed to get a response from Kernan: " + cause.getMessage());
+      throw new RuntimeException();
+    }
+
+    if (response.isParseTree()) {
+      return response.getParseTree();
+
+    } else if (response.isStaticError()) {
+      String errorMessage = "Kernan Error: " + response.getMessage();
+      if (response.getLine() != null) {
+        errorMessage += " (@ line " + response.getLine() + ")";
       }
       language.getVM().errorExit(errorMessage);
       throw new RuntimeException();
@@ -113,7 +204,102 @@ public class SourcecodeCompiler {
               + response);
       throw new RuntimeException();
     }
+  }
+
+  private CompletableFuture<KernanClient.Response> requestParse(final Source source) {
+    return getKernan().requestParse(source.getURI().getPath(),
+        source.getCharacters().toString());
+  }
+
+  /**
+   * Drops the prefetched parse trees, and closes the session with Kernan, if any.
+   */
+  public synchronized void shutdown() {
+    for (CompletableFuture<KernanClient.Response> request : pendingParses.values()) {
+      request.cancel(false);
+    }
+    pendingParses.clear();
+
+    if (kernan != null) {
+      kernan.close();
+      kernan = null;
+    }
+  }
+
+  private synchronized KernanClient getKernan() {
+    if (kernan == null) {
+      String address = KernanClient.DEFAULT_ADDRESS;
+      int port = VmSettings.KERNAN_PORT;
+      try {
+        kernan = new KernanClient(address, port);
+      } catch (ConnectException e) {
+        language.getVM().errorExit("Nothing is sending data on " + address + ":" + port
+            + ". Did you start Kernan in websocket mode?");
+        throw new RuntimeException();
+      } catch (IOException e) {
+        language.getVM().errorExit("Failed to connect to Kernan on " + address + ":" + port
+            + ": " + e.getMessage());
+        throw new RuntimeException();
+      }
+    }
+    return kernan;
+  }
+
+  /** The fields of a module's body elements, which are needed to find its imports. */
+  private static final Set<String> IMPORT_FIELDS =
+      new HashSet<>(Arrays.asList("nodetype", "path"));
+
+  /**
+   * Sends parse requests for the modules imported by the given parse tree, unless they are
+   * already loaded, requested, or cached.
+   */
+  private void requestImports(final Source source, final ParseTree parseTree) {
+    SourceManager sourceManager = new SourceManager(language, source);
+    JsonArray body = parseTree.readModule(IMPORT_FIELDS).get("body").getAsJsonArray();
+
+    for (JsonElement element : body) {
+      if (pendingParses.size() >= MAX_PENDING_PARSES) {
+        // the remaining imports are parsed when they are loaded
+        return;
+      }
+
+      JsonObject node = element.getAsJsonObject();
+      if (!node.has("nodetype") || !node.get("nodetype").getAsString().equals("import")
+          || !node.get("path").isJsonObject()) {
+        continue;
+      }
+
+      String name = node.get("path").getAsJsonObject().get("raw").getAsString();
+      File file = new File(sourceManager.pathForModuleNamed(Symbols.symbolFor(name)));
+      if (!file.isFile()) {
+        // reported when the import is translated
+        continue;
+      }
 
+      Source importSource;
+      try {
+        importSource = SomLanguage.getSource(file);
+      } catch (IOException e) {
+        continue;
+      }
+
+      String path = importSource.getURI().getPath();
+      if (alreadyLoaded.containsKey(path) || pendingParses.containsKey(path)
+          || (parseTreeCache != null && parseTreeCache.contains(importSource))) {
+        continue;
+      }
+      pendingParses.put(path, requestParse(importSource));
+    }
+  }
+
+  private MixinDefinition translateGraceModule(final Source source, final ParseTree parseTree,
+      final StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> structuralProbe) {
+    JsonTreeTranslator translator =
+        new JsonTreeTranslator(parseTree, source, language, structuralProbe);
+    MixinDefinition result = translator.translateModule();
+    language.getVM().reportLoadedSource(source);
+    alreadyLoaded.put(source.getURI().getPath(), result);
+    return result;
   }
 
   /**
@@ -0,0 +1,122 @@
+package som.compiler;
+
+import som.compiler.Variable.Argument;
+import som.interpreter.nodes.ArgumentReadNode.LocalArgumentReadNode;
+import som.interpreter.nodes.ArgumentReadNode.LocalSelfReadNode;
+import som.interpreter.nodes.ArgumentReadNode.LocalSuperReadNode;
+import som.interpreter.nodes.ArgumentReadNode.NonLocalArgumentReadNode;
+import som.interpreter.nodes.ArgumentReadNode.NonLocalSelfReadNode;
+import som.interpreter.nodes.ArgumentReadNode.NonLocalSuperReadNode;
+import som.interpreter.nodes.ExpressionNode;
+import som.interpreter.nodes.TypeCheckNode;
+import som.interpreter.nodes.TypeCheckNode.UnresolvedTypeCheckNode;
+import som.interpreter.nodes.literals.BooleanLiteralNode.FalseLiteralNode;
+import som.interpreter.nodes.literals.BooleanLiteralNode.TrueLiteralNode;
+import som.interpreter.nodes.literals.DoubleLiteralNode;
+import som.interpreter.nodes.literals.IntegerLiteralNode;
+import som.interpreter.nodes.literals.STypeLiteral;
+import som.interpreter.nodes.literals.StringLiteralNode;
+import som.vm.constants.Classes;
+import som.vmobjects.SClass;
+import som.vmobjects.SType;
+import som.vmobjects.SType.InterfaceType;
+
+
+/**
+ * Decides, before a type check node is created, whether the check can be omitted because
+ * it always succeeds.
+ *
+ * <p>
+ * Only type checks against interface literals are considered, since other type expressions
+ * are only known at run time. A check is redundant if the expected interface is empty, or
+ * if the static type of the checked expression already conforms to it. The static type is
+ * known for:
+ *
+ * <ul>
+ * <li>literals of the builtin classes,
+ * <li>expressions that are themselves checked against an interface literal,
+ * <li>reads of arguments, which were checked against an interface literal on entry of their
+ * method or block. Arguments are immutable and the check dominates all reads.
+ * </ul>
+ */
+public final class TypeCheckElimination {
+
+  private TypeCheckElimination() {}
+
+  /**
+   * Creates the type check for an argument on entry of its method or block, and remembers
+   * the checked type for later reads of the argument.
+   */
+  public static ExpressionNode checkArgument(final Argument arg, final ExpressionNode typeExpr,
+      final ExpressionNode read) {
+    ExpressionNode check = TypeCheckNode.create(typeExpr, read, typeExpr.getSourceSection());
+    if (check != read) {
+      arg.checkedType = getLiteralInterface(typeExpr);
+    }
+    return check;
+  }
+
+  /**
+   * @return true, if checking the value of the expression against the type is known to
+   *         succeed
+   */
+  public static boolean isRedundant(final ExpressionNode typeExpr,
+      final ExpressionNode expr) {
+    InterfaceType expected = getLiteralInterface(typeExpr);
+    if (expected == null) {
+      return false;
+    }
+
+    if (expected.getSignatures().length == 0) {
+      return true;
+    }
+
+    SType actual = getStaticType(expr);
+    return actual != null && (actual == expected || expected.isSuperTypeOf(actual, null));
+  }
+
+  private static InterfaceType getLiteralInterface(final ExpressionNode typeExpr) {
+    if (typeExpr instanceof STypeLiteral) {
+      SType type = ((STypeLiteral) typeExpr).getType();
+      if (type instanceof InterfaceType) {
+        return (InterfaceType) type;
+      }
+    }
+    return null;
+  }
+
+  private static SType getStaticType(final ExpressionNode expr) {
+    if (expr instanceof IntegerLiteralNode) {
+      return getType(Classes.integerClass);
+    } else if (expr instanceof DoubleLiteralNode) {
+      return getType(Classes.doubleClass);
+    } else if (expr instanceof StringLiteralNode) {
+      return getType(Classes.stringClass);
+    } else if (expr instanceof TrueLiteralNode) {
+      return getType(Classes.trueClass);
+    } else if (expr instanceof FalseLiteralNode) {
+      return getType(Classes.falseClass);
+    } else if (expr instanceof UnresolvedTypeCheckNode) {
+      return getLiteralInterface(((UnresolvedTypeCheckNode) expr).getReceiver());
+    } else if (expr instanceof LocalArgumentReadNode && !isSelfOrSuper(expr)) {
+      return getCheckedType(((LocalArgumentReadNode) expr).getArg());
+    } else if (expr instanceof NonLocalArgumentReadNode && !isSelfOrSuper(expr)) {
+      return getCheckedType(((NonLocalArgumentReadNode) expr).getArg());
+    }
+    return null;
+  }
+
+  private static boolean isSelfOrSuper(final ExpressionNode expr) {
+    return expr instanceof LocalSelfReadNode || expr instanceof LocalSuperReadNode
+        || expr instanceof NonLocalSelfReadNode || expr instanceof NonLocalSuperReadNode;
+  }
+
+  private static SType getCheckedType(final Argument arg) {
+    return arg.checkedType;
+  }
+
+  private static SType getType(final SClass cls) {
+    // the kernel classes might not be initialized yet
+    return cls == null ? null : cls.type;
+  }
+}
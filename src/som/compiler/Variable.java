@@ -30,6 +30,7 @@ import som.interpreter.nodes.TypeCheckNode;
 import som.interpreter.nodes.TypeCheckNode.ATypeCheckNode;
 import som.vm.Symbols;
 import som.vmobjects.SSymbol;
+import som.vmobjects.SType;
 
 
 /**
@@ -116,6 +117,12 @@ public abstract class Variable implements bd.inlining.Variable<ExpressionNode> {
   public static final class Argument extends Variable {
     public final int index;
 
+    /**
+     * The interface literal the argument was checked against on entry, if any. Used by
+     * {@link TypeCheckElimination}.
+     */
+    SType checkedType;
+
     Argument(final SSymbol name, final Supplier<ExpressionNode> type, final int index,
         final SourceSection source) {
       super(name, type, source);
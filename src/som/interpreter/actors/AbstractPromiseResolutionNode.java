@@ -96,19 +96,13 @@ public abstract class AbstractPromiseResolutionNode extends QuaternaryExpression
           promiseValue.getPromiseId(), promiseToBeResolved.getPromiseId());
     }
 
-    synchronized (promiseValue) {
+    // when promiseValue is completed, it resolves directly, without the breakpoint
+    if (!promiseValue.tryAddChainedPromise(promiseToBeResolved,
+        haltOnResolution || promiseValue.getHaltOnResolution())) {
+      // promiseValue is completed, so, resolve directly
       Resolution state = promiseValue.getResolutionStateUnsync();
-      if (SPromise.isCompleted(state)) {
-        resolvePromise(state, resolver, promiseValue.getValueUnsync(),
-            haltOnResolution);
-      } else {
-        synchronized (promiseToBeResolved) { // TODO: is this really deadlock free?
-          if (haltOnResolution || promiseValue.getHaltOnResolution()) {
-            promiseToBeResolved.enableHaltOnResolution();
-          }
-          promiseValue.addChainedPromise(promiseToBeResolved);
-        }
-      }
+      assert SPromise.isCompleted(state);
+      resolvePromise(state, resolver, promiseValue.getValueUnsync(), haltOnResolution);
     }
   }
 
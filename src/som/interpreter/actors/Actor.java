@@ -1,10 +1,13 @@
 package som.interpreter.actors;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -15,7 +18,6 @@ import com.oracle.truffle.api.nodes.RootNode;
 
 import som.VM;
 import som.interpreter.SomLanguage;
-import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.primitives.ObjectPrims.IsValue;
 import som.vm.Activity;
 import som.vm.VmSettings;
@@ -23,7 +25,6 @@ import som.vmobjects.SAbstractObject;
 import som.vmobjects.SArray.STransferArray;
 import som.vmobjects.SObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
-import tools.ObjectBuffer;
 import tools.concurrency.KomposTrace;
 import tools.concurrency.TracingActivityThread;
 import tools.concurrency.TracingActors.ReplayActor;
@@ -44,6 +45,7 @@ import tools.snapshot.SnapshotBuffer;
  * - have a low-overhead and safe scheduling system
  * - use an executor or fork/join pool for execution
  * - each actor should only have at max. one active task
+ * - the pool worker to run an actor on is chosen by the {@link ActorScheduler}
  *
  * algorithmic sketch
  * - enqueue message in actor queue
@@ -57,6 +59,8 @@ public class Actor implements Activity {
 
   @CompilationFinal protected static RootCallTarget executorRoot;
 
+  private static final ActorScheduler scheduler = ActorScheduler.create();
+
   public static void initializeActorSystem(final SomLanguage lang) {
     ExecutorRootNode root = new ExecutorRootNode(lang);
     executorRoot = Truffle.getRuntime().createCallTarget(root);
@@ -72,18 +76,34 @@ public class Actor implements Activity {
     }
   }
 
-  private static final int MAILBOX_EXTENSION_SIZE = 8;
+  /**
+   * Create an actor with a mailbox that holds at most the given number of
+   * messages, see {@link MailboxBound}.
+   * During replay, the mailbox is not bounded, because the trace determines
+   * the order of messages.
+   */
+  public static Actor createActor(final VM vm, final int mailboxCapacity) {
+    Actor actor = createActor(vm);
+    if (!VmSettings.REPLAY) {
+      actor.mailboxBound = new MailboxBound(actor, mailboxCapacity);
+    }
+    return actor;
+  }
 
   /**
-   * Buffer for incoming messages.
-   * Optimized for cases where the mailbox contains only one message.
-   * Further messages are stored in moreMessages, which is initialized lazily.
+   * Buffer for incoming messages, lock-free for concurrent senders.
+   * Also tracks whether there is currently a F/J task executing.
    */
-  protected EventualMessage               firstMessage;
-  protected ObjectBuffer<EventualMessage> mailboxExtension;
+  protected final Mailbox mailbox;
 
-  /** Flag to indicate whether there is currently a F/J task executing. */
-  protected boolean isExecuting;
+  /** Limits the mailbox, if the actor was created with a capacity, null otherwise. */
+  protected MailboxBound mailboxBound;
+
+  /**
+   * Messages this actor sent to actors with full mailboxes.
+   * Only accessed by the thread executing this actor, see {@link MailboxBound}.
+   */
+  HashMap<Actor, MailboxBound.OverflowBuffer> deferredSends;
 
   /** Is scheduled on the pool, and executes messages to this actor. */
   protected final ExecAllMessages executor;
@@ -97,7 +117,7 @@ public class Actor implements Activity {
   }
 
   protected Actor(final VM vm) {
-    isExecuting = false;
+    mailbox = new Mailbox();
     executor = createExecutor(vm);
   }
 
@@ -110,6 +130,10 @@ public class Actor implements Activity {
     return new ExecAllMessages(this, vm);
   }
 
+  public final MailboxBound getMailboxBound() {
+    return mailboxBound;
+  }
+
   public final Object wrapForUse(final Object o, final Actor owner,
       final Map<SAbstractObject, SAbstractObject> transferedObjects) {
     VM.thisMethodNeedsToBeOptimized("This should probably be optimized");
@@ -166,12 +190,12 @@ public class Actor implements Activity {
    * This is the main method to be used in this API.
    */
   @TruffleBoundary
-  public synchronized void send(final EventualMessage msg,
+  public void send(final EventualMessage msg,
       final ForkJoinPool actorPool) {
     doSend(msg, actorPool);
   }
 
-  public synchronized void sendInitialStartMessage(final EventualMessage msg,
+  public void sendInitialStartMessage(final EventualMessage msg,
       final ForkJoinPool pool) {
     doSend(msg, pool);
   }
@@ -180,24 +204,45 @@ public class Actor implements Activity {
       final ForkJoinPool actorPool) {
     assert msg.getTarget() == this;
 
-    if (firstMessage == null) {
-      firstMessage = msg;
+    if (mailboxBound != null) {
+      mailboxBound.send(msg, actorPool);
     } else {
-      appendToMailbox(msg);
+      enqueue(msg, actorPool);
     }
+  }
+
+  /**
+   * Whether {@link #sendBatch} can be used, which bypasses bounded mailboxes
+   * and the ordering done for replay.
+   */
+  final boolean acceptsBatches() {
+    return mailboxBound == null && !VmSettings.REPLAY;
+  }
+
+  /**
+   * Send messages to this actor with a single enqueue.
+   *
+   * @param newest the last message in sending order, linked to the earlier
+   *          ones via {@link EventualMessage#nextInMailbox}
+   * @param oldest the first message in sending order
+   */
+  @TruffleBoundary
+  void sendBatch(final EventualMessage newest, final EventualMessage oldest,
+      final ForkJoinPool actorPool) {
+    assert acceptsBatches();
+    mailbox.pushAll(newest, oldest);
 
-    if (!isExecuting) {
-      isExecuting = true;
+    if (mailbox.tryStartExecution()) {
       execute(actorPool);
     }
   }
 
-  @TruffleBoundary
-  protected void appendToMailbox(final EventualMessage msg) {
-    if (mailboxExtension == null) {
-      mailboxExtension = new ObjectBuffer<>(MAILBOX_EXTENSION_SIZE);
+  void enqueue(final EventualMessage msg, final ForkJoinPool actorPool) {
+    mailbox.push(msg);
+
+    if (mailbox.tryStartExecution()) {
+      execute(actorPool);
     }
-    mailboxExtension.append(msg);
   }
 
   public static final class ExecutorRootNode extends RootNode {
@@ -222,10 +267,17 @@ public class Actor implements Activity {
     protected final Actor actor;
     protected final VM    vm;
 
-    protected EventualMessage               firstMessage;
-    protected ObjectBuffer<EventualMessage> mailboxExtension;
+    /** First of the messages taken from the mailbox, linked in sending order. */
+    protected EventualMessage firstMessage;
+
+    /** Worker that ran this executor last, only a hint for the {@link ActorScheduler}. */
+    ActorProcessingThread lastWorker;
+
+    /** Set when a worker claimed the currently scheduled run, see {@link ActorScheduler}. */
+    private volatile int claimed;
 
-    protected int size = 0;
+    private static final AtomicIntegerFieldUpdater<ExecAllMessages> CLAIMED =
+        AtomicIntegerFieldUpdater.newUpdater(ExecAllMessages.class, "claimed");
 
     protected ExecAllMessages(final Actor actor, final VM vm) {
       this.actor = actor;
@@ -237,12 +289,22 @@ public class Actor implements Activity {
     @Override
     public void run() {
       assert executorRoot != null : "Actor system not initalized, call to initializeActorSystem(.) missing?";
-      executorRoot.call(this);
+      scheduler.run(this);
     }
 
-    void doRun() {
-      ObjectTransitionSafepoint.INSTANCE.register();
+    void resetClaim() {
+      claimed = 0;
+    }
+
+    boolean tryClaim() {
+      return claimed == 0 && CLAIMED.compareAndSet(this, 0, 1);
+    }
 
+    /** Number of messages processed in the current activation. */
+    private int  numProcessed;
+    private long activationStart;
+
+    void doRun() {
       ActorProcessingThread t = (ActorProcessingThread) Thread.currentThread();
       WebDebugger dbg = null;
       if (VmSettings.TRUFFLE_DEBUGGER_ENABLED) {
@@ -258,37 +320,85 @@ public class Actor implements Activity {
         KomposTrace.currentActivity(actor);
       }
 
-      try {
-        while (getCurrentMessagesOrCompleteExecution()) {
-          processCurrentMessages(t, dbg);
+      numProcessed = 0;
+      if (VmSettings.ACTOR_TIME_SLICE > 0 || VmSettings.ACTOR_SCHEDULER_STATS) {
+        activationStart = System.nanoTime();
+      }
+
+      boolean budgetExhausted = false;
+      while (getCurrentMessagesOrCompleteExecution()) {
+        processCurrentMessages(t, dbg);
+
+        if (firstMessage != null || isBudgetExhausted()) {
+          // yield the worker, remaining messages are processed in the next activation
+          budgetExhausted = true;
+          break;
         }
-      } finally {
-        ObjectTransitionSafepoint.INSTANCE.unregister();
       }
 
       if (VmSettings.ACTOR_TRACING || VmSettings.KOMPOS_TRACING) {
         t.swapTracingBufferIfRequestedUnsync();
       }
       t.currentlyExecutingActor = null;
+
+      if (VmSettings.ACTOR_SCHEDULER_STATS) {
+        ActorScheduler.recordActivation(t, numProcessed, System.nanoTime() - activationStart);
+      }
+
+      if (budgetExhausted) {
+        if (VmSettings.KOMPOS_TRACING) {
+          KomposTrace.clearCurrentActivity(actor);
+        }
+        if (VmSettings.ACTOR_SCHEDULER_STATS) {
+          t.numYields += 1;
+        }
+        // we keep the execution claim on the mailbox, and yield the worker.
+        // Note, this has to be the last access to the executor's state
+        scheduler.reschedule(this, vm.getActorPool());
+      }
+    }
+
+    /**
+     * Determine whether the current activation used up its budget
+     * as configured by <code>som.actorMessageBudget</code> and
+     * <code>som.actorTimeSlice</code>.
+     */
+    protected final boolean isBudgetExhausted() {
+      if (VmSettings.ACTOR_MESSAGE_BUDGET > 0
+          && numProcessed >= VmSettings.ACTOR_MESSAGE_BUDGET) {
+        return true;
+      }
+      return VmSettings.ACTOR_TIME_SLICE > 0
+          && System.nanoTime() - activationStart >= VmSettings.ACTOR_TIME_SLICE;
     }
 
     protected void processCurrentMessages(final ActorProcessingThread currentThread,
         final WebDebugger dbg) {
-      assert size > 0;
+      assert firstMessage != null;
 
       if (VmSettings.SNAPSHOTS_ENABLED && !VmSettings.TEST_SNAPSHOTS) {
         SnapshotBuffer sb = currentThread.getSnapshotBuffer();
         sb.getRecord().handleTodos(sb);
-        firstMessage.serialize(sb);
       }
-      execute(firstMessage, currentThread, dbg);
 
-      if (size > 1) {
-        for (EventualMessage msg : mailboxExtension) {
-          if (VmSettings.SNAPSHOTS_ENABLED && !VmSettings.TEST_SNAPSHOTS) {
-            msg.serialize(currentThread.getSnapshotBuffer());
-          }
-          execute(msg, currentThread, dbg);
+      EventualMessage msg = firstMessage;
+      firstMessage = null;
+      while (msg != null) {
+        // read the link first, the message can't be relied on after execution
+        EventualMessage next = msg.nextInMailbox;
+        if (VmSettings.SNAPSHOTS_ENABLED && !VmSettings.TEST_SNAPSHOTS) {
+          SnapshotBuffer sb = currentThread.getSnapshotBuffer();
+          sb.getRecord().startSnapshotIfNecessary(sb);
+          msg.serialize(sb);
+        }
+        execute(msg, currentThread, dbg);
+        numProcessed += 1;
+        msg = next;
+
+        if (msg != null && isBudgetExhausted()) {
+          // keep the remaining messages for the next activation
+          firstMessage = msg;
+          return;
         }
       }
     }
@@ -314,39 +424,33 @@ public class Actor implements Activity {
     }
 
     private boolean getCurrentMessagesOrCompleteExecution() {
-      synchronized (actor) {
-        assert actor.isExecuting;
-        firstMessage = actor.firstMessage;
-        mailboxExtension = actor.mailboxExtension;
-
-        if (firstMessage == null) {
-          assert mailboxExtension == null;
-          // complete execution after all messages are processed
-          actor.isExecuting = false;
-          if (VmSettings.KOMPOS_TRACING) {
-            KomposTrace.clearCurrentActivity(actor);
+      assert actor.mailbox.isExecuting();
+      if (firstMessage != null) {
+        // left over from the previous activation
+        return true;
+      }
+
+      do {
+        firstMessage = actor.mailbox.takeAll();
+        if (firstMessage != null) {
+          if (actor.mailboxBound != null) {
+            actor.mailboxBound.release(actor.mailbox.getNumTaken(), vm.getActorPool());
           }
-          size = 0;
-          return false;
-        } else {
-          size = 1 + ((mailboxExtension == null) ? 0 : mailboxExtension.size());
+          return true;
         }
+        // complete execution after all messages are processed
+      } while (!actor.mailbox.tryCompleteExecution());
 
-        actor.firstMessage = null;
-        actor.mailboxExtension = null;
+      if (VmSettings.KOMPOS_TRACING) {
+        KomposTrace.clearCurrentActivity(actor);
       }
-
-      return true;
+      return false;
     }
   }
 
   @TruffleBoundary
   protected void execute(final ForkJoinPool actorPool) {
-    try {
-      actorPool.execute(executor);
-    } catch (RejectedExecutionException e) {
-      throw new ThreadDeath();
-    }
+    scheduler.schedule(executor, actorPool);
   }
 
   @Override
@@ -373,8 +477,49 @@ public class Actor implements Activity {
 
     protected Actor currentlyExecutingActor;
 
+    /** Executors that last ran on this worker, and prefer to run here again. */
+    final ConcurrentLinkedQueue<ExecAllMessages> affineExecutors;
+
+    /** Executors scheduled by this worker to run after the current one. */
+    final ArrayDeque<ExecAllMessages> batchedExecutors;
+
+    /** Whether the worker is currently running activations in the {@link ActorScheduler}. */
+    boolean runningActivations;
+
+    /** Number of activations the worker may still batch before returning to the pool. */
+    int batchedRunsLeft;
+
+    /** Scheduler statistics, only maintained with <code>som.actorSchedulerStats</code>. */
+    long numLocalRuns;
+    long numSteals;
+    long numBatchedRuns;
+    long numYields;
+
+    final long[] messagesPerActivation;
+    final long[] microsPerActivation;
+
     protected ActorProcessingThread(final ForkJoinPool pool, final VM vm) {
       super(pool, vm);
+      if (ActorScheduler.AFFINITY.equals(VmSettings.ACTOR_SCHEDULER)) {
+        affineExecutors = new ConcurrentLinkedQueue<>();
+      } else {
+        affineExecutors = null;
+      }
+
+      if (VmSettings.ACTOR_TURN_BATCH > 1) {
+        batchedExecutors = new ArrayDeque<>(VmSettings.ACTOR_TURN_BATCH);
+      } else {
+        batchedExecutors = null;
+      }
+
+      if (VmSettings.ACTOR_SCHEDULER_STATS) {
+        messagesPerActivation = new long[ActorScheduler.HISTOGRAM_BUCKETS];
+        microsPerActivation = new long[ActorScheduler.HISTOGRAM_BUCKETS];
+      } else {
+        messagesPerActivation = null;
+        microsPerActivation = null;
+      }
+      ActorScheduler.registerWorker(this);
     }
 
     @Override
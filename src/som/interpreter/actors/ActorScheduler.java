@@ -0,0 +1,329 @@
+package som.interpreter.actors;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import som.Output;
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.interpreter.actors.Actor.ExecAllMessages;
+import som.interpreter.objectstorage.ObjectTransitionSafepoint;
+import som.vm.VmSettings;
+
+
+/**
+ * Decides on which worker of the actor pool an {@link ExecAllMessages} task
+ * runs. The scheduler is selected with the <code>som.actorScheduler</code>
+ * setting.
+ *
+ * <ul>
+ * <li><code>forkjoin</code> (default) submits to the pool, and lets the
+ * {@link ForkJoinPool} decide.
+ * <li><code>affinity</code> prefers the worker that executed an actor last.
+ * </ul>
+ *
+ * <p>
+ * Independent of the scheduler, <code>som.actorTurnBatch</code> allows a
+ * worker to run up to the given number of activations, which were scheduled
+ * by itself, back to back without returning to the pool. The limit holds for
+ * the whole batch, including activations scheduled by batched ones. They share a single
+ * registration with the {@link ObjectTransitionSafepoint}. Batched executors cannot be
+ * stolen, so they are only batched while all workers are busy. When a worker becomes idle,
+ * the waiting executors go back to the pool before the next batched activation starts.
+ */
+public abstract class ActorScheduler {
+
+  public static final String FORK_JOIN = "forkjoin";
+  public static final String AFFINITY  = "affinity";
+
+  /** Number of buckets for the log2 histograms of activation lengths. */
+  static final int HISTOGRAM_BUCKETS = 32;
+
+  /** Workers, only recorded when <code>som.actorSchedulerStats</code> is set. */
+  private static final ConcurrentLinkedQueue<ActorProcessingThread> workers =
+      new ConcurrentLinkedQueue<>();
+
+  public static ActorScheduler create() {
+    switch (VmSettings.ACTOR_SCHEDULER) {
+      case FORK_JOIN:
+        return new ForkJoinScheduler();
+      case AFFINITY:
+        return new AffinityScheduler();
+      default:
+        throw new IllegalArgumentException(
+            "Unknown actor scheduler: " + VmSettings.ACTOR_SCHEDULER);
+    }
+  }
+
+  /**
+   * Schedule the executor of an actor. Called only by the sender that claimed
+   * execution on the actor's {@link Mailbox}.
+   */
+  abstract void schedule(ExecAllMessages executor, ForkJoinPool pool);
+
+  /**
+   * Schedule an executor that exhausted its budget and yields the worker.
+   * It is not batched locally, to give other actors a chance to run first.
+   */
+  abstract void reschedule(ExecAllMessages executor, ForkJoinPool pool);
+
+  /**
+   * Run the executor, after it was handed to the current worker by the pool.
+   *
+   * @return true, if the executor was run, false if another worker ran it
+   */
+  abstract boolean runClaimed(ExecAllMessages executor, ActorProcessingThread t);
+
+  /**
+   * Called by the pool's worker to run an executor, and afterwards all
+   * executors batched on this worker.
+   */
+  final void run(final ExecAllMessages executor) {
+    ActorProcessingThread t = (ActorProcessingThread) Thread.currentThread();
+
+    ObjectTransitionSafepoint.INSTANCE.register();
+    t.runningActivations = true;
+    // the batched activations may batch further ones, but only until the budget of the
+    // whole batch is used up, so that a stream of batched work cannot pin the worker
+    t.batchedRunsLeft = VmSettings.ACTOR_TURN_BATCH - 1;
+    try {
+      runClaimed(executor, t);
+
+      if (VmSettings.ACTOR_TURN_BATCH > 1) {
+        ExecAllMessages next;
+        while (t.batchedRunsLeft > 0 && (next = t.batchedExecutors.poll()) != null) {
+          if (hasIdleWorkers(t.getPool())) {
+            // idle workers can steal the executors waiting behind this one
+            submitBatched(t);
+          }
+          t.batchedRunsLeft -= 1;
+          // we stay registered, so, let pending safepoints proceed
+          ObjectTransitionSafepoint.INSTANCE.checkAndPerformSafepoint();
+          if (runClaimed(next, t) && VmSettings.ACTOR_SCHEDULER_STATS) {
+            t.numBatchedRuns += 1;
+          }
+        }
+      }
+    } finally {
+      t.runningActivations = false;
+      if (t.batchedExecutors != null) {
+        // whatever remains goes back to the pool
+        submitBatched(t);
+      }
+      ObjectTransitionSafepoint.INSTANCE.unregister();
+    }
+  }
+
+  private static void submitBatched(final ActorProcessingThread t) {
+    ExecAllMessages rest;
+    while ((rest = t.batchedExecutors.poll()) != null) {
+      submit(rest, t.getPool());
+    }
+  }
+
+  /**
+   * Whether some workers of the pool are idle, and could steal executors from the pool.
+   */
+  private static boolean hasIdleWorkers(final ForkJoinPool pool) {
+    return pool.getActiveThreadCount() < pool.getParallelism();
+  }
+
+  /**
+   * Batch the executor on the current worker, if it is an actor worker
+   * currently running activations, the batch budget is not yet used up, and
+   * no other worker is idle.
+   */
+  protected static boolean tryBatchLocally(final ExecAllMessages executor,
+      final ForkJoinPool pool) {
+    if (VmSettings.ACTOR_TURN_BATCH <= 1) {
+      return false;
+    }
+
+    Thread current = Thread.currentThread();
+    if (!(current instanceof ActorProcessingThread)) {
+      return false;
+    }
+
+    ActorProcessingThread t = (ActorProcessingThread) current;
+    if (!t.runningActivations || t.getPool() != pool
+        || t.batchedExecutors.size() >= t.batchedRunsLeft || hasIdleWorkers(pool)) {
+      return false;
+    }
+
+    t.batchedExecutors.add(executor);
+    return true;
+  }
+
+  protected static void submit(final ExecAllMessages executor, final ForkJoinPool pool) {
+    try {
+      pool.execute(executor);
+    } catch (RejectedExecutionException e) {
+      throw new ThreadDeath();
+    }
+  }
+
+  protected static void runOn(final ExecAllMessages executor,
+      final ActorProcessingThread t) {
+    if (VmSettings.ACTOR_SCHEDULER_STATS) {
+      if (executor.lastWorker == null || executor.lastWorker == t) {
+        t.numLocalRuns += 1;
+      } else {
+        t.numSteals += 1;
+      }
+    }
+    executor.lastWorker = t;
+    Actor.executorRoot.call(executor);
+  }
+
+  static void registerWorker(final ActorProcessingThread t) {
+    if (VmSettings.ACTOR_SCHEDULER_STATS) {
+      workers.add(t);
+    }
+  }
+
+  /**
+   * Record the length of a completed activation of an actor.
+   *
+   * @param numMessages processed in the activation
+   * @param nanos the activation took
+   */
+  static void recordActivation(final ActorProcessingThread t, final int numMessages,
+      final long nanos) {
+    t.messagesPerActivation[log2Bucket(numMessages)] += 1;
+    t.microsPerActivation[log2Bucket(nanos / 1000)] += 1;
+  }
+
+  private static int log2Bucket(final long value) {
+    if (value <= 0) {
+      return 0;
+    }
+    return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+  }
+
+  /**
+   * Reports the per-worker statistics, if <code>som.actorSchedulerStats</code> is set.
+   * A steal is a run of an actor on another worker than the one that executed it last.
+   * The histograms count activations by their length in messages and
+   * microseconds, in buckets of powers of two.
+   */
+  public static void reportStats() {
+    if (!VmSettings.ACTOR_SCHEDULER_STATS) {
+      return;
+    }
+
+    long totalRuns = 0;
+    long totalSteals = 0;
+    long totalBatched = 0;
+    long totalYields = 0;
+    long[] messages = new long[HISTOGRAM_BUCKETS];
+    long[] micros = new long[HISTOGRAM_BUCKETS];
+
+    int i = 0;
+    for (ActorProcessingThread t : workers) {
+      long runs = t.numLocalRuns + t.numSteals;
+      Output.println("RESULT-ActorWorker" + i + "-Runs: " + runs);
+      Output.println("RESULT-ActorWorker" + i + "-Steals: " + t.numSteals);
+      totalRuns += runs;
+      totalSteals += t.numSteals;
+      totalBatched += t.numBatchedRuns;
+      totalYields += t.numYields;
+
+      for (int b = 0; b < HISTOGRAM_BUCKETS; b += 1) {
+        messages[b] += t.messagesPerActivation[b];
+        micros[b] += t.microsPerActivation[b];
+      }
+      i += 1;
+    }
+    Output.println("RESULT-ActorRuns: " + totalRuns);
+    Output.println("RESULT-ActorSteals: " + totalSteals);
+    Output.println("RESULT-ActorBatchedRuns: " + totalBatched);
+    Output.println("RESULT-ActorBudgetYields: " + totalYields);
+
+    reportHistogram("RESULT-ActivationMessages", messages);
+    reportHistogram("RESULT-ActivationMicros", micros);
+  }
+
+  private static void reportHistogram(final String name, final long[] histogram) {
+    for (int b = 0; b < HISTOGRAM_BUCKETS; b += 1) {
+      if (histogram[b] > 0) {
+        long upperBound = (1L << b) - 1;
+        Output.println(name + "-UpTo" + upperBound + ": " + histogram[b]);
+      }
+    }
+  }
+
+  private static final class ForkJoinScheduler extends ActorScheduler {
+    @Override
+    void schedule(final ExecAllMessages executor, final ForkJoinPool pool) {
+      if (!tryBatchLocally(executor, pool)) {
+        submit(executor, pool);
+      }
+    }
+
+    @Override
+    void reschedule(final ExecAllMessages executor, final ForkJoinPool pool) {
+      submit(executor, pool);
+    }
+
+    @Override
+    boolean runClaimed(final ExecAllMessages executor, final ActorProcessingThread t) {
+      runOn(executor, t);
+      return true;
+    }
+  }
+
+  /**
+   * Keeps actors on the worker that executed them last, to benefit from warm
+   * caches.
+   *
+   * <p>
+   * The executor is always submitted to the pool, which puts it into the
+   * local queue of the sending worker. If the actor ran on a different worker
+   * before, the executor is additionally offered to that worker's affinity
+   * queue, which the worker drains after finishing its current task. Whoever
+   * claims the executor first runs it. Thus, a message to an idle actor sent
+   * from an actor worker executes locally, and another worker only steals it
+   * when it runs dry before the preferred worker is done.
+   */
+  private static final class AffinityScheduler extends ActorScheduler {
+    @Override
+    void schedule(final ExecAllMessages executor, final ForkJoinPool pool) {
+      executor.resetClaim();
+
+      ActorProcessingThread last = executor.lastWorker;
+      if (last == null || last == Thread.currentThread()) {
+        if (tryBatchLocally(executor, pool)) {
+          return;
+        }
+      } else if (last.getPool() == pool) {
+        last.affineExecutors.add(executor);
+      }
+
+      submit(executor, pool);
+    }
+
+    @Override
+    void reschedule(final ExecAllMessages executor, final ForkJoinPool pool) {
+      executor.resetClaim();
+      submit(executor, pool);
+    }
+
+    @Override
+    boolean runClaimed(final ExecAllMessages executor, final ActorProcessingThread t) {
+      boolean ran = false;
+      if (executor.tryClaim()) {
+        runOn(executor, t);
+        ran = true;
+      }
+
+      // before returning to the pool, run the actors that prefer this worker
+      ExecAllMessages e;
+      while ((e = t.affineExecutors.poll()) != null) {
+        if (e.tryClaim()) {
+          runOn(e, t);
+        }
+      }
+      return ran;
+    }
+  }
+}
@@ -44,6 +44,13 @@ public abstract class EventualMessage {
    */
   private final boolean haltOnResolver;
 
+  /**
+   * Intrusive link used by {@link Mailbox}, and by {@link SPromise} for
+   * callbacks that wait for the promise's resolution. A message is only ever
+   * in a single one of these lists at a time.
+   */
+  EventualMessage nextInMailbox;
+
   protected EventualMessage(final Object[] args,
       final SResolver resolver, final RootCallTarget onReceive,
       final boolean haltOnReceive, final boolean haltOnResolver) {
@@ -73,6 +80,10 @@ public abstract class EventualMessage {
     return messageId;
   }
 
+  public final EventualMessage getNextInMailbox() {
+    return nextInMailbox;
+  }
+
   public abstract SSymbol getSelector();
 
   public SourceSection getTargetSourceSection() {
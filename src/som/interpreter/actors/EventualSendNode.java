@@ -95,7 +95,7 @@ public class EventualSendNode extends ExprWithTagsNode {
   private static WrapReferenceNode[] createArgWrapper(final int numArgs) {
     WrapReferenceNode[] wrapper = new WrapReferenceNode[numArgs];
     for (int i = 0; i < numArgs; i++) {
-      wrapper[i] = WrapReferenceNodeGen.create();
+      wrapper[i] = WrapReferenceNodeGen.create(true);
     }
     return wrapper;
   }
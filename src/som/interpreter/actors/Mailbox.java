@@ -0,0 +1,141 @@
+package som.interpreter.actors;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+
+/**
+ * Lock-free multi-producer/single-consumer mailbox of an actor.
+ *
+ * <p>
+ * Senders push messages onto a Treiber stack that is linked intrusively
+ * through {@link EventualMessage#nextInMailbox}, so that enqueuing a message
+ * does not allocate. The single consumer, i.e., the actor's
+ * {@link Actor.ExecAllMessages}, takes the whole stack with one atomic swap and
+ * reverses it into sending order.
+ *
+ * <p>
+ * The mailbox also holds the flag that guarantees that there is at most one
+ * executor per actor. A sender that finds the actor idle claims execution with
+ * a CAS and schedules the executor. When the executor runs dry, it releases
+ * the flag and rechecks the mailbox to not miss a message that was pushed
+ * concurrently.
+ */
+public final class Mailbox {
+
+  private static final AtomicReferenceFieldUpdater<Mailbox, EventualMessage> HEAD =
+      AtomicReferenceFieldUpdater.newUpdater(Mailbox.class, EventualMessage.class, "head");
+
+  private static final AtomicIntegerFieldUpdater<Mailbox> EXECUTING =
+      AtomicIntegerFieldUpdater.newUpdater(Mailbox.class, "executing");
+
+  /** Most recently pushed message, links to the previously pushed ones. */
+  private volatile EventualMessage head;
+
+  /** 1 while an executor is scheduled or running, 0 otherwise. */
+  private volatile int executing;
+
+  /** Number of messages returned by the last {@link #takeAll()}, consumer only. */
+  private int numTaken;
+
+  /**
+   * Push a message, can be called concurrently by any number of senders.
+   */
+  public void push(final EventualMessage msg) {
+    EventualMessage h;
+    do {
+      h = head;
+      msg.nextInMailbox = h;
+    } while (!HEAD.compareAndSet(this, h, msg));
+  }
+
+  /**
+   * Push a batch of messages with a single atomic operation.
+   *
+   * @param newest the last message in sending order, linked to the earlier
+   *          ones via {@link EventualMessage#nextInMailbox}
+   * @param oldest the first message in sending order, the end of the chain
+   */
+  public void pushAll(final EventualMessage newest, final EventualMessage oldest) {
+    EventualMessage h;
+    do {
+      h = head;
+      oldest.nextInMailbox = h;
+    } while (!HEAD.compareAndSet(this, h, newest));
+  }
+
+  /**
+   * Try to claim execution for the actor.
+   *
+   * @return true, if the caller is now responsible for scheduling the executor
+   */
+  public boolean tryStartExecution() {
+    return executing == 0 && EXECUTING.compareAndSet(this, 0, 1);
+  }
+
+  /**
+   * Take all messages currently in the mailbox. Only to be used by the
+   * executor that claimed execution.
+   *
+   * @return the first message, linked in sending order, or null if empty
+   */
+  public EventualMessage takeAll() {
+    if (head == null) {
+      return null;
+    }
+
+    EventualMessage current = HEAD.getAndSet(this, null);
+
+    // reverse the stack to restore the order in which messages were sent
+    EventualMessage reversed = null;
+    int n = 0;
+    while (current != null) {
+      EventualMessage next = current.nextInMailbox;
+      current.nextInMailbox = reversed;
+      reversed = current;
+      current = next;
+      n += 1;
+    }
+    numTaken = n;
+    return reversed;
+  }
+
+  public int getNumTaken() {
+    return numTaken;
+  }
+
+  /**
+   * Release execution after the mailbox was found empty.
+   *
+   * @return true, if the executor is done, false if new messages arrived
+   *         concurrently and the executor reclaimed execution
+   */
+  public boolean tryCompleteExecution() {
+    assert executing == 1;
+    executing = 0;
+    return head == null || !EXECUTING.compareAndSet(this, 0, 1);
+  }
+
+  public boolean isExecuting() {
+    return executing == 1;
+  }
+
+  public boolean isEmpty() {
+    return head == null;
+  }
+
+  /**
+   * Best-effort copy of the pending messages in sending order.
+   * Only meant for diagnostics, the mailbox may change concurrently.
+   */
+  public ArrayList<EventualMessage> getPendingMessages() {
+    ArrayList<EventualMessage> result = new ArrayList<>();
+    EventualMessage current = head;
+    while (current != null) {
+      result.add(0, current);
+      current = current.nextInMailbox;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,293 @@
+package som.interpreter.actors;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.interpreter.actors.EventualMessage.DirectMessage;
+import som.interpreter.objectstorage.ObjectTransitionSafepoint;
+import som.vm.Symbols;
+import som.vmobjects.SBlock;
+import som.vmobjects.SSymbol;
+import tools.concurrency.TracingActivityThread;
+
+
+/**
+ * Limits the number of messages waiting in the mailbox of an actor, which
+ * was created with a mailbox capacity.
+ *
+ * <p>
+ * When the mailbox is full, a sending actor does not block. Instead, the
+ * message is deferred into an {@link OverflowBuffer} owned by the sender.
+ * The sender drops the buffer once the receiver drained it.
+ * Once the receiver takes messages from its mailbox, it moves deferred
+ * messages over as capacity frees up. All later messages of the same sender
+ * go through the overflow buffer until it is empty, to preserve the order of
+ * messages between two actors.
+ *
+ * <p>
+ * Other activities, i.e., threads and processes, are parked until there is
+ * capacity again. VM-internal threads, for instance the timer, are not
+ * limited.
+ *
+ * <p>
+ * When the mailbox gets full, the optional high-watermark callback is
+ * triggered. Once it drained to half its capacity, the low-watermark
+ * callback is triggered.
+ */
+public final class MailboxBound {
+  private static final SSymbol VALUE_SELECTOR = Symbols.symbolFor("value");
+
+  private final Actor actor;
+  private final int   capacity;
+  private final int   lowWatermark;
+
+  /** Number of reserved slots, i.e., messages in the mailbox. */
+  private final AtomicInteger size;
+
+  /** Overflow buffers with messages deferred until there is capacity. */
+  private final ConcurrentLinkedQueue<OverflowBuffer> waitingSenders;
+
+  private final AtomicBoolean aboveLowWatermark;
+
+  private volatile Watermarks watermarks;
+
+  /** Number of parked non-actor senders, guarded by <code>this</code>. */
+  private int numParked;
+
+  MailboxBound(final Actor actor, final int capacity) {
+    assert capacity > 0;
+    this.actor = actor;
+    this.capacity = capacity;
+    this.lowWatermark = capacity / 2;
+    this.size = new AtomicInteger(0);
+    this.waitingSenders = new ConcurrentLinkedQueue<>();
+    this.aboveLowWatermark = new AtomicBoolean(false);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Callbacks to be executed as <code>value</code> messages on the owning actor.
+   */
+  private static final class Watermarks {
+    private final Actor          owner;
+    private final SBlock         onHigh;
+    private final SBlock         onLow;
+    private final RootCallTarget onReceive;
+
+    Watermarks(final Actor owner, final SBlock onHigh, final SBlock onLow,
+        final RootCallTarget onReceive) {
+      this.owner = owner;
+      this.onHigh = onHigh;
+      this.onLow = onLow;
+      this.onReceive = onReceive;
+    }
+  }
+
+  /**
+   * Messages of one sender to one receiver, which could not be enqueued
+   * because the receiver's mailbox was full.
+   * Access to the messages is guarded by the buffer itself.
+   */
+  static final class OverflowBuffer {
+    private final ArrayDeque<EventualMessage> messages = new ArrayDeque<>();
+
+    /** Whether the buffer is in the receiver's {@link #waitingSenders}. */
+    private boolean queued;
+  }
+
+  public void setWatermarkCallbacks(final Actor owner, final SBlock onHigh,
+      final SBlock onLow, final RootCallTarget onReceive) {
+    watermarks = new Watermarks(owner, onHigh, onLow, onReceive);
+  }
+
+  @TruffleBoundary
+  void send(final EventualMessage msg, final ForkJoinPool pool) {
+    Thread current = Thread.currentThread();
+    if (current instanceof ActorProcessingThread) {
+      Actor sender = ((ActorProcessingThread) current).currentlyExecutingActor;
+      if (sender != null) {
+        sendFromActor(sender, msg, pool);
+        return;
+      }
+    }
+
+    if (current instanceof TracingActivityThread) {
+      awaitCapacity(pool);
+    } else {
+      size.incrementAndGet();
+    }
+    actor.enqueue(msg, pool);
+  }
+
+  private void sendFromActor(final Actor sender, final EventualMessage msg,
+      final ForkJoinPool pool) {
+    if (sender.deferredSends == null) {
+      sender.deferredSends = new HashMap<>();
+    }
+
+    OverflowBuffer buffer = sender.deferredSends.get(actor);
+    if (buffer != null) {
+      synchronized (buffer) {
+        if (!buffer.messages.isEmpty()) {
+          // keep order, earlier messages are still waiting
+          buffer.messages.add(msg);
+          return;
+        }
+      }
+      // the receiver drained it, and only the sender adds messages, so, it can go
+      sender.deferredSends.remove(actor);
+    }
+
+    if (tryReserve(pool)) {
+      actor.enqueue(msg, pool);
+      return;
+    }
+
+    removeDrainedBuffers(sender);
+    buffer = new OverflowBuffer();
+    sender.deferredSends.put(actor, buffer);
+
+    synchronized (buffer) {
+      buffer.messages.add(msg);
+      if (!buffer.queued) {
+        buffer.queued = true;
+        waitingSenders.add(buffer);
+      }
+    }
+
+    // capacity might have been freed concurrently, without seeing our buffer
+    flushDeferredSends(pool);
+  }
+
+  /**
+   * Remove the overflow buffers the receivers drained since the sender last
+   * used them. Thus, the sender only keeps buffers with waiting messages,
+   * and the one it is about to fill.
+   */
+  private static void removeDrainedBuffers(final Actor sender) {
+    Iterator<OverflowBuffer> i = sender.deferredSends.values().iterator();
+    while (i.hasNext()) {
+      OverflowBuffer b = i.next();
+      synchronized (b) {
+        if (b.messages.isEmpty()) {
+          i.remove();
+        }
+      }
+    }
+  }
+
+  private boolean tryReserve(final ForkJoinPool pool) {
+    while (true) {
+      int s = size.get();
+      if (s >= capacity) {
+        reachedHighWatermark(pool);
+        return false;
+      }
+      if (size.compareAndSet(s, s + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void awaitCapacity(final ForkJoinPool pool) {
+    if (tryReserve(pool)) {
+      return;
+    }
+
+    ObjectTransitionSafepoint.INSTANCE.unregister();
+    try {
+      synchronized (this) {
+        numParked += 1;
+        try {
+          while (!tryReserve(pool)) {
+            wait();
+          }
+        } catch (InterruptedException e) {
+          // we are asked to stop, still deliver the message
+          size.incrementAndGet();
+          Thread.currentThread().interrupt();
+        } finally {
+          numParked -= 1;
+        }
+      }
+    } finally {
+      ObjectTransitionSafepoint.INSTANCE.register();
+    }
+  }
+
+  /**
+   * Called by the receiver's executor after taking messages from the mailbox.
+   */
+  void release(final int numMessages, final ForkJoinPool pool) {
+    int s = size.addAndGet(-numMessages);
+
+    if (s <= lowWatermark && aboveLowWatermark.get()
+        && aboveLowWatermark.compareAndSet(true, false)) {
+      Watermarks w = watermarks;
+      if (w != null && w.onLow != null) {
+        triggerCallback(w, w.onLow, pool);
+      }
+    }
+
+    if (!waitingSenders.isEmpty()) {
+      flushDeferredSends(pool);
+    }
+
+    synchronized (this) {
+      if (numParked > 0) {
+        notifyAll();
+      }
+    }
+  }
+
+  private void flushDeferredSends(final ForkJoinPool pool) {
+    boolean enqueued = false;
+
+    OverflowBuffer buffer;
+    while (size.get() < capacity && (buffer = waitingSenders.poll()) != null) {
+      synchronized (buffer) {
+        buffer.queued = false;
+        while (!buffer.messages.isEmpty() && tryReserve(pool)) {
+          actor.mailbox.push(buffer.messages.poll());
+          enqueued = true;
+        }
+
+        if (!buffer.messages.isEmpty()) {
+          buffer.queued = true;
+          waitingSenders.add(buffer);
+        }
+      }
+    }
+
+    if (enqueued && actor.mailbox.tryStartExecution()) {
+      actor.execute(pool);
+    }
+  }
+
+  private void reachedHighWatermark(final ForkJoinPool pool) {
+    if (!aboveLowWatermark.get() && aboveLowWatermark.compareAndSet(false, true)) {
+      Watermarks w = watermarks;
+      if (w != null && w.onHigh != null) {
+        triggerCallback(w, w.onHigh, pool);
+      }
+    }
+  }
+
+  private void triggerCallback(final Watermarks w, final SBlock callback, final ForkJoinPool pool) {
+    DirectMessage msg = new DirectMessage(w.owner, VALUE_SELECTOR,
+        new Object[] {callback}, actor, null, w.onReceive);
+    w.owner.send(msg, pool);
+  }
+}
@@ -1,7 +1,9 @@
 package som.interpreter.actors;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -45,30 +47,55 @@ public class SPromise extends SObjectWithClass {
       final Resolution state) {
     assert VmSettings.SNAPSHOTS_ENABLED;
     SPromise prom = createPromise(owner, false, false, null);
-    prom.resolutionState = state;
-    prom.value = value;
+    prom.completeUnpublished(value, state);
     return prom;
   }
 
-  // THREAD-SAFETY: these fields are subject to race conditions and should only
-  // be accessed when under the SPromise(this) lock
-  // currently, we minimize locking by first setting the result
-  // value and resolved flag, and then release the lock again
-  // this makes sure that the promise owner directly schedules
-  // call backs, and does not block the resolver to schedule
-  // call backs here either. After resolving the future,
-  // whenResolved and whenBroken should only be accessed by the
-  // resolver actor
-  protected PromiseMessage            whenResolved;
-  protected ArrayList<PromiseMessage> whenResolvedExt;
-  protected PromiseMessage            onError;
-  protected ArrayList<PromiseMessage> onErrorExt;
+  /** Marks a list of callbacks or chained promises as no longer accepting entries. */
+  private static final Object CLOSED = new Object();
 
-  protected SPromise            chainedPromise;
-  protected ArrayList<SPromise> chainedPromiseExt;
+  /**
+   * Marks a list that is read by a snapshot. Registrations and the resolver
+   * wait until the snapshot put the list back.
+   */
+  private static final Object IN_SNAPSHOT = new Object();
+
+  private static final AtomicReferenceFieldUpdater<SPromise, Object> WHEN_RESOLVED =
+      AtomicReferenceFieldUpdater.newUpdater(SPromise.class, Object.class, "whenResolved");
+  private static final AtomicReferenceFieldUpdater<SPromise, Object> ON_ERROR =
+      AtomicReferenceFieldUpdater.newUpdater(SPromise.class, Object.class, "onError");
+  private static final AtomicReferenceFieldUpdater<SPromise, Object> CHAINED =
+      AtomicReferenceFieldUpdater.newUpdater(SPromise.class, Object.class, "chainedPromises");
+  private static final AtomicReferenceFieldUpdater<SPromise, Object> FORWARDED =
+      AtomicReferenceFieldUpdater.newUpdater(SPromise.class, Object.class, "forwarded");
+
+  // THREAD-SAFETY: the promise does not use locks.
+  // Callbacks and chained promises are kept in lock-free stacks, linked
+  // intrusively via EventualMessage.nextInMailbox and SPromise.nextChained.
+  // A list is either null (empty), the most recently added entry, or CLOSED.
+  // The resolver first sets value and resolutionState, then repeatedly takes
+  // the lists and schedules the entries in registration order, until it can
+  // swap an empty list to CLOSED. Only a registration that finds a list
+  // CLOSED handles the entry itself. Thus, it is ordered after all earlier
+  // registrations, without waiting for the resolver.
+  // A snapshot swaps a list to IN_SNAPSHOT while it reads the entries, so
+  // that they are neither relinked nor extended meanwhile.
+  private volatile Object whenResolved;
+  private volatile Object onError;
+  private volatile Object chainedPromises;
+
+  /** Link in the chainedPromises list of the promise this one is chained to. */
+  private SPromise nextChained;
+
+  /**
+   * The promises handed out by {@link #getChainedPromiseFor(Actor)}, so that
+   * every actor gets at most one. Either null, a single promise, or a
+   * {@link ConcurrentHashMap} from actor to promise, once there is more than one.
+   */
+  private volatile Object forwarded;
 
-  protected Object     value;
-  protected Resolution resolutionState;
+  protected Object              value;
+  protected volatile Resolution resolutionState;
 
   /** The owner of this promise, on which all call backs are scheduled. */
   protected final Actor owner;
@@ -152,59 +179,155 @@ public class SPromise extends SObjectWithClass {
     return promiseClass;
   }
 
-  public final synchronized SPromise getChainedPromiseFor(final Actor target) {
+  /**
+   * Get the promise that represents this promise in the target actor.
+   * Passing the same promise repeatedly to an actor yields the same promise,
+   * and thus, a single resolution to be delivered.
+   * For the debugger, each transfer creates a new promise, to keep the traced
+   * chaining of promises complete.
+   */
+  public final SPromise getChainedPromiseFor(final Actor target) {
+    if (!VmSettings.KOMPOS_TRACING) {
+      SPromise known = getForwardedTo(target);
+      if (known != null) {
+        return known;
+      }
+    }
+
     SPromise remote = SPromise.createPromise(target, haltOnResolver,
         haltOnResolution, null);
     if (VmSettings.KOMPOS_TRACING) {
       KomposTrace.promiseChained(getPromiseId(), remote.getPromiseId());
     }
-    if (isCompleted()) {
-      remote.value = value;
-      remote.resolutionState = resolutionState;
+    if (!tryAddChainedPromise(remote)) {
+      // we are completed, and the value was set before the list got closed
+      remote.completeUnpublished(value, resolutionState);
       if (VmSettings.ACTOR_TRACING || VmSettings.REPLAY) {
         ((STracingPromise) remote).resolvingActor = ((STracingPromise) this).resolvingActor;
       }
-    } else {
-      addChainedPromise(remote);
     }
-    return remote;
+
+    if (VmSettings.KOMPOS_TRACING) {
+      return remote;
+    }
+
+    // only record remote once it is chained or completed. If another thread
+    // was faster, remote is still resolved correctly, but nobody refers to it
+    return recordForwarded(target, remote);
   }
 
-  public final void registerWhenResolvedUnsynced(final PromiseMessage msg) {
-    if (whenResolved == null) {
-      whenResolved = msg;
+  private SPromise getForwardedTo(final Actor target) {
+    Object f = forwarded;
+    if (f == null) {
+      return null;
+    } else if (f instanceof SPromise) {
+      SPromise p = (SPromise) f;
+      return p.owner == target ? p : null;
     } else {
-      registerMoreWhenResolved(msg);
+      return getForwardedFromMap(f, target);
     }
   }
 
   @TruffleBoundary
-  private void registerMoreWhenResolved(final PromiseMessage msg) {
-    if (whenResolvedExt == null) {
-      whenResolvedExt = new ArrayList<>(2);
+  @SuppressWarnings("unchecked")
+  private static SPromise getForwardedFromMap(final Object map, final Actor target) {
+    return ((ConcurrentHashMap<Actor, SPromise>) map).get(target);
+  }
+
+  /**
+   * @return the promise recorded for the target, which is remote, unless
+   *         another thread recorded one concurrently
+   */
+  @TruffleBoundary
+  @SuppressWarnings("unchecked")
+  private SPromise recordForwarded(final Actor target, final SPromise remote) {
+    while (true) {
+      Object f = forwarded;
+      if (f == null) {
+        if (FORWARDED.compareAndSet(this, null, remote)) {
+          return remote;
+        }
+      } else if (f instanceof SPromise) {
+        SPromise p = (SPromise) f;
+        if (p.owner == target) {
+          return p;
+        }
+
+        ConcurrentHashMap<Actor, SPromise> map = new ConcurrentHashMap<>(4);
+        map.put(p.owner, p);
+        map.put(target, remote);
+        if (FORWARDED.compareAndSet(this, f, map)) {
+          return remote;
+        }
+      } else {
+        SPromise p = ((ConcurrentHashMap<Actor, SPromise>) f).putIfAbsent(target, remote);
+        return p == null ? remote : p;
+      }
     }
-    whenResolvedExt.add(msg);
   }
 
-  public final void registerOnErrorUnsynced(final PromiseMessage msg) {
-    if (onError == null) {
-      onError = msg;
-    } else {
-      registerMoreOnError(msg);
+  /**
+   * Set the result of a promise that is not yet visible to other actors.
+   */
+  private void completeUnpublished(final Object value, final Resolution state) {
+    assert isCompleted(state);
+    this.value = value;
+    this.whenResolved = CLOSED;
+    this.onError = CLOSED;
+    this.chainedPromises = CLOSED;
+    this.resolutionState = state;
+  }
+
+  /**
+   * Register a callback or message to be scheduled on successful resolution.
+   *
+   * @return false, if the promise is completed, and the caller needs to
+   *         handle the message itself
+   */
+  public final boolean tryRegisterWhenResolved(final PromiseMessage msg) {
+    return push(WHEN_RESOLVED, msg);
+  }
+
+  /**
+   * Register a callback to be scheduled when the promise is errored.
+   *
+   * @return false, if the promise is completed, and the caller needs to
+   *         handle the message itself
+   */
+  public final boolean tryRegisterOnError(final PromiseMessage msg) {
+    return push(ON_ERROR, msg);
+  }
+
+  private boolean push(final AtomicReferenceFieldUpdater<SPromise, Object> list,
+      final PromiseMessage msg) {
+    while (true) {
+      Object head = list.get(this);
+      if (head == CLOSED) {
+        return false;
+      }
+      if (VmSettings.SNAPSHOTS_ENABLED && head == IN_SNAPSHOT) {
+        waitForSnapshot();
+        continue;
+      }
+      msg.nextInMailbox = (EventualMessage) head;
+      if (list.compareAndSet(this, head, msg)) {
+        return true;
+      }
     }
   }
 
   @TruffleBoundary
-  private void registerMoreOnError(final PromiseMessage msg) {
-    if (onErrorExt == null) {
-      onErrorExt = new ArrayList<>(2);
-    }
-    onErrorExt.add(msg);
+  private static void waitForSnapshot() {
+    // the snapshot only walks the list, so it is done quickly
+    Thread.yield();
   }
 
-  protected final void scheduleCallbacksOnResolution(final Object result,
-      final PromiseMessage msg, final Actor current,
-      final ForkJoinPool actorPool, final boolean haltOnResolution) {
+  /**
+   * Prepare a callback or message for being scheduled, which determines
+   * its target.
+   */
+  protected final void resolveCallback(final Object result,
+      final PromiseMessage msg, final Actor current, final boolean haltOnResolution) {
     // when a promise is resolved, we need to schedule all the
     // #whenResolved:/#onError:/... callbacks msgs as well as all eventual send
     // msgs to the promise
@@ -217,31 +340,65 @@ public class SPromise extends SObjectWithClass {
     if (haltOnResolution) {
       msg.enableHaltOnReceive();
     }
-    msg.getTarget().send(msg, actorPool);
   }
 
-  public final synchronized void addChainedPromise(final SPromise remote) {
-    assert remote != null;
-    remote.resolutionState = Resolution.CHAINED;
-    if (chainedPromise == null) {
-      chainedPromise = remote;
-    } else {
-      addMoreChainedPromises(remote);
-    }
+  /**
+   * Chain the remote promise to this one, so that it gets resolved with the
+   * same value.
+   *
+   * @return false, if this promise is already completed, and the caller needs
+   *         to resolve the remote promise itself
+   */
+  public final boolean tryAddChainedPromise(final SPromise remote) {
+    return tryAddChainedPromise(remote, false);
   }
 
-  @TruffleBoundary
-  private void addMoreChainedPromises(final SPromise promise) {
-    if (chainedPromiseExt == null) {
-      chainedPromiseExt = new ArrayList<>(2);
+  /**
+   * Chain the remote promise to this one, and let its resolution callbacks
+   * break on receive, if <code>haltOnResolution</code> is set. The breakpoint
+   * is only enabled when the promise is chained.
+   *
+   * <p>
+   * A promise can be chained only once, because it is linked into the list
+   * of this promise via its single {@link #nextChained} field. Chaining it
+   * again would overwrite the link and drop the rest of the list. Resolving
+   * a chained promise a second time is an error anyway.
+   *
+   * @return false, if this promise is already completed, and the caller needs
+   *         to resolve the remote promise itself
+   */
+  public final boolean tryAddChainedPromise(final SPromise remote,
+      final boolean haltOnResolution) {
+    assert remote != null;
+    boolean previousHalt = remote.haltOnResolution;
+    assert remote.resolutionState == Resolution.UNRESOLVED : "Promise is already chained";
+
+    // set before publishing, the resolver may complete remote right after
+    remote.resolutionState = Resolution.CHAINED;
+    remote.haltOnResolution = previousHalt || haltOnResolution;
+
+    while (true) {
+      Object head = chainedPromises;
+      if (head == CLOSED) {
+        remote.resolutionState = Resolution.UNRESOLVED;
+        remote.haltOnResolution = previousHalt;
+        return false;
+      }
+      if (VmSettings.SNAPSHOTS_ENABLED && head == IN_SNAPSHOT) {
+        waitForSnapshot();
+        continue;
+      }
+      remote.nextChained = (SPromise) head;
+      if (CHAINED.compareAndSet(this, head, remote)) {
+        return true;
+      }
     }
-    chainedPromiseExt.add(promise);
   }
 
   /**
    * @return true, if it has a valid value, either successful or erroneous
    */
-  public final synchronized boolean isCompleted() {
+  public final boolean isCompleted() {
     return resolutionState == Resolution.SUCCESSFUL || resolutionState == Resolution.ERRONEOUS;
   }
 
@@ -249,7 +406,6 @@ public class SPromise extends SObjectWithClass {
     return result == Resolution.SUCCESSFUL || result == Resolution.ERRONEOUS;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
   public final Resolution getResolutionStateUnsync() {
     return resolutionState;
   }
@@ -260,55 +416,106 @@ public class SPromise extends SObjectWithClass {
     return true;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
   final boolean isResolvedUnsync() {
     return resolutionState == Resolution.SUCCESSFUL;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
   public final boolean isErroredUnsync() {
     return resolutionState == Resolution.ERRONEOUS;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
+  /** Only valid after the resolution state was read as completed. */
   final Object getValueUnsync() {
     return value;
   }
 
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public PromiseMessage getWhenResolvedUnsync() {
-    assert VmSettings.SNAPSHOTS_ENABLED;
-    return whenResolved;
-  }
-
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public ArrayList<PromiseMessage> getWhenResolvedExtUnsync() {
+  /**
+   * Do not use for things other than serializing Promises.
+   * The result is consistent with concurrent registrations and resolution.
+   */
+  public ArrayList<PromiseMessage> getWhenResolvedForSnapshot() {
     assert VmSettings.SNAPSHOTS_ENABLED;
-    return whenResolvedExt;
+    return messagesInOrder(WHEN_RESOLVED);
   }
 
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public PromiseMessage getOnError() {
+  /**
+   * Do not use for things other than serializing Promises.
+   * The result is consistent with concurrent registrations and resolution.
+   */
+  public ArrayList<PromiseMessage> getOnErrorForSnapshot() {
     assert VmSettings.SNAPSHOTS_ENABLED;
-    return onError;
+    return messagesInOrder(ON_ERROR);
   }
 
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public ArrayList<PromiseMessage> getOnErrorExtUnsync() {
+  /**
+   * Do not use for things other than serializing Promises.
+   * The result is consistent with concurrent chaining and resolution.
+   */
+  public ArrayList<SPromise> getChainedPromisesForSnapshot() {
     assert VmSettings.SNAPSHOTS_ENABLED;
-    return onErrorExt;
+    ArrayList<SPromise> result = new ArrayList<>();
+    Object head = acquireForSnapshot(CHAINED);
+    try {
+      if (head != CLOSED) {
+        SPromise current = (SPromise) head;
+        while (current != null) {
+          result.add(0, current);
+          current = current.nextChained;
+        }
+      }
+    } finally {
+      releaseFromSnapshot(CHAINED, head);
+    }
+    return result;
+  }
+
+  private ArrayList<PromiseMessage> messagesInOrder(
+      final AtomicReferenceFieldUpdater<SPromise, Object> list) {
+    ArrayList<PromiseMessage> result = new ArrayList<>();
+    Object head = acquireForSnapshot(list);
+    try {
+      if (head != CLOSED) {
+        EventualMessage current = (EventualMessage) head;
+        while (current != null) {
+          result.add(0, (PromiseMessage) current);
+          current = current.nextInMailbox;
+        }
+      }
+    } finally {
+      releaseFromSnapshot(list, head);
+    }
+    return result;
   }
 
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public SPromise getChainedPromiseUnsync() {
-    assert VmSettings.SNAPSHOTS_ENABLED;
-    return chainedPromise;
+  /**
+   * Take the list for reading its entries. Until it is released, entries
+   * are neither added, nor taken by the resolver.
+   *
+   * @return the head of the list, or CLOSED
+   */
+  private Object acquireForSnapshot(final AtomicReferenceFieldUpdater<SPromise, Object> list) {
+    while (true) {
+      Object head = list.get(this);
+      if (head == CLOSED) {
+        return CLOSED;
+      }
+      if (head == IN_SNAPSHOT) {
+        // another snapshot reads the list
+        waitForSnapshot();
+        continue;
+      }
+      if (list.compareAndSet(this, head, IN_SNAPSHOT)) {
+        return head;
+      }
+    }
   }
 
-  /** Do not use for things other than serializing Promises, requires synchronization. */
-  public ArrayList<SPromise> getChainedPromiseExtUnsync() {
-    assert VmSettings.SNAPSHOTS_ENABLED;
-    return chainedPromiseExt;
+  private void releaseFromSnapshot(final AtomicReferenceFieldUpdater<SPromise, Object> list,
+      final Object head) {
+    if (head != CLOSED) {
+      // fails, if the resolver dropped the list meanwhile, which is fine
+      list.compareAndSet(this, IN_SNAPSHOT, head);
+    }
   }
 
   public static class STracingPromise extends SPromise {
@@ -410,36 +617,67 @@ public class SPromise extends SObjectWithClass {
       // don't need to worry about traversing the chain, which can
       // lead to a stack overflow.
       // TODO: restore 10000 as parameter in testAsyncDeeplyChainedResolution
-      if (promise.chainedPromise != null) {
-        SPromise chainedPromise = promise.chainedPromise;
-        promise.chainedPromise = null;
-        Object wrapped = chainedPromise.owner.wrapForUse(result, current, null);
-        resolveAndTriggerListenersUnsynced(type, result, wrapped,
-            chainedPromise, current, actorPool,
-            chainedPromise.haltOnResolution, whenResolvedProfile);
-        resolveMoreChainedPromisesUnsynced(type, promise, result, current,
-            actorPool, haltOnResolution, whenResolvedProfile);
+      SPromise chained;
+      while ((chained = (SPromise) takeInOrder(CHAINED, promise)) != null) {
+        do {
+          SPromise next = chained.nextChained;
+          chained.nextChained = null;
+
+          Object wrapped = chained.owner.wrapForUse(result, current, null);
+          resolveAndTriggerListenersUnsynced(type, result, wrapped, chained, current,
+              actorPool, chained.haltOnResolution, whenResolvedProfile);
+          chained = next;
+        } while (chained != null);
       }
     }
 
     /**
-     * Resolve the other promises that has been chained to the first promise.
+     * Take all entries of the list, or close it if it is empty.
+     *
+     * @return the first entry in registration order, or null if the list was
+     *         closed
      */
-    @TruffleBoundary
-    private static void resolveMoreChainedPromisesUnsynced(final Resolution type,
-        final SPromise promise, final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution,
-        final ValueProfile whenResolvedProfile) {
-      if (promise.chainedPromiseExt != null) {
-        ArrayList<SPromise> chainedPromiseExt = promise.chainedPromiseExt;
-        promise.chainedPromiseExt = null;
-
-        for (SPromise p : chainedPromiseExt) {
-          Object wrapped = p.owner.wrapForUse(result, current, null);
-          resolveAndTriggerListenersUnsynced(type, result, wrapped, p, current,
-              actorPool, haltOnResolution, whenResolvedProfile);
+    private static Object takeInOrder(final AtomicReferenceFieldUpdater<SPromise, Object> list,
+        final SPromise promise) {
+      while (true) {
+        Object head = list.get(promise);
+        assert head != CLOSED : "Only the resolver closes the lists";
+        if (VmSettings.SNAPSHOTS_ENABLED && head == IN_SNAPSHOT) {
+          waitForSnapshot();
+          continue;
         }
+        if (head == null) {
+          if (list.compareAndSet(promise, null, CLOSED)) {
+            return null;
+          }
+        } else if (list.compareAndSet(promise, head, null)) {
+          return reverse(head);
+        }
+      }
+    }
+
+    private static Object reverse(final Object head) {
+      if (head instanceof SPromise) {
+        SPromise current = (SPromise) head;
+        SPromise reversed = null;
+        while (current != null) {
+          SPromise next = current.nextChained;
+          current.nextChained = reversed;
+          reversed = current;
+          current = next;
+        }
+        return reversed;
+      }
+
+      EventualMessage current = (EventualMessage) head;
+      EventualMessage reversed = null;
+      while (current != null) {
+        EventualMessage next = current.nextInMailbox;
+        current.nextInMailbox = reversed;
+        reversed = current;
+        current = next;
       }
+      return reversed;
     }
 
     /**
@@ -464,35 +702,33 @@ public class SPromise extends SObjectWithClass {
         }
       }
 
-      // LOCKING NOTE: we need a synchronization unit that is not the promise,
-      // because otherwise we might end up in a deadlock, but we still need to group the
-      // scheduling of messages and the propagation of the resolution state, otherwise
-      // we might see message ordering issues
-      synchronized (wrapped) {
-        // LOCKING NOTE: We can split the scheduling out of the synchronized
-        // because after resolving the promise, all clients will schedule their
-        // callbacks/msg themselves
-        synchronized (p) {
-          assert p.assertNotCompleted();
-          // TODO: is this correct? can we just resolve chained promises like this? this means,
-          // their state changes twice. I guess it is ok, not sure about synchronization
-          // thought. They are created as 'chained', and then there is the resolute propagation
-          // accross chained promisses
-          // TODO use a special constructor to create chained promises???
-          p.value = wrapped;
-          p.resolutionState = type;
-        }
+      assert p.assertNotCompleted();
+      // TODO: is this correct? can we just resolve chained promises like this? this means,
+      // their state changes twice. They are created as 'chained', and then there is the
+      // resolution propagation across chained promises
+      // the value needs to be set before the volatile write of the state publishes it
+      p.value = wrapped;
+      p.resolutionState = type;
 
-        if (type == Resolution.SUCCESSFUL) {
-          scheduleAllWhenResolvedUnsync(p, result, current, actorPool, haltOnResolution,
-              whenResolvedProfile);
-        } else {
-          assert type == Resolution.ERRONEOUS;
-          scheduleAllOnErrorUnsync(p, result, current, actorPool, haltOnResolution);
-        }
-        resolveChainedPromisesUnsync(type, p, result, current, actorPool, haltOnResolution,
+      if (type == Resolution.SUCCESSFUL) {
+        scheduleAllWhenResolvedUnsync(p, result, current, actorPool, haltOnResolution,
             whenResolvedProfile);
+        dropAll(ON_ERROR, p);
+      } else {
+        assert type == Resolution.ERRONEOUS;
+        scheduleAllOnErrorUnsync(p, result, current, actorPool, haltOnResolution);
+        dropAll(WHEN_RESOLVED, p);
       }
+      resolveChainedPromisesUnsync(type, p, result, current, actorPool, haltOnResolution,
+          whenResolvedProfile);
+    }
+
+    /**
+     * Close a list of callbacks that will never be triggered.
+     */
+    private static void dropAll(final AtomicReferenceFieldUpdater<SPromise, Object> list,
+        final SPromise promise) {
+      list.set(promise, CLOSED);
     }
 
     /**
@@ -501,33 +737,59 @@ public class SPromise extends SObjectWithClass {
     protected static void scheduleAllWhenResolvedUnsync(final SPromise promise,
         final Object result, final Actor current, final ForkJoinPool actorPool,
         final boolean haltOnResolution, final ValueProfile whenResolvedProfile) {
-      if (promise.whenResolved != null) {
-        PromiseMessage whenResolved = promise.whenResolved;
-        ArrayList<PromiseMessage> whenResolvedExt = promise.whenResolvedExt;
-        promise.whenResolved = null;
-        promise.whenResolvedExt = null;
-
-        promise.scheduleCallbacksOnResolution(result,
-            whenResolvedProfile.profile(whenResolved), current, actorPool, haltOnResolution);
-        scheduleExtensions(promise, whenResolvedExt, result, current, actorPool,
+      PromiseMessage whenResolved;
+      while ((whenResolved = (PromiseMessage) takeInOrder(WHEN_RESOLVED, promise)) != null) {
+        PromiseMessage next = (PromiseMessage) whenResolved.nextInMailbox;
+        promise.resolveCallback(result, whenResolvedProfile.profile(whenResolved), current,
+            haltOnResolution);
+        scheduleInBatches(promise, whenResolved, next, result, current, actorPool,
             haltOnResolution);
       }
     }
 
     /**
-     * Schedule callbacks from the whenResolvedExt extension array.
+     * Schedule the callbacks taken from a list. Consecutive messages to the
+     * same actor are enqueued with a single operation on its mailbox.
+     *
+     * @param first callback, which is already resolved
+     * @param remaining callbacks following the first one, in registration order
      */
     @TruffleBoundary
-    private static void scheduleExtensions(final SPromise promise,
-        final ArrayList<PromiseMessage> extension,
-        final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (extension != null) {
-        for (int i = 0; i < extension.size(); i++) {
-          PromiseMessage callbackOrMsg = extension.get(i);
-          promise.scheduleCallbacksOnResolution(result, callbackOrMsg, current,
-              actorPool, haltOnResolution);
+    private static void scheduleInBatches(final SPromise promise,
+        final PromiseMessage first, final PromiseMessage remaining, final Object result,
+        final Actor current, final ForkJoinPool actorPool, final boolean haltOnResolution) {
+      Actor target = first.getTarget();
+      EventualMessage newest = first;
+      EventualMessage oldest = first;
+      first.nextInMailbox = null;
+
+      PromiseMessage msg = remaining;
+      while (msg != null) {
+        // read the link first, the batch reuses it for the mailbox
+        PromiseMessage next = (PromiseMessage) msg.nextInMailbox;
+        promise.resolveCallback(result, msg, current, haltOnResolution);
+
+        if (msg.getTarget() == target && target.acceptsBatches()) {
+          msg.nextInMailbox = newest;
+          newest = msg;
+        } else {
+          deliver(target, newest, oldest, actorPool);
+          target = msg.getTarget();
+          newest = msg;
+          oldest = msg;
+          msg.nextInMailbox = null;
         }
+        msg = next;
+      }
+      deliver(target, newest, oldest, actorPool);
+    }
+
+    private static void deliver(final Actor target, final EventualMessage newest,
+        final EventualMessage oldest, final ForkJoinPool actorPool) {
+      if (newest == oldest) {
+        target.send(oldest, actorPool);
+      } else {
+        target.sendBatch(newest, oldest, actorPool);
       }
     }
 
@@ -537,15 +799,12 @@ public class SPromise extends SObjectWithClass {
     protected static void scheduleAllOnErrorUnsync(final SPromise promise,
         final Object result, final Actor current,
         final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (promise.onError != null) {
-        PromiseMessage onError = promise.onError;
-        ArrayList<PromiseMessage> onErrorExt = promise.onErrorExt;
-        promise.onError = null;
-        promise.onErrorExt = null;
-
-        promise.scheduleCallbacksOnResolution(result, onError, current, actorPool,
+      PromiseMessage onError;
+      while ((onError = (PromiseMessage) takeInOrder(ON_ERROR, promise)) != null) {
+        PromiseMessage next = (PromiseMessage) onError.nextInMailbox;
+        promise.resolveCallback(result, onError, current, haltOnResolution);
+        scheduleInBatches(promise, onError, next, result, current, actorPool,
             haltOnResolution);
-        scheduleExtensions(promise, onErrorExt, result, current, actorPool, haltOnResolution);
       }
     }
   }
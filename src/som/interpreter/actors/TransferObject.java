@@ -12,6 +12,7 @@ import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.objectstorage.ObjectLayout;
 import som.interpreter.objectstorage.StorageLocation;
 import som.vm.NotYetImplementedException;
+import som.vm.VmSettings;
 import som.vm.constants.Nil;
 import som.vmobjects.SAbstractObject;
 import som.vmobjects.SArray.PartiallyEmptyArray;
@@ -19,6 +20,7 @@ import som.vmobjects.SArray.STransferArray;
 import som.vmobjects.SObject;
 import som.vmobjects.SObjectWithClass;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
+import tools.snapshot.SnapshotRecord;
 
 
 public final class TransferObject {
@@ -79,11 +81,53 @@ public final class TransferObject {
     return newObj;
   }
 
+  /**
+   * Transfer an array that cannot contain references, i.e., has a primitive or
+   * empty storage. This does not need to look at the elements.
+   *
+   * @param moveReleased whether a released array may be moved, which is only
+   *          safe during the send, on the thread of the sending actor
+   */
+  public static STransferArray transferWithoutReferences(final STransferArray arr,
+      final boolean moveReleased) {
+    assert arr.isSomePrimitiveType() || arr.isEmptyType();
+    if (moveReleased && arr.isReleased()) {
+      return move(arr);
+    }
+    return arr.cloneBasics();
+  }
+
+  /**
+   * Move the storage of a released array. The array is left empty, which is a write to the
+   * array for incremental snapshots.
+   */
+  private static STransferArray move(final STransferArray arr) {
+    STransferArray newObj = arr.moveBasics();
+    if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+      SnapshotRecord.recordWrite(arr);
+    }
+    return newObj;
+  }
+
   @TruffleBoundary
   public static STransferArray transfer(final STransferArray arr,
       final Actor origin, final Actor target,
       final Map<SAbstractObject, SAbstractObject> transferedObjects) {
-    STransferArray newObj = arr.cloneBasics();
+    return transfer(arr, origin, target, transferedObjects, false);
+  }
+
+  /**
+   * @param moveReleased whether a released array may be moved, which is only
+   *          safe during the send, on the thread of the sending actor
+   */
+  @TruffleBoundary
+  public static STransferArray transfer(final STransferArray arr,
+      final Actor origin, final Actor target,
+      final Map<SAbstractObject, SAbstractObject> transferedObjects,
+      final boolean moveReleased) {
+    // a released array is not used by the origin anymore, we can take the storage
+    STransferArray newObj = moveReleased && arr.isReleased()
+        ? move(arr) : arr.cloneBasics();
 
     if (newObj.isSomePrimitiveType() || newObj.isEmptyType()) {
       return newObj; // we are done in this case
@@ -1,16 +1,38 @@
 package som.interpreter.actors;
 
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
 
+import som.interpreter.objectstorage.ObjectLayout;
+import som.interpreter.objectstorage.StorageLocation;
 import som.primitives.ObjectPrims.IsValue;
 import som.primitives.ObjectPrimsFactory.IsValueFactory;
 import som.vmobjects.SArray.STransferArray;
+import som.vmobjects.SClass;
 import som.vmobjects.SObject;
 
 
 public abstract class WrapReferenceNode extends Node {
 
+  protected static final int TRANSFER_CACHE_SIZE = 3;
+
+  /**
+   * Whether the node wraps the arguments of a send, on the thread of the
+   * sending actor. Only then, released transfer arrays are moved. In all other
+   * cases, for instance, when a message to a promise is wrapped once the
+   * promise is resolved, another thread could race with the sender.
+   */
+  protected final boolean atSend;
+
+  protected WrapReferenceNode() {
+    this(false);
+  }
+
+  protected WrapReferenceNode(final boolean atSend) {
+    this.atSend = atSend;
+  }
+
   public abstract Object execute(Object ref, Actor target, Actor owner);
 
   @Specialization(guards = "target == owner")
@@ -18,6 +40,44 @@ public abstract class WrapReferenceNode extends Node {
     return ref;
   }
 
+  /**
+   * Transfer objects that only have primitive fields are copied without
+   * looking at their fields, and without leaving compiled code.
+   */
+  @Specialization(guards = {"obj.getSOMClass() == cachedClass",
+      "obj.getObjectLayout() == cachedLayout", "noReferences"},
+      limit = "TRANSFER_CACHE_SIZE")
+  public SObject transferObjectWithoutReferences(final SObject obj, final Actor target,
+      final Actor owner,
+      @Cached("obj.getSOMClass()") final SClass cachedClass,
+      @Cached("obj.getObjectLayout()") final ObjectLayout cachedLayout,
+      @Cached("hasNoReferences(cachedClass, cachedLayout)") final boolean noReferences) {
+    return obj.cloneBasics();
+  }
+
+  /**
+   * Arrays with primitive storage are copied, or moved if they were released,
+   * without leaving compiled code.
+   */
+  @Specialization(guards = {"!obj.isObjectType()", "!obj.isPartiallyEmptyType()"})
+  public STransferArray transferArrayWithoutReferences(final STransferArray obj,
+      final Actor target, final Actor owner) {
+    return TransferObject.transferWithoutReferences(obj, atSend);
+  }
+
+  protected static final boolean hasNoReferences(final SClass cls,
+      final ObjectLayout layout) {
+    if (!cls.isTransferObject()) {
+      return false;
+    }
+    for (StorageLocation location : layout.getStorageLocations().getValues()) {
+      if (location.isObjectLocation()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Specialization(guards = "ref.getActor() == target")
   public Object farRefToTarget(final SFarReference ref, final Actor target,
       final Actor owner) {
@@ -76,6 +136,6 @@ public abstract class WrapReferenceNode extends Node {
   @Specialization
   public Object isTransferArray(final STransferArray obj, final Actor target,
       final Actor owner) {
-    return TransferObject.transfer(obj, owner, target, null);
+    return TransferObject.transfer(obj, owner, target, null, atSend);
   }
 }
@@ -8,8 +8,12 @@ import com.oracle.truffle.api.source.SourceSection;
 import som.VM;
 import som.interpreter.TruffleCompiler;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.interpreter.objectstorage.StorageLocation;
+import som.interpreter.objectstorage.StorageLocation.ConstantStorageLocation;
 import som.primitives.ObjectPrims.IsValue;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SImmutableObject10;
+import som.vmobjects.SObject.SImmutableObject20;
 
 
 /**
@@ -48,14 +52,14 @@ public abstract class IsValueCheckNode extends UnaryExpressionNode {
     }
 
     private Object specialize(final VirtualFrame frame, final Object receiver) {
-      if (!(receiver instanceof SImmutableObject)) {
+      if (!(receiver instanceof SAbstractImmutableObject)) {
         // can remove ourselves, this node is only used in initializers,
         // which are by definition monomorphic
         dropCheckNode();
         return receiver;
       }
 
-      SImmutableObject rcvr = (SImmutableObject) receiver;
+      SAbstractImmutableObject rcvr = (SAbstractImmutableObject) receiver;
 
       if (rcvr.isValue()) {
         ValueCheckNode node = new ValueCheckNode(self).initialize(sourceSection);
@@ -97,7 +101,7 @@ public abstract class IsValueCheckNode extends UnaryExpressionNode {
 
     @Override
     public Object executeEvaluated(final VirtualFrame frame, final Object receiver) {
-      SImmutableObject rcvr = (SImmutableObject) receiver;
+      SAbstractImmutableObject rcvr = (SAbstractImmutableObject) receiver;
 
       boolean allFieldsContainValues = allFieldsContainValues(rcvr);
       if (allFieldsContainValues) {
@@ -106,34 +110,30 @@ public abstract class IsValueCheckNode extends UnaryExpressionNode {
       return notAValue.signal(rcvr);
     }
 
-    private boolean allFieldsContainValues(final SImmutableObject rcvr) {
+    private boolean allFieldsContainValues(final SAbstractImmutableObject rcvr) {
       VM.thisMethodNeedsToBeOptimized("Should be optimized or on slowpath");
 
-      if (rcvr.field1 == null) {
-        return true;
-      }
+      boolean result = constantsAreValues(rcvr)
+          && isValueOrUnused(rcvr.field1) && isValueOrUnused(rcvr.field2)
+          && isValueOrUnused(rcvr.field3) && isValueOrUnused(rcvr.field4)
+          && isValueOrUnused(rcvr.field5);
 
-      boolean result = IsValue.isObjectValue(rcvr.field1);
-      if (rcvr.field2 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field2);
-      if (rcvr.field3 == null || !result) {
-        return result;
+      if (result && rcvr instanceof SImmutableObject10) {
+        SImmutableObject10 r = (SImmutableObject10) rcvr;
+        result = isValueOrUnused(r.field6) && isValueOrUnused(r.field7)
+            && isValueOrUnused(r.field8) && isValueOrUnused(r.field9)
+            && isValueOrUnused(r.field10);
       }
 
-      result = result && IsValue.isObjectValue(rcvr.field3);
-      if (rcvr.field4 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field4);
-      if (rcvr.field5 == null || !result) {
-        return result;
+      if (result && rcvr instanceof SImmutableObject20) {
+        SImmutableObject20 r = (SImmutableObject20) rcvr;
+        result = isValueOrUnused(r.field11) && isValueOrUnused(r.field12)
+            && isValueOrUnused(r.field13) && isValueOrUnused(r.field14)
+            && isValueOrUnused(r.field15) && isValueOrUnused(r.field16)
+            && isValueOrUnused(r.field17) && isValueOrUnused(r.field18)
+            && isValueOrUnused(r.field19) && isValueOrUnused(r.field20);
       }
 
-      result = result && IsValue.isObjectValue(rcvr.field5);
       if (rcvr.getExtensionObjFields() == null || !result) {
         return result;
       }
@@ -146,6 +146,25 @@ public abstract class IsValueCheckNode extends UnaryExpressionNode {
       }
       return true;
     }
+
+    /**
+     * Slots with a {@link ConstantStorageLocation} keep their value in the layout, and not in
+     * the fields of the object.
+     */
+    private static boolean constantsAreValues(final SAbstractImmutableObject rcvr) {
+      for (StorageLocation loc : rcvr.getObjectLayout().getStorageLocations().getValues()) {
+        if (loc instanceof ConstantStorageLocation && loc.isSet(rcvr)
+            && !IsValue.isObjectValue(((ConstantStorageLocation) loc).getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Fields that were never initialized are null, and are ignored. */
+    private static boolean isValueOrUnused(final Object field) {
+      return field == null || IsValue.isObjectValue(field);
+    }
   }
 
   @Override
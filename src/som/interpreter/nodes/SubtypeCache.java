@@ -0,0 +1,67 @@
+package som.interpreter.nodes;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+
+/**
+ * Caches for one expected type whether other types are subtypes of it,
+ * indexed by the id of the other type.
+ *
+ * <p>
+ * The entries grow with the number of types in the system. Reads do not
+ * synchronize. Since the result of a check is the same for all threads, a
+ * write that is lost during concurrent growing only leads to another cache
+ * miss.
+ */
+public final class SubtypeCache {
+  private static final int INITIAL_SIZE = 64;
+
+  private volatile byte[] entries;
+
+  public SubtypeCache() {
+    entries = new byte[INITIAL_SIZE];
+  }
+
+  /**
+   * @return {@link TypeCheckNode#SUBTYPE}, {@link TypeCheckNode#FAIL}, or
+   *         {@link TypeCheckNode#MISSING}
+   */
+  public byte get(final int typeId) {
+    byte[] e = entries;
+    if (typeId < e.length) {
+      return e[typeId];
+    }
+    return TypeCheckNode.MISSING;
+  }
+
+  public void put(final int typeId, final boolean isSubtype) {
+    byte[] e = entries;
+    if (typeId >= e.length) {
+      e = grow(typeId);
+    }
+    e[typeId] = isSubtype ? TypeCheckNode.SUBTYPE : TypeCheckNode.FAIL;
+  }
+
+  @TruffleBoundary
+  private synchronized byte[] grow(final int typeId) {
+    byte[] e = entries;
+    if (typeId < e.length) {
+      return e;
+    }
+
+    int newSize = e.length;
+    while (newSize <= typeId) {
+      newSize *= 2;
+    }
+    e = Arrays.copyOf(e, newSize);
+    entries = e;
+    return e;
+  }
+
+  /** Memory used for the entries, in bytes. */
+  public int getSize() {
+    return entries.length;
+  }
+}
@@ -1,9 +1,10 @@
 package som.interpreter.nodes;
 
-import org.graalvm.collections.EconomicMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
@@ -14,6 +15,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.SourceSection;
 
 import som.Output;
+import som.compiler.TypeCheckElimination;
 import som.interpreter.SomException;
 import som.interpreter.Types;
 import som.interpreter.nodes.TypeCheckNodeFactory.BooleanTypeCheckNodeFactory;
@@ -47,11 +49,12 @@ import som.vmobjects.SType.InterfaceType;
 
 public abstract class TypeCheckNode extends BinaryExpressionNode {
   /**
-   * The following four fields used for the collection of type checking stats.
+   * The following fields are used for the collection of type checking stats.
    */
   public static long numTypeCheckExecutions;
   public static long numSubclassChecks;
   public static int  numTypeCheckLocations;
+  public static int  numEliminatedTypeChecks;
   public static int  nTypes;
 
   /**
@@ -68,23 +71,34 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
     if (!VmSettings.COLLECT_TYPE_STATS) {
       return;
     }
+    Output.println("RESULT-NumberOfTypeCheckLocations: " + numTypeCheckLocations);
+    Output.println("RESULT-NumberOfEliminatedTypeChecks: " + numEliminatedTypeChecks);
     Output.println("RESULT-NumberOfTypeCheckExecutions: " + numTypeCheckExecutions);
     Output.println("RESULT-NumberOfSubclassChecks: " + numSubclassChecks);
     Output.println("RESULT-NumberOfTypes: " + nTypes);
+
+    if (VmSettings.USE_SUBTYPE_TABLE) {
+      long size = 0;
+      for (SubtypeCache cache : subtypeCaches.values()) {
+        size += cache.getSize();
+      }
+      Output.println("RESULT-NumberOfSubtypeCaches: " + subtypeCaches.size());
+      Output.println("RESULT-SubtypeCacheBytes: " + size);
+    }
   }
 
   /**
-   * The cache of whether one type is a supertype to another for custom type objects. A type is
-   * a super type, if the inner map stores true for the subtype.
-   */
-  private static final EconomicMap<Object, EconomicMap<Object, Boolean>> isSuperclassTable =
-      VmSettings.USE_SUBTYPE_TABLE ? EconomicMap.create() : null;
-  /**
-   * The cache of whether one type is a supertype to another for builtin types. A type is a
-   * super type, if the inner map stores true for the subtype.
+   * The caches of whether a type is a subtype of the expected one, for builtin types and
+   * custom type objects. Each expected type has its own cache, indexed by the id of the
+   * subtype.
    */
-  private static final byte[][]                                          isSuperclassArray =
-      VmSettings.USE_SUBTYPE_TABLE ? new byte[1000][1000] : null;
+  private static final ConcurrentHashMap<Object, SubtypeCache> subtypeCaches =
+      VmSettings.USE_SUBTYPE_TABLE ? new ConcurrentHashMap<>() : null;
+
+  @TruffleBoundary
+  private static SubtypeCache getSubtypeCache(final Object expected) {
+    return subtypeCaches.computeIfAbsent(expected, e -> new SubtypeCache());
+  }
 
   /**
    * Creates a type check.
@@ -101,6 +115,13 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
       if (VmSettings.COLLECT_TYPE_STATS) {
         ++numTypeCheckLocations;
       }
+      // Omit the check if it is known to succeed
+      if (VmSettings.ELIMINATE_TYPE_CHECKS && TypeCheckElimination.isRedundant(type, expr)) {
+        if (VmSettings.COLLECT_TYPE_STATS) {
+          ++numEliminatedTypeChecks;
+        }
+        return expr;
+      }
       // Create the type check
       return UnresolvedTypeCheckNodeFactory.create(sourceSection, type, expr);
     }
@@ -182,10 +203,10 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
      * @return The argument if it is a subtype. Null if it wasn't in the cache. Otherwise an
      *         error is thrown.
      */
-    default <E> E checkTable(final byte[] isSub,
+    default <E> E checkTable(final SubtypeCache isSub,
         final SObjectWithClass expected, final E argument, final SType type,
         final SourceSection sourceSection, final ExceptionSignalingNode exception) {
-      byte sub = isSub[type.id];
+      byte sub = isSub.get(type.id);
       if (sub == SUBTYPE) {
         return argument;
       } else if (sub == FAIL) {
@@ -220,6 +241,9 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
       this.sourceSection = sourceSection;
     }
 
+    /** The expression evaluating to the expected type. */
+    public abstract ExpressionNode getReceiver();
+
     @Specialization
     public Object executeEvaluated(final VirtualFrame frame, final SObjectWithClass expected,
         final Object argument) {
@@ -241,9 +265,9 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
         }
 
         // Get the subtype cache
-        byte[] isSub = null;
+        SubtypeCache isSub = null;
         if (VmSettings.USE_SUBTYPE_TABLE) {
-          isSub = isSuperclassArray[((SType) expected).id];
+          isSub = getSubtypeCache(expected);
         }
 
         // Remove the type check if it is the empty interface as everything subtypes it.
@@ -328,13 +352,9 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
       }
 
       // Setup the cache for custom types
-      EconomicMap<Object, Boolean> isSub = null;
+      SubtypeCache isSub = null;
       if (VmSettings.USE_SUBTYPE_TABLE) {
-        isSub = isSuperclassTable.get(expected);
-        if (isSub == null) {
-          isSub = EconomicMap.create();
-          isSuperclassTable.put(expected, isSub);
-        }
+        isSub = getSubtypeCache(expected);
       }
 
       // Replace this node with the custom type check and perform the check
@@ -359,11 +379,11 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
     /**
      * The cache of whether a type is a subtype of the expected type.
      */
-    protected final byte[] isSub;
+    protected final SubtypeCache isSub;
 
     @Child ExceptionSignalingNode exception;
 
-    protected PrimitiveTypeCheckNode(final SType expected, final byte[] isSub,
+    protected PrimitiveTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       this.expected = expected;
       this.isSub = isSub;
@@ -408,7 +428,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
       }
       // Add the result to the cache
       if (isSub != null) {
-        isSub[type.id] = result ? SUBTYPE : FAIL;
+        isSub.put(type.id, result);
       }
       // Throw an error if the check didn't pass
       if (!result) {
@@ -427,11 +447,11 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
   public abstract static class NonPrimitiveTypeCheckNode extends UnaryTypeCheckingNode {
 
     protected final SType  expected;
-    protected final byte[] isSub;
+    protected final SubtypeCache isSub;
 
     @Child ExceptionSignalingNode exception;
 
-    protected NonPrimitiveTypeCheckNode(final SType expected, final byte[] isSub,
+    protected NonPrimitiveTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       this.expected = expected;
       this.isSub = isSub;
@@ -530,7 +550,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
 
       // Check the cache
       if (VmSettings.USE_SUBTYPE_TABLE) {
-        byte sub = isSub[type.id];
+        byte sub = isSub.get(type.id);
         if (sub == SUBTYPE) {
           return argument;
         } else if (sub == FAIL) {
@@ -552,7 +572,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
       }
       // Add the result to the cache
       if (isSub != null) {
-        isSub[type.id] = result ? SUBTYPE : FAIL;
+        isSub.put(type.id, result);
       }
       // Throw an error if the check didn't pass
       if (!result) {
@@ -568,7 +588,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class LongTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected LongTypeCheckNode(final SType expected, final byte[] isSub,
+    protected LongTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -589,7 +609,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class BooleanTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected BooleanTypeCheckNode(final SType expected, final byte[] isSub,
+    protected BooleanTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -610,7 +630,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class DoubleTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected DoubleTypeCheckNode(final SType expected, final byte[] isSub,
+    protected DoubleTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -631,7 +651,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class StringTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected StringTypeCheckNode(final SType expected, final byte[] isSub,
+    protected StringTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -652,7 +672,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class SArrayTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected SArrayTypeCheckNode(final SType expected, final byte[] isSub,
+    protected SArrayTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -673,7 +693,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class SBlockTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected SBlockTypeCheckNode(final SType expected, final byte[] isSub,
+    protected SBlockTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -694,7 +714,7 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
    */
   @GenerateNodeFactory
   public abstract static class SSymbolTypeCheckNode extends PrimitiveTypeCheckNode {
-    protected SSymbolTypeCheckNode(final SType expected, final byte[] isSub,
+    protected SSymbolTypeCheckNode(final SType expected, final SubtypeCache isSub,
         final SourceSection sourceSection) {
       super(expected, isSub, sourceSection);
     }
@@ -767,16 +787,12 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
      * The subtype cache. Assumes that the expected type is implemented to be consistant for
      * all objects of the same type.
      */
-    protected final EconomicMap<Object, Boolean> isSub;
+    protected final SubtypeCache                 isSub;
 
     @Child ExceptionSignalingNode exception;
 
     protected CustomTypeCheckNode(final SObjectWithClass expected, final CallTarget target,
-        final Object isSub_TRUFFLE_REGRESSION, final SourceSection sourceSection) {
-      // Truffle is currently failing to generate correct code for this
-      @SuppressWarnings("unchecked")
-      EconomicMap<Object, Boolean> isSub =
-          (EconomicMap<Object, Boolean>) isSub_TRUFFLE_REGRESSION;
+        final SubtypeCache isSub, final SourceSection sourceSection) {
       this.expected = expected;
       this.target = target;
       this.isSub = isSub;
@@ -798,17 +814,12 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
 
       // Check the cache
       if (VmSettings.USE_SUBTYPE_TABLE) {
-        Object result = null;
         SType argType = Types.getClassOf(argument).type;
-        if (isSub.containsKey(argType)) {
-          if (isSub.get(argType)) {
-            result = argument;
-          } else {
-            throwTypeError(argument, argType, expected, sourceSection, exception);
-          }
-        }
-        if (result != null) {
-          return result;
+        byte sub = isSub.get(argType.id);
+        if (sub == SUBTYPE) {
+          return argument;
+        } else if (sub == FAIL) {
+          throwTypeError(argument, argType, expected, sourceSection, exception);
         }
       }
 
@@ -823,13 +834,13 @@ public abstract class TypeCheckNode extends BinaryExpressionNode {
                .call(new Object[] {expected, argument});
         // Since it finished executing, the type check passed
         if (isSub != null) {
-          isSub.put(Types.getClassOf(argument).type, true);
+          isSub.put(Types.getClassOf(argument).type.id, true);
         }
       } catch (SomException e) {
         // If the check threw an error, throw a type check error
         SType argType = Types.getClassOf(argument).type;
         if (isSub != null) {
-          isSub.put(argType, false);
+          isSub.put(argType.id, false);
         }
         throwTypeError(argument, argType, expected, sourceSection, exception);
         throw e;
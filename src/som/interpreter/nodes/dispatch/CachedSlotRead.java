@@ -28,8 +28,9 @@ import som.interpreter.nodes.UninitialisedFieldException;
  *
  * <p>
  * Currently, we handle here the cases for unwritten object slots, slots that
- * contain object or primitive values, as well as the distinction for primitive
- * slots of whether they have been always set to a value before or not.
+ * contain object or primitive values, booleans, constants, or only
+ * <code>nil</code>, as well as the distinction for primitive slots of
+ * whether they have been always set to a value before or not.
  * This allows for a small optimization of handling the bit that indicates for
  * primitive slot whether it is set to `nil` or an actual value.
  */
@@ -117,6 +118,19 @@ public abstract class CachedSlotRead extends AbstractDispatchNode {
     }
   }
 
+  public static final class NilSlotRead extends CachedSlotRead {
+
+    public NilSlotRead(final SlotAccess type, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(type, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public Object read(final SObject rcvr) {
+      return Nil.nilObject;
+    }
+  }
+
   public static final class ObjectSlotRead extends CachedSlotRead {
     private final AbstractObjectAccessor accessor;
 
@@ -227,4 +241,94 @@ public abstract class CachedSlotRead extends AbstractDispatchNode {
       }
     }
   }
+
+  public static final class BooleanSlotReadSetOrUnset extends PrimSlotRead {
+
+    public BooleanSlotReadSetOrUnset(final AbstractPrimitiveAccessor accessor,
+        final SlotAccess type, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(accessor, type, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public Object read(final SObject rcvr) {
+      if (accessor.isPrimitiveSet(rcvr, primMarkProfile)) {
+        return accessor.readLong(rcvr) != 0;
+      } else {
+        UninitialisedFieldException.throwError(sourceSection, null, (e) -> insert(e));
+        return Nil.nilObject;
+      }
+    }
+  }
+
+  public static final class BooleanSlotReadSet extends PrimSlotRead {
+
+    public BooleanSlotReadSet(final AbstractPrimitiveAccessor accessor,
+        final SlotAccess type, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(accessor, type, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public Object read(final SObject rcvr) {
+      if (accessor.isPrimitiveSet(rcvr, primMarkProfile)) {
+        return accessor.readLong(rcvr) != 0;
+      } else {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        replace(new BooleanSlotReadSetOrUnset(accessor, type, guardForRcvr,
+            nextInCache));
+        UninitialisedFieldException.throwError(sourceSection, null, (e) -> insert(e));
+        return Nil.nilObject;
+      }
+    }
+  }
+
+  /**
+   * The value is the same for all instances with the layout, and thus, a
+   * compilation constant. Only whether the slot is set is read from the object.
+   */
+  public static final class ConstantSlotReadSetOrUnset extends PrimSlotRead {
+    private final Object value;
+
+    public ConstantSlotReadSetOrUnset(final Object value,
+        final AbstractPrimitiveAccessor accessor, final SlotAccess type,
+        final CheckSObject guardForRcvr, final AbstractDispatchNode nextInCache) {
+      super(accessor, type, guardForRcvr, nextInCache);
+      this.value = value;
+    }
+
+    @Override
+    public Object read(final SObject rcvr) {
+      if (accessor.isPrimitiveSet(rcvr, primMarkProfile)) {
+        return value;
+      } else {
+        UninitialisedFieldException.throwError(sourceSection, null, (e) -> insert(e));
+        return Nil.nilObject;
+      }
+    }
+  }
+
+  public static final class ConstantSlotReadSet extends PrimSlotRead {
+    private final Object value;
+
+    public ConstantSlotReadSet(final Object value, final AbstractPrimitiveAccessor accessor,
+        final SlotAccess type, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(accessor, type, guardForRcvr, nextInCache);
+      this.value = value;
+    }
+
+    @Override
+    public Object read(final SObject rcvr) {
+      if (accessor.isPrimitiveSet(rcvr, primMarkProfile)) {
+        return value;
+      } else {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        replace(new ConstantSlotReadSetOrUnset(value, accessor, type, guardForRcvr,
+            nextInCache));
+        UninitialisedFieldException.throwError(sourceSection, null, (e) -> insert(e));
+        return Nil.nilObject;
+      }
+    }
+  }
 }
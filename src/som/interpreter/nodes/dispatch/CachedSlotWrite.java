@@ -14,9 +14,12 @@ import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
 import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.interpreter.objectstorage.StorageAccessor.AbstractObjectAccessor;
 import som.interpreter.objectstorage.StorageAccessor.AbstractPrimitiveAccessor;
+import som.vm.VmSettings;
+import som.vm.constants.Nil;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import tools.dym.Tags.FieldWrite;
+import tools.snapshot.SnapshotRecord;
 
 
 /**
@@ -51,7 +54,10 @@ public abstract class CachedSlotWrite extends AbstractDispatchNode {
   public Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
     try {
       if (guardForRcvr.entryMatches(arguments[0], null)) {
-        doWrite((SMutableObject) arguments[0], arguments[1]);
+        doWrite((SAbstractMutableObject) arguments[0], arguments[1]);
+        if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+          SnapshotRecord.recordWrite((SAbstractMutableObject) arguments[0]);
+        }
         return arguments[1];
       } else {
         return nextInCache.executeDispatch(frame, arguments);
@@ -97,6 +103,24 @@ public abstract class CachedSlotWrite extends AbstractDispatchNode {
     }
   }
 
+  public static final class NilSlotWrite extends CachedSlotWrite {
+    private final SlotDefinition slot;
+
+    public NilSlotWrite(final SlotDefinition slot, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(guardForRcvr, nextInCache);
+      this.slot = slot;
+    }
+
+    @Override
+    public void doWrite(final SObject obj, final Object value) {
+      if (value != Nil.nilObject) {
+        TruffleCompiler.transferToInterpreterAndInvalidate("unstabelized write node");
+        ObjectTransitionSafepoint.INSTANCE.writeUninitializedSlot(obj, slot, value);
+      }
+    }
+  }
+
   public static final class ObjectSlotWrite extends CachedSlotWrite {
     private final AbstractObjectAccessor accessor;
 
@@ -221,4 +245,76 @@ public abstract class CachedSlotWrite extends AbstractDispatchNode {
       }
     }
   }
+
+  public static final class BooleanSlotWriteSetOrUnset extends PrimSlotWrite {
+
+    public BooleanSlotWriteSetOrUnset(final SlotDefinition slot,
+        final AbstractPrimitiveAccessor accessor, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(slot, accessor, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public void doWrite(final SObject obj, final Object value) {
+      if (value instanceof Boolean) {
+        accessor.write(obj, (boolean) value ? 1L : 0L);
+        accessor.markPrimAsSet(obj, primMarkProfile);
+      } else {
+        TruffleCompiler.transferToInterpreterAndInvalidate("unstabelized write node");
+        ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
+      }
+    }
+  }
+
+  public static final class BooleanSlotWriteSet extends PrimSlotWrite {
+
+    public BooleanSlotWriteSet(final SlotDefinition slot,
+        final AbstractPrimitiveAccessor accessor, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(slot, accessor, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public void doWrite(final SObject obj, final Object value) {
+      if (value instanceof Boolean) {
+        accessor.write(obj, (boolean) value ? 1L : 0L);
+        if (!accessor.isPrimitiveSet(obj, primMarkProfile)) {
+          CompilerDirectives.transferToInterpreterAndInvalidate();
+          accessor.markPrimAsSet(obj);
+
+          // fall back to BooleanSlotWriteSetOrUnset
+          replace(new BooleanSlotWriteSetOrUnset(slot, accessor, guardForRcvr,
+              nextInCache));
+        }
+      } else {
+        TruffleCompiler.transferToInterpreterAndInvalidate("unstabelized write node");
+        ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
+      }
+    }
+  }
+
+  /**
+   * Writing the constant of the location only marks the slot as set, any other
+   * value generalizes the location.
+   */
+  public static final class ConstantSlotWrite extends PrimSlotWrite {
+    private final Object constant;
+
+    public ConstantSlotWrite(final SlotDefinition slot, final Object constant,
+        final AbstractPrimitiveAccessor accessor, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache) {
+      super(slot, accessor, guardForRcvr, nextInCache);
+      this.constant = constant;
+    }
+
+    @Override
+    public void doWrite(final SObject obj, final Object value) {
+      if (value == constant) {
+        accessor.markPrimAsSet(obj, primMarkProfile);
+      } else {
+        TruffleCompiler.transferToInterpreterAndInvalidate("unstabelized write node");
+        ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
+      }
+    }
+  }
 }
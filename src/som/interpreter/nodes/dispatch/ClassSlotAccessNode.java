@@ -12,9 +12,11 @@ import som.interpreter.Invokable;
 import som.interpreter.nodes.InstantiationNode.ClassInstantiationNode;
 import som.interpreter.nodes.InstantiationNodeFactory;
 import som.interpreter.objectstorage.ObjectTransitionSafepoint;
+import som.vm.VmSettings;
 import som.vm.constants.Nil;
 import som.vmobjects.SClass;
 import som.vmobjects.SObject;
+import tools.snapshot.SnapshotRecord;
 
 
 /**
@@ -114,6 +116,9 @@ public final class ClassSlotAccessNode extends CachedSlotRead {
       CompilerDirectives.transferToInterpreterAndInvalidate();
       rcvr.writeSlot(slotDef, classObject);
     }
+    if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+      SnapshotRecord.recordWrite(rcvr);
+    }
     return classObject;
   }
 
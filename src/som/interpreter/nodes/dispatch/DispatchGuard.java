@@ -9,8 +9,8 @@ import som.interpreter.objectstorage.ObjectLayout;
 import som.interpreter.objectstorage.StorageLocation;
 import som.vmobjects.SClass;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 
 
@@ -36,24 +36,24 @@ public abstract class DispatchGuard {
       return new CheckSClass(((SClass) obj).getFactory());
     }
 
-    if (obj instanceof SMutableObject) {
-      return new CheckSMutableObject(((SMutableObject) obj).getObjectLayout());
+    if (obj instanceof SAbstractMutableObject) {
+      return new CheckSMutableObject(((SAbstractMutableObject) obj).getObjectLayout());
     }
 
-    if (obj instanceof SImmutableObject) {
-      return new CheckSImmutableObject(((SImmutableObject) obj).getObjectLayout());
+    if (obj instanceof SAbstractImmutableObject) {
+      return new CheckSImmutableObject(((SAbstractImmutableObject) obj).getObjectLayout());
     }
 
     return new CheckClass(obj.getClass());
   }
 
   public static CheckSObject createSObjectCheck(final SObject obj) {
-    if (obj instanceof SMutableObject) {
-      return new CheckSMutableObject(((SMutableObject) obj).getObjectLayout());
+    if (obj instanceof SAbstractMutableObject) {
+      return new CheckSMutableObject(((SAbstractMutableObject) obj).getObjectLayout());
     }
 
-    assert obj instanceof SImmutableObject;
-    return new CheckSImmutableObject(((SImmutableObject) obj).getObjectLayout());
+    assert obj instanceof SAbstractImmutableObject;
+    return new CheckSImmutableObject(((SAbstractImmutableObject) obj).getObjectLayout());
   }
 
   private static final class CheckClass extends DispatchGuard {
@@ -144,13 +144,13 @@ public abstract class DispatchGuard {
     public boolean entryMatches(final Object obj, final SourceSection sourceSection)
         throws InvalidAssumptionException {
       expected.checkIsLatest();
-      return obj instanceof SMutableObject &&
-          ((SMutableObject) obj).getObjectLayout() == expected;
+      return obj instanceof SAbstractMutableObject &&
+          ((SAbstractMutableObject) obj).getObjectLayout() == expected;
     }
 
     @Override
     public SObject cast(final Object obj) {
-      return (SMutableObject) obj;
+      return (SAbstractMutableObject) obj;
     }
   }
 
@@ -164,13 +164,13 @@ public abstract class DispatchGuard {
     public boolean entryMatches(final Object obj, final SourceSection sourceSection)
         throws InvalidAssumptionException {
       expected.checkIsLatest();
-      return obj instanceof SImmutableObject &&
-          ((SImmutableObject) obj).getObjectLayout() == expected;
+      return obj instanceof SAbstractImmutableObject &&
+          ((SAbstractImmutableObject) obj).getObjectLayout() == expected;
     }
 
     @Override
     public SObject cast(final Object obj) {
-      return (SImmutableObject) obj;
+      return (SAbstractImmutableObject) obj;
     }
   }
 }
@@ -0,0 +1,138 @@
+package som.interpreter.nodes.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.MapCursor;
+
+import som.Output;
+import som.compiler.AccessModifier;
+import som.vm.VmSettings;
+import som.vmobjects.SSymbol;
+
+
+/**
+ * The flattened dispatchables of a class, including the inherited and mixed-in ones, with
+ * the access modifiers already resolved. Thus, a lookup is a single probe instead of a walk
+ * up the superclass chain.
+ *
+ * <p>
+ * Tables are immutable and built once per {@link som.interpreter.objectstorage.ClassFactory}
+ * on the first lookup. A class without own dispatchables shares the table of its superclass.
+ * Otherwise, the table copies the superclass's map, so that a lookup stays a single probe.
+ * Only the entry objects are reused, the map slots grow with the number of inherited
+ * selectors for each class in a hierarchy. With <code>som.dispatchTableStats</code>, the
+ * number of tables, map slots, and entry objects is reported at the end of execution.
+ */
+public final class DispatchTable {
+
+  /**
+   * The result of a lookup for protected and public methods, and for public methods only.
+   * Both are null for selectors that are understood, but do not lead to a method, for
+   * instance those of Top.
+   */
+  private static final class Entry {
+    private final Dispatchable protectedOrPublic;
+    private final Dispatchable publicOnly;
+
+    Entry(final Dispatchable protectedOrPublic, final Dispatchable publicOnly) {
+      this.protectedOrPublic = protectedOrPublic;
+      this.publicOnly = publicOnly;
+    }
+  }
+
+  private static final Entry UNDERSTOOD = new Entry(null, null);
+
+  /** Bytes per map slot, i.e., the key and value references. */
+  private static final int SLOT_BYTES = 2 * 8;
+
+  /** Bytes per entry object, which are reused by the tables of subclasses. */
+  private static final int ENTRY_BYTES = 24;
+
+  private static final AtomicLong numTables       = new AtomicLong();
+  private static final AtomicLong numSharedTables = new AtomicLong();
+  private static final AtomicLong numSlots        = new AtomicLong();
+  private static final AtomicLong numEntries      = new AtomicLong();
+
+  public static void reportStats() {
+    if (!VmSettings.DISPATCH_TABLE_STATS) {
+      return;
+    }
+    Output.println("RESULT-DispatchTables: " + numTables.get());
+    Output.println("RESULT-SharedDispatchTables: " + numSharedTables.get());
+    Output.println("RESULT-DispatchTableSlots: " + numSlots.get());
+    Output.println("RESULT-DispatchTableEntries: " + numEntries.get());
+    Output.println("RESULT-DispatchTableBytes: "
+        + (numSlots.get() * SLOT_BYTES + numEntries.get() * ENTRY_BYTES));
+  }
+
+  private final EconomicMap<SSymbol, Entry> entries;
+
+  private DispatchTable(final EconomicMap<SSymbol, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Create the table for a class.
+   *
+   * @param dispatchables of the class itself, including the ones of its mixins
+   * @param superTable the table of the superclass, or null
+   * @param superIsTop whether the superclass is Top, whose methods are not inherited by the
+   *          lookup, but are understood
+   */
+  public static DispatchTable create(final EconomicMap<SSymbol, Dispatchable> dispatchables,
+      final DispatchTable superTable, final boolean superIsTop) {
+    boolean hasOwn = dispatchables != null && !dispatchables.isEmpty();
+    if (!hasOwn && superTable != null && !superIsTop) {
+      numSharedTables.incrementAndGet();
+      return superTable;
+    }
+
+    EconomicMap<SSymbol, Entry> entries = EconomicMap.create();
+    if (superTable != null) {
+      if (superIsTop) {
+        for (SSymbol selector : superTable.entries.getKeys()) {
+          entries.put(selector, UNDERSTOOD);
+        }
+      } else {
+        entries.putAll(superTable.entries);
+      }
+    }
+
+    if (hasOwn) {
+      MapCursor<SSymbol, Dispatchable> e = dispatchables.getEntries();
+      while (e.advance()) {
+        Entry inherited = entries.get(e.getKey(), UNDERSTOOD);
+        Dispatchable disp = e.getValue();
+        int access = disp.getAccessModifier().ordinal();
+
+        Dispatchable protectedOrPublic = access >= AccessModifier.PROTECTED.ordinal()
+            ? disp : inherited.protectedOrPublic;
+        Dispatchable publicOnly = access >= AccessModifier.PUBLIC.ordinal()
+            ? disp : inherited.publicOnly;
+        entries.put(e.getKey(), new Entry(protectedOrPublic, publicOnly));
+      }
+      numEntries.addAndGet(dispatchables.size());
+    }
+
+    numTables.incrementAndGet();
+    numSlots.addAndGet(entries.size());
+    return new DispatchTable(entries);
+  }
+
+  /**
+   * @param hasAtLeast the minimal access level, protected or public
+   * @return the method or slot accessor, or null
+   */
+  public Dispatchable lookup(final SSymbol selector, final AccessModifier hasAtLeast) {
+    Entry e = entries.get(selector);
+    if (e == null) {
+      return null;
+    }
+    return hasAtLeast == AccessModifier.PUBLIC ? e.publicOnly : e.protectedOrPublic;
+  }
+
+  public boolean canUnderstand(final SSymbol selector) {
+    return entries.containsKey(selector);
+  }
+}
@@ -1,6 +1,5 @@
 package som.interpreter.nodes.dispatch;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.source.SourceSection;
 
 import som.compiler.AccessModifier;
@@ -22,12 +21,11 @@ public final class GenericDispatchNode extends AbstractGenericDispatchNode {
   }
 
   @Override
-  @TruffleBoundary
   protected Dispatchable doLookup(final SClass rcvrClass) {
     if (mixinId != null) {
-      return rcvrClass.lookupPrivate(selector, mixinId);
+      return LookupCache.lookupPrivate(rcvrClass, selector, mixinId);
     } else {
-      return rcvrClass.lookupMessage(selector, minimalVisibility);
+      return LookupCache.lookupMessage(rcvrClass, selector, minimalVisibility);
     }
   }
 }
@@ -21,6 +21,7 @@ public class GenericSuperDispatchNode extends AbstractGenericDispatchNode {
     this.classSide = classSide;
   }
 
+  @TruffleBoundary
   private static SClass getSuperClass(final SClass rcvrClass,
       final MixinDefinitionId holderMixin, final boolean classSide) {
     SClass cls = rcvrClass.lookupClass(holderMixin);
@@ -35,7 +36,8 @@ public class GenericSuperDispatchNode extends AbstractGenericDispatchNode {
 
   @Override
   protected Dispatchable doLookup(final SClass rcvrClass) {
-    return lookup(rcvrClass, selector, holderMixin, classSide);
+    return LookupCache.lookupMessage(getSuperClass(rcvrClass, holderMixin, classSide),
+        selector, AccessModifier.PROTECTED);
   }
 
   @TruffleBoundary
@@ -0,0 +1,176 @@
+package som.interpreter.nodes.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.Output;
+import som.compiler.AccessModifier;
+import som.compiler.MixinBuilder.MixinDefinitionId;
+import som.vm.VmSettings;
+import som.vmobjects.SClass;
+import som.vmobjects.SSymbol;
+
+
+/**
+ * VM-wide cache for the lookups done by megamorphic sends, i.e., by the
+ * {@link GenericDispatchNode} and {@link GenericSuperDispatchNode}, which would otherwise
+ * walk the superclass chain on every send.
+ *
+ * <p>
+ * The cache is a fixed-size, direct-mapped table indexed by the identity hashes of the
+ * receiver class and the kind of lookup, and the id of the selector. Entries are immutable
+ * and replace each other, so that the table can be read and written without
+ * synchronization. A racing write only loses an entry, which is looked up again on the next
+ * miss. Failed lookups are cached as well, since they lead to
+ * <code>doesNotUnderstand:</code> on every send.
+ *
+ * <p>
+ * Each entry records the epoch in which its lookup started. {@link #invalidate()} starts a
+ * new epoch, and only entries of the current epoch are hits. Thus, a lookup that raced with
+ * an invalidation and stores a stale result, is never used.
+ *
+ * <p>
+ * The size is set with <code>som.lookupCacheSize</code>, 0 disables the cache. With
+ * <code>som.lookupCacheStats</code>, hits and misses are reported at the end of execution.
+ */
+public final class LookupCache {
+
+  private static final class Entry {
+    private final SClass       rcvrClass;
+    private final SSymbol      selector;
+    private final Object       lookupKind;
+    private final Dispatchable result;
+    private final int          epoch;
+
+    Entry(final SClass rcvrClass, final SSymbol selector, final Object lookupKind,
+        final Dispatchable result, final int epoch) {
+      this.rcvrClass = rcvrClass;
+      this.selector = selector;
+      this.lookupKind = lookupKind;
+      this.result = result;
+      this.epoch = epoch;
+    }
+
+    boolean matches(final SClass rcvrClass, final SSymbol selector, final Object lookupKind,
+        final int epoch) {
+      return this.rcvrClass == rcvrClass && this.selector == selector
+          && this.lookupKind == lookupKind && this.epoch == epoch;
+    }
+  }
+
+  private static final Entry[] entries = createTable(VmSettings.LOOKUP_CACHE_SIZE);
+  private static final int     mask    = entries == null ? 0 : entries.length - 1;
+
+  /** Incremented by each invalidation, after the structure of classes changed. */
+  private static final AtomicInteger epoch = new AtomicInteger();
+
+  private static final LongAdder hits   = new LongAdder();
+  private static final LongAdder misses = new LongAdder();
+
+  private LookupCache() {}
+
+  private static Entry[] createTable(final int size) {
+    if (size <= 0) {
+      return null;
+    }
+    // round up to a power of two, to index with a mask
+    int capacity = 1;
+    while (capacity < size) {
+      capacity <<= 1;
+    }
+    return new Entry[capacity];
+  }
+
+  /**
+   * Cached version of {@link SClass#lookupMessage(SSymbol, AccessModifier)}.
+   */
+  @TruffleBoundary
+  public static Dispatchable lookupMessage(final SClass rcvrClass, final SSymbol selector,
+      final AccessModifier hasAtLeast) {
+    if (entries == null) {
+      return rcvrClass.lookupMessage(selector, hasAtLeast);
+    }
+
+    int current = epoch.get();
+    int index = index(rcvrClass, selector, hasAtLeast);
+    Entry e = entries[index];
+    if (e != null && e.matches(rcvrClass, selector, hasAtLeast, current)) {
+      recordHit();
+      return e.result;
+    }
+
+    Dispatchable result = rcvrClass.lookupMessage(selector, hasAtLeast);
+    entries[index] = new Entry(rcvrClass, selector, hasAtLeast, result, current);
+    recordMiss();
+    return result;
+  }
+
+  /**
+   * Cached version of {@link SClass#lookupPrivate(SSymbol, MixinDefinitionId)}.
+   */
+  @TruffleBoundary
+  public static Dispatchable lookupPrivate(final SClass rcvrClass, final SSymbol selector,
+      final MixinDefinitionId mixinId) {
+    if (entries == null) {
+      return rcvrClass.lookupPrivate(selector, mixinId);
+    }
+
+    int current = epoch.get();
+    int index = index(rcvrClass, selector, mixinId);
+    Entry e = entries[index];
+    if (e != null && e.matches(rcvrClass, selector, mixinId, current)) {
+      recordHit();
+      return e.result;
+    }
+
+    Dispatchable result = rcvrClass.lookupPrivate(selector, mixinId);
+    entries[index] = new Entry(rcvrClass, selector, mixinId, result, current);
+    recordMiss();
+    return result;
+  }
+
+  /**
+   * Drop all entries. Needs to be called after the methods of an already initialized class
+   * changed, so that lookups of the new epoch see the change.
+   */
+  @TruffleBoundary
+  public static void invalidate() {
+    if (entries != null) {
+      epoch.incrementAndGet();
+      Arrays.fill(entries, null);
+    }
+  }
+
+  private static int index(final SClass rcvrClass, final SSymbol selector,
+      final Object lookupKind) {
+    int hash = System.identityHashCode(rcvrClass) * 31 + selector.getId();
+    hash = hash * 31 + System.identityHashCode(lookupKind);
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private static void recordHit() {
+    if (VmSettings.LOOKUP_CACHE_STATS) {
+      hits.increment();
+    }
+  }
+
+  private static void recordMiss() {
+    if (VmSettings.LOOKUP_CACHE_STATS) {
+      misses.increment();
+    }
+  }
+
+  public static void reportStats() {
+    if (!VmSettings.LOOKUP_CACHE_STATS) {
+      return;
+    }
+    long h = hits.sum();
+    long m = misses.sum();
+    Output.println("RESULT-LookupCacheHits: " + h);
+    Output.println("RESULT-LookupCacheMisses: " + m);
+    Output.println("RESULT-LookupCacheHitRate: " + (h + m == 0 ? 0 : (100 * h) / (h + m)));
+  }
+}
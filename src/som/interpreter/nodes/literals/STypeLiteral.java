@@ -18,4 +18,8 @@ public final class STypeLiteral extends LiteralNode {
     return type;
   }
 
+  public SType getType() {
+    return type;
+  }
+
 }
@@ -11,9 +11,13 @@ import som.VM;
 import som.compiler.MixinBuilder.MixinDefinitionId;
 import som.compiler.MixinDefinition;
 import som.compiler.MixinDefinition.SlotDefinition;
+import som.interpreter.nodes.dispatch.DispatchTable;
 import som.interpreter.nodes.dispatch.Dispatchable;
+import som.vm.Symbols;
 import som.vm.VmSettings;
+import som.vm.constants.Classes;
 import som.vmobjects.SClass;
+import som.vmobjects.SObject;
 import som.vmobjects.SSymbol;
 import som.vmobjects.SType;
 import tools.snapshot.nodes.AbstractSerializationNode;
@@ -61,6 +65,9 @@ public final class ClassFactory {
 
   private volatile ObjectLayout instanceLayout;
 
+  /** Built on the first lookup, see {@link #getDispatchTable(SClass)}. */
+  private volatile DispatchTable dispatchTable;
+
   private final ClassFactory classClassFactory;
 
   public @CompilationFinal SType type;
@@ -157,6 +164,36 @@ public final class ClassFactory {
     return hasOnlyImmutableFields;
   }
 
+  /**
+   * The kernel object exists before its class, and thus has the smallest shape, see
+   * {@link som.vm.constants.KernelObj}. The layouts of the Kernel module keep to that shape.
+   *
+   * @return the number of inline fields of each kind of the instances
+   */
+  public int getNumberOfInlineFields(final int numberOfSlots) {
+    if (className == Symbols.Kernel && mixinDef != null && mixinDef.isModule()) {
+      return SObject.NUM_OBJECT_FIELDS;
+    }
+    return SObject.getNumberOfInlineFields(numberOfSlots);
+  }
+
+  /**
+   * Get the flattened dispatchables for the classes created by this factory. All of them
+   * have the same structure, so the table is built only once, from the given class.
+   */
+  public DispatchTable getDispatchTable(final SClass cls) {
+    DispatchTable table = dispatchTable;
+    if (table == null) {
+      // racing threads build equal tables, so no synchronization is needed
+      SClass superclass = cls.getSuperClass();
+      DispatchTable superTable = superclass == null ? null : superclass.getDispatchTable();
+      table = DispatchTable.create(dispatchables, superTable,
+          superclass == Classes.topClass);
+      dispatchTable = table;
+    }
+    return table;
+  }
+
   public SClass[] getSuperclassAndMixins() {
     return superclassAndMixins;
   }
@@ -191,10 +228,10 @@ public final class ClassFactory {
   }
 
   public synchronized ObjectLayout updateInstanceLayoutWithInitializedField(
-      final SlotDefinition slot, final Class<?> type) {
+      final SlotDefinition slot, final Object value) {
     CompilerAsserts.neverPartOfCompilation(
         "update instance layout with init field in class factory");
-    ObjectLayout updated = instanceLayout.withInitializedField(slot, type);
+    ObjectLayout updated = instanceLayout.withInitializedField(slot, value);
 
     if (updated != instanceLayout) {
       instanceLayout = updated;
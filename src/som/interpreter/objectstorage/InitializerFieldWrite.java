@@ -4,6 +4,7 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.NodeChildren;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -14,13 +15,17 @@ import som.interpreter.nodes.ExpressionNode;
 import som.interpreter.nodes.nary.ExprWithTagsNode;
 import som.interpreter.objectstorage.StorageAccessor.AbstractObjectAccessor;
 import som.interpreter.objectstorage.StorageAccessor.AbstractPrimitiveAccessor;
+import som.interpreter.objectstorage.StorageLocation.BooleanStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.ConstantStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.DoubleStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.LongStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.NilStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.ObjectStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.UnwrittenStorageLocation;
+import som.vm.constants.Nil;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 
 
 /**
@@ -28,6 +33,7 @@ import som.vmobjects.SObject.SMutableObject;
  * Instead, we have do a direct write to avoid ambiguity that could be
  * introduced by a dynamic lookup.
  */
+@ImportStatic(Nil.class)
 @NodeChildren({
     @NodeChild(value = "self", type = ExpressionNode.class),
     @NodeChild(value = "value", type = ExpressionNode.class)})
@@ -57,6 +63,39 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
     return null;
   }
 
+  protected final AbstractPrimitiveAccessor getBooleanAccessor(
+      final ObjectLayout cachedLayout) {
+    StorageLocation loc = cachedLayout.getStorageLocation(slot);
+    if (loc instanceof BooleanStorageLocation) {
+      return (AbstractPrimitiveAccessor) loc.getAccessor();
+    }
+    return null;
+  }
+
+  protected final ConstantStorageLocation getConstant(final ObjectLayout cachedLayout) {
+    StorageLocation loc = cachedLayout.getStorageLocation(slot);
+    if (loc instanceof ConstantStorageLocation) {
+      return (ConstantStorageLocation) loc;
+    }
+    return null;
+  }
+
+  protected static final AbstractPrimitiveAccessor getConstantAccessor(
+      final ConstantStorageLocation location) {
+    if (location == null) {
+      return null;
+    }
+    return (AbstractPrimitiveAccessor) location.getAccessor();
+  }
+
+  protected final StorageLocation getNil(final ObjectLayout cachedLayout) {
+    StorageLocation loc = cachedLayout.getStorageLocation(slot);
+    if (loc instanceof NilStorageLocation) {
+      return loc;
+    }
+    return null;
+  }
+
   protected final AbstractObjectAccessor getObjectAccessor(final ObjectLayout cachedLayout) {
     StorageLocation loc = cachedLayout.getStorageLocation(slot);
     if (loc instanceof ObjectStorageLocation) {
@@ -95,7 +134,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()",
           "accessor.isPrimitiveSet(rcvr, primMarkProfile)"},
       limit = "LIMIT")
-  public final long longValueSet(final SImmutableObject rcvr, final long value,
+  public final long longValueSet(final SAbstractImmutableObject rcvr, final long value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -111,7 +150,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()",
           "accessor.isPrimitiveSet(rcvr, primMarkProfile)"},
       limit = "LIMIT")
-  public final long longValueSet(final SMutableObject rcvr, final long value,
+  public final long longValueSet(final SAbstractMutableObject rcvr, final long value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -126,7 +165,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()"},
       replaces = "longValueSet",
       limit = "LIMIT")
-  public final long longValueSetOrUnset(final SImmutableObject rcvr, final long value,
+  public final long longValueSetOrUnset(final SAbstractImmutableObject rcvr, final long value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -142,7 +181,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()"},
       replaces = "longValueSet",
       limit = "LIMIT")
-  public final long longValueSetOrUnset(final SMutableObject rcvr, final long value,
+  public final long longValueSetOrUnset(final SAbstractMutableObject rcvr, final long value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -158,7 +197,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()",
           "accessor.isPrimitiveSet(rcvr, primMarkProfile)"},
       limit = "LIMIT")
-  public final double doubleValueSet(final SMutableObject rcvr, final double value,
+  public final double doubleValueSet(final SAbstractMutableObject rcvr, final double value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -173,7 +212,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()",
           "accessor.isPrimitiveSet(rcvr, primMarkProfile)"},
       limit = "LIMIT")
-  public final double doubleValueSet(final SImmutableObject rcvr, final double value,
+  public final double doubleValueSet(final SAbstractImmutableObject rcvr, final double value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -188,7 +227,8 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()"},
       replaces = "doubleValueSet",
       limit = "LIMIT")
-  public final double doubleValueSetOrUnset(final SMutableObject rcvr, final double value,
+  public final double doubleValueSetOrUnset(final SAbstractMutableObject rcvr,
+      final double value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -204,7 +244,8 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
           "cachedLayout == rcvr.getObjectLayout()"},
       replaces = "doubleValueSet",
       limit = "LIMIT")
-  public final double doubleValueSetOrUnset(final SImmutableObject rcvr, final double value,
+  public final double doubleValueSetOrUnset(final SAbstractImmutableObject rcvr,
+      final double value,
       @Cached("createProfile()") final IntValueProfile primMarkProfile,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
@@ -219,7 +260,68 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
       guards = {"accessor != null",
           "cachedLayout == rcvr.getObjectLayout()"},
       limit = "LIMIT")
-  public final Object objectValue(final SImmutableObject rcvr, final Object value,
+  public final boolean booleanValue(final SAbstractImmutableObject rcvr, final boolean value,
+      @Cached("createProfile()") final IntValueProfile primMarkProfile,
+      @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
+      @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
+      @Cached("getBooleanAccessor(cachedLayout)") final AbstractPrimitiveAccessor accessor) {
+    accessor.write(rcvr, value ? 1L : 0L);
+    accessor.markPrimAsSet(rcvr, primMarkProfile);
+    return value;
+  }
+
+  @Specialization(
+      assumptions = {"isLatestLayout"},
+      guards = {"accessor != null",
+          "cachedLayout == rcvr.getObjectLayout()"},
+      limit = "LIMIT")
+  public final boolean booleanValue(final SAbstractMutableObject rcvr, final boolean value,
+      @Cached("createProfile()") final IntValueProfile primMarkProfile,
+      @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
+      @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
+      @Cached("getBooleanAccessor(cachedLayout)") final AbstractPrimitiveAccessor accessor) {
+    accessor.write(rcvr, value ? 1L : 0L);
+    accessor.markPrimAsSet(rcvr, primMarkProfile);
+    return value;
+  }
+
+  @Specialization(
+      assumptions = {"isLatestLayout"},
+      guards = {"location != null",
+          "cachedLayout == rcvr.getObjectLayout()",
+          "location.getValue() == value"},
+      limit = "LIMIT")
+  public final Object constantValue(final SObject rcvr, final Object value,
+      @Cached("createProfile()") final IntValueProfile primMarkProfile,
+      @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
+      @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
+      @Cached("getConstant(cachedLayout)") final ConstantStorageLocation location,
+      @Cached("getConstantAccessor(location)") final AbstractPrimitiveAccessor accessor) {
+    // the value is already known from the layout, only the slot needs to be marked as set
+    accessor.markPrimAsSet(rcvr, primMarkProfile);
+    return value;
+  }
+
+  @Specialization(
+      assumptions = {"isLatestLayout"},
+      guards = {"location != null",
+          "cachedLayout == rcvr.getObjectLayout()",
+          "valueIsNil(value)"},
+      limit = "LIMIT")
+  public final Object nilValue(final SObject rcvr, final Object value,
+      @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
+      @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
+      @Cached("getNil(cachedLayout)") final StorageLocation location) {
+    // slots with a nil location read as nil, nothing to store
+    return value;
+  }
+
+  @Specialization(
+      assumptions = {"isLatestLayout"},
+      guards = {"accessor != null",
+          "cachedLayout == rcvr.getObjectLayout()"},
+      limit = "LIMIT")
+  public final Object objectValue(final SAbstractImmutableObject rcvr, final Object value,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
       @Cached("getObjectAccessor(cachedLayout)") final AbstractObjectAccessor accessor) {
@@ -232,7 +334,7 @@ public abstract class InitializerFieldWrite extends ExprWithTagsNode {
       guards = {"accessor != null",
           "cachedLayout == rcvr.getObjectLayout()"},
       limit = "LIMIT")
-  public final Object objectValue(final SMutableObject rcvr, final Object value,
+  public final Object objectValue(final SAbstractMutableObject rcvr, final Object value,
       @Cached("rcvr.getObjectLayout()") final ObjectLayout cachedLayout,
       @Cached("cachedLayout.getAssumption()") final Assumption isLatestLayout,
       @Cached("getObjectAccessor(cachedLayout)") final AbstractObjectAccessor accessor) {
@@ -6,8 +6,8 @@ import org.graalvm.nativeimage.hosted.Feature;
 
 import com.oracle.svm.core.annotate.AutomaticFeature;
 
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 
 
 public final class ObjectAddresses {
@@ -42,22 +42,22 @@ public final class ObjectAddresses {
     public void beforeAnalysis(final BeforeAnalysisAccess baa) {
       try {
         for (int i = 1; i <= 5; i += 1) {
-          Field f = SMutableObject.class.getDeclaredField("field" + i);
+          Field f = SAbstractMutableObject.class.getDeclaredField("field" + i);
           baa.registerAsUnsafeAccessed(f);
         }
 
         for (int i = 1; i <= 5; i += 1) {
-          Field f = SMutableObject.class.getDeclaredField("primField" + i);
+          Field f = SAbstractMutableObject.class.getDeclaredField("primField" + i);
           baa.registerAsUnsafeAccessed(f);
         }
 
         for (int i = 1; i <= 5; i += 1) {
-          Field f = SImmutableObject.class.getDeclaredField("field" + i);
+          Field f = SAbstractImmutableObject.class.getDeclaredField("field" + i);
           baa.registerAsUnsafeAccessed(f);
         }
 
         for (int i = 1; i <= 5; i += 1) {
-          Field f = SImmutableObject.class.getDeclaredField("primField" + i);
+          Field f = SAbstractImmutableObject.class.getDeclaredField("primField" + i);
           baa.registerAsUnsafeAccessed(f);
         }
       } catch (NoSuchFieldException | SecurityException e) {
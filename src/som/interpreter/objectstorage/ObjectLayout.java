@@ -8,13 +8,17 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
+import som.compiler.MixinDefinition.ClassSlotDefinition;
 import som.compiler.MixinDefinition.SlotDefinition;
+import som.interpreter.objectstorage.StorageLocation.BooleanStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.ConstantStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.DoubleStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.LongStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.NilStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.ObjectStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.UnwrittenStorageLocation;
 import som.vm.NotYetImplementedException;
-import som.vmobjects.SObject;
+import som.vm.constants.Nil;
 
 
 public final class ObjectLayout {
@@ -24,11 +28,19 @@ public final class ObjectLayout {
   private final int     primitiveStorageLocationsUsed;
   private final int     objectStorageLocationsUsed;
   private final int     totalNumberOfStorageLocations;
+  private final int     numberOfInlineFields;
   private final boolean onlyImmutableFields;
   private final boolean isTransferObject;
 
   private final EconomicMap<SlotDefinition, StorageLocation> storageLocations;
-  private final EconomicMap<SlotDefinition, Class<?>>        storageTypes;
+
+  /**
+   * The type of each slot is null for unwritten slots, <code>Long</code>,
+   * <code>Double</code>, <code>Boolean</code>, or <code>Object</code>, or the
+   * {@link NilStorageLocation} or {@link ConstantStorageLocation} class.
+   */
+  private final EconomicMap<SlotDefinition, Class<?>> storageTypes;
+  private final EconomicMap<SlotDefinition, Object>   constantValues;
 
   public ObjectLayout(final EconomicSet<SlotDefinition> slots,
       final ClassFactory forClasses, final boolean isTransferObject) {
@@ -49,12 +61,22 @@ public final class ObjectLayout {
   public ObjectLayout(final EconomicMap<SlotDefinition, Class<?>> knownFieldTypes,
       final int numberOfFields, final ClassFactory forClasses,
       final boolean isTransferObject) {
+    this(knownFieldTypes, EconomicMap.create(), numberOfFields, forClasses,
+        isTransferObject);
+  }
+
+  private ObjectLayout(final EconomicMap<SlotDefinition, Class<?>> knownFieldTypes,
+      final EconomicMap<SlotDefinition, Object> constantValues,
+      final int numberOfFields, final ClassFactory forClasses,
+      final boolean isTransferObject) {
     this.latestLayoutForClass = Truffle.getRuntime().createAssumption();
     this.forClasses = forClasses;
     this.isTransferObject = isTransferObject;
 
     storageTypes = knownFieldTypes;
+    this.constantValues = constantValues;
     totalNumberOfStorageLocations = numberOfFields;
+    numberOfInlineFields = forClasses.getNumberOfInlineFields(numberOfFields);
     storageLocations = EconomicMap.create((int) (numberOfFields / 0.75f));
 
     int nextFreePrimIdx = 0;
@@ -71,9 +93,19 @@ public final class ObjectLayout {
       } else if (entry.getValue() == Double.class) {
         storage = StorageLocation.createForDouble(this, entry.getKey(), nextFreePrimIdx);
         nextFreePrimIdx++;
+      } else if (entry.getValue() == Boolean.class) {
+        storage = StorageLocation.createForBoolean(this, entry.getKey(), nextFreePrimIdx);
+        nextFreePrimIdx++;
+      } else if (entry.getValue() == ConstantStorageLocation.class) {
+        // the primitive field is only used for the bit that marks the slot as set
+        storage = StorageLocation.createForConstant(this, entry.getKey(), nextFreePrimIdx,
+            constantValues.get(entry.getKey()));
+        nextFreePrimIdx++;
       } else if (entry.getValue() == Object.class) {
         storage = StorageLocation.createForObject(this, entry.getKey(), nextFreeObjIdx);
         nextFreeObjIdx++;
+      } else if (entry.getValue() == NilStorageLocation.class) {
+        storage = new NilStorageLocation(this, entry.getKey());
       } else {
         assert entry.getValue() == null;
         storage = new UnwrittenStorageLocation(this, entry.getKey());
@@ -111,6 +143,27 @@ public final class ObjectLayout {
     return totalNumberOfStorageLocations;
   }
 
+  /**
+   * @return the number of inline fields of each kind in the objects with this layout, which
+   *         is the same for all layouts of a class
+   */
+  public int getNumberOfInlineFields() {
+    return numberOfInlineFields;
+  }
+
+  /**
+   * @return the number of slots with a location of the given kind, for statistics
+   */
+  public int getNumberOfLocations(final Class<? extends StorageLocation> kind) {
+    int n = 0;
+    for (StorageLocation loc : storageLocations.getValues()) {
+      if (kind.isInstance(loc)) {
+        n += 1;
+      }
+    }
+    return n;
+  }
+
   public EconomicMap<SlotDefinition, StorageLocation> getStorageLocations() {
     return storageLocations;
   }
@@ -124,37 +177,70 @@ public final class ObjectLayout {
     }
   }
 
-  public ObjectLayout withInitializedField(final SlotDefinition slot, final Class<?> type) {
-    Class<?> specType;
-    if (type == Long.class || type == Double.class) {
-      specType = type;
-    } else {
-      specType = Object.class;
-    }
+  /**
+   * Initialize an unwritten slot, or a slot that was only ever set to
+   * <code>nil</code>, with the first value written to it.
+   */
+  public ObjectLayout withInitializedField(final SlotDefinition slot, final Object value) {
+    Class<?> specType = getSpecializedType(slot, value);
 
     Class<?> currentType = storageTypes.get(slot);
-    if (currentType == specType) {
+    if (currentType == Object.class) {
       return this;
-    } else {
-      // It can happen that two threads try to initialize the field to different types
-      // This is handled here by ensuring that we generalize it when necessary.
-      if ((currentType == Long.class && specType == Double.class)
-          || (currentType == Double.class && specType == Long.class)) {
-        specType = Object.class;
+    }
+
+    if (currentType == specType) {
+      if (specType != ConstantStorageLocation.class || constantValues.get(slot) == value) {
+        return this;
       }
-      assert currentType == null;
-      return cloneWithChanged(slot, specType);
+      specType = Object.class;
+    } else if (currentType != null && currentType != NilStorageLocation.class) {
+      // It can happen that two threads, or objects with outdated layouts, try to
+      // initialize the field to different types or constants.
+      // This is handled here by ensuring that we generalize it when necessary.
+      specType = Object.class;
+    }
+    return cloneWithChanged(slot, specType, value);
+  }
+
+  private Class<?> getSpecializedType(final SlotDefinition slot, final Object value) {
+    if (value instanceof Long) {
+      return Long.class;
+    } else if (value instanceof Double) {
+      return Double.class;
+    } else if (value instanceof Boolean) {
+      return Boolean.class;
+    } else if (value == Nil.nilObject) {
+      return NilStorageLocation.class;
+    } else if (slot.isImmutable() && !(slot instanceof ClassSlotDefinition)
+        && !isTransferObject) {
+      // transfer objects are copied between actors, and their objects need to be wrapped
+      return ConstantStorageLocation.class;
+    } else {
+      return Object.class;
     }
   }
 
   protected ObjectLayout cloneWithChanged(final SlotDefinition slot,
       final Class<?> specType) {
+    return cloneWithChanged(slot, specType, null);
+  }
+
+  protected ObjectLayout cloneWithChanged(final SlotDefinition slot,
+      final Class<?> specType, final Object constant) {
     // we create a new updated layout, and invalidate the old one
     latestLayoutForClass.invalidate();
 
     EconomicMap<SlotDefinition, Class<?>> withChangedField = EconomicMap.create(storageTypes);
     withChangedField.put(slot, specType);
-    return new ObjectLayout(withChangedField, totalNumberOfStorageLocations,
+
+    EconomicMap<SlotDefinition, Object> constants = EconomicMap.create(constantValues);
+    if (specType == ConstantStorageLocation.class) {
+      constants.put(slot, constant);
+    } else {
+      constants.removeKey(slot);
+    }
+    return new ObjectLayout(withChangedField, constants, totalNumberOfStorageLocations,
         forClasses, isTransferObject);
   }
 
@@ -163,7 +249,7 @@ public final class ObjectLayout {
   }
 
   public int getNumberOfUsedExtendedObjectStorageLocations() {
-    int requiredExtensionFields = objectStorageLocationsUsed - SObject.NUM_OBJECT_FIELDS;
+    int requiredExtensionFields = objectStorageLocationsUsed - numberOfInlineFields;
     if (requiredExtensionFields < 0) {
       return 0;
     }
@@ -171,7 +257,7 @@ public final class ObjectLayout {
   }
 
   public int getNumberOfUsedExtendedPrimStorageLocations() {
-    int requiredExtensionFields = primitiveStorageLocationsUsed - SObject.NUM_PRIMITIVE_FIELDS;
+    int requiredExtensionFields = primitiveStorageLocationsUsed - numberOfInlineFields;
     if (requiredExtensionFields < 0) {
       return 0;
     }
@@ -195,6 +281,12 @@ public final class ObjectLayout {
         type = "long";
       } else if (loc instanceof DoubleStorageLocation) {
         type = "double";
+      } else if (loc instanceof BooleanStorageLocation) {
+        type = "boolean";
+      } else if (loc instanceof NilStorageLocation) {
+        type = "nil";
+      } else if (loc instanceof ConstantStorageLocation) {
+        type = "constant";
       } else if (loc instanceof ObjectStorageLocation) {
         type = "object";
       } else {
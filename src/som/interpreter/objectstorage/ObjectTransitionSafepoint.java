@@ -1,5 +1,7 @@
 package som.interpreter.objectstorage;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -7,10 +9,13 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
+import som.Output;
 import som.compiler.MixinDefinition.SlotDefinition;
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.vm.VmSettings;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 
 
 /**
@@ -25,11 +30,35 @@ import som.vmobjects.SObject.SMutableObject;
  * Inspired by: Techniques and Applications for Guest-Language Safepoints.
  * B. Daloze, C. Seaton, D. Bonetta, H. Mössenböck. In Proc. of ICOOOLPS, 2015.
  * DOI: 10.1145/2843915.2843921
+ *
+ * <p>
+ * The safepoint is only needed for objects that other threads can access
+ * concurrently. As long as only actors are used, objects that are not values
+ * are confined to their actor, which processes one message at a time. Such
+ * objects are transitioned directly, under their own lock, by the actor's
+ * worker. Once the first thread, task, or process is created, all
+ * transitions use the safepoint.
+ *
+ * <p>
+ * The other threads are only asked to join a safepoint if they have not yet
+ * arrived, so that a thread running alone does not invalidate compiled code.
+ * With <code>som.safepointStats</code>, the number of safepoints and direct
+ * transitions, and the time threads waited for safepoints are reported at the
+ * end of execution.
  */
 public final class ObjectTransitionSafepoint {
   @CompilationFinal private SafepointPhaser phaser;
   @CompilationFinal private Assumption      noSafePoint;
 
+  /**
+   * Set once objects can be shared between threads without being values.
+   */
+  private volatile boolean sharedMemoryActivities;
+
+  private static final LongAdder numSafepoints        = new LongAdder();
+  private static final LongAdder numLocalTransitions  = new LongAdder();
+  private static final LongAdder safepointStallMicros = new LongAdder();
+
   private ObjectTransitionSafepoint() {
     phaser = new SafepointPhaser(this);
     noSafePoint = create();
@@ -40,6 +69,14 @@ public final class ObjectTransitionSafepoint {
    */
   public static void reset() {
     INSTANCE.phaser = new SafepointPhaser(INSTANCE);
+    INSTANCE.noSafePoint = create();
+  }
+
+  /**
+   * Only to be used in tests.
+   */
+  boolean isSafepointRequested() {
+    return !noSafePoint.isValid();
   }
 
   private static Assumption create() {
@@ -51,8 +88,8 @@ public final class ObjectTransitionSafepoint {
    *
    * <p>
    * Needs to be called by all threads that interact with Smalltalk objects
-   * in some way. Thus, all threads that access {@link SMutableObject} or
-   * {@link SImmutableObject} at some point of their lifetime need to register.
+   * in some way. Thus, all threads that access {@link SAbstractMutableObject} or
+   * {@link SAbstractImmutableObject} at some point of their lifetime need to register.
    */
   @TruffleBoundary
   public void register() {
@@ -64,14 +101,22 @@ public final class ObjectTransitionSafepoint {
    *
    * <p>
    * Needs to be called by all threads that interact with Smalltalk objects
-   * in some way. Thus, all threads that access {@link SMutableObject} or
-   * {@link SImmutableObject} at some point of their lifetime need to register.
+   * in some way. Thus, all threads that access {@link SAbstractMutableObject} or
+   * {@link SAbstractImmutableObject} at some point of their lifetime need to register.
    */
   @TruffleBoundary
   public void unregister() {
     phaser.arriveAndDeregister();
   }
 
+  /**
+   * Needs to be called before a thread, task, or process is started, i.e.,
+   * before objects can be shared with another thread.
+   */
+  public void sharedMemoryActivityCreated() {
+    sharedMemoryActivities = true;
+  }
+
   /**
    * Check whether a safepoint needs to be performed.
    */
@@ -79,10 +124,22 @@ public final class ObjectTransitionSafepoint {
     try {
       noSafePoint.check();
     } catch (InvalidAssumptionException e) {
+      long start = startStallTimer();
       phaser.performSafepoint();
+      recordStall(start);
     }
   }
 
+  /**
+   * An object can only be accessed by the current thread, if it is not a
+   * value, and the thread is an actor worker, while there are no other
+   * activities that share memory.
+   */
+  private boolean isConfinedToCurrentThread(final SObject obj) {
+    return !sharedMemoryActivities && !obj.isValue()
+        && Thread.currentThread() instanceof ActorProcessingThread;
+  }
+
   /**
    * Transition the given object to the latest layout.
    *
@@ -93,13 +150,19 @@ public final class ObjectTransitionSafepoint {
    * @param obj to be transitioned.
    */
   public void transitionObject(final SObject obj) {
-    waitForSafepointStart();
+    if (isConfinedToCurrentThread(obj)) {
+      recordLocalTransition();
+      obj.updateLayoutToMatchClass();
+      return;
+    }
+
+    long start = waitForSafepointStart();
 
     // Safepoint phase, used to update the object
     // object is required to handle updates from multiple threads correctly
     obj.updateLayoutToMatchClass();
 
-    phaser.finishSafepointAndAwaitCompletion();
+    finishSafepoint(start);
   }
 
   /**
@@ -111,13 +174,19 @@ public final class ObjectTransitionSafepoint {
    */
   public void writeUninitializedSlot(final SObject obj, final SlotDefinition slot,
       final Object value) {
-    waitForSafepointStart();
+    if (isConfinedToCurrentThread(obj)) {
+      recordLocalTransition();
+      obj.writeUninitializedSlot(slot, value);
+      return;
+    }
+
+    long start = waitForSafepointStart();
 
     // Safepoint phase, used to update the object
     // object is required to handle updates from multiple threads correctly
     obj.writeUninitializedSlot(slot, value);
 
-    phaser.finishSafepointAndAwaitCompletion();
+    finishSafepoint(start);
   }
 
   /**
@@ -129,24 +198,44 @@ public final class ObjectTransitionSafepoint {
    */
   public void writeAndGeneralizeSlot(final SObject obj, final SlotDefinition slot,
       final Object value) {
-    waitForSafepointStart();
+    if (isConfinedToCurrentThread(obj)) {
+      recordLocalTransition();
+      obj.writeAndGeneralizeSlot(slot, value);
+      return;
+    }
+
+    long start = waitForSafepointStart();
 
     // Safepoint phase, used to update the object
     // object is required to handle updates from multiple threads correctly
     obj.writeAndGeneralizeSlot(slot, value);
 
-    phaser.finishSafepointAndAwaitCompletion();
+    finishSafepoint(start);
   }
 
   public void ensureSlotAllocatedToAvoidDeadlock(final SObject obj,
       final SlotDefinition slot) {
-    waitForSafepointStart();
+    if (isConfinedToCurrentThread(obj)) {
+      recordLocalTransition();
+      obj.ensureSlotAllocatedToAvoidDeadlock(slot);
+      return;
+    }
+
+    long start = waitForSafepointStart();
 
     // Safepoint phase, used to update the object
     // object is required to handle updates from multiple threads correctly
     obj.ensureSlotAllocatedToAvoidDeadlock(slot);
 
-    phaser.finishSafepointAndAwaitCompletion();
+    finishSafepoint(start);
+  }
+
+  /**
+   * Ask all other threads to join in the safepoint. Called by the phaser,
+   * when a thread arrives for a safepoint, but others still need to arrive.
+   */
+  void requestSafepoint() {
+    noSafePoint.invalidate();
   }
 
   void renewAssumption() {
@@ -155,15 +244,55 @@ public final class ObjectTransitionSafepoint {
     }
   }
 
-  private void waitForSafepointStart() {
+  /**
+   * @return the start time for the stall statistics
+   */
+  private long waitForSafepointStart() {
     // Note: The whole Safepoint is in the interpreter, so, the trigger can be too
     CompilerAsserts.neverPartOfCompilation(
         "Compilation not supported, expect to be in non-PEed code.");
 
-    // Ask all other threads to join in the safepoint
-    noSafePoint.invalidate();
+    if (VmSettings.SAFEPOINT_STATS) {
+      numSafepoints.increment();
+    }
+    long start = startStallTimer();
 
+    // the phaser asks all other threads to join in the safepoint, if needed
     phaser.arriveAtSafepointAndAwaitStart();
+    return start;
+  }
+
+  private void finishSafepoint(final long start) {
+    phaser.finishSafepointAndAwaitCompletion();
+    recordStall(start);
+  }
+
+  private static long startStallTimer() {
+    if (VmSettings.SAFEPOINT_STATS) {
+      return System.nanoTime();
+    }
+    return 0;
+  }
+
+  private static void recordStall(final long start) {
+    if (VmSettings.SAFEPOINT_STATS) {
+      safepointStallMicros.add((System.nanoTime() - start) / 1000);
+    }
+  }
+
+  private static void recordLocalTransition() {
+    if (VmSettings.SAFEPOINT_STATS) {
+      numLocalTransitions.increment();
+    }
+  }
+
+  public static void reportStats() {
+    if (!VmSettings.SAFEPOINT_STATS) {
+      return;
+    }
+    Output.println("RESULT-Safepoints: " + numSafepoints.sum());
+    Output.println("RESULT-LocalLayoutTransitions: " + numLocalTransitions.sum());
+    Output.println("RESULT-SafepointStallMillis: " + safepointStallMicros.sum() / 1000);
   }
 
   public static final ObjectTransitionSafepoint INSTANCE = new ObjectTransitionSafepoint();
@@ -305,6 +305,9 @@ public final class SafepointPhaser {
       }
       if (U.compareAndSwapLong(this, STATE, s, s -= ONE_ARRIVAL)) {
         if (unarrived > 1) {
+          if ((phase & 1) == 0) { // safepoint to be started, others need to join
+            safepoint.requestSafepoint();
+          }
           return internalAwaitAdvance(phase, null);
         }
         long n = s & PARTIES_MASK; // base of next state
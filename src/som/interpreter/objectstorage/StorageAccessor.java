@@ -10,8 +10,10 @@ import com.oracle.truffle.api.profiles.IntValueProfile;
 
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
+import som.vmobjects.SObject.SMutableObject10;
+import som.vmobjects.SObject.SMutableObject20;
 import sun.misc.Unsafe;
 
 
@@ -22,8 +24,9 @@ import sun.misc.Unsafe;
  * Furthermore, they are independent from the layout. {@link StorageLocation}
  * object create the connection between the {@link ObjectLayout} and a
  * {@link SlotDefinition slot's} mapping to a specific memory location.
- * The available memory locations are defined in {@link SImmutableObject} and
- * {@link SMutableObject}.
+ * The available memory locations are defined in {@link SAbstractImmutableObject} and
+ * {@link SAbstractMutableObject}, and their subclasses with more inline fields. Since the
+ * object shape is determined by the layout, there is a set of accessors per shape.
  */
 public abstract class StorageAccessor {
   private static final Unsafe unsafe;
@@ -31,39 +34,68 @@ public abstract class StorageAccessor {
   private static final int MAX_OBJECT_FIELDS = 50;
   private static final int MAX_PRIM_FIELDS   = 30;
 
+  /** The number of inline fields of each kind of the object shapes. */
+  private static final int[] SHAPES = {
+      SObject.NUM_OBJECT_FIELDS, SObject.NUM_FIELDS_MEDIUM, SObject.NUM_FIELDS_LARGE};
+
   @CompilationFinal(
-      dimensions = 1) private static final AbstractObjectAccessor[]                  objAccessors;
+      dimensions = 2) private static final AbstractObjectAccessor[][]                objAccessors;
   @CompilationFinal(
-      dimensions = 1) private static final AbstractPrimitiveAccessor[]               primAccessors;
+      dimensions = 2) private static final AbstractPrimitiveAccessor[][]             primAccessors;
 
   static {
     unsafe = loadUnsafe();
 
-    objAccessors = new AbstractObjectAccessor[MAX_OBJECT_FIELDS];
-    primAccessors = new AbstractPrimitiveAccessor[MAX_PRIM_FIELDS];
+    objAccessors = new AbstractObjectAccessor[SHAPES.length][];
+    primAccessors = new AbstractPrimitiveAccessor[SHAPES.length][];
   }
 
-  private static long getFieldOffset(final String fieldName) {
+  /**
+   * @param fieldNumber the 1-based number in the field name
+   */
+  private static long getFieldOffset(final String fieldPrefix, final int fieldNumber) {
+    Class<?> declaringClass;
+    if (fieldNumber <= SObject.NUM_OBJECT_FIELDS) {
+      declaringClass = SAbstractMutableObject.class;
+    } else if (fieldNumber <= SObject.NUM_FIELDS_MEDIUM) {
+      declaringClass = SMutableObject10.class;
+    } else {
+      declaringClass = SMutableObject20.class;
+    }
+
     try {
-      Field field = SMutableObject.class.getDeclaredField(fieldName);
+      Field field = declaringClass.getDeclaredField(fieldPrefix + fieldNumber);
       return unsafe.objectFieldOffset(field);
     } catch (NoSuchFieldException | SecurityException e) {
       throw new RuntimeException(e);
     }
   }
 
-  public static AbstractObjectAccessor getObjectAccessor(final int idx) {
+  private static int getShapeIndex(final int numberOfInlineFields) {
+    for (int i = 0; i < SHAPES.length; i += 1) {
+      if (SHAPES[i] == numberOfInlineFields) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(
+        "There is no object shape with " + numberOfInlineFields + " inline fields");
+  }
+
+  public static AbstractObjectAccessor getObjectAccessor(final int idx,
+      final int numberOfInlineFields) {
     assert idx < MAX_OBJECT_FIELDS : "Got a object slot allocated that goes beyond the currently supported. idx: "
         + idx;
-    AbstractObjectAccessor result = objAccessors[idx];
+    AbstractObjectAccessor result = objAccessors[getShapeIndex(numberOfInlineFields)][idx];
     assert result != null : "Object accessors not yet initialized?";
     return result;
   }
 
-  public static AbstractPrimitiveAccessor getPrimitiveAccessor(final int idx) {
-    assert idx < MAX_OBJECT_FIELDS : "Got a primitive slot allocated that goes beyond the currently supported. idx: "
+  public static AbstractPrimitiveAccessor getPrimitiveAccessor(final int idx,
+      final int numberOfInlineFields) {
+    assert idx < MAX_PRIM_FIELDS : "Got a primitive slot allocated that goes beyond the currently supported. idx: "
         + idx;
-    AbstractPrimitiveAccessor result = primAccessors[idx];
+    AbstractPrimitiveAccessor result =
+        primAccessors[getShapeIndex(numberOfInlineFields)][idx];
     assert result != null : "Primitive accessors not yet initialized?";
     return result;
   }
@@ -78,39 +110,53 @@ public abstract class StorageAccessor {
   }
 
   private static void initObjectAccessors() {
+    // direct accessors are shared by all shapes that have the field inline.
+    // On SubstrateVM, only the smallest shape is used.
+    DirectObjectAccessor[] direct = new DirectObjectAccessor[SObject.NUM_FIELDS_LARGE];
     if (TruffleOptions.AOT) {
-      objAccessors[0] = new DirectObjectAccessor(ObjectAddresses.field1Offset);
-      objAccessors[1] = new DirectObjectAccessor(ObjectAddresses.field2Offset);
-      objAccessors[2] = new DirectObjectAccessor(ObjectAddresses.field3Offset);
-      objAccessors[3] = new DirectObjectAccessor(ObjectAddresses.field4Offset);
-      objAccessors[4] = new DirectObjectAccessor(ObjectAddresses.field5Offset);
+      direct[0] = new DirectObjectAccessor(ObjectAddresses.field1Offset);
+      direct[1] = new DirectObjectAccessor(ObjectAddresses.field2Offset);
+      direct[2] = new DirectObjectAccessor(ObjectAddresses.field3Offset);
+      direct[3] = new DirectObjectAccessor(ObjectAddresses.field4Offset);
+      direct[4] = new DirectObjectAccessor(ObjectAddresses.field5Offset);
     } else {
-      for (int i = 0; i < SObject.NUM_OBJECT_FIELDS; i += 1) {
-        objAccessors[i] = new DirectObjectAccessor(getFieldOffset("field" + (i + 1)));
+      for (int i = 0; i < SObject.NUM_FIELDS_LARGE; i += 1) {
+        direct[i] = new DirectObjectAccessor(getFieldOffset("field", i + 1));
       }
     }
 
-    for (int i = SObject.NUM_OBJECT_FIELDS; i < MAX_OBJECT_FIELDS; i += 1) {
-      objAccessors[i] = new ExtensionObjectAccessor(i);
+    for (int s = 0; s < SHAPES.length; s += 1) {
+      int numInline = SHAPES[s];
+      AbstractObjectAccessor[] accessors = new AbstractObjectAccessor[MAX_OBJECT_FIELDS];
+      for (int i = 0; i < MAX_OBJECT_FIELDS; i += 1) {
+        accessors[i] = i < numInline ? direct[i] : new ExtensionObjectAccessor(i, numInline);
+      }
+      objAccessors[s] = accessors;
     }
   }
 
   private static void initPrimitiveAccessors() {
+    DirectPrimitiveAccessor[] direct = new DirectPrimitiveAccessor[SObject.NUM_FIELDS_LARGE];
     if (TruffleOptions.AOT) {
-      primAccessors[0] = new DirectPrimitiveAccessor(ObjectAddresses.prim1Offset, 0);
-      primAccessors[1] = new DirectPrimitiveAccessor(ObjectAddresses.prim2Offset, 1);
-      primAccessors[2] = new DirectPrimitiveAccessor(ObjectAddresses.prim3Offset, 2);
-      primAccessors[3] = new DirectPrimitiveAccessor(ObjectAddresses.prim4Offset, 3);
-      primAccessors[4] = new DirectPrimitiveAccessor(ObjectAddresses.prim5Offset, 4);
+      direct[0] = new DirectPrimitiveAccessor(ObjectAddresses.prim1Offset, 0);
+      direct[1] = new DirectPrimitiveAccessor(ObjectAddresses.prim2Offset, 1);
+      direct[2] = new DirectPrimitiveAccessor(ObjectAddresses.prim3Offset, 2);
+      direct[3] = new DirectPrimitiveAccessor(ObjectAddresses.prim4Offset, 3);
+      direct[4] = new DirectPrimitiveAccessor(ObjectAddresses.prim5Offset, 4);
     } else {
-      for (int i = 0; i < SObject.NUM_PRIMITIVE_FIELDS; i += 1) {
-        primAccessors[i] =
-            new DirectPrimitiveAccessor(getFieldOffset("primField" + (i + 1)), i);
+      for (int i = 0; i < SObject.NUM_FIELDS_LARGE; i += 1) {
+        direct[i] = new DirectPrimitiveAccessor(getFieldOffset("primField", i + 1), i);
       }
     }
 
-    for (int i = SObject.NUM_PRIMITIVE_FIELDS; i < MAX_PRIM_FIELDS; i += 1) {
-      primAccessors[i] = new ExtensionPrimitiveAccessor(i);
+    for (int s = 0; s < SHAPES.length; s += 1) {
+      int numInline = SHAPES[s];
+      AbstractPrimitiveAccessor[] accessors = new AbstractPrimitiveAccessor[MAX_PRIM_FIELDS];
+      for (int i = 0; i < MAX_PRIM_FIELDS; i += 1) {
+        accessors[i] =
+            i < numInline ? direct[i] : new ExtensionPrimitiveAccessor(i, numInline);
+      }
+      primAccessors[s] = accessors;
     }
   }
 
@@ -142,8 +188,8 @@ public abstract class StorageAccessor {
   public static final class ExtensionObjectAccessor extends AbstractObjectAccessor {
     private final int extensionIndex;
 
-    private ExtensionObjectAccessor(final int fieldIdx) {
-      this.extensionIndex = fieldIdx - SObject.NUM_OBJECT_FIELDS;
+    private ExtensionObjectAccessor(final int fieldIdx, final int numberOfInlineFields) {
+      this.extensionIndex = fieldIdx - numberOfInlineFields;
     }
 
     @Override
@@ -225,9 +271,9 @@ public abstract class StorageAccessor {
   public static final class ExtensionPrimitiveAccessor extends AbstractPrimitiveAccessor {
     private final int extensionIndex;
 
-    private ExtensionPrimitiveAccessor(final int fieldIdx) {
+    private ExtensionPrimitiveAccessor(final int fieldIdx, final int numberOfInlineFields) {
       super(fieldIdx);
-      this.extensionIndex = fieldIdx - SObject.NUM_PRIMITIVE_FIELDS;
+      this.extensionIndex = fieldIdx - numberOfInlineFields;
     }
 
     @Override
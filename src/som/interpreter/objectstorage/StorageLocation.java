@@ -6,18 +6,27 @@ import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.TruffleCompiler;
 import som.interpreter.nodes.dispatch.AbstractDispatchNode;
 import som.interpreter.nodes.dispatch.CachedSlotRead;
+import som.interpreter.nodes.dispatch.CachedSlotRead.BooleanSlotReadSet;
+import som.interpreter.nodes.dispatch.CachedSlotRead.BooleanSlotReadSetOrUnset;
+import som.interpreter.nodes.dispatch.CachedSlotRead.ConstantSlotReadSet;
+import som.interpreter.nodes.dispatch.CachedSlotRead.ConstantSlotReadSetOrUnset;
 import som.interpreter.nodes.dispatch.CachedSlotRead.DoubleSlotReadSet;
 import som.interpreter.nodes.dispatch.CachedSlotRead.DoubleSlotReadSetOrUnset;
 import som.interpreter.nodes.dispatch.CachedSlotRead.LongSlotReadSet;
 import som.interpreter.nodes.dispatch.CachedSlotRead.LongSlotReadSetOrUnset;
+import som.interpreter.nodes.dispatch.CachedSlotRead.NilSlotRead;
 import som.interpreter.nodes.dispatch.CachedSlotRead.ObjectSlotRead;
 import som.interpreter.nodes.dispatch.CachedSlotRead.SlotAccess;
 import som.interpreter.nodes.dispatch.CachedSlotRead.UnwrittenSlotRead;
 import som.interpreter.nodes.dispatch.CachedSlotWrite;
+import som.interpreter.nodes.dispatch.CachedSlotWrite.BooleanSlotWriteSet;
+import som.interpreter.nodes.dispatch.CachedSlotWrite.BooleanSlotWriteSetOrUnset;
+import som.interpreter.nodes.dispatch.CachedSlotWrite.ConstantSlotWrite;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.DoubleSlotWriteSet;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.DoubleSlotWriteSetOrUnset;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.LongSlotWriteSet;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.LongSlotWriteSetOrUnset;
+import som.interpreter.nodes.dispatch.CachedSlotWrite.NilSlotWrite;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.ObjectSlotWrite;
 import som.interpreter.nodes.dispatch.CachedSlotWrite.UnwrittenSlotWrite;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
@@ -35,6 +44,16 @@ import som.vmobjects.SObject;
  * <p>
  * <code>StorageLocation</code> provides the node factories as well as slow
  * path accessor to read/write a slot.
+ *
+ * <p>
+ * Besides object and primitive storage, there are locations that avoid boxing
+ * or storage altogether: booleans are stored unboxed in a primitive field,
+ * slots that were only ever set to <code>nil</code> do not need storage, and
+ * immutable slots that hold the same object in all instances of a class keep
+ * it in the location, where it is a compilation constant until the layout is
+ * generalized. Constant locations still use the bit that indicates whether a
+ * primitive slot is set, so that unset slots continue to read as
+ * <code>nil</code>.
  */
 public abstract class StorageLocation {
 
@@ -53,6 +72,16 @@ public abstract class StorageLocation {
     return new ObjectStorageLocation(layout, slot, objFieldIndex);
   }
 
+  public static StorageLocation createForBoolean(final ObjectLayout layout,
+      final SlotDefinition slot, final int primFieldIndex) {
+    return new BooleanStorageLocation(layout, slot, primFieldIndex);
+  }
+
+  public static StorageLocation createForConstant(final ObjectLayout layout,
+      final SlotDefinition slot, final int primFieldIndex, final Object value) {
+    return new ConstantStorageLocation(layout, slot, primFieldIndex, value);
+  }
+
   protected final ObjectLayout   layout;
   protected final SlotDefinition slot;
 
@@ -98,6 +127,11 @@ public abstract class StorageLocation {
    */
   public abstract boolean isSet(SObject obj);
 
+  /**
+   * @return true, if the value can be written without generalizing the location
+   */
+  public abstract boolean canStore(Object value);
+
   public static final class UnwrittenStorageLocation extends StorageLocation {
 
     public UnwrittenStorageLocation(final ObjectLayout layout,
@@ -147,6 +181,11 @@ public abstract class StorageLocation {
       return false;
     }
 
+    @Override
+    public boolean canStore(final Object value) {
+      return false;
+    }
+
     @Override
     public StorageAccessor getAccessor() {
       throw new IllegalStateException(
@@ -154,13 +193,83 @@ public abstract class StorageLocation {
     }
   }
 
+  /**
+   * A slot that was only ever set to <code>nil</code>. It does not need any
+   * storage, and is initialized like an unwritten slot on the first write of
+   * another value.
+   */
+  public static final class NilStorageLocation extends StorageLocation {
+
+    public NilStorageLocation(final ObjectLayout layout, final SlotDefinition slot) {
+      super(layout, slot);
+    }
+
+    @Override
+    public boolean isObjectLocation() {
+      return false;
+    }
+
+    @Override
+    public CachedSlotRead getReadNode(final SlotAccess type, final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache, final boolean isSet) {
+      return new NilSlotRead(type, guardForRcvr, nextInCache);
+    }
+
+    @Override
+    public CachedSlotWrite getWriteNode(final SlotDefinition slot,
+        final CheckSObject guardForRcvr, final AbstractDispatchNode next,
+        final boolean isSet) {
+      return new NilSlotWrite(slot, guardForRcvr, next);
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public Object read(final SObject obj) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      return Nil.nilObject;
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public void write(final SObject obj, final Object value) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      if (value != Nil.nilObject) {
+        ObjectTransitionSafepoint.INSTANCE.writeUninitializedSlot(obj, slot, value);
+      }
+    }
+
+    /**
+     * Nil slots are treated as unset, so that they do not need to be
+     * transferred when the location changes.
+     */
+    @Override
+    public boolean isSet(final SObject obj) {
+      return false;
+    }
+
+    @Override
+    public boolean canStore(final Object value) {
+      return value == Nil.nilObject;
+    }
+
+    @Override
+    public StorageAccessor getAccessor() {
+      throw new IllegalStateException("Nil slots do not have storage");
+    }
+  }
+
   public static final class ObjectStorageLocation extends StorageLocation {
     private final AbstractObjectAccessor accessor;
 
     public ObjectStorageLocation(final ObjectLayout layout, final SlotDefinition slot,
         final int objFieldIdx) {
       super(layout, slot);
-      this.accessor = StorageAccessor.getObjectAccessor(objFieldIdx);
+      this.accessor = StorageAccessor.getObjectAccessor(objFieldIdx,
+          layout.getNumberOfInlineFields());
     }
 
     @Override
@@ -213,6 +322,11 @@ public abstract class StorageLocation {
       return true;
     }
 
+    @Override
+    public boolean canStore(final Object value) {
+      return true;
+    }
+
     @Override
     public StorageAccessor getAccessor() {
       return accessor;
@@ -225,7 +339,8 @@ public abstract class StorageLocation {
     protected PrimitiveStorageLocation(final ObjectLayout layout,
         final SlotDefinition slot, final int primField) {
       super(layout, slot);
-      accessor = StorageAccessor.getPrimitiveAccessor(primField);
+      accessor = StorageAccessor.getPrimitiveAccessor(primField,
+          layout.getNumberOfInlineFields());
     }
 
     @Override
@@ -306,6 +421,11 @@ public abstract class StorageLocation {
         ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
       }
     }
+
+    @Override
+    public boolean canStore(final Object value) {
+      return value instanceof Long;
+    }
   }
 
   public static final class DoubleStorageLocation extends PrimitiveStorageLocation {
@@ -363,5 +483,148 @@ public abstract class StorageLocation {
         ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
       }
     }
+
+    @Override
+    public boolean canStore(final Object value) {
+      return value instanceof Double;
+    }
+  }
+
+  /**
+   * Booleans are stored unboxed as 0 or 1 in a primitive field.
+   */
+  public static final class BooleanStorageLocation extends PrimitiveStorageLocation {
+
+    protected BooleanStorageLocation(final ObjectLayout layout,
+        final SlotDefinition slot, final int primField) {
+      super(layout, slot, primField);
+    }
+
+    @Override
+    public CachedSlotRead getReadNode(final SlotAccess type,
+        final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache, final boolean isSet) {
+      if (isSet) {
+        return new BooleanSlotReadSet(accessor, type, guardForRcvr, nextInCache);
+      } else {
+        return new BooleanSlotReadSetOrUnset(accessor, type, guardForRcvr,
+            nextInCache);
+      }
+    }
+
+    @Override
+    public CachedSlotWrite getWriteNode(final SlotDefinition slot,
+        final CheckSObject guardForRcvr,
+        final AbstractDispatchNode next, final boolean isSet) {
+      if (isSet) {
+        return new BooleanSlotWriteSet(slot, accessor, guardForRcvr, next);
+      } else {
+        return new BooleanSlotWriteSetOrUnset(slot, accessor, guardForRcvr, next);
+      }
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public Object read(final SObject obj) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      if (isSet(obj)) {
+        return accessor.readLong(obj) != 0;
+      } else {
+        return Nil.nilObject;
+      }
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public void write(final SObject obj, final Object value) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      assert value != null;
+      if (value instanceof Boolean) {
+        accessor.write(obj, (boolean) value ? 1L : 0L);
+        accessor.markPrimAsSet(obj);
+      } else {
+        ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
+      }
+    }
+
+    @Override
+    public boolean canStore(final Object value) {
+      return value instanceof Boolean;
+    }
+  }
+
+  /**
+   * An immutable slot that holds the same object in all instances of a class.
+   * The object is kept in the location, only the bit that indicates whether the
+   * slot is set is kept in the instances. Writing another object generalizes
+   * the location.
+   */
+  public static final class ConstantStorageLocation extends PrimitiveStorageLocation {
+    private final Object value;
+
+    protected ConstantStorageLocation(final ObjectLayout layout,
+        final SlotDefinition slot, final int primField, final Object value) {
+      super(layout, slot, primField);
+      this.value = value;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public CachedSlotRead getReadNode(final SlotAccess type,
+        final CheckSObject guardForRcvr,
+        final AbstractDispatchNode nextInCache, final boolean isSet) {
+      if (isSet) {
+        return new ConstantSlotReadSet(value, accessor, type, guardForRcvr, nextInCache);
+      } else {
+        return new ConstantSlotReadSetOrUnset(value, accessor, type, guardForRcvr,
+            nextInCache);
+      }
+    }
+
+    @Override
+    public CachedSlotWrite getWriteNode(final SlotDefinition slot,
+        final CheckSObject guardForRcvr,
+        final AbstractDispatchNode next, final boolean isSet) {
+      return new ConstantSlotWrite(slot, value, accessor, guardForRcvr, next);
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public Object read(final SObject obj) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      if (isSet(obj)) {
+        return value;
+      } else {
+        return Nil.nilObject;
+      }
+    }
+
+    /**
+     * Slow-path accessor to slot.
+     */
+    @Override
+    public void write(final SObject obj, final Object value) {
+      CompilerAsserts.neverPartOfCompilation("StorageLocation");
+      assert value != null;
+      if (value == this.value) {
+        accessor.markPrimAsSet(obj);
+      } else {
+        ObjectTransitionSafepoint.INSTANCE.writeAndGeneralizeSlot(obj, slot, value);
+      }
+    }
+
+    @Override
+    public boolean canStore(final Object value) {
+      return value == this.value;
+    }
   }
 }
@@ -4,7 +4,7 @@ import som.interpreter.nodes.dispatch.AbstractDispatchNode;
 import som.interpreter.nodes.dispatch.CachedSlotRead;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 
 
 public final class CachedTxSlotRead extends CachedSlotRead {
@@ -20,7 +20,8 @@ public final class CachedTxSlotRead extends CachedSlotRead {
 
   @Override
   public Object read(final SObject rcvr) {
-    SMutableObject workingCopy = Transactions.workingCopy((SMutableObject) rcvr);
+    SAbstractMutableObject workingCopy =
+        Transactions.workingCopy((SAbstractMutableObject) rcvr);
     return read.read(workingCopy);
   }
 }
@@ -4,7 +4,7 @@ import som.interpreter.nodes.dispatch.AbstractDispatchNode;
 import som.interpreter.nodes.dispatch.CachedSlotWrite;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 
 
 public final class CachedTxSlotWrite extends CachedSlotWrite {
@@ -18,7 +18,8 @@ public final class CachedTxSlotWrite extends CachedSlotWrite {
 
   @Override
   public void doWrite(final SObject obj, final Object value) {
-    SMutableObject workingCopy = Transactions.workingCopy((SMutableObject) obj);
+    SAbstractMutableObject workingCopy =
+        Transactions.workingCopy((SAbstractMutableObject) obj);
     write.doWrite(workingCopy, value);
   }
 }
@@ -4,8 +4,10 @@ import java.util.IdentityHashMap;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
+import som.vm.VmSettings;
 import som.vmobjects.SArray.SMutableArray;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
+import tools.snapshot.SnapshotRecord;
 
 
 /**
@@ -27,6 +29,7 @@ import som.vmobjects.SObject.SMutableObject;
  * The initial creation of a {@link Change} object accesses the public object
  * while holding its lock. Similarly, on writing back changes, the lock is
  * acquired. Transaction commits are globally sequentialized on a single lock.
+ * Written back objects pass the write barrier of incremental snapshots.
  *
  * <p>
  * Inspired by: Transactional Memory for Smalltalk
@@ -35,8 +38,8 @@ import som.vmobjects.SObject.SMutableObject;
  */
 public final class Transactions {
 
-  private IdentityHashMap<SMutableObject, ObjectChange> objects;
-  private IdentityHashMap<SMutableArray, ArrayChange>   arrays;
+  private IdentityHashMap<SAbstractMutableObject, ObjectChange> objects;
+  private IdentityHashMap<SMutableArray, ArrayChange>           arrays;
 
   private static Object globalCommitLock = new Object();
 
@@ -51,11 +54,11 @@ public final class Transactions {
   }
 
   private static final class ObjectChange extends Change {
-    private final SMutableObject publicObj;
-    private final SMutableObject initialState;
-    private final SMutableObject workingCopy;
+    private final SAbstractMutableObject publicObj;
+    private final SAbstractMutableObject initialState;
+    private final SAbstractMutableObject workingCopy;
 
-    ObjectChange(final SMutableObject o) {
+    ObjectChange(final SAbstractMutableObject o) {
       synchronized (o) {
         publicObj = o;
         initialState = o.shallowCopy();
@@ -78,6 +81,9 @@ public final class Transactions {
       synchronized (publicObj) {
         publicObj.txSet(workingCopy);
       }
+      if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+        SnapshotRecord.recordWrite(publicObj);
+      }
     }
   }
 
@@ -109,6 +115,9 @@ public final class Transactions {
       synchronized (publicArr) {
         publicArr.txSet(workingCopy);
       }
+      if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+        SnapshotRecord.recordWrite(publicArr);
+      }
     }
   }
 
@@ -117,7 +126,7 @@ public final class Transactions {
     arrays = new IdentityHashMap<>();
   }
 
-  private SMutableObject getWorkingCopy(final SMutableObject o) {
+  private SAbstractMutableObject getWorkingCopy(final SAbstractMutableObject o) {
     ObjectChange change = objects.get(o);
     if (change == null) {
       change = new ObjectChange(o);
@@ -196,7 +205,7 @@ public final class Transactions {
   }
 
   @TruffleBoundary
-  public static SMutableObject workingCopy(final SMutableObject rcvr) {
+  public static SAbstractMutableObject workingCopy(final SAbstractMutableObject rcvr) {
     Transactions t = transactions.get();
     return t.getWorkingCopy(rcvr);
   }
@@ -36,7 +36,7 @@ import som.vmobjects.SArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
 import som.vmobjects.SInvokable;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 import som.vmobjects.SObjectWithClass;
 import som.vmobjects.SSymbol;
 import tools.concurrency.KomposTrace;
@@ -139,8 +139,9 @@ public abstract class ActivitySpawn {
     }
 
     @Specialization(guards = "procMod == ProcessesModule")
-    public final Object spawnProcess(final VirtualFrame frame, final SImmutableObject procMod,
-        final SClass procCls, @Cached("createIsValue()") final IsValue isVal) {
+    public final Object spawnProcess(final VirtualFrame frame,
+        final SAbstractImmutableObject procMod, final SClass procCls,
+        @Cached("createIsValue()") final IsValue isVal) {
       if (!isVal.executeBoolean(frame, procCls)) {
         notAValue.signal(procCls);
       }
@@ -224,8 +225,9 @@ public abstract class ActivitySpawn {
     }
 
     @Specialization(guards = "procMod == ProcessesModule")
-    public final Object spawnProcess(final VirtualFrame frame, final SImmutableObject procMod,
-        final SClass procCls, final SArray arg, final Object[] argArr,
+    public final Object spawnProcess(final VirtualFrame frame,
+        final SAbstractImmutableObject procMod, final SClass procCls, final SArray arg,
+        final Object[] argArr,
         @Cached("createIsValue()") final IsValue isVal) {
       if (!isVal.executeBoolean(frame, procCls)) {
         notAValue.signal(procCls);
@@ -17,8 +17,8 @@ import som.vm.constants.Nil;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SInvokable;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import som.vmobjects.SSymbol;
@@ -65,7 +65,8 @@ public abstract class EqualsEqualsPrim extends ComparisonPrim {
   }
 
   @Specialization(guards = {"left.isValue()", "right.isValue()"})
-  public final boolean doValues(final SImmutableObject left, final SImmutableObject right) {
+  public final boolean doValues(final SAbstractImmutableObject left,
+      final SAbstractImmutableObject right) {
     return left == right;
   }
 
@@ -316,13 +317,14 @@ public abstract class EqualsEqualsPrim extends ComparisonPrim {
 
   // temp fix for Double == SMutable Object compare for sets
   @Specialization
-  public final boolean doUnusedCompare(final double left, final SImmutableObject right) {
+  public final boolean doUnusedCompare(final double left,
+      final SAbstractImmutableObject right) {
     // return ((Double) left).equals(right);
     return false;
   }
 
   @Specialization
-  public final boolean doUnusedCompare(final double left, final SMutableObject right) {
+  public final boolean doUnusedCompare(final double left, final SAbstractMutableObject right) {
     // return ((Double) left).equals(right);
     return false;
   }
@@ -13,8 +13,8 @@ import som.interpreter.objectstorage.ObjectLayout;
 import som.vm.VmSettings;
 import som.vmobjects.SAbstractObject;
 import som.vmobjects.SClass;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import tools.dym.Tags.NewObject;
 
@@ -62,7 +62,7 @@ public abstract class NewObjectPrim extends UnaryExpressionNode implements ISpec
   public final SAbstractObject doClassWithOnlyImmutableFields(final SClass receiver,
       @Cached("receiver.getInstanceFactory()") final ClassFactory factory,
       @Cached("receiver.getInstanceFactory().getInstanceLayout()") final ObjectLayout layout) {
-    return new SImmutableObject(receiver, factory, layout);
+    return SAbstractImmutableObject.create(receiver, factory, layout);
   }
 
   @Specialization(guards = {
@@ -75,7 +75,7 @@ public abstract class NewObjectPrim extends UnaryExpressionNode implements ISpec
       final SClass receiver,
       @Cached("receiver.getInstanceFactory()") final ClassFactory factory,
       @Cached("factory.getInstanceLayout()") final ObjectLayout layout) {
-    return new SMutableObject(receiver, factory, layout);
+    return SAbstractMutableObject.create(receiver, factory, layout);
   }
 
   @Specialization(guards = {
@@ -29,8 +29,8 @@ import som.vmobjects.SArray.SImmutableArray;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import som.vmobjects.SSymbol;
 import tools.dym.Tags.OpComparison;
@@ -222,12 +222,12 @@ public final class ObjectPrims {
     }
 
     @Specialization
-    public final boolean isValue(final SMutableObject rcvr) {
+    public final boolean isValue(final SAbstractMutableObject rcvr) {
       return false;
     }
 
     @Specialization
-    public final boolean isValue(final SImmutableObject rcvr) {
+    public final boolean isValue(final SAbstractImmutableObject rcvr) {
       return rcvr.isValue();
     }
 
@@ -33,11 +33,11 @@ import som.vm.constants.Nil;
 import som.vmobjects.SArray.SImmutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 
 
 public final class PathPrims {
-  @CompilationFinal private static SImmutableObject fileObject;
+  @CompilationFinal private static SAbstractImmutableObject fileObject;
 
   public static final class FileModule implements Supplier<SObject> {
     @Override
@@ -51,7 +51,7 @@ public final class PathPrims {
   @Primitive(primitive = "fileObject:")
   public abstract static class SetFileClassPrim extends UnaryExpressionNode {
     @Specialization
-    public final SImmutableObject setClass(final SImmutableObject value) {
+    public final SAbstractImmutableObject setClass(final SAbstractImmutableObject value) {
       fileObject = value;
       return value;
     }
@@ -402,7 +402,7 @@ public final class SystemPrims {
         ActorProcessingThread atp =
             (ActorProcessingThread) ActorProcessingThread.currentThread();
         TracingActor ta = (TracingActor) EventualMessage.getActorCurrentMessageIsExecutionOn();
-        SnapshotBuffer sb = new SnapshotBuffer(atp);
+        SnapshotBuffer sb = new SnapshotBuffer(atp, false);
         ta.replaceSnapshotRecord();
 
         if (!sb.getRecord().containsObject(receiver)) {
@@ -14,12 +14,12 @@ import som.interpreter.nodes.nary.UnaryExpressionNode;
 import som.interpreter.nodes.nary.UnaryExpressionNode.UnarySystemOperation;
 import som.primitives.TimerPrim;
 import som.vmobjects.SClass;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 
 
 public final class ActorClasses {
 
-  @CompilationFinal public static SImmutableObject  ActorModule;
+  @CompilationFinal public static SAbstractImmutableObject  ActorModule;
   @CompilationFinal public static MixinDefinitionId FarRefId;
 
   @GenerateNodeFactory
@@ -72,7 +72,7 @@ public final class ActorClasses {
   public abstract static class SetModulePrim extends UnarySystemOperation {
     @Specialization
     @TruffleBoundary
-    public final SImmutableObject setClass(final SImmutableObject value) {
+    public final SAbstractImmutableObject setClass(final SAbstractImmutableObject value) {
       ActorModule = value;
       TimerPrim.initializeTimer(vm);
       return value;
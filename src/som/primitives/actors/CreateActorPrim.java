@@ -5,6 +5,7 @@ import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.source.SourceSection;
 
 import bd.primitives.Primitive;
 import som.VM;
@@ -14,6 +15,7 @@ import som.interpreter.nodes.ExceptionSignalingNode;
 import som.interpreter.nodes.nary.BinaryComplexOperation.BinarySystemOperation;
 import som.primitives.ObjectPrims.IsValue;
 import som.primitives.ObjectPrimsFactory.IsValueFactory.IsValueNodeGen;
+import som.primitives.actors.MailboxPrims.CreateBoundedActorPrim;
 import som.primitives.actors.PromisePrims.IsActorModule;
 import som.vm.VmSettings;
 import som.vmobjects.SClass;
@@ -24,6 +26,10 @@ import tools.debugger.entities.ActivityType;
 import tools.replay.nodes.TraceActorCreationNode;
 
 
+/**
+ * Creates an actor. The receiver is ignored. Actors with a bounded mailbox are
+ * created by {@link CreateBoundedActorPrim}.
+ */
 @GenerateNodeFactory
 @Primitive(primitive = "actors:createFromValue:", selector = "createActorFromValue:",
     specializer = IsActorModule.class)
@@ -42,7 +48,14 @@ public abstract class CreateActorPrim extends BinarySystemOperation {
   @Specialization(guards = "isValue.executeBoolean(frame, argument)")
   public final SFarReference createActor(final VirtualFrame frame, final Object receiver,
       final Object argument) {
-    Actor actor = Actor.createActor(vm);
+    return created(Actor.createActor(vm), argument, trace, sourceSection);
+  }
+
+  /**
+   * Wraps the new actor into a far reference, and traces its creation.
+   */
+  static SFarReference created(final Actor actor, final Object argument,
+      final TraceActorCreationNode trace, final SourceSection sourceSection) {
     SFarReference ref = new SFarReference(actor, argument);
 
     if (VmSettings.ACTOR_TRACING) {
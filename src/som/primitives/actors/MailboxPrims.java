@@ -0,0 +1,103 @@
+package som.primitives.actors;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+import bd.primitives.Primitive;
+import som.VM;
+import som.interpreter.actors.Actor;
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.interpreter.actors.EventualMessage;
+import som.interpreter.actors.EventualSendNode;
+import som.interpreter.actors.MailboxBound;
+import som.interpreter.actors.SFarReference;
+import som.interpreter.nodes.ExceptionSignalingNode;
+import som.interpreter.nodes.nary.TernaryExpressionNode.TernarySystemOperation;
+import som.primitives.ObjectPrims.IsValue;
+import som.primitives.ObjectPrimsFactory.IsValueFactory.IsValueNodeGen;
+import som.vm.Symbols;
+import som.vmobjects.SBlock;
+import som.vmobjects.SSymbol;
+import tools.replay.nodes.TraceActorCreationNode;
+
+
+/**
+ * Primitives for actors with bounded mailboxes, see {@link MailboxBound}.
+ */
+public final class MailboxPrims {
+
+  private static final SSymbol VALUE_SELECTOR = Symbols.symbolFor("value");
+
+  /**
+   * Creates an actor whose mailbox holds at most the given number of messages.
+   */
+  @GenerateNodeFactory
+  @Primitive(primitive = "actors:createFromValue:mailboxCapacity:")
+  public abstract static class CreateBoundedActorPrim extends TernarySystemOperation {
+    @Child protected IsValue                isValue = IsValueNodeGen.createSubNode();
+    @Child protected ExceptionSignalingNode notAValue;
+    @Child protected ExceptionSignalingNode argumentError;
+    @Child protected TraceActorCreationNode trace   = new TraceActorCreationNode();
+
+    @Override
+    public final CreateBoundedActorPrim initialize(final VM vm) {
+      super.initialize(vm);
+      notAValue = insert(ExceptionSignalingNode.createNotAValueNode(sourceSection));
+      argumentError = insert(ExceptionSignalingNode.createArgumentErrorNode(sourceSection));
+      return this;
+    }
+
+    @Specialization(guards = {"isValue.executeBoolean(frame, value)", "capacity > 0"})
+    public final SFarReference createActor(final VirtualFrame frame, final Object receiver,
+        final Object value, final long capacity) {
+      Actor actor = Actor.createActor(vm, (int) Math.min(capacity, Integer.MAX_VALUE));
+      return CreateActorPrim.created(actor, value, trace, sourceSection);
+    }
+
+    @Specialization(guards = "capacity <= 0")
+    public final Object throwArgumentError(final Object receiver, final Object value,
+        final long capacity) {
+      return argumentError.signal(capacity);
+    }
+
+    @Fallback
+    public final Object throwNotAValueException(final Object receiver, final Object value,
+        final Object capacity) {
+      return notAValue.signal(value);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(primitive = "actorMailbox:onHighWatermark:onLowWatermark:")
+  public abstract static class WatermarkCallbacksPrim extends TernarySystemOperation {
+    @Specialization
+    public final Object setCallbacks(final SFarReference ref, final SBlock onHigh,
+        final SBlock onLow) {
+      register(ref.getActor(), onHigh, onLow);
+      return ref;
+    }
+
+    @TruffleBoundary
+    private void register(final Actor actor, final SBlock onHigh, final SBlock onLow) {
+      MailboxBound bound = actor.getMailboxBound();
+      if (bound == null) {
+        // the mailbox is unbounded, or bounds are disabled during replay
+        return;
+      }
+
+      RootCallTarget onReceive = EventualSendNode.createOnReceiveCallTarget(
+          VALUE_SELECTOR, onHigh.getMethod().getSourceSection(), vm.getLanguage());
+      Actor owner;
+      if (Thread.currentThread() instanceof ActorProcessingThread) {
+        owner = EventualMessage.getActorCurrentMessageIsExecutionOn();
+      } else {
+        owner = vm.getMainActor();
+      }
+      bound.setWatermarkCallbacks(owner, onHigh, onLow, onReceive);
+    }
+  }
+}
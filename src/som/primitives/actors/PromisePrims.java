@@ -33,7 +33,7 @@ import som.vm.Symbols;
 import som.vm.VmSettings;
 import som.vmobjects.SBlock;
 import som.vmobjects.SInvokable;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 import som.vmobjects.SSymbol;
 import tools.concurrency.KomposTrace;
 import tools.concurrency.Tags.CreatePromisePair;
@@ -89,7 +89,7 @@ public final class PromisePrims {
     }
 
     @Specialization
-    public final SImmutableObject createPromisePair(final Object nil,
+    public final SAbstractImmutableObject createPromisePair(final Object nil,
         @Cached("create()") final DirectCallNode factory) {
 
       SPromise promise = SPromise.createPromise(
@@ -98,7 +98,7 @@ public final class PromisePrims {
           promiseResolutionBreakpoint.executeShouldHalt(),
           sourceSection);
       SResolver resolver = SPromise.createResolver(promise);
-      return (SImmutableObject) factory.call(
+      return (SAbstractImmutableObject) factory.call(
           new Object[] {SPromise.pairClass, promise, resolver});
     }
 
@@ -326,10 +326,8 @@ public final class PromisePrims {
             rcvr.getPromiseId());
       }
 
-      synchronized (rcvr) {
-        registerWhenResolved.register(rcvr, onResolved, current);
-        registerOnError.register(rcvr, onError, current);
-      }
+      registerWhenResolved.register(rcvr, onResolved, current);
+      registerOnError.register(rcvr, onError, current);
       return promise;
     }
 
@@ -110,6 +110,6 @@ public abstract class AdditionPrim extends ArithmeticPrim {
     Set<SSymbol> signatures = new HashSet<>();
     signatures.addAll(Arrays.asList(left.getSignatures()));
     signatures.retainAll(Arrays.asList(right.getSignatures()));
-    return new SType.InterfaceType(signatures.toArray(new SSymbol[signatures.size()]));
+    return SType.InterfaceType.create(signatures.toArray(new SSymbol[signatures.size()]));
   }
 }
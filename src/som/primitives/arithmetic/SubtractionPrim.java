@@ -73,6 +73,6 @@ public abstract class SubtractionPrim extends ArithmeticPrim {
     Set<SSymbol> signatures = new HashSet<>();
     signatures.addAll(Arrays.asList(left.getSignatures()));
     signatures.removeAll(Arrays.asList(right.getSignatures()));
-    return new SType.InterfaceType(signatures.toArray(new SSymbol[signatures.size()]));
+    return SType.InterfaceType.create(signatures.toArray(new SSymbol[signatures.size()]));
   }
 }
@@ -21,6 +21,7 @@ import som.interpreter.nodes.nary.TernaryExpressionNode;
 import som.interpreter.transactions.TxArrayAccessFactory.TxTernaryArrayOpNodeGen;
 import som.primitives.arrays.AtPutPrim.TxAtPutPrim;
 import som.vm.Symbols;
+import som.vm.VmSettings;
 import som.vm.constants.KernelObj;
 import som.vm.constants.Nil;
 import som.vmobjects.SArray;
@@ -29,6 +30,7 @@ import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SSymbol;
 import tools.dym.Tags.ArrayWrite;
 import tools.dym.Tags.BasicPrimitiveOperation;
+import tools.snapshot.SnapshotRecord;
 
 
 @GenerateNodeFactory
@@ -114,6 +116,12 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return indexOutOfBounds.signal(arr, idx);
   }
 
+  private static void recordWrite(final SMutableArray receiver) {
+    if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+      SnapshotRecord.recordWrite(receiver);
+    }
+  }
+
   private static void setValue(final long idx, final Object value,
       final PartiallyEmptyArray storage) {
     if (storage.get(idx) == Nil.nilObject) {
@@ -142,6 +150,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isEmptyType()"})
   public final long doEmptySArray(final SMutableArray receiver, final long index,
       final long value) {
+    recordWrite(receiver);
     try {
       receiver.transitionFromEmptyToPartiallyEmptyWith(index - 1, value);
       return value;
@@ -159,6 +168,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isEmptyType()"})
   public final double doEmptySArray(final SMutableArray receiver, final long index,
       final double value) {
+    recordWrite(receiver);
     try {
       receiver.transitionFromEmptyToPartiallyEmptyWith(index - 1, value);
       return value;
@@ -170,6 +180,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isEmptyType()"})
   public final boolean doEmptySArray(final SMutableArray receiver, final long index,
       final boolean value) {
+    recordWrite(receiver);
     try {
       receiver.transitionFromEmptyToPartiallyEmptyWith(index - 1, value);
       return value;
@@ -188,6 +199,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
       "valueNotLongDoubleBoolean(value)"})
   public final Object doEmptySArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     final int idx = (int) index - 1;
     int size = receiver.getEmptyStorage();
 
@@ -229,6 +241,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isPartiallyEmptyType()")
   public final long doPartiallyEmptySArray(final SMutableArray receiver, final long index,
       final long value) {
+    recordWrite(receiver);
     try {
       setAndPossiblyTransition(receiver, index, value, PartiallyEmptyArray.Type.LONG);
       return value;
@@ -246,6 +259,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isPartiallyEmptyType()")
   public final double doPartiallyEmptySArray(final SMutableArray receiver, final long index,
       final double value) {
+    recordWrite(receiver);
     try {
       setAndPossiblyTransition(receiver, index, value, PartiallyEmptyArray.Type.DOUBLE);
       return value;
@@ -263,6 +277,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isPartiallyEmptyType()")
   public final boolean doPartiallyEmptySArray(final SMutableArray receiver, final long index,
       final boolean value) {
+    recordWrite(receiver);
     try {
       setAndPossiblyTransition(receiver, index, value, PartiallyEmptyArray.Type.BOOLEAN);
       return value;
@@ -280,6 +295,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isPartiallyEmptyType()", "valueIsNil(value)"})
   public final Object doPartiallyEmptySArrayWithNil(final SMutableArray receiver,
       final long index, final Object value) {
+    recordWrite(receiver);
     long idx = index - 1;
     PartiallyEmptyArray storage = receiver.getPartiallyEmptyStorage();
 
@@ -303,6 +319,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isPartiallyEmptyType()", "valueIsNotNil(value)"})
   public final Object doPartiallyEmptySArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     try {
       setAndPossiblyTransition(receiver, index, value, PartiallyEmptyArray.Type.OBJECT);
       return value;
@@ -320,6 +337,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isObjectType()")
   public final Object doObjectSArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     try {
       receiver.getObjectStorage()[(int) index - 1] = value;
       return value;
@@ -337,6 +355,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isLongType()")
   public final long doObjectSArray(final SMutableArray receiver, final long index,
       final long value) {
+    recordWrite(receiver);
     try {
       receiver.getLongStorage()[(int) index - 1] = value;
       return value;
@@ -354,6 +373,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isLongType()", "valueIsNotLong(value)"})
   public final Object doLongSArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     long[] storage = receiver.getLongStorage();
     Object[] newStorage = new Object[storage.length];
     for (int i = 0; i < storage.length; i++) {
@@ -376,6 +396,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isDoubleType()")
   public final double doDoubleSArray(final SMutableArray receiver, final long index,
       final double value) {
+    recordWrite(receiver);
     try {
       receiver.getDoubleStorage()[(int) index - 1] = value;
       return value;
@@ -393,6 +414,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isDoubleType()", "valueIsNotDouble(value)"})
   public final Object doDoubleSArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     double[] storage = receiver.getDoubleStorage();
     Object[] newStorage = new Object[storage.length];
     for (int i = 0; i < storage.length; i++) {
@@ -414,6 +436,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = "receiver.isBooleanType()")
   public final boolean doBooleanSArray(final SMutableArray receiver, final long index,
       final boolean value) {
+    recordWrite(receiver);
     try {
       receiver.getBooleanStorage()[(int) index - 1] = value;
       return value;
@@ -431,6 +454,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   @Specialization(guards = {"receiver.isBooleanType()", "valueIsNotBoolean(value)"})
   public final Object doBooleanSArray(final SMutableArray receiver, final long index,
       final Object value) {
+    recordWrite(receiver);
     boolean[] storage = receiver.getBooleanStorage();
     Object[] newStorage = new Object[storage.length];
     for (int i = 0; i < storage.length; i++) {
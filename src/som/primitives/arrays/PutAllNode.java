@@ -13,10 +13,12 @@ import som.interpreter.nodes.nary.BinaryComplexOperation;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
 import som.interpreter.nodes.specialized.SomLoop;
 import som.primitives.SizeAndLengthPrimFactory;
+import som.vm.VmSettings;
 import som.vm.constants.Nil;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SObjectWithClass;
+import tools.snapshot.SnapshotRecord;
 
 
 @GenerateNodeFactory
@@ -35,6 +37,12 @@ public abstract class PutAllNode extends BinaryComplexOperation {
         !(value instanceof SBlock);
   }
 
+  private static void recordWrite(final SMutableArray rcvr) {
+    if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+      SnapshotRecord.recordWrite(rcvr);
+    }
+  }
+
   @Specialization(guards = {"rcvr.isEmptyType()", "valueIsNil(nil)"})
   public SMutableArray doPutNilInEmptyArray(final SMutableArray rcvr, final Object nil,
       final long length) {
@@ -47,6 +55,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
       final SObjectWithClass nil,
       final long length) {
     rcvr.transitionToEmpty(length);
+    recordWrite(rcvr);
     return rcvr;
   }
 
@@ -61,6 +70,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
       Object newStorage = ArraySetAllStrategy.evaluateFirstDetermineStorageAndEvaluateRest(
           block, length, this.block);
       rcvr.transitionTo(newStorage);
+      recordWrite(rcvr);
     } finally {
       if (CompilerDirectives.inInterpreter()) {
         SomLoop.reportLoopCount(length, this);
@@ -73,6 +83,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
   public SMutableArray doPutLong(final SMutableArray rcvr, final long value,
       final long length) {
     rcvr.transitionToLongWithAll(length, value);
+    recordWrite(rcvr);
     return rcvr;
   }
 
@@ -80,6 +91,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
   public SMutableArray doPutDouble(final SMutableArray rcvr, final double value,
       final long length) {
     rcvr.transitionToDoubleWithAll(length, value);
+    recordWrite(rcvr);
     return rcvr;
   }
 
@@ -87,6 +99,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
   public SMutableArray doPutBoolean(final SMutableArray rcvr, final boolean value,
       final long length) {
     rcvr.transitionToBooleanWithAll(length, value);
+    recordWrite(rcvr);
     return rcvr;
   }
 
@@ -94,6 +107,7 @@ public abstract class PutAllNode extends BinaryComplexOperation {
   public SMutableArray doPutObject(final SMutableArray rcvr, final Object value,
       final long length) {
     rcvr.transitionToObjectWithAll(length, value);
+    recordWrite(rcvr);
     return rcvr;
   }
 }
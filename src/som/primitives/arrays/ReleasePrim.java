@@ -0,0 +1,23 @@
+package som.primitives.arrays;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import bd.primitives.Primitive;
+import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.vmobjects.SArray.STransferArray;
+
+
+/**
+ * Gives up a transfer array, so that the next transfer to another actor
+ * moves its storage instead of copying it. Afterwards, the array is empty.
+ */
+@GenerateNodeFactory
+@Primitive(primitive = "transferArrayRelease:")
+public abstract class ReleasePrim extends UnaryExpressionNode {
+  @Specialization
+  public final STransferArray release(final STransferArray receiver) {
+    receiver.release();
+    return receiver;
+  }
+}
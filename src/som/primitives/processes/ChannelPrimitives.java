@@ -32,7 +32,7 @@ import som.vm.Symbols;
 import som.vm.VmSettings;
 import som.vmobjects.SClass;
 import som.vmobjects.SInvokable;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 import som.vmobjects.SObjectWithClass;
 import tools.concurrency.KomposTrace;
 import tools.concurrency.Tags.ChannelRead;
@@ -49,7 +49,7 @@ import tools.debugger.session.Breakpoints;
 
 public abstract class ChannelPrimitives {
 
-  @CompilationFinal public static SImmutableObject  ProcessesModule;
+  @CompilationFinal public static SAbstractImmutableObject  ProcessesModule;
   @CompilationFinal public static SClass            Channel;
   @CompilationFinal public static MixinDefinitionId ChannelId;
   @CompilationFinal public static SClass            In;
@@ -97,6 +97,7 @@ public abstract class ChannelPrimitives {
 
     public Process(final SObjectWithClass obj) {
       this.obj = obj;
+      ObjectTransitionSafepoint.INSTANCE.sharedMemoryActivityCreated();
     }
 
     @Override
@@ -337,7 +338,8 @@ public abstract class ChannelPrimitives {
   @GenerateNodeFactory
   public abstract static class SetChannelModule extends UnaryExpressionNode {
     @Specialization
-    public static final SImmutableObject setModule(final SImmutableObject module) {
+    public static final SAbstractImmutableObject setModule(
+        final SAbstractImmutableObject module) {
       ProcessesModule = module;
       return module;
     }
@@ -37,6 +37,7 @@ public final class TaskThreads {
       this.argArray = argArray;
       this.stopOnRoot = stopOnRoot;
       assert argArray[0] instanceof SBlock : "First argument of a block needs to be the block object";
+      ObjectTransitionSafepoint.INSTANCE.sharedMemoryActivityCreated();
     }
 
     public final SInvokable getMethod() {
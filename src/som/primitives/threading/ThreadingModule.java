@@ -9,11 +9,11 @@ import som.compiler.MixinBuilder.MixinDefinitionId;
 import som.interpreter.nodes.nary.BinaryExpressionNode;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
 import som.vmobjects.SClass;
-import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
 
 
 public final class ThreadingModule {
-  @CompilationFinal public static SImmutableObject  ThreadingModule;
+  @CompilationFinal public static SAbstractImmutableObject  ThreadingModule;
   @CompilationFinal public static SClass            ThreadClass;
   @CompilationFinal public static MixinDefinitionId ThreadClassId;
   @CompilationFinal public static SClass            TaskClass;
@@ -57,7 +57,7 @@ public final class ThreadingModule {
   @Primitive(primitive = "threadingRegisterModule:")
   public abstract static class RegisterModulePrim extends UnaryExpressionNode {
     @Specialization
-    public final SImmutableObject doSClass(final SImmutableObject module) {
+    public final SAbstractImmutableObject doSClass(final SAbstractImmutableObject module) {
       ThreadingModule = module;
       return module;
     }
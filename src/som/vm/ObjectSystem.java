@@ -534,6 +534,13 @@ public final class ObjectSystem {
     return Launcher.EXIT_WITH_ERROR;
   }
 
+  /**
+   * Releases the resources held by the compiler, e.g., the connection to Kernan.
+   */
+  public void shutdown() {
+    compiler.shutdown();
+  }
+
   public void releaseMainThread(final int errorCode) {
     if (mainThreadCompleted != null) {
       mainThreadCompleted.complete(errorCode);
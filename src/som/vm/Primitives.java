@@ -68,6 +68,7 @@ import som.primitives.processes.ChannelPrimitivesFactory;
 import som.primitives.UnequalsPrimFactory;
 import som.primitives.actors.ActorClassesFactory;
 import som.primitives.actors.CreateActorPrimFactory;
+import som.primitives.actors.MailboxPrimsFactory;
 import som.primitives.actors.PromisePrimsFactory;
 import som.primitives.arithmetic.AdditionPrimFactory;
 import som.primitives.arithmetic.DoubleDivPrimFactory;
@@ -92,6 +93,7 @@ import som.primitives.arrays.DoPrimFactory;
 import som.primitives.arrays.NewImmutableArrayNodeFactory;
 import som.primitives.arrays.NewPrimFactory;
 import som.primitives.arrays.PutAllNodeFactory;
+import som.primitives.arrays.ReleasePrimFactory;
 import som.primitives.bitops.BitAndPrimFactory;
 import som.primitives.bitops.BitOrPrimFactory;
 import som.primitives.bitops.BitXorPrimFactory;
@@ -218,6 +220,7 @@ public class Primitives extends PrimitiveLoader<VM, ExpressionNode, SSymbol> {
     add(allFactories, BitOrPrimFactory.getInstance());
     add(allFactories, BitXorPrimFactory.getInstance());
     add(allFactories, CopyPrimFactory.getInstance());
+    add(allFactories, ReleasePrimFactory.getInstance());
     add(allFactories, CosPrimFactory.getInstance());
     add(allFactories, DoIndexesPrimFactory.getInstance());
     add(allFactories, DoPrimFactory.getInstance());
@@ -252,6 +255,7 @@ public class Primitives extends PrimitiveLoader<VM, ExpressionNode, SSymbol> {
     add(allFactories, TimerPrimFactory.getInstance());
 
     add(allFactories, CreateActorPrimFactory.getInstance());
+    addAll(allFactories, MailboxPrimsFactory.getFactories());
     add(allFactories, ResolvePromiseNodeFactory.getInstance());
     add(allFactories, ErrorPromiseNodeFactory.getInstance());
 
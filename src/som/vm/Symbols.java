@@ -1,27 +1,142 @@
 package som.vm;
 
-import java.util.HashMap;
-
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import bd.basic.IdProvider;
 import som.vmobjects.SSymbol;
 
 
+/**
+ * The symbol table, which maps strings to their unique {@link SSymbol}.
+ *
+ * <p>
+ * Symbols are kept in an open-addressing hash table with linear probing, using the same
+ * hash as {@link String#hashCode()}. Lookups read the table without locking, and can be
+ * done for a region of a string or a character array without allocating a string first.
+ * Only the insertion of new symbols is synchronized. It rechecks the table, so that each
+ * symbol is created exactly once, and gets a dense id.
+ */
 public final class Symbols implements IdProvider<SSymbol> {
 
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private static final Object insertLock = new Object();
+
+  /** Power-of-two sized, and at most half full. Replaced when growing. */
+  private static volatile SSymbol[] table = new SSymbol[INITIAL_CAPACITY];
+
+  /** Guarded by the insert lock. */
+  private static int numSymbols;
+
   @TruffleBoundary
   public static SSymbol symbolFor(final String string) {
-    String interned = string.intern();
+    return symbolFor(string, 0, string.length());
+  }
+
+  /**
+   * @return the symbol for the characters of the string from begin to end (exclusive)
+   */
+  @TruffleBoundary
+  public static SSymbol symbolFor(final String string, final int begin, final int end) {
+    int length = end - begin;
+    int hash = length == string.length() ? string.hashCode() : hash(string, begin, end);
+
+    SSymbol[] t = table;
+    int mask = t.length - 1;
+    SSymbol sym;
+    for (int i = hash & mask; (sym = t[i]) != null; i = (i + 1) & mask) {
+      String str = sym.getString();
+      if (str.hashCode() == hash && str.length() == length
+          && str.regionMatches(0, string, begin, length)) {
+        return sym;
+      }
+    }
+
+    String str = length == string.length() ? string : string.substring(begin, end);
+    return insert(str, hash);
+  }
+
+  /**
+   * @return the symbol for the given range of characters
+   */
+  @TruffleBoundary
+  public static SSymbol symbolFor(final char[] chars, final int offset, final int length) {
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + chars[i];
+    }
 
-    SSymbol result = symbolTable.get(interned);
-    if (result != null) {
+    SSymbol[] t = table;
+    int mask = t.length - 1;
+    SSymbol sym;
+    for (int i = hash & mask; (sym = t[i]) != null; i = (i + 1) & mask) {
+      String str = sym.getString();
+      if (str.hashCode() == hash && matches(str, chars, offset, length)) {
+        return sym;
+      }
+    }
+
+    return insert(new String(chars, offset, length), hash);
+  }
+
+  private static boolean matches(final String str, final char[] chars, final int offset,
+      final int length) {
+    if (str.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (str.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(final String string, final int begin, final int end) {
+    int hash = 0;
+    for (int i = begin; i < end; i++) {
+      hash = 31 * hash + string.charAt(i);
+    }
+    return hash;
+  }
+
+  private static SSymbol insert(final String string, final int hash) {
+    synchronized (insertLock) {
+      SSymbol[] t = table;
+      if ((numSymbols + 1) * 2 > t.length) {
+        t = grow(t);
+      }
+
+      int mask = t.length - 1;
+      int i = hash & mask;
+      for (; t[i] != null; i = (i + 1) & mask) {
+        if (t[i].getString().equals(string)) {
+          return t[i];
+        }
+      }
+
+      // the symbol's fields are final, so readers that see it, see it fully initialized
+      SSymbol result = new SSymbol(string);
+      t[i] = result;
+      numSymbols += 1;
+      table = t;
       return result;
     }
+  }
 
-    result = new SSymbol(interned);
-    symbolTable.put(string, result);
-    return result;
+  private static SSymbol[] grow(final SSymbol[] old) {
+    SSymbol[] t = new SSymbol[old.length * 2];
+    int mask = t.length - 1;
+    for (SSymbol sym : old) {
+      if (sym != null) {
+        int i = sym.getString().hashCode() & mask;
+        while (t[i] != null) {
+          i = (i + 1) & mask;
+        }
+        t[i] = sym;
+      }
+    }
+    return t;
   }
 
   private Symbols() {}
@@ -31,8 +146,6 @@ public final class Symbols implements IdProvider<SSymbol> {
     return symbolFor(id);
   }
 
-  private static final HashMap<String, SSymbol> symbolTable = new HashMap<>();
-
   public static final SSymbol NEW             = symbolFor("new");
   public static final SSymbol DEF_CLASS       = symbolFor("`define`cls");
   public static final SSymbol OBJECT          = symbolFor("Object");
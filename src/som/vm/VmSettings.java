@@ -23,9 +23,16 @@ public class VmSettings implements Settings {
   public static final boolean TRACK_SNAPSHOT_ENTITIES;
   public static final boolean TEST_SNAPSHOTS;
   public static final boolean TEST_SERIALIZE_ALL;
+  public static final boolean INCREMENTAL_SNAPSHOTS;
 
   public static final boolean TRUFFLE_DEBUGGER_ENABLED;
 
+  public static final String  ACTOR_SCHEDULER;
+  public static final boolean ACTOR_SCHEDULER_STATS;
+  public static final int     ACTOR_MESSAGE_BUDGET;
+  public static final long    ACTOR_TIME_SLICE;
+  public static final int     ACTOR_TURN_BATCH;
+
   public static final boolean IGV_DUMP_AFTER_PARSING;
 
   public static final boolean ANSI_COLOR_IN_OUTPUT;
@@ -35,6 +42,7 @@ public class VmSettings implements Settings {
   public static final boolean MUST_BE_FULLY_TYPED;
   public static final boolean USE_OPT_TYPE_CHECK_NODE;
   public static final boolean USE_SUBTYPE_TABLE;
+  public static final boolean ELIMINATE_TYPE_CHECKS;
   public static final boolean COLLECT_TYPE_STATS;
 
   public static final String INSTRUMENTATION_PROP = "som.instrumentation";
@@ -45,6 +53,19 @@ public class VmSettings implements Settings {
   public static final int     BUFFER_TIMEOUT;
 
   public static final String BASE_DIRECTORY;
+  public static final String GRACE_PARSE_TREE_CACHE;
+  public static final int    KERNAN_PORT;
+  public static final boolean GRACE_COMPILE_STATS;
+  public static final boolean LAZY_METHODS;
+  public static final boolean PARSE_STATS;
+
+  public static final int     LOOKUP_CACHE_SIZE;
+  public static final boolean LOOKUP_CACHE_STATS;
+  public static final boolean DISPATCH_TABLE_STATS;
+
+  public static final int MAX_INLINE_FIELDS;
+
+  public static final boolean SAFEPOINT_STATS;
 
   public static final boolean IS_MOTH;
 
@@ -70,15 +91,35 @@ public class VmSettings implements Settings {
 
     ACTOR_TRACING = getBool("som.actorTracing", false);
 
+    ACTOR_SCHEDULER = System.getProperty("som.actorScheduler", "forkjoin");
+    ACTOR_SCHEDULER_STATS = getBool("som.actorSchedulerStats", false);
+    ACTOR_MESSAGE_BUDGET = getInteger("som.actorMessageBudget", 0);
+    ACTOR_TIME_SLICE = getInteger("som.actorTimeSlice", 0) * 1000L; // micro- to nanoseconds
+    ACTOR_TURN_BATCH = getInteger("som.actorTurnBatch", 1);
+
     TEST_SNAPSHOTS = getBool("som.snapshotTest", false);
     TEST_SERIALIZE_ALL = getBool("som.actorSnapshotAll", false);
     SNAPSHOTS_ENABLED = getBool("som.actorSnapshot", false) || TEST_SNAPSHOTS;
     TRACK_SNAPSHOT_ENTITIES = (REPLAY && SNAPSHOTS_ENABLED) || TEST_SNAPSHOTS;
+    INCREMENTAL_SNAPSHOTS = SNAPSHOTS_ENABLED && getBool("som.incrementalSnapshots", false);
 
     boolean dm = getBool("som.dynamicMetrics", false);
     DYNAMIC_METRICS = dm;
     INSTRUMENTATION = dm || getBool(INSTRUMENTATION_PROP, false);
 
+    // the debugger and the instrumentation expect all methods to be parsed eagerly
+    LAZY_METHODS = getBool("som.lazyMethods", false) && !TRUFFLE_DEBUGGER_ENABLED
+        && !INSTRUMENTATION;
+    PARSE_STATS = getBool("som.parseStats", false);
+
+    LOOKUP_CACHE_SIZE = getInteger("som.lookupCacheSize", 4096);
+    LOOKUP_CACHE_STATS = getBool("som.lookupCacheStats", false);
+    DISPATCH_TABLE_STATS = getBool("som.dispatchTableStats", false);
+
+    MAX_INLINE_FIELDS = getInteger("som.maxInlineFields", 20);
+
+    SAFEPOINT_STATS = getBool("som.safepointStats", false);
+
     DNU_PRINT_STACK_TRACE = getBool("som.printStackTraceOnDNU", false);
     IGV_DUMP_AFTER_PARSING = getBool("som.igvDumpAfterParsing", false);
     ANSI_COLOR_IN_OUTPUT = getBool("som.useAnsiColoring", false);
@@ -89,11 +130,16 @@ public class VmSettings implements Settings {
     RECYCLE_BUFFERS = getBool("som.bufferRecycling", true);
 
     BASE_DIRECTORY = System.getProperty("som.baseDir", System.getProperty("user.dir"));
+    GRACE_PARSE_TREE_CACHE = System.getProperty("som.graceParseTreeCache",
+        BASE_DIRECTORY + "/build/grace-parse-trees");
+    KERNAN_PORT = getInteger("som.kernanPort", 25447);
+    GRACE_COMPILE_STATS = getBool("som.graceCompileStats", false);
 
     USE_TYPE_CHECKING = getBool("som.useTypeChecking", false);
     MUST_BE_FULLY_TYPED = getBool("som.ensureFullyTyped", false);
     USE_OPT_TYPE_CHECK_NODE = getBool("som.useOptTypeCheckNode", true);
     USE_SUBTYPE_TABLE = getBool("som.useSubtypeTable", true);
+    ELIMINATE_TYPE_CHECKS = getBool("som.eliminateTypeChecks", true);
     COLLECT_TYPE_STATS = getBool("som.collectTypeStats", false);
     IS_MOTH = getBool("som.moth", false);
   }
@@ -6,5 +6,10 @@ import som.vmobjects.SObject.SImmutableObject;
 public final class KernelObj {
   private KernelObj() {}
 
+  /**
+   * Allocated before its class exists, with the smallest shape. The layouts of the Kernel
+   * module are pinned to that shape, see
+   * {@link som.interpreter.objectstorage.ClassFactory#getNumberOfInlineFields(int)}.
+   */
   public static final SImmutableObject kernel = new SImmutableObject(true, true);
 }
@@ -193,6 +193,12 @@ public abstract class SArray extends SAbstractObject {
 
   public static class SMutableArray extends SArray {
 
+    /**
+     * Set by the write barrier for incremental snapshots, when the array changes after it
+     * was serialized. See {@link tools.snapshot.SnapshotRecord#recordWrite(SMutableArray)}.
+     */
+    private boolean snapshotDirty;
+
     /**
      * Creates and empty array, using the EMPTY strategy.
      *
@@ -206,6 +212,14 @@ public abstract class SArray extends SAbstractObject {
       super(storage, clazz);
     }
 
+    public final boolean isSnapshotDirty() {
+      return snapshotDirty;
+    }
+
+    public final void setSnapshotDirty(final boolean dirty) {
+      snapshotDirty = dirty;
+    }
+
     public SMutableArray shallowCopy() {
       Object storageClone;
       if (isEmptyType()) {
@@ -418,5 +432,33 @@ public abstract class SArray extends SAbstractObject {
     public STransferArray cloneBasics() {
       return new STransferArray(this, clazz);
     }
+
+    /**
+     * Set when the owning actor gave up the array, so that the next transfer
+     * can move the storage instead of copying it. The storage is only moved
+     * when the owning actor sends the array directly to another actor,
+     * otherwise, it is copied.
+     */
+    private boolean released;
+
+    public void release() {
+      released = true;
+    }
+
+    public boolean isReleased() {
+      return released;
+    }
+
+    /**
+     * Hand the storage over to a new array without copying it.
+     * This array is left empty, with a size of 0.
+     */
+    public STransferArray moveBasics() {
+      assert released;
+      STransferArray newObj = new STransferArray(storage, clazz);
+      storage = 0;
+      released = false;
+      return newObj;
+    }
   }
 }
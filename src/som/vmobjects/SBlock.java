@@ -103,6 +103,8 @@ public final class SBlock extends SAbstractObject implements SObjectWithContext
     final BlockDispatchNode block = BlockDispatchNodeGen.create();
     final ToSomConversion convert = ToSomConversionNodeGen.create(null);
 
+    // the block can be executed by any thread of the embedding application
+    ObjectTransitionSafepoint.INSTANCE.sharedMemoryActivityCreated();
     ObjectTransitionSafepoint.INSTANCE.register();
 
     try {
@@ -44,7 +44,9 @@ import som.compiler.MixinDefinition;
 import som.compiler.MixinDefinition.ClassSlotDefinition;
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.TruffleCompiler;
+import som.interpreter.nodes.dispatch.DispatchTable;
 import som.interpreter.nodes.dispatch.Dispatchable;
+import som.interpreter.nodes.dispatch.LookupCache;
 import som.interpreter.objectstorage.ClassFactory;
 import som.interpreter.objectstorage.ObjectLayout;
 import som.vm.VmSettings;
@@ -190,6 +192,9 @@ public final class SClass extends SObjectWithClass {
       final ClassFactory classFactory) {
     assert slots == null || slots.size() > 0;
 
+    // a class is restructured, lookups might have been cached for the old structure
+    boolean restructured = this.instanceClassGroup != null;
+
     this.mixinDef = mixinDef;
     this.slots = slots;
     this.dispatchables = dispatchables;
@@ -200,6 +205,10 @@ public final class SClass extends SObjectWithClass {
     this.type = getType();
     // assert instanceClassGroup != null || !ObjectSystem.isInitialized();
 
+    if (restructured) {
+      LookupCache.invalidate();
+    }
+
     if (VmSettings.TRACK_SNAPSHOT_ENTITIES) {
       if (mixinDef != null) {
         SnapshotBackend.registerClass(mixinDef.getIdentifier(), this);
@@ -288,15 +297,14 @@ public final class SClass extends SObjectWithClass {
    */
   public boolean canUnderstand(final SSymbol selector) {
     CompilerDirectives.transferToInterpreter();
-    boolean understands = dispatchables.containsKey(selector);
-    if (understands) {
-      return true;
-    } else {
-      if (superclass == null) {
-        return false;
-      }
-      return superclass.canUnderstand(selector);
-    }
+    return getDispatchTable().canUnderstand(selector);
+  }
+
+  /**
+   * @return the flattened dispatchables of this class, including inherited ones
+   */
+  public DispatchTable getDispatchTable() {
+    return instanceClassGroup.getDispatchTable(this);
   }
 
   @TruffleBoundary
@@ -352,18 +360,7 @@ public final class SClass extends SObjectWithClass {
       final AccessModifier hasAtLeast) {
     assert hasAtLeast.ordinal() >= AccessModifier.PROTECTED.ordinal() : "Access modifier should be protected or public";
     VM.callerNeedsToBeOptimized("should never be called on fast path");
-
-    Dispatchable disp = dispatchables.get(selector);
-
-    if (disp != null && disp.getAccessModifier().ordinal() >= hasAtLeast.ordinal()) {
-      return disp;
-    }
-
-    if (superclass == Classes.topClass) {
-      return null;
-    } else {
-      return superclass.lookupMessage(selector, hasAtLeast);
-    }
+    return getDispatchTable().lookup(selector, hasAtLeast);
   }
 
   @Override
@@ -425,7 +422,7 @@ public final class SClass extends SObjectWithClass {
     }
 
     // Create and return the type
-    type = new SType.InterfaceType(signatures.toArray(new SSymbol[] {}));
+    type = SType.InterfaceType.create(signatures.toArray(new SSymbol[] {}));
     instanceClassGroup.setType(type);
     return type;
   }
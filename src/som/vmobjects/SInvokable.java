@@ -29,6 +29,8 @@ import static som.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -37,6 +39,7 @@ import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.nodes.IndirectCallNode;
 import com.oracle.truffle.api.source.SourceSection;
 
+import som.Output;
 import som.compiler.AccessModifier;
 import som.compiler.MixinDefinition;
 import som.interpreter.Invokable;
@@ -52,11 +55,64 @@ import som.vm.constants.Classes;
 
 public class SInvokable extends SAbstractObject implements Dispatchable {
 
+  /**
+   * Parses the body of a method that was registered with only its signature and source
+   * section, see {@link VmSettings#LAZY_METHODS}. Only instance-side methods of Newspeak
+   * modules are parsed lazily. Class-side methods and Grace methods are always parsed
+   * eagerly.
+   */
+  public interface LazyBody {
+    /**
+     * @return the fully parsed method, from which the invokable is taken
+     */
+    SInvokable parse();
+  }
+
+  private static final Object LAZY_BODY_LOCK = new Object();
+
+  private static final AtomicInteger numLazyMethods         = new AtomicInteger();
+  private static final AtomicInteger numMaterializedMethods = new AtomicInteger();
+  private static final AtomicLong    lazyParseNanos         = new AtomicLong();
+
+  public static void reportStats() {
+    if (!VmSettings.LAZY_METHODS) {
+      return;
+    }
+    int lazy = numLazyMethods.get();
+    int materialized = numMaterializedMethods.get();
+    Output.println("RESULT-LazyMethods: " + lazy);
+    Output.println("RESULT-MaterializedLazyMethods: " + materialized);
+    Output.println("RESULT-NeverMaterializedMethods: " + (lazy - materialized));
+    Output.println("RESULT-LazyParseMillis: " + lazyParseNanos.get() / 1_000_000);
+  }
+
   private final AccessModifier accessModifier;
-  private final Invokable      invokable;
-  private final RootCallTarget callTarget;
   private final SSymbol        signature;
-  private final SInvokable[]   embeddedBlocks;
+  private final SourceSection  sourceSection;
+
+  /**
+   * The parsed method. Published through a single volatile field, so that a thread sees
+   * either no body, or all of its parts. Only null until a lazily parsed method is
+   * materialized.
+   */
+  @CompilationFinal private volatile Body body;
+
+  /** Only set until a lazily parsed method is materialized, guarded by the lock. */
+  private LazyBody lazyBody;
+
+  private static final class Body {
+    private final Invokable      invokable;
+    private final RootCallTarget callTarget;
+
+    @CompilationFinal(dimensions = 0) private final SInvokable[] embeddedBlocks;
+
+    Body(final Invokable invokable, final RootCallTarget callTarget,
+        final SInvokable[] embeddedBlocks) {
+      this.invokable = invokable;
+      this.callTarget = callTarget;
+      this.embeddedBlocks = embeddedBlocks;
+    }
+  }
 
   @CompilationFinal private MixinDefinition holder;
   @CompilationFinal private RootCallTarget  atomicCallTarget;
@@ -66,10 +122,48 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
       final Invokable invokable, final SInvokable[] embeddedBlocks) {
     this.signature = signature;
     this.accessModifier = accessModifier;
+    this.sourceSection = invokable.getSourceSection();
+
+    this.body = new Body(invokable, invokable.createCallTarget(), embeddedBlocks);
+  }
+
+  /**
+   * Creates a method that is only parsed on first use, i.e., when its invokable, call
+   * target, or embedded blocks are needed. Syntax errors in the body are only reported then.
+   */
+  public SInvokable(final SSymbol signature, final AccessModifier accessModifier,
+      final SourceSection sourceSection, final LazyBody lazyBody) {
+    this.signature = signature;
+    this.accessModifier = accessModifier;
+    this.sourceSection = sourceSection;
+    this.lazyBody = lazyBody;
+    numLazyMethods.incrementAndGet();
+  }
+
+  private Body getBody() {
+    Body b = body;
+    if (b == null) {
+      transferToInterpreterAndInvalidate("SInvokable.materialize");
+      b = materialize();
+    }
+    return b;
+  }
 
-    this.invokable = invokable;
-    this.callTarget = invokable.createCallTarget();
-    this.embeddedBlocks = embeddedBlocks;
+  @TruffleBoundary
+  private Body materialize() {
+    synchronized (LAZY_BODY_LOCK) {
+      if (body != null) {
+        return body;
+      }
+
+      long start = System.nanoTime();
+      Body parsed = lazyBody.parse().getBody();
+      lazyBody = null;
+      body = parsed;
+      numMaterializedMethods.incrementAndGet();
+      lazyParseNanos.addAndGet(System.nanoTime() - start);
+      return parsed;
+    }
   }
 
   public static class SInitializer extends SInvokable {
@@ -87,7 +181,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
   }
 
   public final SInvokable[] getEmbeddedBlocks() {
-    return embeddedBlocks;
+    return getBody().embeddedBlocks;
   }
 
   @Override
@@ -107,7 +201,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
   }
 
   public final RootCallTarget getCallTarget() {
-    return callTarget;
+    return getBody().callTarget;
   }
 
   @TruffleBoundary
@@ -115,7 +209,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
     if (atomicCallTarget == null) {
       synchronized (this) {
         if (atomicCallTarget == null) {
-          Invokable atomicIvk = invokable.createAtomic();
+          Invokable atomicIvk = getInvokable().createAtomic();
           atomicCallTarget = atomicIvk.createCallTarget();
         }
       }
@@ -124,7 +218,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
   }
 
   public final Invokable getInvokable() {
-    return invokable;
+    return getBody().invokable;
   }
 
   public final SSymbol getSignature() {
@@ -155,12 +249,12 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
   }
 
   public final Object invoke(final Object[] arguments) {
-    return callTarget.call(arguments);
+    return getCallTarget().call(arguments);
   }
 
   @Override
   public final Object invoke(final IndirectCallNode node, final Object[] arguments) {
-    return node.call(callTarget, arguments);
+    return node.call(getCallTarget(), arguments);
   }
 
   @Override
@@ -179,7 +273,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
   }
 
   public final SourceSection getSourceSection() {
-    return invokable.getSourceSection();
+    return sourceSection;
   }
 
   @Override
@@ -187,7 +281,7 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
       final Object[] arguments, final AbstractDispatchNode next, final boolean forAtomic) {
     assert next != null : "Pass the old node, just need the source section";
 
-    CallTarget ct = forAtomic ? getAtomicCallTarget() : callTarget;
+    CallTarget ct = forAtomic ? getAtomicCallTarget() : getCallTarget();
 
     // In case it's a private method, it is directly linked and doesn't need guards
     if (accessModifier == AccessModifier.PRIVATE) {
@@ -206,13 +300,13 @@ public class SInvokable extends SAbstractObject implements Dispatchable {
     if (holder != null) {
       return Symbols.symbolFor(
           holder.getIdentifier().getString() + "." + signature.getString());
-    } else if (invokable.getSourceSection() != null) {
+    } else if (sourceSection != null) {
       // TODO find a better solution than charIndex
-      Path absolute = Paths.get(invokable.getSourceSection().getSource().getURI());
+      Path absolute = Paths.get(sourceSection.getSource().getURI());
       Path relative =
           Paths.get(VmSettings.BASE_DIRECTORY).toAbsolutePath().relativize(absolute);
       return Symbols.symbolFor(relative.toString() + ":"
-          + invokable.getSourceSection().getCharIndex() + ":" + signature.getString());
+          + sourceSection.getCharIndex() + ":" + signature.getString());
     } else {
       return signature;
     }
@@ -32,16 +32,17 @@ import org.graalvm.collections.MapCursor;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.TruffleOptions;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.objectstorage.ClassFactory;
 import som.interpreter.objectstorage.ObjectLayout;
 import som.interpreter.objectstorage.StorageLocation;
-import som.interpreter.objectstorage.StorageLocation.DoubleStorageLocation;
-import som.interpreter.objectstorage.StorageLocation.LongStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.NilStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.ObjectStorageLocation;
 import som.interpreter.objectstorage.StorageLocation.UnwrittenStorageLocation;
+import som.vm.VmSettings;
 import som.vm.constants.Nil;
 
 
@@ -50,28 +51,74 @@ public abstract class SObject extends SObjectWithClass {
   public static final int NUM_PRIMITIVE_FIELDS = 5;
   public static final int NUM_OBJECT_FIELDS    = 5;
 
+  /** Inline fields of each kind in the larger object shapes. */
+  public static final int NUM_FIELDS_MEDIUM = 10;
+  public static final int NUM_FIELDS_LARGE  = 20;
+
+  /**
+   * Objects come in shapes with 5, 10, or 20 inline fields for primitive and for object
+   * slots, the remaining slots are stored in the extension arrays. The shape is chosen per
+   * class from its number of slots, which is the same for all its layouts. Thus, a storage
+   * location knows statically whether a slot is inline, and objects of classes with up to
+   * 20 slots do not need extension arrays.
+   *
+   * <p>
+   * <code>som.maxInlineFields</code> limits the shapes used. On SubstrateVM, only the
+   * smallest shape is used, since only its field offsets are known. The Kernel module keeps
+   * to the smallest shape, too, see {@link ClassFactory#getNumberOfInlineFields(int)}.
+   *
+   * @return the number of inline fields of each kind
+   */
+  public static int getNumberOfInlineFields(final int numberOfSlots) {
+    if (numberOfSlots <= NUM_OBJECT_FIELDS || TruffleOptions.AOT
+        || VmSettings.MAX_INLINE_FIELDS < NUM_FIELDS_MEDIUM) {
+      return NUM_OBJECT_FIELDS;
+    }
+    if (numberOfSlots <= NUM_FIELDS_MEDIUM
+        || VmSettings.MAX_INLINE_FIELDS < NUM_FIELDS_LARGE) {
+      return NUM_FIELDS_MEDIUM;
+    }
+    return NUM_FIELDS_LARGE;
+  }
+
+  /**
+   * Objects of classes with only immutable slots. The shapes are {@link SImmutableObject},
+   * {@link SImmutableObject10}, and {@link SImmutableObject20}.
+   */
   // TODO: when we got the possibility that we can hint to the compiler that a
   // read is from a final field, we should remove this
-  public static final class SImmutableObject extends SObject {
+  public abstract static class SAbstractImmutableObject extends SObject {
 
-    public SImmutableObject(final SClass instanceClass, final ClassFactory classGroup,
-        final ObjectLayout layout) {
+    /**
+     * Create an object of the shape selected by the layout.
+     */
+    public static SAbstractImmutableObject create(final SClass instanceClass,
+        final ClassFactory classGroup, final ObjectLayout layout) {
+      switch (layout.getNumberOfInlineFields()) {
+        case NUM_FIELDS_LARGE:
+          return new SImmutableObject20(instanceClass, classGroup, layout);
+        case NUM_FIELDS_MEDIUM:
+          return new SImmutableObject10(instanceClass, classGroup, layout);
+        default:
+          return new SImmutableObject(instanceClass, classGroup, layout);
+      }
+    }
+
+    protected SAbstractImmutableObject(final SClass instanceClass,
+        final ClassFactory classGroup, final ObjectLayout layout) {
       super(instanceClass, classGroup, layout);
       field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
       isValue = instanceClass.declaredAsValue();
     }
 
-    public SImmutableObject(final boolean incompleteDefinition,
-        final boolean isKernelObj) {
+    protected SAbstractImmutableObject(final boolean incompleteDefinition) {
       super(incompleteDefinition);
-      assert isKernelObj;
-      isValue = true;
     }
 
     /**
      * Copy constructor.
      */
-    private SImmutableObject(final SImmutableObject old) {
+    protected SAbstractImmutableObject(final SAbstractImmutableObject old) {
       super(old);
       this.primField1 = old.primField1;
       this.primField2 = old.primField2;
@@ -105,6 +152,28 @@ public abstract class SObject extends SObjectWithClass {
     public boolean isValue() {
       return isValue;
     }
+  }
+
+  /**
+   * {@link SAbstractImmutableObject} with 5 inline fields of each kind.
+   */
+  public static final class SImmutableObject extends SAbstractImmutableObject {
+
+    public SImmutableObject(final SClass instanceClass, final ClassFactory classGroup,
+        final ObjectLayout layout) {
+      super(instanceClass, classGroup, layout);
+    }
+
+    public SImmutableObject(final boolean incompleteDefinition,
+        final boolean isKernelObj) {
+      super(incompleteDefinition);
+      assert isKernelObj;
+      isValue = true;
+    }
+
+    private SImmutableObject(final SImmutableObject old) {
+      super(old);
+    }
 
     @Override
     public SObject cloneBasics() {
@@ -113,7 +182,27 @@ public abstract class SObject extends SObjectWithClass {
     }
   }
 
-  public static final class SMutableObject extends SObject {
+  /**
+   * Objects of classes with mutable slots. The shapes are {@link SMutableObject},
+   * {@link SMutableObject10}, and {@link SMutableObject20}.
+   */
+  public abstract static class SAbstractMutableObject extends SObject {
+
+    /**
+     * Create an object of the shape selected by the layout.
+     */
+    public static SAbstractMutableObject create(final SClass instanceClass,
+        final ClassFactory factory, final ObjectLayout layout) {
+      switch (layout.getNumberOfInlineFields()) {
+        case NUM_FIELDS_LARGE:
+          return new SMutableObject20(instanceClass, factory, layout);
+        case NUM_FIELDS_MEDIUM:
+          return new SMutableObject10(instanceClass, factory, layout);
+        default:
+          return new SMutableObject(instanceClass, factory, layout);
+      }
+    }
+
     public long primField1;
     public long primField2;
     public long primField3;
@@ -131,17 +220,17 @@ public abstract class SObject extends SObjectWithClass {
     // SMutableObject and SImmuableObject
     @SuppressWarnings("unused") private boolean isValueOfSImmutableObjectSync;
 
-    public SMutableObject(final SClass instanceClass, final ClassFactory factory,
+    protected SAbstractMutableObject(final SClass instanceClass, final ClassFactory factory,
         final ObjectLayout layout) {
       super(instanceClass, factory, layout);
       field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
     }
 
-    public SMutableObject(final boolean incompleteDefinition) {
+    protected SAbstractMutableObject(final boolean incompleteDefinition) {
       super(incompleteDefinition);
     }
 
-    protected SMutableObject(final SMutableObject old) {
+    protected SAbstractMutableObject(final SAbstractMutableObject old) {
       super(old);
       this.primField1 = old.primField1;
       this.primField2 = old.primField2;
@@ -161,18 +250,13 @@ public abstract class SObject extends SObjectWithClass {
       return false;
     }
 
-    @Override
-    public SObject cloneBasics() {
-      return new SMutableObject(this);
-    }
+    /**
+     * @return a copy of the same shape, sharing the values of the object slots
+     */
+    public abstract SAbstractMutableObject shallowCopy();
 
-    public SMutableObject shallowCopy() {
-      SMutableObject copy = new SMutableObject(true);
-      copy.primField1 = primField1;
-      copy.primField2 = primField2;
-      copy.primField3 = primField3;
-      copy.primField4 = primField4;
-      copy.primField5 = primField5;
+    protected void shallowCopyTo(final SAbstractMutableObject copy) {
+      copy.setInlinePrimFields(this);
 
       copy.classGroup = classGroup;
       copy.clazz = clazz;
@@ -193,19 +277,29 @@ public abstract class SObject extends SObjectWithClass {
       if (extensionObjFields != null) {
         copy.extensionObjFields = extensionObjFields.clone();
       }
-
-      return copy;
     }
 
-    public boolean txEquals(final SMutableObject o) {
-      // TODO: we actually need to take the object layout into account,
-      // iff we want to ignore class slot stuff...
-      // might be easier to just handle those
+    protected boolean inlinePrimFieldsEqual(final SAbstractMutableObject o) {
       return o.primField1 == primField1 &&
           o.primField2 == primField2 &&
           o.primField3 == primField3 &&
           o.primField4 == primField4 &&
-          o.primField5 == primField5 &&
+          o.primField5 == primField5;
+    }
+
+    protected void setInlinePrimFields(final SAbstractMutableObject o) {
+      primField1 = o.primField1;
+      primField2 = o.primField2;
+      primField3 = o.primField3;
+      primField4 = o.primField4;
+      primField5 = o.primField5;
+    }
+
+    public boolean txEquals(final SAbstractMutableObject o) {
+      // TODO: we actually need to take the object layout into account,
+      // iff we want to ignore class slot stuff...
+      // might be easier to just handle those
+      return inlinePrimFieldsEqual(o) &&
 
           o.classGroup == classGroup && // TODO: should not be necessary
           o.clazz == clazz && // TODO: should not be necessary
@@ -216,7 +310,7 @@ public abstract class SObject extends SObjectWithClass {
           txMutObjLocEquals(o);
     }
 
-    private boolean txMutObjLocEquals(final SMutableObject o) {
+    private boolean txMutObjLocEquals(final SAbstractMutableObject o) {
       EconomicMap<SlotDefinition, StorageLocation> oLocs =
           o.objectLayout.getStorageLocations();
       EconomicMap<SlotDefinition, StorageLocation> locs = objectLayout.getStorageLocations();
@@ -232,12 +326,8 @@ public abstract class SObject extends SObjectWithClass {
       return true;
     }
 
-    public void txSet(final SMutableObject wc) {
-      primField1 = wc.primField1;
-      primField2 = wc.primField2;
-      primField3 = wc.primField3;
-      primField4 = wc.primField4;
-      primField5 = wc.primField5;
+    public void txSet(final SAbstractMutableObject wc) {
+      setInlinePrimFields(wc);
 
       classGroup = wc.classGroup; // TODO: should not be necessary
       clazz = wc.clazz; // TODO: should not be necessary
@@ -250,7 +340,7 @@ public abstract class SObject extends SObjectWithClass {
     }
 
     /** Only set the mutable slots. */
-    private void txSetMutObjLoc(final SMutableObject wc) {
+    private void txSetMutObjLoc(final SAbstractMutableObject wc) {
       EconomicMap<SlotDefinition, StorageLocation> oLocs =
           wc.objectLayout.getStorageLocations();
 
@@ -265,6 +355,378 @@ public abstract class SObject extends SObjectWithClass {
     }
   }
 
+  /**
+   * {@link SAbstractMutableObject} with 5 inline fields of each kind.
+   */
+  public static final class SMutableObject extends SAbstractMutableObject {
+
+    public SMutableObject(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+    }
+
+    public SMutableObject(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
+
+    private SMutableObject(final SMutableObject old) {
+      super(old);
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject(this);
+    }
+
+    @Override
+    public SMutableObject shallowCopy() {
+      SMutableObject copy = new SMutableObject(true);
+      shallowCopyTo(copy);
+      return copy;
+    }
+  }
+
+  /**
+   * {@link SAbstractImmutableObject} with 10 inline fields of each kind, see
+   * {@link SObject#getNumberOfInlineFields(int)}.
+   */
+  public static class SImmutableObject10 extends SAbstractImmutableObject {
+    @CompilationFinal public long primField6;
+    @CompilationFinal public long primField7;
+    @CompilationFinal public long primField8;
+    @CompilationFinal public long primField9;
+    @CompilationFinal public long primField10;
+
+    @CompilationFinal public Object field6;
+    @CompilationFinal public Object field7;
+    @CompilationFinal public Object field8;
+    @CompilationFinal public Object field9;
+    @CompilationFinal public Object field10;
+
+    public SImmutableObject10(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field6 = field7 = field8 = field9 = field10 = Nil.nilObject;
+    }
+
+    protected SImmutableObject10(final SImmutableObject10 old) {
+      super(old);
+      this.primField6 = old.primField6;
+      this.primField7 = old.primField7;
+      this.primField8 = old.primField8;
+      this.primField9 = old.primField9;
+      this.primField10 = old.primField10;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field6 = field7 = field8 = field9 = field10 = null;
+      primField6 = primField7 = primField8 = primField9 = primField10 = Long.MIN_VALUE;
+    }
+
+    @Override
+    public int getNumberOfInlineFields() {
+      return NUM_FIELDS_MEDIUM;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject10(this);
+    }
+  }
+
+  /**
+   * {@link SAbstractImmutableObject} with 20 inline fields of each kind, see
+   * {@link SObject#getNumberOfInlineFields(int)}.
+   */
+  public static final class SImmutableObject20 extends SImmutableObject10 {
+    @CompilationFinal public long primField11;
+    @CompilationFinal public long primField12;
+    @CompilationFinal public long primField13;
+    @CompilationFinal public long primField14;
+    @CompilationFinal public long primField15;
+    @CompilationFinal public long primField16;
+    @CompilationFinal public long primField17;
+    @CompilationFinal public long primField18;
+    @CompilationFinal public long primField19;
+    @CompilationFinal public long primField20;
+
+    @CompilationFinal public Object field11;
+    @CompilationFinal public Object field12;
+    @CompilationFinal public Object field13;
+    @CompilationFinal public Object field14;
+    @CompilationFinal public Object field15;
+    @CompilationFinal public Object field16;
+    @CompilationFinal public Object field17;
+    @CompilationFinal public Object field18;
+    @CompilationFinal public Object field19;
+    @CompilationFinal public Object field20;
+
+    public SImmutableObject20(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field11 = field12 = field13 = field14 = field15 = Nil.nilObject;
+      field16 = field17 = field18 = field19 = field20 = Nil.nilObject;
+    }
+
+    protected SImmutableObject20(final SImmutableObject20 old) {
+      super(old);
+      this.primField11 = old.primField11;
+      this.primField12 = old.primField12;
+      this.primField13 = old.primField13;
+      this.primField14 = old.primField14;
+      this.primField15 = old.primField15;
+      this.primField16 = old.primField16;
+      this.primField17 = old.primField17;
+      this.primField18 = old.primField18;
+      this.primField19 = old.primField19;
+      this.primField20 = old.primField20;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field11 = field12 = field13 = field14 = field15 = null;
+      field16 = field17 = field18 = field19 = field20 = null;
+      primField11 = primField12 = primField13 = primField14 = primField15 = Long.MIN_VALUE;
+      primField16 = primField17 = primField18 = primField19 = primField20 = Long.MIN_VALUE;
+    }
+
+    @Override
+    public int getNumberOfInlineFields() {
+      return NUM_FIELDS_LARGE;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject20(this);
+    }
+  }
+
+  /**
+   * {@link SAbstractMutableObject} with 10 inline fields of each kind, see
+   * {@link SObject#getNumberOfInlineFields(int)}.
+   */
+  public static class SMutableObject10 extends SAbstractMutableObject {
+    public long primField6;
+    public long primField7;
+    public long primField8;
+    public long primField9;
+    public long primField10;
+
+    public Object field6;
+    public Object field7;
+    public Object field8;
+    public Object field9;
+    public Object field10;
+
+    public SMutableObject10(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field6 = field7 = field8 = field9 = field10 = Nil.nilObject;
+    }
+
+    public SMutableObject10(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
+
+    protected SMutableObject10(final SMutableObject10 old) {
+      super(old);
+      this.primField6 = old.primField6;
+      this.primField7 = old.primField7;
+      this.primField8 = old.primField8;
+      this.primField9 = old.primField9;
+      this.primField10 = old.primField10;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field6 = field7 = field8 = field9 = field10 = null;
+      primField6 = primField7 = primField8 = primField9 = primField10 = Long.MIN_VALUE;
+    }
+
+    @Override
+    public int getNumberOfInlineFields() {
+      return NUM_FIELDS_MEDIUM;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject10(this);
+    }
+
+    @Override
+    public SMutableObject10 shallowCopy() {
+      SMutableObject10 copy = new SMutableObject10(true);
+      shallowCopyTo(copy);
+      return copy;
+    }
+
+    @Override
+    protected void shallowCopyTo(final SAbstractMutableObject copy) {
+      super.shallowCopyTo(copy);
+      SMutableObject10 c = (SMutableObject10) copy;
+      c.field6 = field6;
+      c.field7 = field7;
+      c.field8 = field8;
+      c.field9 = field9;
+      c.field10 = field10;
+    }
+
+    @Override
+    protected boolean inlinePrimFieldsEqual(final SAbstractMutableObject other) {
+      SMutableObject10 o = (SMutableObject10) other;
+      return super.inlinePrimFieldsEqual(o) &&
+          o.primField6 == primField6 &&
+          o.primField7 == primField7 &&
+          o.primField8 == primField8 &&
+          o.primField9 == primField9 &&
+          o.primField10 == primField10;
+    }
+
+    @Override
+    protected void setInlinePrimFields(final SAbstractMutableObject other) {
+      super.setInlinePrimFields(other);
+      SMutableObject10 o = (SMutableObject10) other;
+      primField6 = o.primField6;
+      primField7 = o.primField7;
+      primField8 = o.primField8;
+      primField9 = o.primField9;
+      primField10 = o.primField10;
+    }
+  }
+
+  /**
+   * {@link SAbstractMutableObject} with 20 inline fields of each kind, see
+   * {@link SObject#getNumberOfInlineFields(int)}.
+   */
+  public static final class SMutableObject20 extends SMutableObject10 {
+    public long primField11;
+    public long primField12;
+    public long primField13;
+    public long primField14;
+    public long primField15;
+    public long primField16;
+    public long primField17;
+    public long primField18;
+    public long primField19;
+    public long primField20;
+
+    public Object field11;
+    public Object field12;
+    public Object field13;
+    public Object field14;
+    public Object field15;
+    public Object field16;
+    public Object field17;
+    public Object field18;
+    public Object field19;
+    public Object field20;
+
+    public SMutableObject20(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field11 = field12 = field13 = field14 = field15 = Nil.nilObject;
+      field16 = field17 = field18 = field19 = field20 = Nil.nilObject;
+    }
+
+    public SMutableObject20(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
+
+    protected SMutableObject20(final SMutableObject20 old) {
+      super(old);
+      this.primField11 = old.primField11;
+      this.primField12 = old.primField12;
+      this.primField13 = old.primField13;
+      this.primField14 = old.primField14;
+      this.primField15 = old.primField15;
+      this.primField16 = old.primField16;
+      this.primField17 = old.primField17;
+      this.primField18 = old.primField18;
+      this.primField19 = old.primField19;
+      this.primField20 = old.primField20;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field11 = field12 = field13 = field14 = field15 = null;
+      field16 = field17 = field18 = field19 = field20 = null;
+      primField11 = primField12 = primField13 = primField14 = primField15 = Long.MIN_VALUE;
+      primField16 = primField17 = primField18 = primField19 = primField20 = Long.MIN_VALUE;
+    }
+
+    @Override
+    public int getNumberOfInlineFields() {
+      return NUM_FIELDS_LARGE;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject20(this);
+    }
+
+    @Override
+    public SMutableObject20 shallowCopy() {
+      SMutableObject20 copy = new SMutableObject20(true);
+      shallowCopyTo(copy);
+      return copy;
+    }
+
+    @Override
+    protected void shallowCopyTo(final SAbstractMutableObject copy) {
+      super.shallowCopyTo(copy);
+      SMutableObject20 c = (SMutableObject20) copy;
+      c.field11 = field11;
+      c.field12 = field12;
+      c.field13 = field13;
+      c.field14 = field14;
+      c.field15 = field15;
+      c.field16 = field16;
+      c.field17 = field17;
+      c.field18 = field18;
+      c.field19 = field19;
+      c.field20 = field20;
+    }
+
+    @Override
+    protected boolean inlinePrimFieldsEqual(final SAbstractMutableObject other) {
+      SMutableObject20 o = (SMutableObject20) other;
+      return super.inlinePrimFieldsEqual(o) &&
+          o.primField11 == primField11 &&
+          o.primField12 == primField12 &&
+          o.primField13 == primField13 &&
+          o.primField14 == primField14 &&
+          o.primField15 == primField15 &&
+          o.primField16 == primField16 &&
+          o.primField17 == primField17 &&
+          o.primField18 == primField18 &&
+          o.primField19 == primField19 &&
+          o.primField20 == primField20;
+    }
+
+    @Override
+    protected void setInlinePrimFields(final SAbstractMutableObject other) {
+      super.setInlinePrimFields(other);
+      SMutableObject20 o = (SMutableObject20) other;
+      primField11 = o.primField11;
+      primField12 = o.primField12;
+      primField13 = o.primField13;
+      primField14 = o.primField14;
+      primField15 = o.primField15;
+      primField16 = o.primField16;
+      primField17 = o.primField17;
+      primField18 = o.primField18;
+      primField19 = o.primField19;
+      primField20 = o.primField20;
+    }
+  }
+
   // TODO: if there is the possibility that we can hint that a read is from a
   // final field, we should reconsider removing these and store them in
   // normal object fields
@@ -276,6 +738,12 @@ public abstract class SObject extends SObjectWithClass {
   @CompilationFinal protected ObjectLayout objectLayout;
   public int                               primitiveUsedMap;
 
+  /**
+   * Set by the write barrier for incremental snapshots, when the object changes after it was
+   * serialized. See {@link tools.snapshot.SnapshotRecord#recordWrite(SObject)}.
+   */
+  private boolean snapshotDirty;
+
   public SObject(final SClass instanceClass, final ClassFactory factory,
       final ObjectLayout layout) {
     super(instanceClass, factory);
@@ -309,6 +777,13 @@ public abstract class SObject extends SObjectWithClass {
     }
   }
 
+  /**
+   * @return the number of inline fields of each kind of this object's shape
+   */
+  public int getNumberOfInlineFields() {
+    return NUM_OBJECT_FIELDS;
+  }
+
   /**
    * @return new object of the same type, initialized with same primitive
    *         values, object layout etc. Object fields are not cloned. No deep copying
@@ -318,11 +793,20 @@ public abstract class SObject extends SObjectWithClass {
 
   private void setLayoutInitially(final ObjectLayout layout) {
     CompilerAsserts.partialEvaluationConstant(layout);
+    assert layout.getNumberOfInlineFields() <= getNumberOfInlineFields();
     objectLayout = layout;
     extensionPrimFields = getExtendedPrimStorage(layout);
     extensionObjFields = getExtendedObjectStorage(layout);
   }
 
+  public final boolean isSnapshotDirty() {
+    return snapshotDirty;
+  }
+
+  public final void setSnapshotDirty(final boolean dirty) {
+    snapshotDirty = dirty;
+  }
+
   public final ObjectLayout getObjectLayout() {
     // TODO: should I really remove it, or should I update the layout?
     // assert clazz.getLayoutForInstances() == objectLayout;
@@ -433,23 +917,22 @@ public abstract class SObject extends SObjectWithClass {
 
   /**
    * Since this operation is racy with other initializations of the field, we
-   * first check whether the slot is unwritten. If that is the case, the slot
-   * is initialized. Otherwise, we check whether the field needs to be
-   * generalized.
+   * first check whether the slot is unwritten, or was only set to nil. If
+   * that is the case, the slot is initialized. Otherwise, we check whether the
+   * field needs to be generalized.
    *
    * <p>
    * <strong>Note:</strong> This method is expected to be called while
    * holding a lock on <code>this</code>.
    */
   protected final void updateLayoutWithInitializedField(
-      final SlotDefinition slot, final Class<?> type) {
+      final SlotDefinition slot, final Object value) {
     StorageLocation loc = objectLayout.getStorageLocation(slot);
-    if (loc instanceof UnwrittenStorageLocation) {
-      ObjectLayout layout = classGroup.updateInstanceLayoutWithInitializedField(slot, type);
+    if (loc instanceof UnwrittenStorageLocation || loc instanceof NilStorageLocation) {
+      ObjectLayout layout = classGroup.updateInstanceLayoutWithInitializedField(slot, value);
       assert objectLayout != layout;
       setLayoutAndTransferFields(layout);
-    } else if ((type == Long.class && !(loc instanceof LongStorageLocation)) ||
-        (type == Double.class && !(loc instanceof DoubleStorageLocation))) {
+    } else if (!loc.canStore(value)) {
       updateLayoutWithGeneralizedField(slot);
     }
   }
@@ -494,7 +977,7 @@ public abstract class SObject extends SObjectWithClass {
 
   public final synchronized void writeUninitializedSlot(final SlotDefinition slot,
       final Object value) {
-    updateLayoutWithInitializedField(slot, value.getClass());
+    updateLayoutWithInitializedField(slot, value);
     setFieldAfterLayoutChange(slot, value);
   }
 
@@ -35,21 +35,23 @@ import tools.snapshot.SnapshotBackend;
 public final class SSymbol extends SAbstractObject {
   private final String         string;
   private final int            numberOfSignatureArguments;
-  private final short          symbolId;
+  private final int            id;
   private static AtomicInteger idGenerator = new AtomicInteger(0);
 
+  /**
+   * Symbols are to be created by {@link som.vm.Symbols#symbolFor(String)}, which ensures
+   * that they are unique, and their ids dense.
+   */
   public SSymbol(final String value) {
     string = value;
     numberOfSignatureArguments = determineNumberOfSignatureArguments();
+    id = idGenerator.getAndIncrement();
     if (VmSettings.KOMPOS_TRACING || VmSettings.ACTOR_TRACING
         || VmSettings.TRACK_SNAPSHOT_ENTITIES) {
-      symbolId = (short) idGenerator.getAndIncrement();
       TracingBackend.logSymbol(this);
       if (VmSettings.TRACK_SNAPSHOT_ENTITIES) {
         SnapshotBackend.registerSymbol(this);
       }
-    } else {
-      symbolId = 0;
     }
   }
 
@@ -70,7 +72,14 @@ public final class SSymbol extends SAbstractObject {
   }
 
   public short getSymbolId() {
-    return symbolId;
+    return (short) id;
+  }
+
+  /**
+   * @return a dense id, which can be used to index tables
+   */
+  public int getId() {
+    return id;
   }
 
   private int determineNumberOfSignatureArguments() {
@@ -5,10 +5,13 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.graalvm.collections.EconomicSet;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import som.interpreter.nodes.TypeCheckNode;
 import som.vm.VmSettings;
@@ -27,13 +30,24 @@ public abstract class SType extends SObjectWithClass {
   /**
    * The current number of type objects created. Used to generate IDs.
    */
-  private static int                      count        = 0;
+  private static final AtomicInteger      count        = new AtomicInteger();
 
   /**
    * A unique identifier for the type.
    */
   public final int id;
 
+  /**
+   * Dense ids for the symbols used in signatures, which index the bit sets of
+   * {@link #getSignatureBits()}.
+   */
+  private static final ConcurrentHashMap<SSymbol, Integer> signatureIds     =
+      new ConcurrentHashMap<>();
+  private static final AtomicInteger                       signatureIdCount =
+      new AtomicInteger();
+
+  private static final long[] NO_SIGNATURES = new long[0];
+
   /**
    * Set the class object for types and add the class to previously created types that are
    * missing the class.
@@ -63,7 +77,7 @@ public abstract class SType extends SObjectWithClass {
       ++TypeCheckNode.nTypes;
     }
 
-    id = count++;
+    id = count.getAndIncrement();
   }
 
   @Override
@@ -79,6 +93,44 @@ public abstract class SType extends SObjectWithClass {
    */
   public abstract SSymbol[] getSignatures();
 
+  /**
+   * Gets the interface of the type as a bit set over the signature ids.
+   */
+  public long[] getSignatureBits() {
+    return signatureBits(getSignatures());
+  }
+
+  @TruffleBoundary
+  protected static long[] signatureBits(final SSymbol[] signatures) {
+    if (signatures.length == 0) {
+      return NO_SIGNATURES;
+    }
+
+    int[] ids = new int[signatures.length];
+    int max = 0;
+    for (int i = 0; i < signatures.length; i++) {
+      ids[i] = signatureIds.computeIfAbsent(
+          signatures[i], s -> signatureIdCount.getAndIncrement());
+      max = Math.max(max, ids[i]);
+    }
+
+    long[] bits = new long[(max >> 6) + 1];
+    for (int sigId : ids) {
+      bits[sigId >> 6] |= 1L << sigId;
+    }
+    return bits;
+  }
+
+  private static long[] union(final long[] a, final long[] b) {
+    long[] larger = a.length >= b.length ? a : b;
+    long[] smaller = a.length >= b.length ? b : a;
+    long[] result = larger.clone();
+    for (int i = 0; i < smaller.length; i++) {
+      result[i] |= smaller[i];
+    }
+    return result;
+  }
+
   /**
    * Checks whether this type is a super type of the given type and object.
    *
@@ -90,31 +142,44 @@ public abstract class SType extends SObjectWithClass {
 
   /**
    * Represents a type describing the public methods of an object.
+   *
+   * <p>
+   * Interface types are canonicalized, i.e., there is only one type for each set of
+   * signatures. Thus, repeated type expressions share the same type id, and with it the
+   * subtype caches.
    */
-  public static class InterfaceType extends SType {
+  public static final class InterfaceType extends SType {
+    private static final ConcurrentHashMap<SignatureSet, InterfaceType> canonical =
+        new ConcurrentHashMap<>();
+
     @CompilationFinal(dimensions = 1) private final SSymbol[] signatures;
+    @CompilationFinal(dimensions = 1) private final long[]    signatureBits;
 
-    public InterfaceType(final SSymbol[] signatures) {
+    private InterfaceType(final SSymbol[] signatures, final long[] signatureBits) {
       this.signatures = signatures;
+      this.signatureBits = signatureBits;
+    }
+
+    /**
+     * Gets the interface type with the given signatures.
+     */
+    @TruffleBoundary
+    public static InterfaceType create(final SSymbol[] signatures) {
+      long[] bits = signatureBits(signatures);
+      return canonical.computeIfAbsent(new SignatureSet(bits),
+          k -> new InterfaceType(signatures, bits));
     }
 
     @Override
     public boolean isSuperTypeOf(final SType other, final Object inst) {
-      for (SSymbol sigThis : signatures) {
-        // Find the signature in the other type
-        boolean found = false;
-        for (SSymbol sigOther : other.getSignatures()) {
-          if (sigThis == sigOther) {
-            found = true;
-            break;
-          }
-        }
-        // Otherwise this cannot be a super type
-        if (!found) {
+      // This is a super type, if its signatures are a subset of the other's signatures
+      long[] otherBits = other.getSignatureBits();
+      for (int i = 0; i < signatureBits.length; i++) {
+        long o = i < otherBits.length ? otherBits[i] : 0;
+        if ((signatureBits[i] & ~o) != 0) {
           return false;
         }
       }
-      // All signatures found so must be a super type
       return true;
     }
 
@@ -123,6 +188,11 @@ public abstract class SType extends SObjectWithClass {
       return signatures;
     }
 
+    @Override
+    public long[] getSignatureBits() {
+      return signatureBits;
+    }
+
     @Override
     public String toString() {
       String s = "interface {";
@@ -143,6 +213,34 @@ public abstract class SType extends SObjectWithClass {
       }
       return s + "}";
     }
+
+    /**
+     * Key to canonicalize interface types by their signature bits.
+     */
+    private static final class SignatureSet {
+      private final long[] bits;
+      private final int    hash;
+
+      SignatureSet(final long[] bits) {
+        // trailing zeros do not change the set
+        int length = bits.length;
+        while (length > 0 && bits[length - 1] == 0) {
+          length--;
+        }
+        this.bits = length == bits.length ? bits : Arrays.copyOf(bits, length);
+        this.hash = Arrays.hashCode(this.bits);
+      }
+
+      @Override
+      public boolean equals(final Object o) {
+        return o instanceof SignatureSet && Arrays.equals(bits, ((SignatureSet) o).bits);
+      }
+
+      @Override
+      public int hashCode() {
+        return hash;
+      }
+    }
   }
 
   // SELF TYPE???
@@ -156,11 +254,23 @@ public abstract class SType extends SObjectWithClass {
     public final SType left;
     public final SType right;
 
+    private long[] signatureBits;
+
     public IntersectionType(final SType left, final SType right) {
       this.left = left;
       this.right = right;
     }
 
+    @Override
+    public long[] getSignatureBits() {
+      long[] bits = signatureBits;
+      if (bits == null) {
+        bits = union(left.getSignatureBits(), right.getSignatureBits());
+        signatureBits = bits;
+      }
+      return bits;
+    }
+
     @Override
     public boolean isSuperTypeOf(final SType other, final Object inst) {
       return left.isSuperTypeOf(other, inst) && right.isSuperTypeOf(other, inst);
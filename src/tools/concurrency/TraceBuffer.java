@@ -71,6 +71,11 @@ public abstract class TraceBuffer {
     this.bufferSize = size;
   }
 
+  protected TraceBuffer(final byte[] buffer) {
+    this.buffer = buffer;
+    this.bufferSize = buffer.length;
+  }
+
   public int position() {
     assert position <= bufferSize;
     assert position <= buffer.length;
@@ -1,15 +1,21 @@
 package tools.concurrency;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 
 import som.Output;
@@ -19,6 +25,15 @@ import tools.concurrency.TracingActors.ReplayActor;
 import tools.replay.actors.ActorExecutionTrace;
 
 
+/**
+ * Reads the trace of a previous execution for replay.
+ *
+ * <p>
+ * The trace and the external data are memory-mapped. Parsing the trace only indexes it: it
+ * builds the actor creation hierarchy and remembers, per actor, the positions of its
+ * contexts. The message records of an actor are decoded from the mapped trace when the
+ * actor asks for its next expected message.
+ */
 public final class TraceParser {
 
   /**
@@ -32,11 +47,18 @@ public final class TraceParser {
     SYSTEM_CALL
   }
 
-  private ByteBuffer                        b                =
-      ByteBuffer.allocate(VmSettings.BUFFER_SIZE);
+  /** Type, sender and resolver id, and method and data id of external messages. */
+  private static final int MAX_RECORD_SIZE = 1 + 2 * Integer.BYTES + 6;
+
+  /** Actor id, data id, and length of the data. */
+  private static final int EXT_DATA_HEADER_SIZE = 3 * Integer.BYTES;
+
   private final HashMap<Integer, ActorNode> actors           = new HashMap<>();
   private final HashMap<Long, Long>         externalDataDict = new HashMap<>();
 
+  private final MappedFile trace        = new MappedFile();
+  private final MappedFile externalData = new MappedFile();
+
   private long parsedMessages = 0;
   private long parsedActors   = 0;
 
@@ -73,7 +95,9 @@ public final class TraceParser {
   public static String getStringSysCallResult() {
     ReplayActor ra = (ReplayActor) EventualMessage.getActorCurrentMessageIsExecutionOn();
     ByteBuffer bb = getExternalData(ra.getActorId(), ra.getDataId());
-    return new String(bb.array());
+    byte[] bytes = new byte[bb.remaining()];
+    bb.get(bytes);
+    return new String(bytes);
   }
 
   public static synchronized Queue<MessageRecord> getExpectedMessages(final int replayId) {
@@ -82,7 +106,11 @@ public final class TraceParser {
       parser.parseTrace();
     }
 
-    return parser.actors.get(replayId).getExpectedMessages();
+    ActorNode node = parser.actors.get(replayId);
+    if (node.expectedMessages == null) {
+      node.expectedMessages = parser.new ExpectedMessages(node);
+    }
+    return node.expectedMessages;
   }
 
   public static synchronized int getReplayId(final int parentId, final int childNo) {
@@ -97,7 +125,6 @@ public final class TraceParser {
   private TraceParser() {
     assert VmSettings.REPLAY;
     this.parseTable = createParseTable();
-    b.order(ByteOrder.LITTLE_ENDIAN);
   }
 
   private TraceRecord[] createParseTable() {
@@ -116,43 +143,36 @@ public final class TraceParser {
     boolean readMainActor = false;
     File traceFile = new File(traceName + ".trace");
 
-    int sender = 0;
-    int resolver = 0;
     int currentActor = 0;
     int ordering = 0;
-    short method = 0;
-    int dataId = 0;
     long startTime = System.currentTimeMillis();
-    ArrayList<MessageRecord> contextMessages = null;
 
     Output.println("Parsing Trace ...");
 
-    try (FileInputStream fis = new FileInputStream(traceFile);
-        FileChannel channel = fis.getChannel()) {
-      channel.read(b);
-      b.flip(); // prepare for reading from buffer
+    try (FileChannel channel =
+        FileChannel.open(traceFile.toPath(), StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
       ActorNode current = null;
 
-      while (channel.position() < channel.size() || b.remaining() > 0) {
-        // read from file if buffer is empty
-        if (!b.hasRemaining()) {
-          b.clear();
-          channel.read(b);
-          b.flip();
-        } else if (b.remaining() < 20) {
-          b.compact();
-          channel.read(b);
-          b.flip();
+      // the trace is mapped in windows that contain whole records
+      ByteBuffer window = null;
+      long windowStart = 0;
+      long pos = 0;
+
+      while (pos < fileSize) {
+        if (window == null
+            || Math.min(pos + MAX_RECORD_SIZE, fileSize) > windowStart + window.limit()) {
+          window = trace.map(channel, pos);
+          windowStart = pos;
         }
 
-        final int start = b.position();
-        final byte type = b.get();
+        final int start = (int) (pos - windowStart);
+        final byte type = window.get(start);
         final int numbytes = ((type >> 4) & 3) + 1;
-        boolean external = (type & 8) != 0;
         TraceRecord recordType = parseTable[type & 7];
         switch (recordType) {
           case ACTOR_CREATION:
-            int newActorId = getId(numbytes);
+            int newActorId = getId(window, start + 1, numbytes);
             if (newActorId == 0) {
               assert !readMainActor : "There should be only one main actor.";
               readMainActor = true;
@@ -176,22 +196,11 @@ public final class TraceParser {
               actors.get(currentActor).addChild(node);
             }
             parsedActors++;
-
-            assert b.position() == start + (numbytes + 1);
             break;
 
           case ACTOR_CONTEXT:
-            /*
-             * make two buckets, one for the current 65k contexs, and one for those that we
-             * encounter prematurely
-             * decision wher stuff goes is made based on bitset or whether the ordering byte
-             * already is used in the first bucket
-             * when a bucket is full, we sort the contexts and put the messages inside a queue,
-             * context can then be reclaimed by GC
-             */
-
-            ordering = Short.toUnsignedInt(b.getShort());
-            currentActor = getId(numbytes);
+            ordering = Short.toUnsignedInt(window.getShort(start + 1));
+            currentActor = getId(window, start + 3, numbytes);
 
             if (!actors.containsKey(currentActor)) {
               actors.put(currentActor, new ActorNode(currentActor));
@@ -199,52 +208,22 @@ public final class TraceParser {
 
             current = actors.get(currentActor);
             assert current != null;
-            contextMessages = new ArrayList<>();
-            current.addMessageRecords(contextMessages, ordering);
-            assert b.position() == start + (numbytes + 2 + 1);
+            current.addContext(pos, ordering);
             break;
           case MESSAGE:
-            parsedMessages++;
-            assert contextMessages != null;
-            sender = getId(numbytes);
-
-            if (external) {
-              method = b.getShort();
-              dataId = b.getInt();
-              contextMessages.add(new ExternalMessageRecord(sender, method, dataId));
-              assert b.position() == start + (numbytes + 1 + 6);
-            } else {
-              contextMessages.add(new MessageRecord(sender));
-              assert b.position() == start + (numbytes + 1);
-            }
-            break;
           case PROMISE_MESSAGE:
             parsedMessages++;
-            sender = getId(numbytes);
-            resolver = getId(numbytes);
-
-            if (external) {
-              method = b.getShort();
-              dataId = b.getInt();
-              contextMessages.add(
-                  new ExternalPromiseMessageRecord(sender, resolver, method, dataId));
-              assert b.position() == start + 1 + 6 + 2 * (numbytes);
-            } else {
-              contextMessages.add(new PromiseMessageRecord(sender, resolver));
-              assert b.position() == start + 1 + 2 * (numbytes);
-            }
-
+            assert current != null;
+            current.numMessages++;
             break;
           case SYSTEM_CALL:
-            dataId = b.getInt();
             break;
           default:
             assert false;
         }
-      }
 
-    } catch (FileNotFoundException e) {
-      throw new RuntimeException(e);
+        pos += getRecordSize(type);
+      }
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -256,96 +235,316 @@ public final class TraceParser {
         + " Actors sucessfully parsed in " + (end - startTime) + "ms !");
   }
 
-  private ByteBuffer readExternalData(final long position) {
-    File traceFile = new File(traceName + ".dat");
-    try (FileInputStream fis = new FileInputStream(traceFile);
-        FileChannel channel = fis.getChannel()) {
-
-      ByteBuffer bb = ByteBuffer.allocate(12);
-      bb.order(ByteOrder.LITTLE_ENDIAN);
+  private int getRecordSize(final byte type) {
+    final int numbytes = ((type >> 4) & 3) + 1;
+    final int external = (type & ActorExecutionTrace.EXTERNAL_BIT) != 0 ? 6 : 0;
+
+    switch (parseTable[type & 7]) {
+      case ACTOR_CREATION:
+        return 1 + numbytes;
+      case ACTOR_CONTEXT:
+        return 1 + 2 + numbytes;
+      case MESSAGE:
+        return 1 + numbytes + external;
+      case PROMISE_MESSAGE:
+        return 1 + 2 * numbytes + external;
+      case SYSTEM_CALL:
+        return 1 + Integer.BYTES;
+      default:
+        assert false;
+        return 1;
+    }
+  }
 
-      channel.read(bb, position);
-      bb.flip();
+  private MessageRecord readMessageRecord(final ByteBuffer window, final int start,
+      final byte type) {
+    final int numbytes = ((type >> 4) & 3) + 1;
+    boolean external = (type & ActorExecutionTrace.EXTERNAL_BIT) != 0;
+    int sender = getId(window, start + 1, numbytes);
 
-      bb.getInt(); // actorId
-      bb.getInt(); // dataId
-      int len = bb.getInt();
+    if (parseTable[type & 7] == TraceRecord.MESSAGE) {
+      if (external) {
+        return new ExternalMessageRecord(sender, window.getShort(start + 1 + numbytes),
+            window.getInt(start + 3 + numbytes));
+      }
+      return new MessageRecord(sender);
+    }
 
-      ByteBuffer res = ByteBuffer.allocate(len);
-      res.order(ByteOrder.LITTLE_ENDIAN);
-      channel.read(res, position + 12);
-      res.flip();
-      return res;
-    } catch (FileNotFoundException e) {
-      throw new RuntimeException(e);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+    assert parseTable[type & 7] == TraceRecord.PROMISE_MESSAGE;
+    int resolver = getId(window, start + 1 + numbytes, numbytes);
+    if (external) {
+      return new ExternalPromiseMessageRecord(sender, resolver,
+          window.getShort(start + 1 + 2 * numbytes), window.getInt(start + 3 + 2 * numbytes));
     }
+    return new PromiseMessageRecord(sender, resolver);
+  }
+
+  private ByteBuffer readExternalData(final long position) {
+    int w = externalData.find(position);
+    int start = (int) (position - externalData.starts[w]);
+
+    ByteBuffer window = externalData.windows[w];
+    int len = window.getInt(start + 2 * Integer.BYTES);
+
+    // the window is shared, we only read it with a duplicate
+    ByteBuffer res = window.duplicate();
+    res.position(start + EXT_DATA_HEADER_SIZE);
+    res.limit(start + EXT_DATA_HEADER_SIZE + len);
+    return res.slice().order(ByteOrder.LITTLE_ENDIAN);
   }
 
   private void parseExternalData() {
     File traceFile = new File(traceName + ".dat");
 
-    ByteBuffer bb = ByteBuffer.allocate(12);
-    bb.order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel channel =
+        FileChannel.open(traceFile.toPath(), StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
 
-    try (FileInputStream fis = new FileInputStream(traceFile);
-        FileChannel channel = fis.getChannel()) {
-      while (channel.position() < channel.size()) {
-        // read from file if buffer is empty
+      // like the trace, the data is mapped in windows that contain whole entries
+      ByteBuffer window = null;
+      long windowStart = 0;
+      long pos = 0;
 
-        long position = channel.position();
-        bb.clear();
-        channel.read(bb);
-        bb.flip();
+      while (pos + EXT_DATA_HEADER_SIZE <= fileSize) {
+        if (window == null || pos + EXT_DATA_HEADER_SIZE > windowStart + window.limit()) {
+          window = externalData.map(channel, pos);
+          windowStart = pos;
+        }
 
-        long actor = bb.getInt();
-        long dataId = bb.getInt();
-        int len = bb.getInt();
+        int start = (int) (pos - windowStart);
+        long actor = window.getInt(start);
+        long dataId = window.getInt(start + Integer.BYTES);
+        int len = window.getInt(start + 2 * Integer.BYTES);
+
+        if (pos + EXT_DATA_HEADER_SIZE + len > windowStart + window.limit()) {
+          window = externalData.map(channel, pos);
+          windowStart = pos;
+        }
 
         long key = (actor << 32) | dataId;
-        externalDataDict.put(key, position);
+        externalDataDict.put(key, pos);
 
-        position = channel.position();
-        channel.position(position + len);
+        pos += EXT_DATA_HEADER_SIZE + len;
       }
-
-    } catch (FileNotFoundException e) {
-      throw new RuntimeException(e);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private int getId(final int numbytes) {
+  private static int getId(final ByteBuffer window, final int start, final int numbytes) {
     switch (numbytes) {
       case 1:
-        return 0 | b.get();
+        return 0 | window.get(start);
       case 2:
-        return 0 | b.getShort();
+        return 0 | window.getShort(start);
       case 3:
-        return (b.get() << 16) | b.getShort();
+        return (window.get(start) << 16) | window.getShort(start + 1);
       case 4:
-        return b.getInt();
+        return window.getInt(start);
     }
     assert false : "should not happen";
     return 0;
   }
 
+  /**
+   * A file mapped in windows of at most 2 GiB. The windows can overlap, each one contains
+   * the records that start before the next window completely, so that a record can be read
+   * from a single window. The mappings stay valid after the channel is closed.
+   */
+  private static final class MappedFile {
+    private long[]       starts  = new long[1];
+    private ByteBuffer[] windows = new ByteBuffer[1];
+    private int          numWindows;
+
+    private ByteBuffer map(final FileChannel channel, final long start) throws IOException {
+      MappedByteBuffer window = channel.map(MapMode.READ_ONLY, start,
+          Math.min(Integer.MAX_VALUE, channel.size() - start));
+      window.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (numWindows == starts.length) {
+        starts = Arrays.copyOf(starts, numWindows * 2);
+        windows = Arrays.copyOf(windows, numWindows * 2);
+      }
+      starts[numWindows] = start;
+      windows[numWindows] = window;
+      numWindows++;
+      return window;
+    }
+
+    /**
+     * @return the index of the window that contains the record at the given position
+     */
+    private int find(final long position) {
+      int lo = 0;
+      int hi = numWindows - 1;
+      while (lo < hi) {
+        int mid = (lo + hi + 1) >>> 1;
+        if (starts[mid] <= position) {
+          lo = mid;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return lo;
+    }
+  }
+
+  /**
+   * The messages an actor is expected to process. They are decoded from the mapped trace,
+   * context by context, when the actor asks for them. A context ends with the next context
+   * record, which can belong to another actor, or with the end of the trace.
+   *
+   * <p>
+   * Even {@link #peek()} advances the cursor. The queue is read by senders holding the
+   * actor's lock, and by the actor's executor without it, so all access synchronizes on the
+   * queue.
+   */
+  private final class ExpectedMessages extends AbstractQueue<MessageRecord> {
+    private final Cursor  cursor;
+    private MessageRecord next;
+    private int           remaining;
+
+    ExpectedMessages(final ActorNode node) {
+      this.cursor = new Cursor(node.getOrderedContexts());
+      this.remaining = node.numMessages;
+    }
+
+    @Override
+    public synchronized MessageRecord peek() {
+      if (next == null && remaining > 0) {
+        next = cursor.readNext();
+      }
+      return next;
+    }
+
+    @Override
+    public synchronized MessageRecord poll() {
+      MessageRecord m = peek();
+      if (m != null) {
+        next = null;
+        remaining--;
+      }
+      return m;
+    }
+
+    @Override
+    public boolean offer(final MessageRecord e) {
+      throw new UnsupportedOperationException("The expected messages are read from the trace");
+    }
+
+    @Override
+    public synchronized int size() {
+      return remaining;
+    }
+
+    @Override
+    public synchronized Iterator<MessageRecord> iterator() {
+      return new Iterator<MessageRecord>() {
+        private final Cursor  c = cursor.copy();
+        private MessageRecord n = next;
+        private int           r = remaining;
+
+        @Override
+        public boolean hasNext() {
+          return r > 0;
+        }
+
+        @Override
+        public MessageRecord next() {
+          if (r == 0) {
+            throw new NoSuchElementException();
+          }
+          MessageRecord m = n == null ? c.readNext() : n;
+          n = null;
+          r--;
+          return m;
+        }
+      };
+    }
+  }
+
+  /**
+   * Position in the contexts of an actor, in the order in which the actor processed them.
+   */
+  private final class Cursor {
+    private final long[] contexts;
+    private int          nextContext;
+
+    /** Position of the next record in the current context, or -1 before a context. */
+    private long position = -1;
+    private int  window;
+
+    Cursor(final long[] contexts) {
+      this.contexts = contexts;
+    }
+
+    Cursor copy() {
+      Cursor c = new Cursor(contexts);
+      c.nextContext = nextContext;
+      c.position = position;
+      c.window = window;
+      return c;
+    }
+
+    /**
+     * Needs to be called only while there are messages left, otherwise it reads past the
+     * last context.
+     */
+    MessageRecord readNext() {
+      while (true) {
+        if (position == -1) {
+          long context = contexts[nextContext];
+          nextContext++;
+
+          window = trace.find(context);
+          ByteBuffer w = trace.windows[window];
+          position = context + getRecordSize(w.get((int) (context - trace.starts[window])));
+        }
+
+        while (window + 1 < trace.numWindows && trace.starts[window + 1] <= position) {
+          window++;
+        }
+        ByteBuffer w = trace.windows[window];
+        int start = (int) (position - trace.starts[window]);
+        if (start >= w.limit()) {
+          // end of the trace
+          position = -1;
+          continue;
+        }
+
+        byte type = w.get(start);
+        switch (parseTable[type & 7]) {
+          case ACTOR_CONTEXT:
+            position = -1;
+            break;
+          case MESSAGE:
+          case PROMISE_MESSAGE:
+            position += getRecordSize(type);
+            return readMessageRecord(w, start, type);
+          default:
+            position += getRecordSize(type);
+            break;
+        }
+      }
+    }
+  }
+
   /**
    * Node in actor creation hierarchy.
    */
   private static class ActorNode implements Comparable<ActorNode> {
-    final long                                 actorId;
-    int                                        childNo;
-    int                                        mailboxNo;
-    boolean                                    sorted           = false;
-    ArrayList<ActorNode>                       children;
-    HashMap<Integer, ArrayList<MessageRecord>> bucket1          = new HashMap<>();
-    HashMap<Integer, ArrayList<MessageRecord>> bucket2          = new HashMap<>();
-    Queue<MessageRecord>                       expectedMessages = new java.util.LinkedList<>();
-    int                                        max              = 0;
-    int                                        max2             = 0;
+    final long           actorId;
+    int                  childNo;
+    int                  mailboxNo;
+    boolean              sorted = false;
+    ArrayList<ActorNode> children;
+
+    /** Position of each context in the trace, and its ordering in the lowest 16 bits. */
+    long[] contexts = new long[4];
+    int    numContexts;
+    int    numMessages;
+
+    Queue<MessageRecord> expectedMessages;
 
     ActorNode(final long actorId) {
       super();
@@ -386,59 +585,67 @@ public final class TraceParser {
       return children.get(childNo);
     }
 
-    private void addMessageRecords(final ArrayList<MessageRecord> mr, final int order) {
-      assert mr != null;
-
-      if (bucket1.containsKey(order)) {
-        // use bucket two
-        assert !bucket2.containsKey(order);
-        bucket2.put(order, mr);
-        max2 = Math.max(max2, order);
-        assert max2 < 0x8FFF;
-      } else {
-        assert !bucket2.containsKey(order);
-        bucket1.put(order, mr);
-        max = Math.max(max, order);
-        if (max == 0xFFFF) {
-          // Bucket 1 is full, switch
-          assert max2 < 0x8FFF;
-          for (int i = 0; i <= max; i++) {
-            if (!bucket1.containsKey(i)) {
-              continue;
-            }
-            expectedMessages.addAll(bucket1.get(i));
-          }
-          bucket1.clear();
-          HashMap<Integer, ArrayList<MessageRecord>> temp = bucket1;
-          bucket1 = bucket2;
-          bucket2 = temp;
-          max = max2;
-          max2 = 0;
-        }
+    private void addContext(final long position, final int ordering) {
+      if (numContexts == contexts.length) {
+        contexts = Arrays.copyOf(contexts, numContexts * 2);
       }
-
+      contexts[numContexts] = (position << 16) | ordering;
+      numContexts++;
     }
 
-    public Queue<MessageRecord> getExpectedMessages() {
-
-      assert bucket1.size() < 0xFFFF;
-      assert bucket2.isEmpty();
-      for (int i = 0; i <= max; i++) {
-        if (bucket1.containsKey(i)) {
-          expectedMessages.addAll(bucket1.get(i));
+    /**
+     * The ordering of contexts wraps around after 0xFFFF. A context whose ordering was
+     * already seen belongs to the next round, and a round completes with its context 0xFFFF.
+     * Contexts of later rounds can be in the trace before those of the current round
+     * completed.
+     *
+     * @return the positions of the contexts, in the order in which the actor processed them
+     */
+    long[] getOrderedContexts() {
+      BitSet round = new BitSet(0x10000);
+      BitSet nextRound = new BitSet(0x10000);
+      int max = 0;
+      int max2 = 0;
+      long roundNo = 0;
+
+      long[] keys = new long[numContexts];
+      for (int i = 0; i < numContexts; i++) {
+        int order = (int) (contexts[i] & 0xFFFF);
+        long r;
+        if (round.get(order)) {
+          assert !nextRound.get(order);
+          nextRound.set(order);
+          max2 = Math.max(max2, order);
+          assert max2 < 0x8FFF;
+          r = roundNo + 1;
         } else {
-          continue;
+          round.set(order);
+          max = Math.max(max, order);
+          r = roundNo;
+          if (max == 0xFFFF) {
+            // round is complete, switch
+            assert max2 < 0x8FFF;
+            round.clear();
+            BitSet temp = round;
+            round = nextRound;
+            nextRound = temp;
+            max = max2;
+            max2 = 0;
+            roundNo++;
+          }
         }
+
+        // sort by round and ordering, the lower bits keep the index of the context
+        keys[i] = (((r << 16) | order) << 32) | i;
       }
+      Arrays.sort(keys);
 
-      for (int i = 0; i <= max2; i++) {
-        if (bucket2.containsKey(i)) {
-          expectedMessages.addAll(bucket2.get(i));
-        } else {
-          continue;
-        }
+      long[] ordered = new long[numContexts];
+      for (int i = 0; i < numContexts; i++) {
+        ordered[i] = contexts[(int) keys[i]] >>> 16;
       }
-      return expectedMessages;
+      contexts = null;
+      return ordered;
     }
 
     @Override
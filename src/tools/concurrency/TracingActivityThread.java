@@ -231,6 +231,9 @@ public abstract class TracingActivityThread extends ForkJoinWorkerThread {
     }
     this.snapshotId = SnapshotBackend.getSnapshotVersion();
 
+    // the remaining segment of the previous snapshot can be written now
+    SnapshotBackend.registerSnapshotBuffer(snapshotBuffer);
+
     // get net snapshotbuffer
     this.snapshotBuffer = new SnapshotBuffer((ActorProcessingThread) this);
   }
@@ -202,15 +202,10 @@ public class TracingActors {
         return;
       }
 
-      if (firstMessage == null) {
-        firstMessage = msg;
-      } else {
-        appendToMailbox(msg);
-      }
+      mailbox.push(msg);
 
       // actor remains dormant until the expected message arrives
-      if ((!this.isExecuting) && this.replayCanProcess(msg)) {
-        isExecuting = true;
+      if (this.replayCanProcess(msg) && mailbox.tryStartExecution()) {
         execute(actorPool);
       }
     }
@@ -236,32 +231,21 @@ public class TracingActors {
           printMsg(ra.expectedMessages.peek());
 
           Output.println("Mailbox: ");
-          if (a.firstMessage != null) {
-            printMsg(a.firstMessage);
-            if (a.mailboxExtension != null) {
-              for (EventualMessage em : a.mailboxExtension) {
-                printMsg(em);
-              }
-            }
+          for (EventualMessage em : a.mailbox.getPendingMessages()) {
+            printMsg(em);
           }
 
           for (EventualMessage em : a.leftovers) {
             printMsg(em);
           }
-        } else if (a.firstMessage != null || a.mailboxExtension != null) {
-
-          int n = a.firstMessage != null ? 1 : 0;
-          n += a.mailboxExtension != null ? a.mailboxExtension.size() : 0;
+        } else if (!a.mailbox.isEmpty()) {
+          List<EventualMessage> pending = a.mailbox.getPendingMessages();
 
           Output.println(
-              a.getName() + " [" + a.getId() + "] has " + n + " unexpected messages:");
-          if (a.firstMessage != null) {
-            printMsg(a.firstMessage);
-            if (a.mailboxExtension != null) {
-              for (EventualMessage em : a.mailboxExtension) {
-                printMsg(em);
-              }
-            }
+              a.getName() + " [" + a.getId() + "] has " + pending.size()
+                  + " unexpected messages:");
+          for (EventualMessage em : pending) {
+            printMsg(em);
           }
         }
       }
@@ -358,8 +342,7 @@ public class TracingActors {
       private Queue<EventualMessage> determineNextMessages(
           final List<EventualMessage> postponedMsgs) {
         final ReplayActor a = (ReplayActor) actor;
-        int numReceivedMsgs = 1 + (mailboxExtension == null ? 0 : mailboxExtension.size());
-        numReceivedMsgs += postponedMsgs.size();
+        int numReceivedMsgs = postponedMsgs.size();
 
         Queue<EventualMessage> todo = new LinkedList<>();
 
@@ -369,11 +352,13 @@ public class TracingActors {
         } else {
           postponedMsgs.add(firstMessage);
         }
+        numReceivedMsgs += 1;
 
-        if (mailboxExtension != null) {
-          for (EventualMessage msg : mailboxExtension) {
-            postponedMsgs.add(msg);
-          }
+        EventualMessage msg = firstMessage.getNextInMailbox();
+        while (msg != null) {
+          postponedMsgs.add(msg);
+          numReceivedMsgs += 1;
+          msg = msg.getNextInMailbox();
         }
 
         boolean foundNextMessage = true;
@@ -399,7 +384,7 @@ public class TracingActors {
       protected void processCurrentMessages(final ActorProcessingThread currentThread,
           final WebDebugger dbg) {
         assert actor instanceof ReplayActor;
-        assert size > 0;
+        assert firstMessage != null;
 
         final ReplayActor a = (ReplayActor) actor;
         Queue<EventualMessage> todo = determineNextMessages(a.leftovers);
@@ -409,6 +394,7 @@ public class TracingActors {
           handleBreakpointsAndStepping(firstMessage, dbg, a);
           msg.execute();
         }
+        firstMessage = null;
 
         currentThread.createdMessages += todo.size();
       }
@@ -173,6 +173,24 @@ public class TracingBackend {
     }
   }
 
+  /**
+   * Get a buffer from the pool without blocking, allocating a new one if the pool is empty.
+   * Used for the segments of snapshot buffers, which are recycled by the snapshot writer.
+   */
+  public static byte[] pollEmptyBuffer() {
+    byte[] buffer = emptyBuffers.poll();
+    if (buffer == null) {
+      return new byte[VmSettings.BUFFER_SIZE];
+    }
+    return buffer;
+  }
+
+  public static void recycleBuffer(final byte[] buffer) {
+    if (VmSettings.RECYCLE_BUFFERS && buffer.length == VmSettings.BUFFER_SIZE) {
+      emptyBuffers.offer(buffer);
+    }
+  }
+
   static void returnBuffer(final byte[] buffer, final int pos) {
     if (buffer == null) {
       return;
@@ -14,6 +14,7 @@ import java.util.TreeSet;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
 
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
@@ -25,6 +26,14 @@ import som.compiler.Variable;
 import som.interpreter.Invokable;
 import som.interpreter.nodes.dispatch.Dispatchable;
 import som.interpreter.objectstorage.ClassFactory;
+import som.interpreter.objectstorage.ObjectLayout;
+import som.interpreter.objectstorage.StorageLocation.BooleanStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.ConstantStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.DoubleStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.LongStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.NilStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.ObjectStorageLocation;
+import som.interpreter.objectstorage.StorageLocation.UnwrittenStorageLocation;
 import som.vm.NotYetImplementedException;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SSymbol;
@@ -88,6 +97,7 @@ public final class MetricsCsvWriter {
     methodCallsites();
     closureApplications();
     newObjectCount();
+    objectLayouts();
     newArrayCount();
     fieldAccesses();
     localAccesses();
@@ -396,6 +406,42 @@ public final class MetricsCsvWriter {
     }
   }
 
+  /**
+   * Reports the kinds of storage locations in the final layouts of the allocated classes.
+   */
+  private void objectLayouts() {
+    @SuppressWarnings("unchecked")
+    Map<SourceSection, AllocationProfile> profiles =
+        (Map<SourceSection, AllocationProfile>) data.get(JsonWriter.NEW_OBJECT_COUNT);
+
+    EconomicSet<ClassFactory> factories = EconomicSet.create(Equivalence.IDENTITY);
+
+    try (CsvWriter file = new CsvWriter(metricsFolder, "object-layouts.csv",
+        "Class", "Slots", "Inline Fields", "Unwritten", "Nil", "Constant", "Boolean",
+        "Long", "Double", "Object")) {
+      for (Entry<SourceSection, AllocationProfile> e : sortSS(profiles)) {
+        ClassFactory factory = e.getValue().getClassFactory();
+        if (factory == null || factory.getInstanceLayout() == null
+            || factories.contains(factory)) {
+          continue;
+        }
+        factories.add(factory);
+
+        ObjectLayout layout = factory.getInstanceLayout();
+        file.write(factory.getClassName().getString(),
+            layout.getNumberOfFields(),
+            layout.getNumberOfInlineFields(),
+            layout.getNumberOfLocations(UnwrittenStorageLocation.class),
+            layout.getNumberOfLocations(NilStorageLocation.class),
+            layout.getNumberOfLocations(ConstantStorageLocation.class),
+            layout.getNumberOfLocations(BooleanStorageLocation.class),
+            layout.getNumberOfLocations(LongStorageLocation.class),
+            layout.getNumberOfLocations(DoubleStorageLocation.class),
+            layout.getNumberOfLocations(ObjectStorageLocation.class));
+      }
+    }
+  }
+
   private void newArrayCount() {
     @SuppressWarnings("unchecked")
     Map<SourceSection, ArrayCreationProfile> profiles =
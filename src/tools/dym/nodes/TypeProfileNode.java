@@ -12,8 +12,8 @@ import som.vmobjects.SArray.SImmutableArray;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import som.vmobjects.SSymbol;
 import tools.dym.profiles.CreateCounter;
@@ -100,14 +100,14 @@ public abstract class TypeProfileNode extends Node {
   }
 
   @Specialization(guards = "obj.getFactory() == factory", limit = "100")
-  public void doSMutableObject(final SMutableObject obj,
+  public void doSMutableObject(final SAbstractMutableObject obj,
       @Cached("obj.getFactory()") final ClassFactory factory,
       @Cached("create(obj, obj.getFactory())") final ProfileCounter cnt) {
     cnt.inc();
   }
 
   @Specialization(guards = "obj.getFactory() == factory", limit = "100")
-  public void doSImmutableObject(final SImmutableObject obj,
+  public void doSImmutableObject(final SAbstractImmutableObject obj,
       @Cached("obj.getFactory()") final ClassFactory factory,
       @Cached("create(obj, obj.getFactory())") final ProfileCounter cnt) {
     cnt.inc();
@@ -6,8 +6,8 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.SourceSection;
 
 import som.interpreter.objectstorage.ClassFactory;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import tools.dym.profiles.AllocationProfileFactory.AllocProfileNodeGen;
 
@@ -33,6 +33,10 @@ public class AllocationProfile extends Counter {
     return profile.getTypeName();
   }
 
+  public ClassFactory getClassFactory() {
+    return profile.getClassFactory();
+  }
+
   public abstract static class AllocProfileNode extends Node {
     protected int          numFields = -1;
     protected ClassFactory classFactory;
@@ -47,6 +51,10 @@ public class AllocationProfile extends Counter {
       return classFactory.getClassName().getString();
     }
 
+    public ClassFactory getClassFactory() {
+      return classFactory;
+    }
+
     protected ClassFactory create(final ClassFactory factory) {
       int n;
       if (factory.getInstanceLayout() == null) {
@@ -69,11 +77,11 @@ public class AllocationProfile extends Counter {
         @Cached("create(obj.getFactory())") final ClassFactory factory) {}
 
     @Specialization(guards = "obj.getFactory() == factory", limit = "1")
-    public void doSMutableObject(final SMutableObject obj,
+    public void doSMutableObject(final SAbstractMutableObject obj,
         @Cached("create(obj.getFactory())") final ClassFactory factory) {}
 
     @Specialization(guards = "obj.getFactory() == factory", limit = "1")
-    public void doSImmutableObject(final SImmutableObject obj,
+    public void doSImmutableObject(final SAbstractImmutableObject obj,
         @Cached("create(obj.getFactory())") final ClassFactory factory) {}
   }
 }
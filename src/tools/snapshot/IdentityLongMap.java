@@ -0,0 +1,177 @@
+package tools.snapshot;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+
+/**
+ * A hash table from objects, compared by identity, to long values, for instance, to the
+ * references of serialized objects. In contrast to a map with boxed values, lookups and
+ * insertions do not allocate.
+ *
+ * <p>
+ * The table uses open addressing with linear probing. Single entries cannot be removed, and
+ * the table is not thread-safe.
+ *
+ * <p>
+ * With weak keys, the table does not keep its keys alive. Insertions then allocate a
+ * {@link WeakReference}. Entries of collected keys stay in the table until enough of them
+ * accumulated, and the table is rebuilt with only the live entries.
+ */
+public final class IdentityLongMap {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private Object[] keys;
+  private long[]   values;
+  private int      size;
+
+  /** Shift for Fibonacci hashing, i.e., 32 - log2(capacity). */
+  private int shift;
+
+  private final boolean                weakKeys;
+  private final ReferenceQueue<Object> collectedKeys;
+
+  /** Number of entries, included in the size, whose keys were collected. */
+  private int numCollected;
+
+  private static final class WeakKey extends WeakReference<Object> {
+    WeakKey(final Object key, final ReferenceQueue<Object> queue) {
+      super(key, queue);
+    }
+  }
+
+  public IdentityLongMap() {
+    this(false);
+  }
+
+  /**
+   * @param weakKeys whether the keys are only weakly referenced
+   */
+  public IdentityLongMap(final boolean weakKeys) {
+    this.weakKeys = weakKeys;
+    this.collectedKeys = weakKeys ? new ReferenceQueue<>() : null;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  private void allocate(final int capacity) {
+    keys = new Object[capacity];
+    values = new long[capacity];
+    shift = Integer.numberOfLeadingZeros(capacity) + 1;
+  }
+
+  private int index(final Object key) {
+    // identity hashes are not well distributed, the multiplication spreads them
+    return (System.identityHashCode(key) * 0x9E3779B9) >>> shift;
+  }
+
+  private Object keyAt(final int i) {
+    Object k = keys[i];
+    if (weakKeys && k != null) {
+      return ((WeakKey) k).get();
+    }
+    return k;
+  }
+
+  /**
+   * @return the index of the key, or of the free slot where it is to be inserted
+   */
+  private int find(final Object key) {
+    assert key != null;
+    int mask = keys.length - 1;
+    int i = index(key);
+    while (true) {
+      Object k = keys[i];
+      if (k == null || keyAt(i) == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  public long get(final Object key, final long absent) {
+    int i = find(key);
+    return keys[i] == null ? absent : values[i];
+  }
+
+  public boolean containsKey(final Object key) {
+    return keys[find(key)] != null;
+  }
+
+  /**
+   * @return the previous value, or <code>absent</code>
+   */
+  public long put(final Object key, final long value, final long absent) {
+    int i = find(key);
+    if (keys[i] != null) {
+      long previous = values[i];
+      values[i] = value;
+      return previous;
+    }
+
+    keys[i] = weakKeys ? new WeakKey(key, collectedKeys) : key;
+    values[i] = value;
+    size++;
+    // keep the load factor at most 1/2, to keep the probe sequences short
+    if (size * 2 > keys.length) {
+      grow();
+    }
+    return absent;
+  }
+
+  private void grow() {
+    if (weakKeys) {
+      while (collectedKeys.poll() != null) {
+        numCollected++;
+      }
+      if (numCollected * 4 >= size) {
+        // enough entries are stale, dropping them likely makes room without growing
+        rehash(keys.length);
+        if (size * 2 <= keys.length) {
+          return;
+        }
+      }
+    }
+    rehash(keys.length * 2);
+  }
+
+  private void rehash(final int capacity) {
+    Object[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+
+    size = 0;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] == null) {
+        continue;
+      }
+
+      Object key = weakKeys ? ((WeakKey) oldKeys[j]).get() : oldKeys[j];
+      if (key != null) {
+        int i = find(key);
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+        size++;
+      }
+    }
+
+    if (weakKeys) {
+      // references of dropped entries that are enqueued later on only cause an earlier rehash
+      numCollected = 0;
+    }
+  }
+
+  /**
+   * @return the number of entries, with weak keys including the entries of collected keys
+   *         until the table is rebuilt
+   */
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, null);
+    size = 0;
+    numCollected = 0;
+  }
+}
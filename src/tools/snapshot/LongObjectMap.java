@@ -0,0 +1,100 @@
+package tools.snapshot;
+
+import java.util.Arrays;
+
+
+/**
+ * A hash table from long keys, for instance, the references of serialized objects, to
+ * objects. In contrast to a map with boxed keys, lookups and insertions do not allocate.
+ * Values can be null, which is distinct from a missing entry.
+ *
+ * <p>
+ * The table uses open addressing with linear probing. The key {@link #FREE} marks free slots
+ * and cannot be used. It is not a valid reference, since its thread id is the one of the
+ * {@link SnapshotBuffer#FORWARDING_TABLE}. Single entries cannot be removed, and the table is
+ * not thread-safe.
+ */
+public final class LongObjectMap<V> {
+  public static final long FREE = -1;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[]   keys;
+  private Object[] values;
+  private int      size;
+
+  /** Shift for Fibonacci hashing, i.e., 64 - log2(capacity). */
+  private int shift;
+
+  public LongObjectMap() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  private void allocate(final int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, FREE);
+    values = new Object[capacity];
+    shift = Long.numberOfLeadingZeros(capacity) + 1;
+  }
+
+  private int index(final long key) {
+    // references differ mostly in the low bits, the multiplication spreads them
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /**
+   * @return the index of the key, or of the free slot where it is to be inserted
+   */
+  private int find(final long key) {
+    assert key != FREE;
+    int mask = keys.length - 1;
+    int i = index(key);
+    while (true) {
+      long k = keys[i];
+      if (k == key || k == FREE) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final long key) {
+    return (V) values[find(key)];
+  }
+
+  public boolean containsKey(final long key) {
+    return keys[find(key)] != FREE;
+  }
+
+  public void put(final long key, final V value) {
+    int i = find(key);
+    values[i] = value;
+    if (keys[i] == FREE) {
+      keys[i] = key;
+      size++;
+      // keep the load factor at most 1/2, to keep the probe sequences short
+      if (size * 2 > keys.length) {
+        grow();
+      }
+    }
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldKeys.length * 2);
+
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != FREE) {
+        int i = find(oldKeys[j]);
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+}
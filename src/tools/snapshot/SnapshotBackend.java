@@ -1,14 +1,16 @@
 package tools.snapshot;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.graalvm.collections.EconomicMap;
 
 import bd.tools.structure.StructuralProbe;
+import som.Output;
 import som.compiler.MixinDefinition;
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.compiler.Variable;
@@ -20,6 +22,8 @@ import som.vmobjects.SInvokable;
 import som.vmobjects.SSymbol;
 import tools.concurrency.TracingActors.ReplayActor;
 import tools.concurrency.TracingBackend;
+import tools.snapshot.deserialization.SnapshotChain;
+import tools.snapshot.deserialization.SnapshotRestore;
 
 
 public class SnapshotBackend {
@@ -30,24 +34,37 @@ public class SnapshotBackend {
   private static final EconomicMap<Short, SSymbol>  symbolDictionary;
   private static final EconomicMap<SSymbol, SClass> classDictionary;
 
-  private static final ConcurrentLinkedQueue<SnapshotBuffer> buffers;
+  /** The writers of the snapshot files, by snapshot version. */
+  private static final EconomicMap<Byte, SnapshotWriter> writers;
+
+  /** Set once the snapshot files are closed, guarded by the class. */
+  private static boolean snapshotWritten;
+
+  /** Buffers that are being finished, guarded by the class. */
+  private static int finishingBuffers;
+
+  /** Records that had far references to resolve, see {@link #registerFarReferenceTodo}. */
+  private static final Set<SnapshotRecord> recordsWithTodos;
 
   static {
     if (VmSettings.TRACK_SNAPSHOT_ENTITIES) {
       classDictionary = EconomicMap.create();
       symbolDictionary = EconomicMap.create();
       probe = new StructuralProbe<>();
-      buffers = new ConcurrentLinkedQueue<>();
+      writers = EconomicMap.create();
+      recordsWithTodos = ConcurrentHashMap.newKeySet();
     } else if (VmSettings.SNAPSHOTS_ENABLED) {
       classDictionary = null;
       symbolDictionary = null;
       probe = null;
-      buffers = new ConcurrentLinkedQueue<>();
+      writers = EconomicMap.create();
+      recordsWithTodos = ConcurrentHashMap.newKeySet();
     } else {
       classDictionary = null;
       symbolDictionary = null;
       probe = null;
-      buffers = null;
+      writers = null;
+      recordsWithTodos = null;
     }
   }
 
@@ -109,13 +126,56 @@ public class SnapshotBackend {
     }
   }
 
+  /**
+   * Called when a thread is done with its buffer, either because it terminates, or because a
+   * new snapshot was started. Buffers registered after the snapshot was written are dropped.
+   */
   public static void registerSnapshotBuffer(final SnapshotBuffer sb) {
     if (VmSettings.TEST_SERIALIZE_ALL) {
       return;
     }
 
     assert sb != null;
-    buffers.add(sb);
+    synchronized (SnapshotBackend.class) {
+      if (snapshotWritten) {
+        // e.g., a worker terminating after the snapshot was written
+        return;
+      }
+      finishingBuffers += 1;
+    }
+
+    // finish outside of the lock, threads holding a buffer's lock acquire it to get a writer
+    try {
+      sb.finish();
+    } finally {
+      synchronized (SnapshotBackend.class) {
+        finishingBuffers -= 1;
+        SnapshotBackend.class.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Remember a record with far references to resolve, so that they can be resolved before
+   * the snapshot files are closed, even if the actor is not executed again.
+   */
+  static void registerFarReferenceTodo(final SnapshotRecord record) {
+    recordsWithTodos.add(record);
+  }
+
+  static synchronized SnapshotWriter getWriter(final byte version) {
+    if (snapshotWritten) {
+      // reopening would truncate the file that was just written
+      throw new IllegalStateException("Snapshot " + version + " was already written");
+    }
+
+    SnapshotWriter writer = writers.get(version);
+    if (writer == null) {
+      writer = new SnapshotWriter(new File(VmSettings.TRACE_FILE + version + ".snap"));
+      writer.start();
+      writers.put(version, writer);
+    }
+    return writer;
   }
 
   public static StructuralProbe<SSymbol, MixinDefinition, SInvokable, SlotDefinition, Variable> getProbe() {
@@ -123,21 +183,45 @@ public class SnapshotBackend {
     return probe;
   }
 
-  public static void writeSnapshot() {
-    if (buffers.size() == 0) {
-      return;
+  /**
+   * Resolve the remaining far references, wait until all segments and patches handed to the
+   * writers are written, and close the snapshot files. Buffers that are being finished are
+   * waited for, later writes are rejected.
+   */
+  public static synchronized void writeSnapshot() {
+    while (finishingBuffers > 0) {
+      try {
+        SnapshotBackend.class.wait();
+      } catch (InterruptedException e) {
+        // keep waiting, the files need to be complete
+      }
     }
 
-    String name = VmSettings.TRACE_FILE + snapshotVersion;
-    File f = new File(name + ".snap");
-    try (FileOutputStream fos = new FileOutputStream(f)) {
-      while (!buffers.isEmpty()) {
-        SnapshotBuffer sb = buffers.poll();
-        fos.getChannel().write(ByteBuffer.wrap(sb.getRawBuffer(), 0, sb.position()));
-        fos.flush();
-      }
-    } catch (IOException e1) {
-      throw new RuntimeException(e1);
+    int unresolved = 0;
+    for (SnapshotRecord record : recordsWithTodos) {
+      unresolved += record.resolveSerializedTodos();
     }
+    recordsWithTodos.clear();
+    if (unresolved > 0) {
+      Output.errorPrintln("Snapshot: " + unresolved
+          + " far references point to objects that were never serialized");
+    }
+
+    for (SnapshotWriter writer : writers.getValues()) {
+      writer.close();
+    }
+    writers.clear();
+    snapshotWritten = true;
+  }
+
+  /**
+   * Restore the messages of the snapshots <code>first</code> to <code>last</code>, where
+   * <code>first</code> is a full snapshot, in parallel on the given pool.
+   */
+  public static List<Object> restoreSnapshot(final byte first, final byte last,
+      final ForkJoinPool pool) throws IOException {
+    assert VmSettings.TRACK_SNAPSHOT_ENTITIES;
+    return SnapshotRestore.restore(
+        SnapshotChain.load(VmSettings.TRACE_FILE, first, last), pool);
   }
 }
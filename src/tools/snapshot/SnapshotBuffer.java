@@ -1,29 +1,111 @@
 package tools.snapshot;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
 import som.interpreter.actors.Actor.ActorProcessingThread;
 import som.interpreter.objectstorage.ClassFactory;
 import som.vm.VmSettings;
 import som.vm.constants.Classes;
 import tools.concurrency.TraceBuffer;
 import tools.concurrency.TracingActors.TracingActor;
+import tools.concurrency.TracingBackend;
 import tools.replay.nodes.TraceActorContextNode;
 import tools.snapshot.deserialization.DeserializationBuffer;
 
 
+/**
+ * The serialized state of the actors of one thread for one snapshot version.
+ *
+ * <p>
+ * The buffer is a chain of segments taken from the buffer pool of the {@link TracingBackend}.
+ * Positions are logical, i.e., offsets into the concatenation of all segments, so that the
+ * references computed by {@link #calculateReference(long)} remain valid across segments. An
+ * entry never spans segments, entries larger than a pool buffer get a segment of their own.
+ *
+ * <p>
+ * Full segments are streamed to the snapshot file by the {@link SnapshotWriter} of the
+ * snapshot version. Later writes into them, for instance of references to objects that were
+ * serialized in the meantime, are applied to the file.
+ *
+ * <p>
+ * References include the snapshot version, so that incremental snapshots can refer to
+ * unchanged objects in earlier snapshot files. Objects that are serialized again, because
+ * they changed, are recorded in a forwarding table from the old to the new reference, which
+ * is appended to the snapshot file as a segment of the {@link #FORWARDING_TABLE} thread.
+ * Similarly, the references of the serialized messages are appended as segment of the
+ * {@link #ROOT_TABLE} thread, so that a restore knows where to start.
+ */
 public class SnapshotBuffer extends TraceBuffer {
 
-  public static final int FIELD_SIZE    = 8;
-  public static final int CLASS_ID_SIZE = 2;
-  public static final int MAX_FIELD_CNT = Byte.MAX_VALUE;
-  public static final int THREAD_SHIFT  = Long.SIZE - Short.SIZE;
+  public static final int  FIELD_SIZE    = 8;
+  public static final int  CLASS_ID_SIZE = 2;
+  public static final int  MAX_FIELD_CNT = Byte.MAX_VALUE;
+  public static final int  THREAD_SHIFT  = Long.SIZE - Short.SIZE;
+  public static final int  VERSION_SHIFT = THREAD_SHIFT - Byte.SIZE;
+  public static final long MAX_POSITION  = (1L << VERSION_SHIFT) - 1;
+
+  /** Thread id used in the header of forwarding table segments. */
+  public static final long FORWARDING_TABLE = 0xFFFF;
+
+  /** Thread id used in the header of root table segments. */
+  public static final long ROOT_TABLE = 0xFFFE;
 
   protected final byte                  snapshotVersion;
   protected final ActorProcessingThread owner;
 
+  /** Whether full segments are written to the snapshot file, or kept in memory. */
+  private final boolean streamSegments;
+
+  /** All segments in order, the last one is filled, and is the current {@link #buffer}. */
+  private final ArrayList<Segment> segments;
+  private Segment                  current;
+  private SnapshotWriter           writer;
+  private boolean                  finished;
+
+  /** Pairs of old and new reference of objects that were serialized again. */
+  private long[] forwardings;
+  private int    forwardingsLength;
+
+  /** References of the serialized messages. */
+  private long[] roots;
+  private int    rootsLength;
+
   public SnapshotBuffer(final ActorProcessingThread owner) {
-    super(VmSettings.BUFFER_SIZE * 25);
+    this(owner, !VmSettings.TEST_SERIALIZE_ALL);
+  }
+
+  /**
+   * @param streamSegments false to keep all segments in memory, for instance, to deserialize
+   *          them directly with {@link #getBuffer()}
+   */
+  public SnapshotBuffer(final ActorProcessingThread owner, final boolean streamSegments) {
+    super(TracingBackend.pollEmptyBuffer());
     this.owner = owner;
     this.snapshotVersion = owner.getSnapshotId();
+    this.streamSegments = streamSegments;
+    this.segments = new ArrayList<>();
+    this.current = new Segment(0, buffer);
+    segments.add(current);
+  }
+
+  /**
+   * A part of the buffer. Once handed to the writer, the data is owned by the writer.
+   */
+  static final class Segment {
+    final long   start;
+    final byte[] data;
+    int          length;
+
+    /** Position of the data in the snapshot file, only accessed by the writer. */
+    long filePosition = -1;
+
+    Segment(final long start, final byte[] data) {
+      this.start = start;
+      this.data = data;
+    }
   }
 
   public SnapshotRecord getRecord() {
@@ -35,59 +117,324 @@ public class SnapshotBuffer extends TraceBuffer {
   }
 
   public final long calculateReference(final long start) {
-    return (owner.getThreadId() << THREAD_SHIFT) | start;
+    assert start <= MAX_POSITION;
+    return (owner.getThreadId() << THREAD_SHIFT)
+        | ((snapshotVersion & 0xFFL) << VERSION_SHIFT) | start;
+  }
+
+  public static byte getVersion(final long reference) {
+    return (byte) (reference >>> VERSION_SHIFT);
+  }
+
+  private void addObjectEntry(final Object o, final long start) {
+    long reference = calculateReference(start);
+    long previous = getRecord().addObjectEntry(o, reference);
+    if (previous != SnapshotRecord.NO_REFERENCE && streamSegments) {
+      addForwarding(previous, reference);
+    }
+  }
+
+  private void addForwarding(final long previous, final long reference) {
+    forwardings = ensureCapacity(forwardings, forwardingsLength + 2);
+    forwardings[forwardingsLength++] = previous;
+    forwardings[forwardingsLength++] = reference;
   }
 
-  public int addObject(final Object o, final ClassFactory classFact, final int payload) {
+  private static long[] ensureCapacity(final long[] log, final int length) {
+    if (log == null) {
+      return new long[Math.max(16, length)];
+    } else if (length > log.length) {
+      return Arrays.copyOf(log, Math.max(log.length * 2, length));
+    }
+    return log;
+  }
+
+  public long addObject(final Object o, final ClassFactory classFact, final int payload) {
     assert !getRecord().containsObject(o) : "Object serialized multiple times";
 
-    int oldPos = this.position;
-    getRecord().addObjectEntry(o, calculateReference(oldPos));
+    long start = reserve(CLASS_ID_SIZE + payload);
+    addObjectEntry(o, start);
 
-    this.putShortAt(this.position,
-        classFact.getIdentifier().getSymbolId());
-    this.position += CLASS_ID_SIZE + payload;
-    return oldPos + CLASS_ID_SIZE;
+    this.putShortAt(start, classFact.getIdentifier().getSymbolId());
+    return start + CLASS_ID_SIZE;
   }
 
-  public int addObjectWithFields(final Object o, final ClassFactory classFact,
+  public long addObjectWithFields(final Object o, final ClassFactory classFact,
       final int fieldCnt) {
     assert fieldCnt < MAX_FIELD_CNT;
     assert !getRecord().containsObject(o) : "Object serialized multiple times";
 
-    int oldPos = this.position;
-    getRecord().addObjectEntry(o, calculateReference(oldPos));
+    long start = reserve(CLASS_ID_SIZE + (FIELD_SIZE * fieldCnt));
+    addObjectEntry(o, start);
 
-    this.putShortAt(this.position,
-        classFact.getIdentifier().getSymbolId());
-    this.position += CLASS_ID_SIZE + (FIELD_SIZE * fieldCnt);
-    return oldPos + CLASS_ID_SIZE;
+    this.putShortAt(start, classFact.getIdentifier().getSymbolId());
+    return start + CLASS_ID_SIZE;
   }
 
-  public int addMessage(final int payload) {
+  public long addMessage(final int payload) {
     // we dont put messages into our lookup table as there should be only one reference to it
     // (either from a promise or a mailbox)
-    int oldPos = this.position;
-    getRecord().addMessageEntry(calculateReference(oldPos));
+    long start = reserve(CLASS_ID_SIZE + payload);
+    long reference = calculateReference(start);
+    getRecord().addMessageEntry(reference);
+
+    if (streamSegments) {
+      roots = ensureCapacity(roots, rootsLength + 1);
+      roots[rootsLength++] = reference;
+    }
 
-    this.putShortAt(this.position,
+    this.putShortAt(start,
         Classes.messageClass.getFactory().getClassName().getSymbolId());
-    this.position += CLASS_ID_SIZE + payload;
-    return oldPos + CLASS_ID_SIZE;
+    return start + CLASS_ID_SIZE;
+  }
+
+  /**
+   * Reserve space for an entry, in a new segment if it does not fit into the current one.
+   *
+   * @return the logical position of the entry
+   */
+  private long reserve(final int size) {
+    assert !finished;
+    if (position + size > buffer.length) {
+      startSegment(size);
+    }
+    long start = current.start + position;
+    position += size;
+    return start;
+  }
+
+  @TruffleBoundary
+  private void startSegment(final int requiredSpace) {
+    byte[] data;
+    if (requiredSpace > VmSettings.BUFFER_SIZE) {
+      data = new byte[requiredSpace];
+    } else {
+      data = TracingBackend.pollEmptyBuffer();
+    }
+    Segment next = new Segment(current.start + position, data);
+
+    synchronized (this) {
+      completeCurrentSegment();
+      segments.add(next);
+      current = next;
+      buffer = data;
+      position = 0;
+    }
+  }
+
+  private void completeCurrentSegment() {
+    assert Thread.holdsLock(this);
+    current.length = position;
+    if (streamSegments) {
+      getWriter().append(calculateReference(current.start), current);
+    }
+  }
+
+  private SnapshotWriter getWriter() {
+    if (writer == null) {
+      writer = SnapshotBackend.getWriter(snapshotVersion);
+    }
+    return writer;
+  }
+
+  /**
+   * Append a table of references as segment of the given pseudo thread, i.e.,
+   * {@link #FORWARDING_TABLE} or {@link #ROOT_TABLE}.
+   */
+  private void writeTable(final long tableThread, final long[] table, final int length) {
+    byte[] data = new byte[length * Long.BYTES];
+    for (int i = 0; i < length; i++) {
+      UNSAFE.putLong(data, BYTE_ARR_BASE_OFFSET + (long) i * Long.BYTES, table[i]);
+    }
+
+    Segment s = new Segment(0, data);
+    s.length = data.length;
+    getWriter().append((tableThread << THREAD_SHIFT)
+        | ((snapshotVersion & 0xFFL) << VERSION_SHIFT), s);
+  }
+
+  /**
+   * Hand the last segment to the writer. From now on, all writes go to the snapshot file.
+   */
+  @TruffleBoundary
+  public synchronized void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    if (position == 0) {
+      TracingBackend.recycleBuffer(buffer);
+    } else {
+      completeCurrentSegment();
+    }
+
+    if (forwardingsLength > 0) {
+      writeTable(FORWARDING_TABLE, forwardings, forwardingsLength);
+    }
+    if (rootsLength > 0) {
+      writeTable(ROOT_TABLE, roots, rootsLength);
+    }
   }
 
   @Override
   protected void swapBufferWhenNotEnoughSpace(final TraceActorContextNode tracer) {
-    throw new UnsupportedOperationException("TODO find a solution for snapshot size");
+    startSegment(0);
+  }
+
+  public void putByteAt(final long idx, final byte x) {
+    if (idx >= current.start) {
+      assert !finished && idx + 1 <= current.start + buffer.length;
+      UNSAFE.putByte(buffer, BYTE_ARR_BASE_OFFSET + (idx - current.start), x);
+    } else {
+      putInEarlierSegment(idx, x, Byte.BYTES);
+    }
+  }
+
+  public void putShortAt(final long idx, final short x) {
+    if (idx >= current.start) {
+      assert !finished && idx + Short.BYTES <= current.start + buffer.length;
+      UNSAFE.putShort(buffer, BYTE_ARR_BASE_OFFSET + (idx - current.start), x);
+    } else {
+      putInEarlierSegment(idx, x, Short.BYTES);
+    }
+  }
+
+  public void putIntAt(final long idx, final int x) {
+    if (idx >= current.start) {
+      assert !finished && idx + Integer.BYTES <= current.start + buffer.length;
+      UNSAFE.putInt(buffer, BYTE_ARR_BASE_OFFSET + (idx - current.start), x);
+    } else {
+      putInEarlierSegment(idx, x, Integer.BYTES);
+    }
+  }
+
+  public void putLongAt(final long idx, final long x) {
+    if (idx >= current.start) {
+      assert !finished && idx + Long.BYTES <= current.start + buffer.length;
+      UNSAFE.putLong(buffer, BYTE_ARR_BASE_OFFSET + (idx - current.start), x);
+    } else {
+      putInEarlierSegment(idx, x, Long.BYTES);
+    }
+  }
+
+  public void putDoubleAt(final long idx, final double x) {
+    putLongAt(idx, Double.doubleToRawLongBits(x));
+  }
+
+  public void putBytesAt(final long idx, final byte[] bytes) {
+    if (idx >= current.start) {
+      assert !finished && idx + bytes.length <= current.start + buffer.length;
+      UNSAFE.copyMemory(bytes, BYTE_ARR_BASE_OFFSET, buffer,
+          BYTE_ARR_BASE_OFFSET + (idx - current.start), bytes.length);
+    } else {
+      for (int i = 0; i < bytes.length; i++) {
+        putInEarlierSegment(idx + i, bytes[i], Byte.BYTES);
+      }
+    }
+  }
+
+  @Override
+  public void putByteAt(final int idx, final byte x) {
+    putByteAt((long) idx, x);
+  }
+
+  @Override
+  public void putShortAt(final int idx, final short x) {
+    putShortAt((long) idx, x);
+  }
+
+  @Override
+  public void putIntAt(final int idx, final int x) {
+    putIntAt((long) idx, x);
+  }
+
+  @Override
+  public void putLongAt(final int idx, final long x) {
+    putLongAt((long) idx, x);
+  }
+
+  @Override
+  public void putDoubleAt(final int idx, final double x) {
+    putDoubleAt((long) idx, x);
+  }
+
+  @Override
+  public void putBytesAt(final int idx, final byte[] bytes) {
+    putBytesAt((long) idx, bytes);
+  }
+
+  /**
+   * Write a reference into this buffer from any thread, for instance to resolve a far
+   * reference to an object that was serialized by another actor.
+   */
+  @TruffleBoundary
+  public synchronized void putReferenceAt(final long idx, final long reference) {
+    Segment s = findSegment(idx);
+    if (s == current && !finished) {
+      UNSAFE.putLong(s.data, BYTE_ARR_BASE_OFFSET + (idx - s.start), reference);
+    } else {
+      putInSegment(s, idx, reference, Long.BYTES);
+    }
+  }
+
+  @TruffleBoundary
+  private void putInEarlierSegment(final long idx, final long value, final int size) {
+    putInSegment(findSegment(idx), idx, value, size);
+  }
+
+  private void putInSegment(final Segment s, final long idx, final long value,
+      final int size) {
+    int offset = (int) (idx - s.start);
+    assert offset + size <= s.length;
+
+    if (streamSegments) {
+      writer.patch(s, offset, value, size);
+      return;
+    }
+
+    long address = BYTE_ARR_BASE_OFFSET + offset;
+    switch (size) {
+      case Byte.BYTES:
+        UNSAFE.putByte(s.data, address, (byte) value);
+        break;
+      case Short.BYTES:
+        UNSAFE.putShort(s.data, address, (short) value);
+        break;
+      case Integer.BYTES:
+        UNSAFE.putInt(s.data, address, (int) value);
+        break;
+      default:
+        UNSAFE.putLong(s.data, address, value);
+    }
+  }
+
+  private Segment findSegment(final long idx) {
+    int low = 0;
+    int high = segments.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (segments.get(mid).start <= idx) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return segments.get(low);
   }
 
   // for testing purposes
   public DeserializationBuffer getBuffer() {
-    return new DeserializationBuffer(buffer);
-  }
+    assert !streamSegments : "Segments were written to the snapshot file";
+    if (segments.size() == 1) {
+      return new DeserializationBuffer(buffer);
+    }
 
-  public byte[] getRawBuffer() {
-    return this.buffer;
+    byte[] all = new byte[(int) (current.start + position)];
+    for (Segment s : segments) {
+      int length = s == current ? position : s.length;
+      System.arraycopy(s.data, 0, all, (int) s.start, length);
+    }
+    return new DeserializationBuffer(all);
   }
 
   public Byte getSnapshotVersion() {
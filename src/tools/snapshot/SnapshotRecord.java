@@ -1,20 +1,34 @@
 package tools.snapshot;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.EconomicSet;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
 import som.interpreter.Types;
+import som.interpreter.actors.Actor;
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.vm.VmSettings;
+import som.vmobjects.SArray.SMutableArray;
+import som.vmobjects.SObject;
+import tools.concurrency.TracingActors.TracingActor;
 
 
 public class SnapshotRecord {
+  /** Returned for objects that were not serialized yet. */
+  public static final long NO_REFERENCE = -1;
+
   /**
    * This map allows us to know if we already serialized an object (and avoid circles).
-   * We can get the location of the serialized object in the trace
+   * We can get the location of the serialized object in the trace.
+   * With incremental snapshots, the entries are kept across versions, and the keys are weak,
+   * so that objects that became garbage are not kept alive by the record.
    */
-  private final EconomicMap<Object, Long> entries;
-  private final EconomicSet<Long>         messageOffsets;
+  private final IdentityLongMap   entries;
+  private final EconomicSet<Long> messageOffsets;
 
   /**
    * This list is used to keep track of references to unserialized objects in the actor owning
@@ -27,19 +41,129 @@ public class SnapshotRecord {
    */
   private final ConcurrentLinkedQueue<FarRefTodo> externalReferences;
 
+  /**
+   * Objects that were written to after they were serialized, see {@link #recordWrite}. With
+   * incremental snapshots, only these are serialized again for the next snapshot version.
+   * Only accessed by the thread executing the actor. Collected objects do not need to be
+   * serialized again, so the objects are only weakly referenced.
+   */
+  private final ArrayList<WeakReference<Object>> dirtyObjects;
+
+  /** The snapshot version the entries are serialized for. */
+  private byte version;
+
   public SnapshotRecord() {
-    this.entries = EconomicMap.create();
+    this.entries = new IdentityLongMap(VmSettings.INCREMENTAL_SNAPSHOTS);
     this.messageOffsets = EconomicSet.create();
     this.externalReferences = new ConcurrentLinkedQueue<>();
+    this.dirtyObjects = new ArrayList<>();
+  }
+
+  /**
+   * Start serializing into the buffer of a new snapshot version, if necessary.
+   * For a full snapshot, all objects are serialized again. An incremental snapshot only
+   * contains the objects that were written to since the previous version. Unchanged objects
+   * are referenced in the snapshot they were last serialized in.
+   */
+  public void startSnapshotIfNecessary(final SnapshotBuffer sb) {
+    if (version == sb.snapshotVersion) {
+      return;
+    }
+    version = sb.snapshotVersion;
+
+    if (!VmSettings.INCREMENTAL_SNAPSHOTS) {
+      synchronized (entries) {
+        entries.clear();
+      }
+      return;
+    }
+
+    for (WeakReference<Object> ref : dirtyObjects) {
+      Object o = ref.get();
+      if (o != null && isSnapshotDirty(o)) {
+        Types.getClassOf(o).serialize(o, sb);
+      }
+    }
+    dirtyObjects.clear();
   }
 
   public boolean containsObject(final Object o) {
-    return entries.containsKey(o);
+    if (!VmSettings.INCREMENTAL_SNAPSHOTS) {
+      return entries.containsKey(o);
+    }
+
+    long ref = entries.get(o, NO_REFERENCE);
+    return ref != NO_REFERENCE && isSerializedFor(o, ref, version);
+  }
+
+  /**
+   * @return whether the serialization of the object at the given reference can be used for
+   *         the given snapshot version
+   */
+  private static boolean isSerializedFor(final Object o, final long ref, final byte version) {
+    if (SnapshotBuffer.getVersion(ref) == version) {
+      return true;
+    }
+    // unchanged objects are referenced in the snapshot they were last serialized in
+    return VmSettings.INCREMENTAL_SNAPSHOTS && !isSnapshotDirty(o);
+  }
+
+  /**
+   * Objects without write barrier are considered to be always dirty, they are serialized
+   * again, whenever they are reached in a new snapshot version.
+   */
+  private static boolean isSnapshotDirty(final Object o) {
+    if (o instanceof SObject) {
+      return ((SObject) o).isSnapshotDirty();
+    } else if (o instanceof SMutableArray) {
+      return ((SMutableArray) o).isSnapshotDirty();
+    }
+    return true;
+  }
+
+  /**
+   * Write barrier for incremental snapshots, to be called after a field of the object was
+   * written.
+   */
+  public static void recordWrite(final SObject o) {
+    if (!o.isSnapshotDirty()) {
+      o.setSnapshotDirty(true);
+      rememberDirtyObject(o);
+    }
+  }
+
+  /**
+   * Write barrier for incremental snapshots, to be called after an element of the array was
+   * written.
+   */
+  public static void recordWrite(final SMutableArray a) {
+    if (!a.isSnapshotDirty()) {
+      a.setSnapshotDirty(true);
+      rememberDirtyObject(a);
+    }
+  }
+
+  @TruffleBoundary
+  private static void rememberDirtyObject(final Object o) {
+    Thread t = Thread.currentThread();
+    if (!(t instanceof ActorProcessingThread)) {
+      return;
+    }
+
+    Actor current = ((ActorProcessingThread) t).getCurrentActor();
+    if (current instanceof TracingActor) {
+      SnapshotRecord record = ((TracingActor) current).getSnapshotRecord();
+      // objects that were not serialized yet, are serialized when they are reached
+      if (record.entries.containsKey(o)) {
+        record.dirtyObjects.add(new WeakReference<>(o));
+      }
+    }
   }
 
   public long getObjectPointer(final Object o) {
-    if (entries.containsKey(o)) {
-      return entries.get(o);
+    long ref = entries.get(o, NO_REFERENCE);
+    if (ref != NO_REFERENCE) {
+      return ref;
     }
     throw new IllegalArgumentException(
         "Cannot point to unserialized Objects, you are missing a serialization call: " + o);
@@ -49,13 +173,29 @@ public class SnapshotRecord {
     this.messageOffsets.add(offset);
   }
 
-  public void addObjectEntry(final Object o, final long offset) {
+  /**
+   * @return the reference of the earlier serialization of the object, or
+   *         {@link #NO_REFERENCE}
+   */
+  public long addObjectEntry(final Object o, final long offset) {
+    long previous;
     synchronized (entries) {
-      entries.put(o, offset);
+      previous = entries.put(o, offset, NO_REFERENCE);
+    }
+
+    if (VmSettings.INCREMENTAL_SNAPSHOTS) {
+      if (o instanceof SObject) {
+        ((SObject) o).setSnapshotDirty(false);
+      } else if (o instanceof SMutableArray) {
+        ((SMutableArray) o).setSnapshotDirty(false);
+      }
     }
+    return previous;
   }
 
   public void handleTodos(final SnapshotBuffer sb) {
+    startSnapshotIfNecessary(sb);
+
     while (!externalReferences.isEmpty()) {
       FarRefTodo frt = externalReferences.poll();
 
@@ -80,25 +220,54 @@ public class SnapshotRecord {
    * @param destination offset of the reference inside {@code other}
    */
   public void farReference(final Object o, final SnapshotBuffer other,
-      final int destination) {
-    Long l;
+      final long destination) {
+    long l;
     synchronized (entries) {
-      l = entries.get(o);
+      l = entries.get(o, NO_REFERENCE);
     }
 
-    if (l != null) {
-      other.putLongAt(destination, l);
+    if (l != NO_REFERENCE && isSerializedFor(o, l, other.snapshotVersion)) {
+      other.putReferenceAt(destination, l);
     } else {
       externalReferences.offer(new FarRefTodo(other, destination, o));
+      if (!VmSettings.TEST_SNAPSHOTS) {
+        // test snapshots are not written to files
+        SnapshotBackend.registerFarReferenceTodo(this);
+      }
+    }
+  }
+
+  /**
+   * Resolve the far references to objects that were serialized after the reference was
+   * recorded. Called before the snapshot files are closed, when the owning actor does not
+   * handle its todos anymore.
+   *
+   * @return the number of far references to objects that were never serialized
+   */
+  int resolveSerializedTodos() {
+    int unresolved = 0;
+    FarRefTodo frt;
+    while ((frt = externalReferences.poll()) != null) {
+      long l;
+      synchronized (entries) {
+        l = entries.get(frt.target, NO_REFERENCE);
+      }
+
+      if (l != NO_REFERENCE && isSerializedFor(frt.target, l, frt.referer.snapshotVersion)) {
+        frt.resolve(l);
+      } else {
+        unresolved += 1;
+      }
     }
+    return unresolved;
   }
 
   private final class FarRefTodo {
     private final SnapshotBuffer referer;
-    private final int            referenceOffset;
+    private final long           referenceOffset;
     final Object                 target;
 
-    FarRefTodo(final SnapshotBuffer referer, final int referenceOffset,
+    FarRefTodo(final SnapshotBuffer referer, final long referenceOffset,
         final Object target) {
       this.referer = referer;
       this.referenceOffset = referenceOffset;
@@ -106,7 +275,7 @@ public class SnapshotRecord {
     }
 
     public void resolve(final long targetOffset) {
-      referer.putLongAt(referenceOffset, targetOffset);
+      referer.putReferenceAt(referenceOffset, targetOffset);
     }
   }
 }
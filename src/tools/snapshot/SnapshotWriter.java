@@ -0,0 +1,182 @@
+package tools.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import tools.concurrency.TracingBackend;
+import tools.snapshot.SnapshotBuffer.Segment;
+
+
+/**
+ * Streams the segments of the {@link SnapshotBuffer}s of one snapshot version to the
+ * <code>.snap</code> file, as soon as they are full.
+ *
+ * <p>
+ * The file is a sequence of segments in the order they were completed. Each segment starts
+ * with a header that consists of the reference of its first byte, i.e., the thread and the
+ * logical position, and its length. Thus, a reader can map references to file positions,
+ * independent of how the segments of the threads are interleaved. Writes into segments that
+ * were already handed to the writer are applied to the file, in the order they were
+ * requested.
+ */
+public final class SnapshotWriter extends Thread {
+  public static final int SEGMENT_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+  private static final Object END = new Object();
+
+  private final File                        file;
+  private final LinkedBlockingQueue<Object> queue;
+  private final ByteBuffer                  header;
+  private final ByteBuffer                  patchBuffer;
+  private long                              filePosition;
+
+  /** Set by {@link #close()}, guarded by this writer. */
+  private boolean closed;
+
+  SnapshotWriter(final File file) {
+    super("SnapshotWriter");
+    this.file = file;
+    this.queue = new LinkedBlockingQueue<>();
+    this.header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    this.patchBuffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+  }
+
+  private static final class SegmentWrite {
+    final long    reference;
+    final Segment segment;
+
+    SegmentWrite(final long reference, final Segment segment) {
+      this.reference = reference;
+      this.segment = segment;
+    }
+  }
+
+  private static final class Patch {
+    final Segment segment;
+    final int     offset;
+    final long    value;
+    final int     size;
+
+    Patch(final Segment segment, final int offset, final long value, final int size) {
+      this.segment = segment;
+      this.offset = offset;
+      this.value = value;
+      this.size = size;
+    }
+  }
+
+  synchronized void append(final long reference, final Segment segment) {
+    checkOpen();
+    queue.add(new SegmentWrite(reference, segment));
+  }
+
+  /**
+   * Overwrite <code>size</code> bytes of an appended segment with the given value.
+   */
+  synchronized void patch(final Segment segment, final int offset, final long value,
+      final int size) {
+    checkOpen();
+    queue.add(new Patch(segment, offset, value, size));
+  }
+
+  /**
+   * Writes after the end marker would be dropped silently, so they are rejected instead.
+   */
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException(
+          "The snapshot file " + file + " was already written and closed");
+    }
+  }
+
+  /**
+   * Write all outstanding segments and patches, and close the file.
+   */
+  void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      queue.add(END);
+    }
+    try {
+      join();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void run() {
+    file.getAbsoluteFile().getParentFile().mkdirs();
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (true) {
+        Object task = queue.take();
+        if (task == END) {
+          return;
+        } else if (task instanceof SegmentWrite) {
+          writeSegment(channel, (SegmentWrite) task);
+        } else {
+          writePatch(channel, (Patch) task);
+        }
+      }
+    } catch (IOException | InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void writeSegment(final FileChannel channel, final SegmentWrite task)
+      throws IOException {
+    Segment s = task.segment;
+
+    header.clear();
+    header.putLong(task.reference);
+    header.putInt(s.length);
+    header.flip();
+    writeFully(channel, header, filePosition);
+
+    s.filePosition = filePosition + SEGMENT_HEADER_SIZE;
+    writeFully(channel, ByteBuffer.wrap(s.data, 0, s.length), s.filePosition);
+    filePosition = s.filePosition + s.length;
+
+    // later writes go directly to the file, so the data is not needed anymore
+    TracingBackend.recycleBuffer(s.data);
+  }
+
+  private void writePatch(final FileChannel channel, final Patch patch) throws IOException {
+    assert patch.segment.filePosition >= 0 : "Patches are written after their segment";
+
+    patchBuffer.clear();
+    switch (patch.size) {
+      case Byte.BYTES:
+        patchBuffer.put((byte) patch.value);
+        break;
+      case Short.BYTES:
+        patchBuffer.putShort((short) patch.value);
+        break;
+      case Integer.BYTES:
+        patchBuffer.putInt((int) patch.value);
+        break;
+      default:
+        patchBuffer.putLong(patch.value);
+    }
+    patchBuffer.flip();
+    writeFully(channel, patchBuffer, patch.segment.filePosition + patch.offset);
+  }
+
+  private static void writeFully(final FileChannel channel, final ByteBuffer src,
+      final long position) throws IOException {
+    long pos = position;
+    while (src.hasRemaining()) {
+      pos += channel.write(src, pos);
+    }
+  }
+}
@@ -3,24 +3,32 @@ package tools.snapshot.deserialization;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
-import org.graalvm.collections.EconomicMap;
-
 import som.interpreter.actors.Actor;
 import som.vmobjects.SClass;
+import tools.snapshot.LongObjectMap;
 import tools.snapshot.SnapshotBackend;
 import tools.snapshot.deserialization.FixupInformation.FixupList;
 
 
 public class DeserializationBuffer {
 
-  private final ByteBuffer                wrapped;
-  private final EconomicMap<Long, Object> deserialized;
-  private long                            lastRef;
+  private ByteBuffer                  wrapped;
+  private final LongObjectMap<Object> deserialized;
+  protected long                      lastRef;
+
+  /** The snapshots to deserialize from, or null if all objects are in {@link #wrapped}. */
+  protected final SnapshotChain chain;
 
   public DeserializationBuffer(final byte[] backing) {
     wrapped = ByteBuffer.wrap(backing).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
     wrapped.rewind();
-    deserialized = EconomicMap.create();
+    deserialized = new LongObjectMap<>();
+    chain = null;
+  }
+
+  public DeserializationBuffer(final SnapshotChain chain) {
+    this.chain = chain;
+    deserialized = new LongObjectMap<>();
   }
 
   public byte get() {
@@ -47,15 +55,14 @@ public class DeserializationBuffer {
     return wrapped.getDouble();
   }
 
-  public Object deserialize(final long current) {
+  public Object deserialize(final long reference) {
+    long current = resolve(reference);
     assert !deserialized.containsKey(current);
-    this.position((int) current);
 
     // to avoid endless loop, when null is read we replace it with a linked list containing
     // fixup information
     deserialized.put(current, null);
-    short cId = getShort();
-    Object o = SnapshotBackend.lookupClass(cId).getSerializer().deserialize(this);
+    Object o = readEntry(current);
 
     fixUpIfNecessary(current, o);
     deserialized.put(current, o);
@@ -63,21 +70,12 @@ public class DeserializationBuffer {
   }
 
   public Object getReference() {
-    long reference = getLong();
+    long reference = resolve(getLong());
     lastRef = reference;
     if (!deserialized.containsKey(reference)) {
-      int current = position();
-
       deserialized.put(reference, null);
+      Object o = readEntry(reference);
 
-      // prepare deserialize referenced object
-      position((int) reference);
-      short classId = getShort();
-      SClass clazz = SnapshotBackend.lookupClass(classId);
-      Object o = clazz.getSerializer().deserialize(this);
-
-      // continue with current object
-      position(current);
       fixUpIfNecessary(reference, o);
       deserialized.put(reference, o);
       return o;
@@ -86,6 +84,47 @@ public class DeserializationBuffer {
     }
   }
 
+  /**
+   * Deserialize the referenced entry, and continue with the current object afterwards.
+   */
+  protected final Object readEntry(final long reference) {
+    ByteBuffer currentBuffer = wrapped;
+    int current = currentBuffer == null ? 0 : position();
+
+    seek(reference);
+    Object o = readObject(getShort());
+
+    wrapped = currentBuffer;
+    if (currentBuffer != null) {
+      position(current);
+    }
+    return o;
+  }
+
+  /**
+   * Deserialize an object of the given class, positioned after the class id of its entry.
+   */
+  protected Object readObject(final short classId) {
+    SClass clazz = SnapshotBackend.lookupClass(classId);
+    return clazz.getSerializer().deserialize(this);
+  }
+
+  protected final long resolve(final long reference) {
+    return chain == null ? reference : chain.resolve(reference);
+  }
+
+  /**
+   * Continue reading at the referenced object, which might be in another snapshot of the
+   * chain.
+   */
+  private void seek(final long reference) {
+    if (chain == null) {
+      position((int) reference);
+    } else {
+      wrapped = chain.getSegment(reference);
+    }
+  }
+
   public static boolean needsFixup(final Object o) {
     return o == null || o instanceof FixupList;
   }
@@ -0,0 +1,146 @@
+package tools.snapshot.deserialization;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A deserialization buffer for one of the threads restoring a snapshot in parallel, see
+ * {@link SnapshotRestore}.
+ *
+ * <p>
+ * All buffers of a restore share the map of deserialized objects. The first buffer that
+ * reaches an object claims it, by putting itself into the map, and deserializes it.
+ * A reference to an object that this buffer is still deserializing is a cycle, and is left to
+ * be fixed up, as with a {@link DeserializationBuffer}. A reference to an object that another
+ * buffer is deserializing waits for the object to be complete, because not all serializers
+ * can handle incomplete objects. Only if the other buffer, directly or indirectly, waits for
+ * this one, the cycle spans threads, and the reference is left to be fixed up, too.
+ *
+ * <p>
+ * Fixups are collected per buffer, without synchronization, and applied by
+ * {@link #fixUp()}, once all objects are complete.
+ */
+public class ParallelDeserializationBuffer extends DeserializationBuffer {
+
+  private final ConcurrentHashMap<Long, Object> deserialized;
+
+  /** The reference of the object claimed by another buffer, this buffer waits for. */
+  private volatile Long waitingOn;
+
+  private long[]             fixupReferences;
+  private FixupInformation[] fixups;
+  private int                numFixups;
+
+  public ParallelDeserializationBuffer(final SnapshotChain chain,
+      final ConcurrentHashMap<Long, Object> deserialized) {
+    super(chain);
+    this.deserialized = deserialized;
+    this.fixupReferences = new long[16];
+    this.fixups = new FixupInformation[16];
+  }
+
+  /**
+   * Deserialize the referenced object, unless another buffer did, or is doing so.
+   */
+  @Override
+  public Object deserialize(final long reference) {
+    return getOrRead(resolve(reference));
+  }
+
+  @Override
+  public Object getReference() {
+    long reference = resolve(getLong());
+    lastRef = reference;
+    return getOrRead(reference);
+  }
+
+  private Object getOrRead(final long reference) {
+    Object o = deserialized.putIfAbsent(reference, this);
+    if (o == null) {
+      o = readEntry(reference);
+      deserialized.put(reference, o);
+      return o;
+    }
+
+    if (o == this) {
+      return null;
+    } else if (o instanceof ParallelDeserializationBuffer) {
+      return await(reference);
+    }
+    return o;
+  }
+
+  /**
+   * Wait for another buffer to complete the referenced object.
+   *
+   * @return the object, or null if the other buffer waits for this one
+   */
+  private Object await(final long reference) {
+    waitingOn = reference;
+    try {
+      while (true) {
+        Object o = deserialized.get(reference);
+        if (!(o instanceof ParallelDeserializationBuffer)) {
+          return o;
+        }
+        if (isWaitingFor(o)) {
+          return null;
+        }
+        Thread.yield();
+      }
+    } finally {
+      waitingOn = null;
+    }
+  }
+
+  /**
+   * Follow the chain of buffers waiting for each other, starting with the given one.
+   * A buffer that finished waiting ends the chain, since the object it waited for is no
+   * longer claimed.
+   */
+  private boolean isWaitingFor(final Object owner) {
+    Object b = owner;
+    while (b instanceof ParallelDeserializationBuffer) {
+      if (b == this) {
+        return true;
+      }
+      Long ref = ((ParallelDeserializationBuffer) b).waitingOn;
+      if (ref == null) {
+        return false;
+      }
+      b = deserialized.get(ref);
+    }
+    return false;
+  }
+
+  @Override
+  public void installFixup(final FixupInformation fi) {
+    if (numFixups == fixups.length) {
+      fixupReferences = Arrays.copyOf(fixupReferences, numFixups * 2);
+      fixups = Arrays.copyOf(fixups, numFixups * 2);
+    }
+    fixupReferences[numFixups] = lastRef;
+    fixups[numFixups] = fi;
+    numFixups++;
+  }
+
+  /**
+   * Apply the fixups of this buffer. Needs to be called after all buffers of the restore
+   * completed deserializing.
+   */
+  public void fixUp() {
+    for (int i = 0; i < numFixups; i++) {
+      Object o = deserialized.get(fixupReferences[i]);
+      assert !(o instanceof ParallelDeserializationBuffer);
+      fixups[i].fixUp(o);
+    }
+    fixupReferences = null;
+    fixups = null;
+  }
+
+  /** @return the deserialized object, after the restore completed */
+  public Object getDeserialized(final long reference) {
+    return deserialized.get(resolve(reference));
+  }
+}
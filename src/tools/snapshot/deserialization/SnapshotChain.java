@@ -0,0 +1,239 @@
+package tools.snapshot.deserialization;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.MapCursor;
+
+import tools.snapshot.SnapshotBuffer;
+import tools.snapshot.SnapshotWriter;
+
+
+/**
+ * A base snapshot and the incremental snapshots following it. Objects that did not change
+ * are only contained in the snapshot they were last serialized in, and references can thus
+ * point into any of the snapshot files of the chain.
+ *
+ * <p>
+ * The files are memory-mapped. Their segments are indexed per thread and snapshot version,
+ * i.e., per space, by the position part of the references. Since an entry never spans
+ * segments, an object can be read from the mapped segment directly. Forwardings of objects
+ * that were serialized again are followed by {@link #resolve(long)}, so that a reference
+ * always leads to the latest state of an object.
+ *
+ * <p>
+ * After loading, the chain is only read, and can be used by multiple threads.
+ */
+public final class SnapshotChain {
+
+  /** The mapped segments of a thread in one snapshot version, sorted by their start. */
+  private static final class Space {
+    private long[]       starts;
+    private ByteBuffer[] segments;
+    private int          size;
+
+    void add(final long start, final ByteBuffer segment) {
+      if (starts == null) {
+        starts = new long[4];
+        segments = new ByteBuffer[4];
+      } else if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        segments = Arrays.copyOf(segments, size * 2);
+      }
+
+      // segments of a thread are mostly, but not necessarily written in order
+      int i = size;
+      while (i > 0 && starts[i - 1] > start) {
+        starts[i] = starts[i - 1];
+        segments[i] = segments[i - 1];
+        i--;
+      }
+      starts[i] = start;
+      segments[i] = segment;
+      size++;
+    }
+
+    int find(final long position) {
+      int low = 0;
+      int high = size - 1;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        if (starts[mid] <= position) {
+          low = mid;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return low;
+    }
+  }
+
+  /** The spaces indexed by the thread and version part of references. */
+  private final EconomicMap<Long, Space> spaces;
+  private final EconomicMap<Long, Long>  forwardings;
+
+  /** The references of the serialized messages, by thread. */
+  private final EconomicMap<Long, long[]> roots;
+
+  private long size;
+
+  public SnapshotChain(final List<File> snapshotFiles) throws IOException {
+    this.spaces = EconomicMap.create();
+    this.forwardings = EconomicMap.create();
+    this.roots = EconomicMap.create();
+
+    for (File f : snapshotFiles) {
+      readSegments(f);
+    }
+  }
+
+  /**
+   * Load the snapshot files of the versions <code>first</code> to <code>last</code>, with
+   * <code>first</code> being a full snapshot.
+   */
+  public static SnapshotChain load(final String traceFile, final byte first,
+      final byte last) throws IOException {
+    List<File> files = new ArrayList<>();
+    for (int v = first; v <= last; v++) {
+      files.add(new File(traceFile + v + ".snap"));
+    }
+    return new SnapshotChain(files);
+  }
+
+  private void readSegments(final File f) throws IOException {
+    try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      size += fileSize;
+
+      // files can be larger than what can be mapped at once, so we map windows that contain
+      // whole segments. The mappings stay valid after the channel is closed.
+      MappedByteBuffer window = null;
+      long windowStart = 0;
+      long pos = 0;
+
+      while (pos + SnapshotWriter.SEGMENT_HEADER_SIZE <= fileSize) {
+        if (window == null || pos + SnapshotWriter.SEGMENT_HEADER_SIZE > windowStart
+            + window.limit()) {
+          window = map(channel, pos, fileSize);
+          windowStart = pos;
+        }
+        int headerOffset = (int) (pos - windowStart);
+        long reference = window.getLong(headerOffset);
+        int length = window.getInt(headerOffset + Long.BYTES);
+
+        long dataStart = pos + SnapshotWriter.SEGMENT_HEADER_SIZE;
+        if (dataStart + length > windowStart + window.limit()) {
+          window = map(channel, pos, fileSize);
+          windowStart = pos;
+        }
+
+        window.position((int) (dataStart - windowStart));
+        ByteBuffer data = window.slice();
+        data.limit(length);
+        addSegment(reference, data.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN));
+
+        pos = dataStart + length;
+      }
+    }
+  }
+
+  private static MappedByteBuffer map(final FileChannel channel, final long start,
+      final long fileSize) throws IOException {
+    MappedByteBuffer window = channel.map(MapMode.READ_ONLY, start,
+        Math.min(Integer.MAX_VALUE, fileSize - start));
+    window.order(ByteOrder.LITTLE_ENDIAN);
+    return window;
+  }
+
+  private void addSegment(final long reference, final ByteBuffer data) {
+    long thread = reference >>> SnapshotBuffer.THREAD_SHIFT;
+    if (thread == SnapshotBuffer.FORWARDING_TABLE) {
+      while (data.hasRemaining()) {
+        forwardings.put(data.getLong(), data.getLong());
+      }
+    } else if (thread == SnapshotBuffer.ROOT_TABLE) {
+      addRoots(data);
+    } else {
+      long key = reference >>> SnapshotBuffer.VERSION_SHIFT;
+      Space space = spaces.get(key);
+      if (space == null) {
+        space = new Space();
+        spaces.put(key, space);
+      }
+      space.add(getPosition(reference), data);
+    }
+  }
+
+  private void addRoots(final ByteBuffer table) {
+    int n = table.remaining() / Long.BYTES;
+    if (n == 0) {
+      return;
+    }
+
+    // the table is written by the thread, that serialized the messages
+    long thread = table.getLong(0) >>> SnapshotBuffer.THREAD_SHIFT;
+    long[] existing = roots.get(thread);
+    int offset = existing == null ? 0 : existing.length;
+    long[] all = existing == null ? new long[n] : Arrays.copyOf(existing, offset + n);
+    for (int i = 0; i < n; i++) {
+      all[offset + i] = table.getLong();
+    }
+    roots.put(thread, all);
+  }
+
+  /**
+   * @return the reference of the latest serialization of the referenced object
+   */
+  public long resolve(final long reference) {
+    long ref = reference;
+    Long next = forwardings.get(ref);
+    while (next != null) {
+      ref = next;
+      next = forwardings.get(ref);
+    }
+    return ref;
+  }
+
+  /**
+   * @return a new buffer positioned at the referenced entry, or null if the reference does
+   *         not point into the chain
+   */
+  public ByteBuffer getSegment(final long reference) {
+    Space space = spaces.get(reference >>> SnapshotBuffer.VERSION_SHIFT);
+    if (space == null) {
+      return null;
+    }
+
+    long position = getPosition(reference);
+    int i = space.find(position);
+    ByteBuffer segment = space.segments[i].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    segment.position((int) (position - space.starts[i]));
+    return segment;
+  }
+
+  public static long getPosition(final long reference) {
+    return reference & SnapshotBuffer.MAX_POSITION;
+  }
+
+  /**
+   * @return the references of the serialized messages, by the thread that serialized them
+   */
+  public MapCursor<Long, long[]> getRoots() {
+    return roots.getEntries();
+  }
+
+  /** @return the size of the snapshot files in bytes */
+  public long getSize() {
+    return size;
+  }
+}
@@ -0,0 +1,113 @@
+package tools.snapshot.deserialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.graalvm.collections.MapCursor;
+
+import som.Output;
+
+
+/**
+ * Restores the messages of a snapshot, and everything reachable from them, in parallel.
+ *
+ * <p>
+ * The roots of each thread that wrote the snapshot are deserialized by their own task, with
+ * their own {@link ParallelDeserializationBuffer}. Since the serialized objects of a thread
+ * mostly reference objects of the same thread, the tasks rarely contend for an object.
+ * A task that reaches an object another task is deserializing waits for it. Only references
+ * that form a cycle are fixed up, in a second pass after all tasks completed, again in
+ * parallel.
+ */
+public final class SnapshotRestore {
+
+  private static long restoreTime;
+  private static long restoredBytes;
+  private static long restoredRoots;
+
+  private SnapshotRestore() {}
+
+  /** Creates the buffer of a restore task, tests use it to replace the class lookup. */
+  interface BufferFactory {
+    ParallelDeserializationBuffer create(SnapshotChain chain,
+        ConcurrentHashMap<Long, Object> deserialized);
+  }
+
+  /**
+   * @param pool to run the restore on, the deserialization of promises expects actor
+   *          processing threads
+   * @return the deserialized messages
+   */
+  public static List<Object> restore(final SnapshotChain chain, final ForkJoinPool pool) {
+    return restore(chain, pool, ParallelDeserializationBuffer::new);
+  }
+
+  static List<Object> restore(final SnapshotChain chain, final ForkJoinPool pool,
+      final BufferFactory newBuffer) {
+    long start = System.nanoTime();
+
+    ConcurrentHashMap<Long, Object> deserialized = new ConcurrentHashMap<>();
+    List<ParallelDeserializationBuffer> buffers = new ArrayList<>();
+    List<long[]> roots = new ArrayList<>();
+
+    MapCursor<Long, long[]> e = chain.getRoots();
+    while (e.advance()) {
+      buffers.add(newBuffer.create(chain, deserialized));
+      roots.add(e.getValue());
+    }
+
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(buffers.size());
+    for (int i = 0; i < buffers.size(); i++) {
+      ParallelDeserializationBuffer bb = buffers.get(i);
+      long[] threadRoots = roots.get(i);
+      tasks.add(pool.submit(() -> {
+        for (long root : threadRoots) {
+          bb.deserialize(root);
+        }
+      }));
+    }
+    joinAll(tasks);
+
+    // all objects are complete now, and each fixup writes to its own slot
+    tasks.clear();
+    for (ParallelDeserializationBuffer bb : buffers) {
+      tasks.add(pool.submit(bb::fixUp));
+    }
+    joinAll(tasks);
+
+    List<Object> messages = new ArrayList<>();
+    for (int i = 0; i < buffers.size(); i++) {
+      for (long root : roots.get(i)) {
+        messages.add(buffers.get(i).getDeserialized(root));
+      }
+    }
+
+    synchronized (SnapshotRestore.class) {
+      restoreTime += System.nanoTime() - start;
+      restoredBytes += chain.getSize();
+      restoredRoots += messages.size();
+    }
+    return messages;
+  }
+
+  private static void joinAll(final List<ForkJoinTask<?>> tasks) {
+    for (ForkJoinTask<?> t : tasks) {
+      t.join();
+    }
+  }
+
+  /**
+   * Reports restore time and snapshot size, if a snapshot was restored.
+   */
+  public static synchronized void reportStats() {
+    if (restoredBytes == 0) {
+      return;
+    }
+    Output.println("RESULT-SnapshotRestoreMicros: " + restoreTime / 1000);
+    Output.println("RESULT-SnapshotRestoredBytes: " + restoredBytes);
+    Output.println("RESULT-SnapshotRestoredMessages: " + restoredRoots);
+  }
+}
@@ -35,7 +35,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
   protected void doBoolean(final SArray sa, final SnapshotBuffer sb) {
     boolean[] ba = sa.getBooleanStorage();
     int requiredSpace = ba.length;
-    int base = sb.addObject(sa, classFact, requiredSpace + 5);
+    long base = sb.addObject(sa, classFact, requiredSpace + 5);
     sb.putByteAt(base, TYPE_BOOLEAN);
     sb.putIntAt(base + 1, ba.length);
     base += 5;
@@ -49,7 +49,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
   protected void doDouble(final SArray sa, final SnapshotBuffer sb) {
     double[] da = sa.getDoubleStorage();
     int requiredSpace = da.length * Double.BYTES;
-    int base = sb.addObject(sa, classFact, requiredSpace + 5);
+    long base = sb.addObject(sa, classFact, requiredSpace + 5);
     sb.putByteAt(base, TYPE_DOUBLE);
     sb.putIntAt(base + 1, da.length);
     base += 5;
@@ -63,7 +63,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
   protected void doLong(final SArray sa, final SnapshotBuffer sb) {
     long[] la = sa.getLongStorage();
     int requiredSpace = la.length * Long.BYTES;
-    int base = sb.addObject(sa, classFact, requiredSpace + 5);
+    long base = sb.addObject(sa, classFact, requiredSpace + 5);
     sb.putByteAt(base, TYPE_LONG);
     sb.putIntAt(base + 1, la.length);
     base += 5;
@@ -77,7 +77,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
   protected void doObject(final SArray sa, final SnapshotBuffer sb) {
     Object[] oa = sa.getObjectStorage();
     int requiredSpace = oa.length * 8;
-    int base = sb.addObject(sa, classFact, requiredSpace + 5);
+    long base = sb.addObject(sa, classFact, requiredSpace + 5);
     sb.putByteAt(base, TYPE_OBJECT);
     sb.putIntAt(base + 1, oa.length);
     base += 5;
@@ -91,7 +91,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
 
   @Specialization(guards = "sa.isEmptyType()")
   protected void doEmpty(final SArray sa, final SnapshotBuffer sb) {
-    int base = sb.addObject(sa, classFact, 5);
+    long base = sb.addObject(sa, classFact, 5);
     sb.putByteAt(base, TYPE_EMPTY);
     sb.putIntAt(base + 1, sa.getEmptyStorage());
   }
@@ -102,7 +102,7 @@ public abstract class AbstractArraySerializationNode extends AbstractSerializati
 
     Object[] oa = pea.getStorage();
     int requiredSpace = oa.length * 8;
-    int base = sb.addObject(sa, classFact, requiredSpace + 5);
+    long base = sb.addObject(sa, classFact, requiredSpace + 5);
     sb.putByteAt(base, TYPE_OBJECT);
     sb.putIntAt(base + 1, oa.length);
     base += 5;
@@ -39,7 +39,7 @@ public abstract class BlockSerializationNode extends AbstractSerializationNode {
     MaterializedFrame mf = block.getContextOrNull();
 
     if (mf == null) {
-      int base = sb.addObject(block, classFact, SINVOKABLE_SIZE + 2);
+      long base = sb.addObject(block, classFact, SINVOKABLE_SIZE + 2);
       SInvokable meth = block.getMethod();
       sb.putShortAt(base, meth.getIdentifier().getSymbolId());
       sb.putShortAt(base + 2, (short) 0);
@@ -48,9 +48,9 @@ public abstract class BlockSerializationNode extends AbstractSerializationNode {
 
       Object[] args = mf.getArguments();
 
-      int start = sb.addObject(block, classFact,
+      long start = sb.addObject(block, classFact,
           SINVOKABLE_SIZE + ((args.length + fd.getSlots().size()) * Long.BYTES) + 2);
-      int base = start;
+      long base = start;
 
       SInvokable meth = block.getMethod();
       sb.putShortAt(base, meth.getIdentifier().getSymbolId());
@@ -72,7 +72,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
   // of a difference
 
   // TODO possibly explode as optimization, use cached serialization nodes for the args...
-  protected final void doArguments(final Object[] args, final int base,
+  protected final void doArguments(final Object[] args, final long base,
       final SnapshotBuffer sb) {
 
     // assume number of args is reasonable
@@ -101,7 +101,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
    * Takes 7 bytes in the buffer.
    */
   protected final void doCommonalities(final MessageType type, final SSymbol selector,
-      final TracingActor sender, final int base,
+      final TracingActor sender, final long base,
       final SnapshotBuffer sb) {
     sb.putByteAt(base, type.getValue());
     sb.putShortAt(base + 1, selector.getSymbolId());
@@ -114,7 +114,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + Long.BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.DirectMessage, dm.getSelector(), (TracingActor) dm.getSender(),
@@ -134,7 +134,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + Long.BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.DirectMessageNR, dm.getSelector(),
@@ -154,7 +154,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + Long.BYTES + Long.BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.CallbackMessage, dm.getSelector(),
@@ -178,7 +178,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + Long.BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.CallbackMessageNR, dm.getSelector(),
@@ -205,7 +205,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
 
     int payload = COMMONALITY_BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + 1
         + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.PromiseMessage, dm.getSelector(),
@@ -235,7 +235,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
 
     int payload = COMMONALITY_BYTES + Long.BYTES + Integer.BYTES + 1
         + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.PromiseMessageNR, dm.getSelector(),
@@ -260,7 +260,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + Long.BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     serializeResolver(resolver, sb);
@@ -281,7 +281,7 @@ public abstract class MessageSerializationNode extends AbstractSerializationNode
     Object[] args = dm.getArgs();
 
     int payload = COMMONALITY_BYTES + 1 + (args.length * Long.BYTES);
-    int base = sb.addMessage(payload);
+    long base = sb.addMessage(payload);
     long start = base - SnapshotBuffer.CLASS_ID_SIZE;
 
     doCommonalities(MessageType.UndeliveredPromiseMessageNR, dm.getSelector(),
@@ -21,8 +21,8 @@ import som.interpreter.objectstorage.ObjectLayout;
 import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.interpreter.objectstorage.StorageLocation;
 import som.vmobjects.SObject;
-import som.vmobjects.SObject.SImmutableObject;
-import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SAbstractImmutableObject;
+import som.vmobjects.SObject.SAbstractMutableObject;
 import som.vmobjects.SObjectWithClass;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
 import tools.snapshot.SnapshotBackend;
@@ -192,7 +192,7 @@ public abstract class ObjectSerializationNodes {
 
     @ExplodeLoop
     public void doCached(final SObject o, final SnapshotBuffer sb) {
-      int base = sb.addObjectWithFields(o, classFact, fieldCnt);
+      long base = sb.addObjectWithFields(o, classFact, fieldCnt);
 
       if (cachedSerializers == null) {
         cachedSerializers = insert(getSerializers(o));
@@ -218,12 +218,13 @@ public abstract class ObjectSerializationNodes {
       SObject o;
 
       if (classFact.hasOnlyImmutableFields()) {
-        o = new SImmutableObject(
+        o = SAbstractImmutableObject.create(
             SnapshotBackend.lookupClass(classFact.getIdentifier()),
             classFact,
             classFact.getInstanceLayout());
       } else {
-        o = new SMutableObject(SnapshotBackend.lookupClass(classFact.getIdentifier()),
+        o = SAbstractMutableObject.create(
+            SnapshotBackend.lookupClass(classFact.getIdentifier()),
             classFact,
             classFact.getInstanceLayout());
       }
@@ -37,7 +37,7 @@ public abstract class PrimitiveSerializationNodes {
       String s = (String) o;
 
       byte[] data = s.getBytes(StandardCharsets.UTF_8);
-      int base = sb.addObject(o, classFact, data.length + 4);
+      long base = sb.addObject(o, classFact, data.length + 4);
       sb.putIntAt(base, data.length);
       sb.putBytesAt(base + 4, data);
     }
@@ -63,7 +63,7 @@ public abstract class PrimitiveSerializationNodes {
     public void serialize(final Object o, final SnapshotBuffer sb) {
       assert o instanceof Long;
       long l = (long) o;
-      int base = sb.addObject(o, classFact, Long.BYTES);
+      long base = sb.addObject(o, classFact, Long.BYTES);
       sb.putLongAt(base, l);
     }
 
@@ -84,7 +84,7 @@ public abstract class PrimitiveSerializationNodes {
     public void serialize(final Object o, final SnapshotBuffer sb) {
       assert o instanceof Double;
       double d = (double) o;
-      int base = sb.addObject(o, classFact, Double.BYTES);
+      long base = sb.addObject(o, classFact, Double.BYTES);
       sb.putDoubleAt(base, d);
     }
 
@@ -105,7 +105,7 @@ public abstract class PrimitiveSerializationNodes {
     public void serialize(final Object o, final SnapshotBuffer sb) {
       assert o instanceof Boolean;
       boolean b = (boolean) o;
-      int base = sb.addObject(o, classFact, 1);
+      long base = sb.addObject(o, classFact, 1);
       sb.putByteAt(base, (byte) (b ? 1 : 0));
     }
 
@@ -166,7 +166,7 @@ public abstract class PrimitiveSerializationNodes {
     public void serialize(final Object o, final SnapshotBuffer sb) {
       assert o instanceof SSymbol;
       SSymbol ss = (SSymbol) o;
-      int base = sb.addObject(o, classFact, 2);
+      long base = sb.addObject(o, classFact, 2);
       sb.putShortAt(base, ss.getSymbolId());
     }
 
@@ -192,7 +192,7 @@ public abstract class PrimitiveSerializationNodes {
     protected void doCached(final SClass cls, final SnapshotBuffer sb,
         @Cached("getSymbolId(cls)") final short cachedId) {
       CompilerAsserts.compilationConstant(cachedId);
-      int base = sb.addObject(cls, Classes.classClass.getFactory(), 2);
+      long base = sb.addObject(cls, Classes.classClass.getFactory(), 2);
       sb.putShortAt(base, cachedId);
     }
 
@@ -214,7 +214,7 @@ public abstract class PrimitiveSerializationNodes {
     public void serialize(final Object o, final SnapshotBuffer sb) {
       assert o instanceof SInvokable;
       SInvokable si = (SInvokable) o;
-      int base = sb.addObject(si, classFact, Short.BYTES);
+      long base = sb.addObject(si, classFact, Short.BYTES);
       sb.putShortAt(base, si.getIdentifier().getSymbolId());
     }
 
@@ -253,7 +253,7 @@ public abstract class PrimitiveSerializationNodes {
 
     @Specialization
     public void serialize(final SFarReference o, final SnapshotBuffer sb) {
-      int base = sb.addObject(o, classFact, Integer.BYTES + Long.BYTES);
+      long base = sb.addObject(o, classFact, Integer.BYTES + Long.BYTES);
       TracingActor other = (TracingActor) o.getActor();
       sb.putIntAt(base, other.getActorId());
 
@@ -29,7 +29,7 @@ public abstract class PromiseSerializationNodes {
 
     @Specialization(guards = "prom.isCompleted()")
     public void doResolved(final SPromise prom, final SnapshotBuffer sb) {
-      int base = sb.addObject(prom, classFact, 1 + Long.BYTES);
+      long base = sb.addObject(prom, classFact, 1 + Long.BYTES);
 
       // resolutionstate
       switch (prom.getResolutionStateUnsync()) {
@@ -52,106 +52,52 @@ public abstract class PromiseSerializationNodes {
 
     @Specialization(guards = "!prom.isCompleted()")
     public void doUnresolved(final SPromise prom, final SnapshotBuffer sb) {
-      int ncp;
-      int nwr;
-      int noe;
-      PromiseMessage whenRes;
-      PromiseMessage onError;
-      ArrayList<PromiseMessage> whenResExt;
-      ArrayList<PromiseMessage> onErrorExt;
-      SPromise chainedProm;
-      ArrayList<SPromise> chainedPromExt;
-      synchronized (prom) {
-        chainedProm = prom.getChainedPromiseUnsync();
-        chainedPromExt = prom.getChainedPromiseExtUnsync();
-        ncp = getObjectCnt(chainedProm, chainedPromExt);
-
-        whenRes = prom.getWhenResolvedUnsync();
-        whenResExt = prom.getWhenResolvedExtUnsync();
-        nwr = getObjectCnt(whenRes, whenResExt);
-
-        onError = prom.getOnError();
-        onErrorExt = prom.getOnErrorExtUnsync();
-        noe = getObjectCnt(onError, onErrorExt);
+      ArrayList<SPromise> chainedProms = prom.getChainedPromisesForSnapshot();
+      ArrayList<PromiseMessage> whenRes = prom.getWhenResolvedForSnapshot();
+      ArrayList<PromiseMessage> onError = prom.getOnErrorForSnapshot();
+
+      if (prom.isCompleted()) {
+        // resolved concurrently, the resolver schedules the callbacks, which
+        // may not have been in the lists anymore
+        doResolved(prom, sb);
+        return;
       }
-      int base = sb.addObject(prom, classFact, 1 + 6 + Long.BYTES * (noe + nwr + ncp));
+
+      int ncp = chainedProms.size();
+      int nwr = whenRes.size();
+      int noe = onError.size();
+
+      long base = sb.addObject(prom, classFact, 1 + 6 + Long.BYTES * (noe + nwr + ncp));
 
       // resolutionstate
       sb.putByteAt(base, (byte) 0);
       base++;
-      base = serializeWhenResolvedMsgs(base, nwr, whenRes, whenResExt, sb);
-      base = serializeOnErrorMsgs(base, noe, onError, onErrorExt, sb);
-      serializeChainedPromises(base, ncp, chainedProm, chainedPromExt, sb);
-    }
-
-    private int getObjectCnt(final Object obj, final ArrayList<? extends Object> extension) {
-      if (obj == null) {
-        return 0;
-      } else if (extension == null) {
-        return 1;
-      } else {
-        return extension.size() + 1;
-      }
-    }
-
-    private int serializeWhenResolvedMsgs(final int start, final int cnt,
-        final PromiseMessage whenRes, final ArrayList<PromiseMessage> whenResExt,
-        final SnapshotBuffer sb) {
-      int base = start;
-      sb.putShortAt(base, (short) cnt);
-      base += 2;
-      if (cnt > 0) {
-        sb.putLongAt(base, whenRes.serialize(sb));
-        base += Long.BYTES;
-
-        if (cnt > 1) {
-          for (int i = 0; i < whenResExt.size(); i++) {
-            sb.putLongAt(base + i * Long.BYTES, whenResExt.get(i).serialize(sb));
-          }
-          base += whenResExt.size() * Long.BYTES;
-        }
-      }
-      return base;
+      base = serializeMessages(base, whenRes, sb);
+      base = serializeMessages(base, onError, sb);
+      serializeChainedPromises(base, chainedProms, sb);
     }
 
-    private int serializeOnErrorMsgs(final int start, final int cnt,
-        final PromiseMessage onError, final ArrayList<PromiseMessage> onErrorExt,
+    private long serializeMessages(final long start, final ArrayList<PromiseMessage> msgs,
         final SnapshotBuffer sb) {
-      int base = start;
-      sb.putShortAt(base, (short) cnt);
+      long base = start;
+      sb.putShortAt(base, (short) msgs.size());
       base += 2;
-      if (cnt > 0) {
-        sb.putLongAt(base, onError.serialize(sb));
+      for (int i = 0; i < msgs.size(); i++) {
+        sb.putLongAt(base, msgs.get(i).serialize(sb));
         base += Long.BYTES;
-
-        if (cnt > 1) {
-          for (int i = 0; i < onErrorExt.size(); i++) {
-            sb.putLongAt(base + i * Long.BYTES, onErrorExt.get(i).serialize(sb));
-          }
-          base += onErrorExt.size() * Long.BYTES;
-        }
       }
       return base;
     }
 
-    private void serializeChainedPromises(final int start, final int cnt,
-        final SPromise chainedProm,
-        final ArrayList<SPromise> chainedPromExt, final SnapshotBuffer sb) {
-      int base = start;
-      sb.putShortAt(base, (short) cnt);
+    private void serializeChainedPromises(final long start,
+        final ArrayList<SPromise> chainedProms, final SnapshotBuffer sb) {
+      long base = start;
+      sb.putShortAt(base, (short) chainedProms.size());
       base += 2;
-      if (cnt > 0) {
-        SPromise.getPromiseClass().serialize(chainedProm, sb);
-        sb.putLongAt(base, sb.getRecord().getObjectPointer(chainedProm));
-        base += Long.BYTES;
-
-        if (cnt > 1) {
-          for (int i = 0; i < chainedPromExt.size(); i++) {
-            SPromise p = chainedPromExt.get(i);
-            SPromise.getPromiseClass().serialize(p, sb);
-            sb.putLongAt(base + i * Long.BYTES, sb.getRecord().getObjectPointer(p));
-          }
-        }
+      for (int i = 0; i < chainedProms.size(); i++) {
+        SPromise p = chainedProms.get(i);
+        SPromise.getPromiseClass().serialize(p, sb);
+        sb.putLongAt(base + i * Long.BYTES, sb.getRecord().getObjectPointer(p));
       }
     }
 
@@ -189,19 +135,19 @@ public abstract class PromiseSerializationNodes {
       int whenResolvedCnt = sb.getShort();
       for (int i = 0; i < whenResolvedCnt; i++) {
         PromiseMessage pm = (PromiseMessage) sb.getReference();
-        promise.registerWhenResolvedUnsynced(pm);
+        promise.tryRegisterWhenResolved(pm);
       }
 
       int onErrorCnt = sb.getShort();
       for (int i = 0; i < onErrorCnt; i++) {
         PromiseMessage pm = (PromiseMessage) sb.getReference();
-        promise.registerOnErrorUnsynced(pm);
+        promise.tryRegisterOnError(pm);
       }
 
       int chainedPromCnt = sb.getShort();
       for (int i = 0; i < chainedPromCnt; i++) {
         SPromise remote = (SPromise) sb.getReference();
-        promise.addChainedPromise(remote);
+        promise.tryAddChainedPromise(remote);
       }
 
       return promise;
@@ -237,7 +183,7 @@ public abstract class PromiseSerializationNodes {
 
     @Specialization
     public void doResolver(final SResolver resolver, final SnapshotBuffer sb) {
-      int base = sb.addObject(resolver, classFact, Long.BYTES);
+      long base = sb.addObject(resolver, classFact, Long.BYTES);
       SPromise prom = resolver.getPromise();
       if (prom.getOwner() == sb.getOwner().getCurrentActor()) {
         if (!sb.getRecord().containsObject(prom)) {
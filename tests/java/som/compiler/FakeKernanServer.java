@@ -0,0 +1,228 @@
+package som.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+
+/**
+ * Stands in for Kernan in web-socket mode, and replays recorded responses for the
+ * requested module names. Allows testing and benchmarking the {@link KernanClient} without
+ * Kernan.
+ *
+ * <p>
+ * The server collects <code>batchSize</code> requests before responding. If it echoes the
+ * keys of the requests, it responds to a batch in reverse order. Before each response, it
+ * sends a message that clients have to ignore. With a maximal frame size, responses are
+ * split into continuation frames, with a ping frame after the first one.
+ */
+public final class FakeKernanServer implements Closeable {
+
+  private final ServerSocket        server;
+  private final Map<String, String> recorded;
+  private final boolean             echoKeys;
+  private final int                 batchSize;
+  private final AtomicInteger       numConnections;
+  private final AtomicInteger       numRequests;
+
+  private volatile int maxFrameSize = Integer.MAX_VALUE;
+
+  /**
+   * @param recorded responses by module name, requests for other modules get a static error
+   */
+  public FakeKernanServer(final Map<String, String> recorded, final boolean echoKeys,
+      final int batchSize) throws IOException {
+    this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    this.recorded = recorded;
+    this.echoKeys = echoKeys;
+    this.batchSize = batchSize;
+    this.numConnections = new AtomicInteger();
+    this.numRequests = new AtomicInteger();
+
+    Thread acceptor = new Thread(this::acceptConnections, "Fake Kernan");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public void setMaxFrameSize(final int maxFrameSize) {
+    this.maxFrameSize = maxFrameSize;
+  }
+
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  public int getNumConnections() {
+    return numConnections.get();
+  }
+
+  public int getNumRequests() {
+    return numRequests.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+  }
+
+  private void acceptConnections() {
+    try {
+      while (true) {
+        Socket socket = server.accept();
+        numConnections.incrementAndGet();
+        Thread session = new Thread(() -> serve(socket), "Fake Kernan Session");
+        session.setDaemon(true);
+        session.start();
+      }
+    } catch (IOException e) {
+      // server closed
+    }
+  }
+
+  private void serve(final Socket socket) {
+    try (Socket s = socket) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+      // read the upgrade request up to the empty line, and accept it
+      while (readLine(in).length() > 0) {
+        // skip headers
+      }
+      out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+          + "Upgrade: websocket\r\n"
+          + "Connection: Upgrade\r\n"
+          + "Sec-WebSocket-Accept: moth\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+
+      List<JsonObject> batch = new ArrayList<>();
+      while (true) {
+        JsonObject request = readRequest(in);
+        if (request == null) {
+          return;
+        }
+        numRequests.incrementAndGet();
+
+        batch.add(request);
+        if (batch.size() >= batchSize) {
+          if (echoKeys) {
+            Collections.reverse(batch);
+          }
+          for (JsonObject r : batch) {
+            respond(out, r);
+          }
+          out.flush();
+          batch.clear();
+        }
+      }
+    } catch (IOException e) {
+      // connection closed
+    }
+  }
+
+  private void respond(final DataOutputStream out, final JsonObject request)
+      throws IOException {
+    writeFrame(out, "{\"event\":\"progress\"}");
+
+    String moduleName = request.get("modulename").getAsString();
+    String recordedResponse = recorded.get(moduleName);
+    JsonObject response;
+    if (recordedResponse == null) {
+      response = new JsonObject();
+      response.addProperty("mode", "static-error");
+      response.addProperty("message", "Unknown module " + moduleName);
+    } else {
+      response = new JsonParser().parse(recordedResponse).getAsJsonObject();
+    }
+
+    if (echoKeys) {
+      response.add("key", request.get("key"));
+    }
+    writeFrame(out, response.toString());
+  }
+
+  /**
+   * Reads a frame in the layout the {@link KernanClient} uses.
+   *
+   * @return the request, or null if the client closes the connection
+   */
+  private static JsonObject readRequest(final DataInputStream in) throws IOException {
+    int opCode = in.readUnsignedByte() & 0x0F;
+    long len = in.readUnsignedByte() & 0x7F;
+    if (len == 126) {
+      len = in.readUnsignedShort();
+    } else if (len == 127) {
+      len = in.readLong();
+    }
+    in.readFully(new byte[4]);
+
+    byte[] payload = new byte[(int) len];
+    in.readFully(payload);
+
+    if (opCode == 8) {
+      return null;
+    }
+    return new JsonParser().parse(new String(payload, StandardCharsets.UTF_8))
+                           .getAsJsonObject();
+  }
+
+  private void writeFrame(final DataOutputStream out, final String message)
+      throws IOException {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    int frameSize = maxFrameSize;
+
+    int offset = 0;
+    do {
+      int len = Math.min(frameSize, bytes.length - offset);
+      boolean last = offset + len == bytes.length;
+      int opCode = offset == 0 ? 1 : 0;
+      writeFrame(out, (last ? 0x80 : 0) | opCode, bytes, offset, len);
+
+      if (offset == 0 && !last) {
+        writeFrame(out, 0x89, new byte[0], 0, 0);
+      }
+      offset += len;
+    } while (offset < bytes.length);
+  }
+
+  private static void writeFrame(final DataOutputStream out, final int opByte,
+      final byte[] bytes, final int offset, final int len) throws IOException {
+    out.writeByte(opByte);
+    if (len < 126) {
+      out.writeByte(len);
+    } else if (len <= 0xFFFF) {
+      out.writeByte(126);
+      out.writeShort(len);
+    } else {
+      out.writeByte(127);
+      out.writeLong(len);
+    }
+    out.write(bytes, offset, len);
+  }
+
+  private static String readLine(final DataInputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) != -1 && c != '\n') {
+      if (c != '\r') {
+        line.append((char) c);
+      }
+    }
+    return line.toString();
+  }
+}
@@ -0,0 +1,147 @@
+package som.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+
+public class KernanClientTest {
+
+  private static final int NUM_MODULES = 8;
+
+  private static Map<String, String> recordedModules() {
+    Map<String, String> recorded = new HashMap<>();
+    for (int i = 0; i < NUM_MODULES; i++) {
+      recorded.put(moduleName(i), "{\"event\":\"parse-tree\",\"data\":{\"module\":"
+          + "{\"nodetype\":\"module\",\"name\":\"" + moduleName(i) + "\",\"body\":[]}}}");
+    }
+    return recorded;
+  }
+
+  private static String moduleName(final int i) {
+    return "/grace/module" + i + ".grace";
+  }
+
+  private static KernanClient.Response await(
+      final CompletableFuture<KernanClient.Response> response)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return response.get(10, TimeUnit.SECONDS);
+  }
+
+  private static void assertParseTreeFor(final int i, final KernanClient.Response response) {
+    assertTrue(response.isParseTree());
+    JsonObject module = response.getParseTree().readModule(Collections.emptySet());
+    assertEquals(moduleName(i), module.get("name").getAsString());
+  }
+
+  private static void parseAllConcurrently(final boolean echoKeys, final int batchSize)
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (FakeKernanServer server =
+        new FakeKernanServer(recordedModules(), echoKeys, batchSize);
+        KernanClient client =
+            new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort())) {
+      List<CompletableFuture<KernanClient.Response>> responses = new ArrayList<>();
+      for (int i = 0; i < NUM_MODULES; i++) {
+        responses.add(client.requestParse(moduleName(i), "method foo { }"));
+      }
+
+      for (int i = 0; i < NUM_MODULES; i++) {
+        assertParseTreeFor(i, await(responses.get(i)));
+      }
+      assertEquals(1, server.getNumConnections());
+      assertEquals(NUM_MODULES, server.getNumRequests());
+    }
+  }
+
+  @Test
+  public void testSequentialRequests()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (FakeKernanServer server = new FakeKernanServer(recordedModules(), true, 1);
+        KernanClient client =
+            new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort())) {
+      for (int i = 0; i < NUM_MODULES; i++) {
+        assertParseTreeFor(i, await(client.requestParse(moduleName(i), "")));
+      }
+      assertEquals(1, server.getNumConnections());
+    }
+  }
+
+  @Test
+  public void testPipelinedRequestsMatchedByKey()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    parseAllConcurrently(true, NUM_MODULES);
+  }
+
+  @Test
+  public void testPipelinedRequestsMatchedInOrder()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    parseAllConcurrently(false, NUM_MODULES / 2);
+  }
+
+  @Test
+  public void testStaticError()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (FakeKernanServer server = new FakeKernanServer(recordedModules(), true, 1);
+        KernanClient client =
+            new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort())) {
+      KernanClient.Response response = await(client.requestParse("/grace/unknown.grace", ""));
+      assertTrue(response.isStaticError());
+    }
+  }
+
+  @Test
+  public void testLargeModule()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      code.append("print \"line\"\n");
+    }
+
+    try (FakeKernanServer server = new FakeKernanServer(recordedModules(), true, 1);
+        KernanClient client =
+            new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort())) {
+      assertParseTreeFor(0, await(client.requestParse(moduleName(0), code.toString())));
+    }
+  }
+
+  @Test
+  public void testFragmentedResponses()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (FakeKernanServer server = new FakeKernanServer(recordedModules(), true, 2);
+        KernanClient client =
+            new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort())) {
+      server.setMaxFrameSize(7);
+      CompletableFuture<KernanClient.Response> first = client.requestParse(moduleName(0), "");
+      CompletableFuture<KernanClient.Response> second = client.requestParse(moduleName(1), "");
+      assertParseTreeFor(0, await(first));
+      assertParseTreeFor(1, await(second));
+    }
+  }
+
+  @Test
+  public void testRequestAfterCloseFails()
+      throws IOException, InterruptedException, TimeoutException {
+    try (FakeKernanServer server = new FakeKernanServer(recordedModules(), true, 1)) {
+      KernanClient client = new KernanClient(KernanClient.DEFAULT_ADDRESS, server.getPort());
+      client.close();
+
+      CompletableFuture<KernanClient.Response> response =
+          client.requestParse(moduleName(0), "");
+      assertTrue(response.isCompletedExceptionally());
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package som.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+
+public class ParseTreeTest {
+
+  private static final String MODULE = "{\"module\":{\"nodetype\":\"module\",\"line\":1,"
+      + "\"column\":1,\"body\":["
+      + "{\"nodetype\":\"def-declaration\",\"name\":\"a\",\"line\":1,\"column\":1,"
+      + "\"value\":{\"nodetype\":\"number\",\"digits\":\"1.50\"}},"
+      + "{\"nodetype\":\"method-declaration\",\"line\":2,\"column\":1,\"body\":[]}]}}";
+
+  private static ParseTree parseTree(final String json) {
+    return new ParseTree(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadCopiesOnlyTheNextValue() throws IOException {
+    JsonReader reader = new JsonReader(
+        new StringReader("{\"event\":\"parse-tree\",\"data\":" + MODULE + ",\"key\":3}"));
+    reader.beginObject();
+    assertEquals("event", reader.nextName());
+    reader.skipValue();
+    assertEquals("data", reader.nextName());
+
+    ParseTree tree = ParseTree.read(reader);
+    assertEquals("key", reader.nextName());
+    assertEquals(3, reader.nextInt());
+    assertEquals(MODULE, new String(tree.getBytes(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadModuleKeepsOnlyTheGivenFields() {
+    JsonObject module =
+        parseTree(MODULE).readModule(new HashSet<>(Arrays.asList("nodetype", "name")));
+    assertEquals("module", module.get("nodetype").getAsString());
+    assertEquals(1, module.get("line").getAsInt());
+
+    JsonObject def = module.get("body").getAsJsonArray().get(0).getAsJsonObject();
+    assertEquals("a", def.get("name").getAsString());
+    assertFalse(def.has("value"));
+    assertFalse(def.has("line"));
+  }
+
+  @Test
+  public void testModuleBodyStreamsCompleteElements() {
+    ParseTree tree = parseTree(MODULE);
+
+    // each iteration reads the tree again
+    for (int i = 0; i < 2; i++) {
+      List<JsonObject> elements = new ArrayList<>();
+      for (JsonObject e : tree.moduleBody()) {
+        elements.add(e);
+      }
+      assertEquals(2, elements.size());
+      assertEquals("1.50", elements.get(0).get("value").getAsJsonObject()
+                                         .get("digits").getAsString());
+      assertEquals("method-declaration", elements.get(1).get("nodetype").getAsString());
+    }
+  }
+
+  @Test
+  public void testIsValid() {
+    assertTrue(parseTree(MODULE).isValid());
+    assertFalse(parseTree(MODULE.substring(0, MODULE.length() - 1)).isValid());
+    assertFalse(parseTree("[]").isValid());
+  }
+}
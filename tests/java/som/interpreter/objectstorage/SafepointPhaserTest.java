@@ -1,6 +1,7 @@
 package som.interpreter.objectstorage;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
@@ -81,6 +82,18 @@ public class SafepointPhaserTest {
     });
   }
 
+  @Test
+  public void testSafepointOfSingleThreadDoesNotRequestOthers() {
+    ObjectTransitionSafepoint.reset();
+    ObjectTransitionSafepoint.INSTANCE.register();
+
+    ObjectTransitionSafepoint.INSTANCE.transitionObject(
+        new SMutableObject(instanceClass, factory, layout));
+    assertFalse(ObjectTransitionSafepoint.INSTANCE.isSafepointRequested());
+
+    ObjectTransitionSafepoint.INSTANCE.unregister();
+  }
+
   @Test
   public void testSafepointStorm() throws InterruptedException {
     ObjectTransitionSafepoint.reset();
@@ -0,0 +1,74 @@
+package som.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import som.vmobjects.SSymbol;
+
+
+public class SymbolsTest {
+
+  @Test
+  public void testSameStringGivesSameSymbol() {
+    SSymbol sym = Symbols.symbolFor("testSameString:");
+    assertSame(sym, Symbols.symbolFor(new String("testSameString:")));
+    assertEquals("testSameString:", sym.getString());
+  }
+
+  @Test
+  public void testSubstringLookup() {
+    SSymbol sym = Symbols.symbolFor("substringLookup");
+    assertSame(sym, Symbols.symbolFor("a substringLookup:", 2, 17));
+  }
+
+  @Test
+  public void testCharArrayLookup() {
+    SSymbol sym = Symbols.symbolFor("charArrayLookup");
+    char[] chars = "xxcharArrayLookupxx".toCharArray();
+    assertSame(sym, Symbols.symbolFor(chars, 2, 15));
+  }
+
+  @Test
+  public void testSymbolsHaveDistinctIds() {
+    SSymbol a = Symbols.symbolFor("distinctIdA");
+    SSymbol b = Symbols.symbolFor("distinctIdB");
+    assertNotEquals(a.getId(), b.getId());
+  }
+
+  @Test
+  public void testConcurrentCreationGivesUniqueSymbols() throws Exception {
+    final int numThreads = 8;
+    final int numSymbols = 10_000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<SSymbol[]>> results = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      results.add(executor.submit(() -> {
+        SSymbol[] symbols = new SSymbol[numSymbols];
+        for (int i = 0; i < numSymbols; i++) {
+          symbols[i] = Symbols.symbolFor("concurrent" + i);
+        }
+        return symbols;
+      }));
+    }
+
+    SSymbol[] first = results.get(0).get(10, TimeUnit.SECONDS);
+    for (Future<SSymbol[]> r : results) {
+      SSymbol[] symbols = r.get(10, TimeUnit.SECONDS);
+      for (int i = 0; i < numSymbols; i++) {
+        assertSame(first[i], symbols[i]);
+      }
+    }
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,85 @@
+package tools.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+
+public class IdentityLongMapTest {
+
+  @Test
+  public void testKeysAreComparedByIdentity() {
+    IdentityLongMap map = new IdentityLongMap();
+    String a = new String("key");
+    String b = new String("key");
+
+    assertEquals(-1, map.put(a, 1, -1));
+    assertTrue(map.containsKey(a));
+    assertFalse(map.containsKey(b));
+    assertEquals(-1, map.get(b, -1));
+  }
+
+  @Test
+  public void testPutReturnsPreviousValue() {
+    IdentityLongMap map = new IdentityLongMap();
+    Object o = new Object();
+
+    assertEquals(-1, map.put(o, 1, -1));
+    assertEquals(1, map.put(o, 2, -1));
+    assertEquals(2, map.get(o, -1));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testGrowKeepsAllEntries() {
+    IdentityLongMap map = new IdentityLongMap();
+    Object[] keys = new Object[10_000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new Object();
+      map.put(keys[i], i, -1);
+    }
+
+    assertEquals(keys.length, map.size());
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(i, map.get(keys[i], -1));
+    }
+
+    map.clear();
+    assertEquals(0, map.size());
+    assertFalse(map.containsKey(keys[0]));
+  }
+
+  @Test
+  public void testWeakKeysDoNotKeepObjectsAlive() throws InterruptedException {
+    IdentityLongMap map = new IdentityLongMap(true);
+    Object kept = new Object();
+    map.put(kept, 0, -1);
+
+    WeakReference<Object> collected = new WeakReference<>(new Object());
+    map.put(collected.get(), 1, -1);
+
+    for (int i = 0; i < 100 && collected.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(collected.get());
+
+    // growing the table drops the entries of collected keys
+    Object[] keys = new Object[1_000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new Object();
+      map.put(keys[i], i + 2, -1);
+    }
+
+    assertEquals(0, map.get(kept, -1));
+    assertEquals(keys.length + 1, map.size());
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(i + 2, map.get(keys[i], -1));
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package tools.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+public class LongObjectMapTest {
+
+  @Test
+  public void testNullValueIsDistinctFromMissingEntry() {
+    LongObjectMap<Object> map = new LongObjectMap<>();
+    map.put(42, null);
+
+    assertTrue(map.containsKey(42));
+    assertNull(map.get(42));
+    assertFalse(map.containsKey(43));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testPutReplacesValue() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    map.put(7, "a");
+    map.put(7, "b");
+
+    assertEquals("b", map.get(7));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testGrowKeepsAllEntries() {
+    LongObjectMap<Long> map = new LongObjectMap<>();
+    // references of one thread, which only differ in their position
+    long thread = 3L << SnapshotBuffer.THREAD_SHIFT;
+    for (long i = 0; i < 10_000; i++) {
+      map.put(thread | (i * 24), i);
+    }
+
+    assertEquals(10_000, map.size());
+    for (long i = 0; i < 10_000; i++) {
+      assertEquals(Long.valueOf(i), map.get(thread | (i * 24)));
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package tools.snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.graalvm.collections.MapCursor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tools.snapshot.deserialization.SnapshotChain;
+
+
+public class SnapshotChainTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static long ref(final long thread, final int version, final long position) {
+    return (thread << SnapshotBuffer.THREAD_SHIFT)
+        | ((version & 0xFFL) << SnapshotBuffer.VERSION_SHIFT) | position;
+  }
+
+  private static void putSegment(final ByteBuffer file, final long reference,
+      final long... values) {
+    file.putLong(reference);
+    file.putInt(values.length * Long.BYTES);
+    for (long v : values) {
+      file.putLong(v);
+    }
+  }
+
+  private File write(final String name, final ByteBuffer content) throws IOException {
+    File f = folder.newFile(name);
+    try (FileOutputStream out = new FileOutputStream(f)) {
+      out.write(content.array(), 0, content.position());
+    }
+    return f;
+  }
+
+  private static ByteBuffer newFile() {
+    return ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  public void testSegmentsAreFoundByPosition() throws IOException {
+    ByteBuffer base = newFile();
+    // the second segment of thread 1 is written before the first one
+    putSegment(base, ref(1, 0, 16), 3, 4);
+    putSegment(base, ref(2, 0, 0), 42);
+    putSegment(base, ref(1, 0, 0), 1, 2);
+
+    SnapshotChain chain = new SnapshotChain(Arrays.asList(write("base.snap", base)));
+
+    assertEquals(1, chain.getSegment(ref(1, 0, 0)).getLong());
+    assertEquals(2, chain.getSegment(ref(1, 0, 8)).getLong());
+    assertEquals(3, chain.getSegment(ref(1, 0, 16)).getLong());
+
+    ByteBuffer segment = chain.getSegment(ref(1, 0, 24));
+    assertEquals(8, segment.position());
+    assertEquals(4, segment.getLong());
+
+    assertEquals(42, chain.getSegment(ref(2, 0, 0)).getLong());
+    assertNull(chain.getSegment(ref(3, 0, 0)));
+    assertEquals(3 * SnapshotWriter.SEGMENT_HEADER_SIZE + 5 * Long.BYTES, chain.getSize());
+  }
+
+  @Test
+  public void testDeltasAreSeparateSpaces() throws IOException {
+    ByteBuffer base = newFile();
+    putSegment(base, ref(1, 0, 0), 1, 2);
+
+    ByteBuffer delta = newFile();
+    putSegment(delta, ref(1, 1, 0), 5);
+
+    SnapshotChain chain = new SnapshotChain(
+        Arrays.asList(write("base.snap", base), write("delta.snap", delta)));
+
+    assertEquals(2, chain.getSegment(ref(1, 0, 8)).getLong());
+    assertEquals(5, chain.getSegment(ref(1, 1, 0)).getLong());
+  }
+
+  @Test
+  public void testRootsAreGroupedByThread() throws IOException {
+    long rootTable = SnapshotBuffer.ROOT_TABLE;
+
+    ByteBuffer base = newFile();
+    putSegment(base, ref(1, 0, 0), 1, 2);
+    putSegment(base, ref(2, 0, 0), 3);
+    putSegment(base, ref(rootTable, 0, 0), ref(1, 0, 0));
+    putSegment(base, ref(rootTable, 0, 0), ref(2, 0, 0));
+    putSegment(base, ref(rootTable, 0, 0), ref(1, 0, 8));
+
+    SnapshotChain chain = new SnapshotChain(Arrays.asList(write("base.snap", base)));
+
+    MapCursor<Long, long[]> roots = chain.getRoots();
+    int numThreads = 0;
+    while (roots.advance()) {
+      numThreads += 1;
+      if (roots.getKey() == 1) {
+        assertArrayEquals(new long[] {ref(1, 0, 0), ref(1, 0, 8)}, roots.getValue());
+      } else {
+        assertEquals(2L, (long) roots.getKey());
+        assertArrayEquals(new long[] {ref(2, 0, 0)}, roots.getValue());
+      }
+    }
+    assertEquals(2, numThreads);
+  }
+
+  @Test
+  public void testForwardingsAreFollowed() throws IOException {
+    long forwardingTable = SnapshotBuffer.FORWARDING_TABLE;
+
+    ByteBuffer base = newFile();
+    putSegment(base, ref(1, 0, 0), 1, 2);
+
+    ByteBuffer delta1 = newFile();
+    putSegment(delta1, ref(1, 1, 0), 3);
+    putSegment(delta1, ref(forwardingTable, 1, 0), ref(1, 0, 8), ref(1, 1, 0));
+
+    ByteBuffer delta2 = newFile();
+    putSegment(delta2, ref(2, 2, 0), 4);
+    putSegment(delta2, ref(forwardingTable, 2, 0), ref(1, 1, 0), ref(2, 2, 0));
+
+    SnapshotChain chain = new SnapshotChain(Arrays.asList(write("base.snap", base),
+        write("delta1.snap", delta1), write("delta2.snap", delta2)));
+
+    assertEquals(ref(1, 0, 0), chain.resolve(ref(1, 0, 0)));
+    assertEquals(ref(2, 2, 0), chain.resolve(ref(1, 0, 8)));
+    assertEquals(ref(2, 2, 0), chain.resolve(ref(1, 1, 0)));
+    assertNull(chain.getSegment(ref(forwardingTable, 1, 0)));
+  }
+}
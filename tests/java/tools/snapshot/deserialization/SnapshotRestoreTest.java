@@ -0,0 +1,220 @@
+package tools.snapshot.deserialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tools.snapshot.SnapshotBuffer;
+
+
+public class SnapshotRestoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final short CELL = 1;
+  private static final short BOX  = 2;
+  private static final short LEAF = 3;
+
+  private static final long ROOT_TABLE = SnapshotBuffer.ROOT_TABLE;
+
+  private final ForkJoinPool pool = new ForkJoinPool(2);
+
+  /** Counted down by each box, before it reads its value. */
+  private final CountDownLatch boxesStarted = new CountDownLatch(2);
+
+  /** Reached by each cell, before it reads its value. */
+  private final CyclicBarrier cellsClaimed = new CyclicBarrier(2);
+
+  /** Handles incomplete values, like the serializers of objects with slots. */
+  private static final class Cell {
+    Object value;
+  }
+
+  /** Requires complete values, like the serializer of promise resolvers. */
+  private static final class Box {
+    final Object value;
+
+    Box(final Object value) {
+      if (value == null) {
+        throw new IllegalStateException("Box got an incomplete value");
+      }
+      this.value = value;
+    }
+  }
+
+  private final class TestBuffer extends ParallelDeserializationBuffer {
+    TestBuffer(final SnapshotChain chain, final ConcurrentHashMap<Long, Object> deserialized) {
+      super(chain, deserialized);
+    }
+
+    @Override
+    protected Object readObject(final short classId) {
+      switch (classId) {
+        case CELL:
+          return readCell();
+        case BOX:
+          boxesStarted.countDown();
+          return new Box(getReference());
+        case LEAF:
+          return readLeaf();
+        default:
+          throw new IllegalArgumentException("Unknown class id " + classId);
+      }
+    }
+
+    private Cell readCell() {
+      Cell c = new Cell();
+      block(() -> cellsClaimed.await(5, TimeUnit.SECONDS));
+
+      Object value = getReference();
+      if (needsFixup(value)) {
+        installFixup(new FixupInformation() {
+          @Override
+          public void fixUp(final Object o) {
+            c.value = o;
+          }
+        });
+      } else {
+        c.value = value;
+      }
+      return c;
+    }
+
+    private Long readLeaf() {
+      long value = getLong();
+      // keep the leaf claimed until the other box reached it
+      block(() -> boxesStarted.await(5, TimeUnit.SECONDS));
+      block(() -> Thread.sleep(50));
+      return value;
+    }
+  }
+
+  private interface Blocking {
+    void run() throws Exception;
+  }
+
+  private static void block(final Blocking b) {
+    try {
+      b.run();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @After
+  public void shutdownPool() {
+    pool.shutdownNow();
+  }
+
+  private static long ref(final long thread, final long position) {
+    return (thread << SnapshotBuffer.THREAD_SHIFT) | position;
+  }
+
+  private static ByteBuffer newBuffer() {
+    return ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void putEntry(final ByteBuffer segment, final short classId,
+      final long value) {
+    segment.putShort(classId);
+    segment.putLong(value);
+  }
+
+  private static final int ENTRY_SIZE = Short.BYTES + Long.BYTES;
+
+  private static void putSegment(final ByteBuffer file, final long reference,
+      final ByteBuffer data) {
+    file.putLong(reference);
+    file.putInt(data.position());
+    file.put(data.array(), 0, data.position());
+  }
+
+  private static void putRoots(final ByteBuffer file, final long... roots) {
+    ByteBuffer table = newBuffer();
+    for (long r : roots) {
+      table.putLong(r);
+    }
+    putSegment(file, ref(ROOT_TABLE, 0), table);
+  }
+
+  private List<Object> restore(final ByteBuffer content) throws IOException {
+    File f = folder.newFile("base.snap");
+    try (FileOutputStream out = new FileOutputStream(f)) {
+      out.write(content.array(), 0, content.position());
+    }
+
+    SnapshotChain chain = new SnapshotChain(Arrays.asList(f));
+    return SnapshotRestore.restore(chain, pool, TestBuffer::new);
+  }
+
+  @Test
+  public void testObjectOfOtherThreadIsAwaited() throws IOException {
+    long leaf = ref(1, 0);
+    long box1 = ref(1, ENTRY_SIZE);
+    long box2 = ref(2, 0);
+
+    ByteBuffer thread1 = newBuffer();
+    putEntry(thread1, LEAF, 42);
+    putEntry(thread1, BOX, leaf);
+
+    ByteBuffer thread2 = newBuffer();
+    putEntry(thread2, BOX, leaf);
+
+    ByteBuffer file = newBuffer();
+    putSegment(file, ref(1, 0), thread1);
+    putSegment(file, ref(2, 0), thread2);
+    putRoots(file, box1);
+    putRoots(file, box2);
+
+    List<Object> messages = restore(file);
+
+    assertEquals(2, messages.size());
+    Object value1 = ((Box) messages.get(0)).value;
+    Object value2 = ((Box) messages.get(1)).value;
+    assertEquals(42L, value1);
+    assertSame(value1, value2);
+  }
+
+  @Test
+  public void testCycleAcrossThreadsIsFixedUp() throws IOException {
+    long cell1 = ref(1, 0);
+    long cell2 = ref(2, 0);
+
+    ByteBuffer thread1 = newBuffer();
+    putEntry(thread1, CELL, cell2);
+
+    ByteBuffer thread2 = newBuffer();
+    putEntry(thread2, CELL, cell1);
+
+    ByteBuffer file = newBuffer();
+    putSegment(file, ref(1, 0), thread1);
+    putSegment(file, ref(2, 0), thread2);
+    putRoots(file, cell1);
+    putRoots(file, cell2);
+
+    List<Object> messages = restore(file);
+
+    assertEquals(2, messages.size());
+    Cell c1 = (Cell) messages.get(0);
+    Cell c2 = (Cell) messages.get(1);
+    assertSame(c2, c1.value);
+    assertSame(c1, c2.value);
+  }
+}
@@ -0,0 +1,36 @@
+#!/bin/bash
+# quit on first error
+set -e
+
+## Determine absolute path of script
+pushd `dirname $0` > /dev/null
+SCRIPT_PATH=`pwd`
+popd > /dev/null
+
+SOM_DIR=$SCRIPT_PATH/../..
+
+echo "TestSuite with lazily parsed methods:"
+$SOM_DIR/som -G -D som.lazyMethods=true -D som.parseStats=true \
+  $SOM_DIR/core-lib/TestSuite/TestRunner.ns
+
+echo ""
+echo "Syntax error is reported on first call:"
+set +e
+OUTPUT=`$SOM_DIR/som -G -D som.lazyMethods=true $SCRIPT_PATH/BrokenMethod.ns 2>&1`
+EXIT_CODE=$?
+set -e
+echo "$OUTPUT"
+
+if [ $EXIT_CODE -eq 0 ]; then
+  echo "FAILED: expected a non-zero exit code"
+  exit 1
+fi
+if ! echo "$OUTPUT" | grep -q "^loaded"; then
+  echo "FAILED: module was not loaded before the method was called"
+  exit 1
+fi
+if ! echo "$OUTPUT" | grep -q "BrokenMethod.ns:5:.*error:"; then
+  echo "FAILED: expected the syntax error in line 5"
+  exit 1
+fi
+echo "OK"
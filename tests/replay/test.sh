@@ -30,6 +30,10 @@ else
     "TrapezoidalApproximation 1 0 100:1000000:1:5"
     "AStarSearch 1 0 100:20"
     "NQueens 1 0 20:10:4"
+    # many actors send to each other while the receivers execute, so their expected
+    # messages are decoded lazily by senders and executors concurrently, and each
+    # actor's messages span many contexts of the trace
+    "BigContention 1 0 200:1000"
   ) 
 
   declare -a Validation=(